@@ -0,0 +1,122 @@
+#version 460 core
+
+// the position of the vertex in the patch, x and z between 0 and 1
+layout(location = 0) in vec3 position;
+
+// output values
+out vec4 passColor;
+out vec4 passNormal;
+out vec3 passFragPos;
+
+// the view and projection matrices to render at
+uniform mat4 view;
+uniform mat4 projection;
+
+// the position of the camera
+uniform vec3 viewPos;
+
+// the node being drawn - its lowest corner and its size
+uniform vec2 nodeOffset;
+uniform float nodeSize;
+
+// the distances at which the node starts and finishes morphing into its parent
+uniform vec2 morphRange;
+
+// the amount of cells along each side of the patch
+uniform float gridCells;
+
+// the lowest and highest height the terrain can reach, distances are measured to this slab
+uniform vec2 heightRange;
+
+// the terrain color and the height where the noise is 1
+uniform vec4 color;
+uniform float heightScale;
+
+// the noise octaves - a row of 512 permutation entries each, and the feature size and weight of each
+uniform sampler2D permutations;
+uniform int octaveCount;
+uniform float frequencies[16];
+uniform float amplitudes[16];
+
+// skewing and unskewing factors for 2 dimensions, the same as SimplexNoiseOctave
+const float F2 = 0.366025403784;
+const float G2 = 0.211324865405;
+
+// the x and y components of the gradients, the same as SimplexNoiseOctave
+const vec2 GRAD[12] = vec2[](
+        vec2(1, 1), vec2(-1, 1), vec2(1, -1), vec2(-1, -1),
+        vec2(1, 0), vec2(-1, 0), vec2(1, 0), vec2(-1, 0),
+        vec2(0, 1), vec2(0, -1), vec2(0, 1), vec2(0, -1));
+
+// reads an entry of an octave's permutation
+int perm(int octave, int i) {
+    return int(texelFetch(permutations, ivec2(i, octave), 0).r);
+}
+
+// adds the contribution of one simplex corner and its derivative
+float corner(vec2 p, int gradient, inout vec2 derivative) {
+    float t = 0.5 - dot(p, p);
+    if (t < 0.0) {
+        return 0.0;
+    }
+    vec2 g = GRAD[gradient];
+    float d = dot(g, p), tt = t * t;
+    derivative += tt * tt * g - 8.0 * tt * t * d * p;
+    return tt * tt * d;
+}
+
+// one octave of 2D simplex noise and its derivative, the same as SimplexNoiseOctave.noise(x, y, derivative)
+float simplex(int octave, vec2 v, out vec2 derivative) {
+    float s = (v.x + v.y) * F2;
+    ivec2 i = ivec2(floor(v + s));
+    float t = float(i.x + i.y) * G2;
+    vec2 p0 = (v - vec2(i)) + t;
+    ivec2 i1 = p0.x > p0.y ? ivec2(1, 0) : ivec2(0, 1);
+    vec2 p1 = p0 - vec2(i1) + G2;
+    vec2 p2 = p0 - 1.0 + 2.0 * G2;
+
+    int ii = i.x & 255, jj = i.y & 255;
+    int g0 = perm(octave, ii + perm(octave, jj)) % 12;
+    int g1 = perm(octave, ii + i1.x + perm(octave, jj + i1.y)) % 12;
+    int g2 = perm(octave, ii + 1 + perm(octave, jj + 1)) % 12;
+
+    derivative = vec2(0.0);
+    float n = corner(p0, g0, derivative) + corner(p1, g1, derivative) + corner(p2, g2, derivative);
+    derivative *= 70.0;
+    return 70.0 * n;
+}
+
+// the terrain height and its slope along x and z, the same as SimplexNoise.getNoise2D times the height scale
+float terrainHeight(vec2 xz, out vec2 slope) {
+    float height = 0.0;
+    slope = vec2(0.0);
+    for (int o = 0; o < octaveCount; o++) {
+        vec2 derivative;
+        height += simplex(o, xz / frequencies[o], derivative) * amplitudes[o];
+        slope += derivative * (amplitudes[o] / frequencies[o]);
+    }
+    slope *= heightScale;
+    return height * heightScale;
+}
+
+void main() {
+    vec2 world = nodeOffset + position.xz * nodeSize;
+
+    // the distance to the camera, measured the same way as TerrainQuadTree so the morph matches the node selection
+    float dy = max(max(heightRange.x - viewPos.y, viewPos.y - heightRange.y), 0.0);
+    float distance = length(vec3(world.x - viewPos.x, dy, world.y - viewPos.z));
+    float morph = clamp((distance - morphRange.x) / (morphRange.y - morphRange.x), 0.0, 1.0);
+
+    // the odd vertices slide onto their even neighbours, so a fully morphed node matches the grid of its parent
+    vec2 odd = fract(position.xz * gridCells * 0.5) * 2.0 / gridCells;
+    world -= odd * nodeSize * morph;
+
+    vec2 slope;
+    vec3 worldPosition = vec3(world.x, terrainHeight(world, slope), world.y);
+    gl_Position = projection * view * vec4(worldPosition, 1.0);
+    passFragPos = worldPosition;
+
+    // the surface y = h(x, z) has the normal (-dh/dx, 1, -dh/dz)
+    passNormal = vec4(normalize(vec3(-slope.x, 1.0, -slope.y)), 0.0);
+    passColor = color;
+}
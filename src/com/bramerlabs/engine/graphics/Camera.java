@@ -267,6 +267,19 @@ public class Camera {
         return rotation;
     }
 
+    /**
+     * finds the direction the camera is looking in from its rotation
+     * @return - a unit vector pointing forward
+     */
+    public Vector3f getForward() {
+        double pitch = Math.toRadians(rotation.getX());
+        double yaw = Math.toRadians(rotation.getY());
+        return new Vector3f(
+                (float) (-Math.sin(yaw) * Math.cos(pitch)),
+                (float) Math.sin(pitch),
+                (float) (-Math.cos(yaw) * Math.cos(pitch)));
+    }
+
     /**
      * getter method
      * @return - the vertical angle
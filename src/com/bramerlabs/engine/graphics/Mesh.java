@@ -1,7 +1,6 @@
 package com.bramerlabs.engine.graphics;
 
-import com.bramerlabs.engine.math.Vector2f;
-import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.engine.math.Vector4f;
 import org.lwjgl.opengl.*;
 import org.lwjgl.system.MemoryUtil;
 
@@ -11,9 +10,8 @@ import java.util.ArrayList;
 
 public class Mesh {
 
-    // the vertices and indices of this mesh
-    private Vertex[] vertices;
-    private int[] indices;
+    // the vertices and indices of this mesh, one array per attribute, null for a mesh built straight into buffers
+    private MeshData data;
 
     // the material this mesh is made of
     private Material material = null;
@@ -42,14 +40,36 @@ public class Mesh {
     // texture buffer object
     private int tbo;
 
+    // the buffer object holding every attribute of every vertex, for interleaved meshes
+    private int vbo;
+
+    // if the attributes of each vertex are interleaved in a single buffer, rather than each kept in a buffer of its own
+    private boolean interleaved = false;
+
+    // the amount of vertices and indices the buffers have room for
+    private int vertexCapacity, indexCapacity;
+
+    // the vertex data of a mesh built straight into buffers, null for meshes made of vertices
+    private FloatBuffer positionData, normalData;
+    private IntBuffer indexData;
+
+    // the vertex data of a mesh built straight into an interleaved buffer, and the layout of its vertices
+    private FloatBuffer vertexData;
+    private VertexLayout layout;
+
+    // the color of every vertex of a mesh built straight into buffers
+    private Vector4f color;
+
+    // if the buffers of a mesh built straight into buffers came from MemoryUtil and are freed with the mesh
+    private boolean ownsData = false;
+
     /**
      * default constructor for specified vertices and indices
      * @param vertices - the vertices of this mesh
      * @param indices - the indices of this mesh
      */
     public Mesh(Vertex[] vertices, int[] indices) {
-        this.vertices = vertices;
-        this.indices = indices;
+        this(MeshData.fromVertices(vertices, indices));
     }
 
     /**
@@ -59,9 +79,7 @@ public class Mesh {
      * @param material - the material this mesh is made of
      */
     public Mesh(Vertex[] vertices, int[] indices, Material material) {
-        this.vertices = vertices;
-        this.indices = indices;
-        this.material = material;
+        this(MeshData.fromVertices(vertices, indices), material);
     }
 
     /**
@@ -69,15 +87,74 @@ public class Mesh {
      * @param vertices - the list of vertices
      */
     public Mesh(ArrayList<Vertex> vertices) {
-        this.vertices = new Vertex[vertices.size()];
+        int[] indices = new int[vertices.size()];
         for (int i = 0; i < vertices.size(); i++) {
-            this.vertices[i] = vertices.get(i);
+            indices[i] = i;
         }
+        this.data = MeshData.fromVertices(vertices.toArray(new Vertex[0]), indices);
+    }
 
-        this.indices = new int[vertices.size()];
-        for (int i = 0; i < vertices.size(); i++) {
-            this.indices[i] = i;
+    /**
+     * constructor for vertices kept as one array per attribute
+     * @param data - the vertices and indices of this mesh
+     */
+    public Mesh(MeshData data) {
+        this.data = data;
+    }
+
+    /**
+     * constructor for vertices kept as one array per attribute, and a material
+     * @param data - the vertices and indices of this mesh, with texture coordinates
+     * @param material - the material this mesh is made of
+     */
+    public Mesh(MeshData data, Material material) {
+        this.data = data;
+        this.material = material;
+    }
+
+    /**
+     * constructor for a mesh built straight into buffers, without vertex objects
+     * the mesh has no color buffer, every vertex is drawn in the same color
+     * @param positions - three floats per vertex
+     * @param normals - three floats per vertex
+     * @param indices - three indices per triangle
+     * @param color - the color of every vertex
+     */
+    public Mesh(FloatBuffer positions, FloatBuffer normals, IntBuffer indices, Vector4f color) {
+        if (positions.remaining() != normals.remaining() || positions.remaining() % 3 != 0) {
+            throw new IllegalArgumentException("Expected three position and three normal floats per vertex, got "
+                    + positions.remaining() + " and " + normals.remaining() + ".");
         }
+        this.positionData = positions;
+        this.normalData = normals;
+        this.indexData = indices;
+        this.color = color;
+    }
+
+    /**
+     * constructor for a mesh built straight into a single interleaved buffer, without vertex objects
+     * the mesh is always interleaved
+     * @param vertexData - the vertices, one after another, each laid out as the layout says
+     * @param layout - the layout of the vertices - without tangents, which a mesh of buffers cannot compute
+     * @param indices - three indices per triangle
+     * @param color - the color of every vertex if the layout has no color, otherwise null
+     */
+    public Mesh(FloatBuffer vertexData, VertexLayout layout, IntBuffer indices, Vector4f color) {
+        if (vertexData.remaining() % layout.getStride() != 0) {
+            throw new IllegalArgumentException("Expected " + layout.getStride() + " floats per vertex, got "
+                    + vertexData.remaining() + " floats.");
+        }
+        if (layout.has(VertexLayout.Attribute.TANGENT) || layout.has(VertexLayout.Attribute.BITANGENT)) {
+            throw new IllegalArgumentException("A mesh built straight into a buffer cannot have tangents.");
+        }
+        if (color == null && !layout.has(VertexLayout.Attribute.COLOR) && !layout.has(VertexLayout.Attribute.TEXTURE_COORD)) {
+            throw new IllegalArgumentException("A layout without colors needs the color of every vertex.");
+        }
+        this.vertexData = vertexData;
+        this.layout = layout;
+        this.indexData = indices;
+        this.color = color;
+        this.interleaved = true;
     }
 
     /**
@@ -88,190 +165,276 @@ public class Mesh {
         vao = GL46.glGenVertexArrays();
         GL46.glBindVertexArray(vao);
 
+        if (interleaved) {
+            makeInterleavedBuffer();
+            makeIndexBuffer();
+            vertexCapacity = getVertexCount();
+            indexCapacity = getIndexCount();
+            return;
+        }
+
+        // a mesh built straight into buffers uploads them as they are
+        if (positionData != null) {
+            pbo = storeData(positionData, 0, 3);
+            nbo = storeData(normalData, 2, 3);
+            makeIndexBuffer();
+            vertexCapacity = getVertexCount();
+            indexCapacity = getIndexCount();
+            return;
+        }
+
         // create the buffers
         makePositionBuffer();
         makeNormalBuffer();
 
-        // if there is a material, make the texture buffer
+        // if there is a material, make the texture buffer, otherwise the color buffer if the vertices have colors
         if (material != null) {
             makeTextureBuffer();
             makeTangentBuffer();
-        } else {
+        } else if (data.getColors() != null) {
             makeColorBuffer();
         }
 
         makeIndexBuffer();
+
+        vertexCapacity = getVertexCount();
+        indexCapacity = getIndexCount();
     }
 
     /**
-     * creates tangent buffer
+     * replaces the vertices and indices of this mesh, patching the buffers in place rather than recreating them
+     * converts the vertices to arrays first, see update(MeshData, int, int, int)
+     * @param vertices - the new vertices
+     * @param indices - the new indices
+     * @param firstVertex - the first vertex that changed
+     * @param firstIndex - the first index that changed
+     * @param indexEnd - the index after the last one that changed
      */
-    private void makeTangentBuffer() {
+    public void update(Vertex[] vertices, int[] indices, int firstVertex, int firstIndex, int indexEnd) {
+        update(MeshData.fromVertices(vertices, indices), firstVertex, firstIndex, indexEnd);
+    }
 
-        // iterate over all triangles
-        for (int i = 0; i < indices.length; i += 3) {
-            // get the vertices in this triangle
-            Vertex v1 = vertices[indices[i    ]];
-            Vertex v2 = vertices[indices[i + 1]];
-            Vertex v3 = vertices[indices[i + 2]];
+    /**
+     * replaces the vertices and indices of this mesh, patching the buffers in place rather than recreating them
+     * only the vertices from firstVertex on and the indices from firstIndex to indexEnd are uploaded, everything
+     * before them must be unchanged. if the data has outgrown the buffers they are recreated with room to grow.
+     * must be called from the render thread if the mesh has been created
+     * @param data - the new vertices and indices, with colors and normals
+     * @param firstVertex - the first vertex that changed
+     * @param firstIndex - the first index that changed
+     * @param indexEnd - the index after the last one that changed
+     */
+    public void update(MeshData data, int firstVertex, int firstIndex, int indexEnd) {
+        if (positionData != null || vertexData != null) {
+            throw new IllegalStateException("A mesh built straight into buffers cannot be updated.");
+        }
+        this.data = data;
+        int vertexCount = data.getVertexCount();
+        int[] indices = data.getIndices();
+        if (vao == 0) {
+            return;
+        }
+        if (material != null) {
+            throw new IllegalStateException("Only untextured meshes can be updated in place.");
+        }
 
-            // calculate the edge vectors
-            Vector3f edge1 = Vector3f.subtract(v2.getPosition(), v1.getPosition());
-            Vector3f edge2 = Vector3f.subtract(v3.getPosition(), v1.getPosition());
+        // grow the buffers by half again, so that a run of small updates does not recreate them every time
+        if (vertexCount > vertexCapacity || indices.length > indexCapacity) {
+            vertexCapacity = Math.max(vertexCapacity, vertexCount + vertexCount / 2);
+            indexCapacity = Math.max(indexCapacity, indices.length + indices.length / 2);
+            if (interleaved) {
+                allocateData(vbo, vertexCapacity * (long) getLayout().getStride() * Float.BYTES);
+            } else {
+                allocateData(pbo, vertexCapacity * 3L * Float.BYTES);
+                allocateData(nbo, vertexCapacity * 3L * Float.BYTES);
+                if (cbo != 0) {
+                    allocateData(cbo, vertexCapacity * 4L * Float.BYTES);
+                }
+            }
+            allocateData(ibo, indexCapacity * (long) Integer.BYTES);
+            firstVertex = 0;
+            firstIndex = 0;
+            indexEnd = indices.length;
+        }
 
-            // calculate the difference in texture coord
-            Vector2f deltaUV1 = Vector2f.subtract(v2.getTextureCoord(), v1.getTextureCoord());
-            Vector2f deltaUV2 = Vector2f.subtract(v3.getTextureCoord(), v1.getTextureCoord());
+        int count = vertexCount - firstVertex;
+        if (count > 0 && interleaved) {
+            VertexLayout layout = getLayout();
+            FloatBuffer vertexBuffer = MemoryUtil.memAllocFloat(count * layout.getStride());
+            for (int i = firstVertex; i < vertexCount; i++) {
+                layout.put(data, i, vertexBuffer);
+            }
+            vertexBuffer.flip();
+
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+            GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, firstVertex * (long) layout.getStride() * Float.BYTES, vertexBuffer);
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+
+            MemoryUtil.memFree(vertexBuffer);
+        } else if (count > 0) {
+            FloatBuffer positionBuffer = MemoryUtil.memAllocFloat(count * 3);
+            FloatBuffer normalBuffer = MemoryUtil.memAllocFloat(count * 3);
+            positionBuffer.put(data.getPositions(), 3 * firstVertex, 3 * count);
+            normalBuffer.put(data.getNormals(), 3 * firstVertex, 3 * count);
+            positionBuffer.flip();
+            normalBuffer.flip();
+
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, pbo);
+            GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, firstVertex * 3L * Float.BYTES, positionBuffer);
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, nbo);
+            GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, firstVertex * 3L * Float.BYTES, normalBuffer);
+
+            // a mesh without colors has no color buffer, as when it was created
+            if (cbo != 0) {
+                FloatBuffer colorBuffer = MemoryUtil.memAllocFloat(count * 4);
+                colorBuffer.put(data.getColors(), 4 * firstVertex, 4 * count).flip();
+                GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, cbo);
+                GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, firstVertex * 4L * Float.BYTES, colorBuffer);
+                MemoryUtil.memFree(colorBuffer);
+            }
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
 
-            // calculate fractional f
-            float f = 1.0f / (deltaUV1.getX() * deltaUV2.getY() - deltaUV2.getX() * deltaUV1.getY());
+            MemoryUtil.memFree(positionBuffer);
+            MemoryUtil.memFree(normalBuffer);
+        }
 
-            float tx = f * (deltaUV2.getY() * edge1.getX() - deltaUV1.getY() * edge2.getX());
-            float ty = f * (deltaUV2.getY() * edge1.getY() - deltaUV1.getY() * edge2.getY());
-            float tz = f * (deltaUV2.getY() * edge1.getZ() - deltaUV1.getY() * edge2.getZ());
+        if (indexEnd > firstIndex) {
+            IntBuffer indicesBuffer = MemoryUtil.memAllocInt(indexEnd - firstIndex);
+            indicesBuffer.put(indices, firstIndex, indexEnd - firstIndex).flip();
 
-            float bx = f * (-deltaUV2.getX() * edge1.getX() + deltaUV1.getX() * edge2.getX());
-            float by = f * (-deltaUV2.getX() * edge1.getY() + deltaUV1.getX() * edge2.getY());
-            float bz = f * (-deltaUV2.getX() * edge1.getZ() + deltaUV1.getX() * edge2.getZ());
+            // the index buffer is bound as an array buffer so that the element binding of the vertex array is kept
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, ibo);
+            GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, firstIndex * (long) Integer.BYTES, indicesBuffer);
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
 
-            Vector3f tangent = new Vector3f(tx, ty, tz);
-            Vector3f bitangent = new Vector3f(bx, by, bz);
+            MemoryUtil.memFree(indicesBuffer);
+        }
+    }
 
-            // set the tangents
-            if (!v1.hasTangent()) {
-                v1.setTangent(tangent);
-            }
-            if (!v2.hasTangent()) {
-                v2.setTangent(tangent);
-            }
-            if (!v3.hasTangent()) {
-                v3.setTangent(tangent);
-            }
+    /**
+     * helper method to resize a buffer object, discarding its contents
+     * @param bufferID - the buffer to resize
+     * @param bytes - the new size in bytes
+     */
+    private void allocateData(int bufferID, long bytes) {
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, bufferID);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, bytes, GL15.GL_DYNAMIC_DRAW);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+    }
 
-            // set the bitangents
-            if (!v1.hasBitangent()) {
-                v1.setBitangent(bitangent);
-            }
-            if (!v2.hasBitangent()) {
-                v2.setBitangent(bitangent);
+    /**
+     * helper method to create the interleaved buffer object, one whole vertex after another, and point every attribute
+     * of the layout at it
+     */
+    private void makeInterleavedBuffer() {
+        VertexLayout layout = getLayout();
+        if (material != null) {
+            data.computeTangents();
+        }
+
+        if (vertexData != null) {
+            vbo = GL15.glGenBuffers();
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+            GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertexData, GL15.GL_STATIC_DRAW);
+            layout.pointInterleaved();
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+            return;
+        }
+
+        FloatBuffer vertexBuffer = MemoryUtil.memAllocFloat(getVertexCount() * layout.getStride());
+        if (positionData != null) {
+            int first = positionData.position();
+            for (int i = first; i < positionData.limit(); i += 3) {
+                vertexBuffer.put(positionData.get(i)).put(positionData.get(i + 1)).put(positionData.get(i + 2));
+                int n = normalData.position() + i - first;
+                vertexBuffer.put(normalData.get(n)).put(normalData.get(n + 1)).put(normalData.get(n + 2));
             }
-            if (!v3.hasBitangent()) {
-                v3.setBitangent(bitangent);
+        } else {
+            for (int i = 0; i < data.getVertexCount(); i++) {
+                layout.put(data, i, vertexBuffer);
             }
         }
+        vertexBuffer.flip();
 
-        // preallocate memory
-        FloatBuffer tangentBuffer = MemoryUtil.memAllocFloat(vertices.length * 3);
-        FloatBuffer bitangentBuffer = MemoryUtil.memAllocFloat(vertices.length * 3);
-
-        // create new temp array to store data
-        float[] tangentData = new float[vertices.length * 3];
-        float[] bitangentData = new float[vertices.length * 3];
-
-        // add all the tangent and bitangent ata
-        for (int i = 0; i < vertices.length; i ++) {
-            tangentData[i * 3    ] = vertices[i].getTangent().getX();
-            tangentData[i * 3 + 1] = vertices[i].getTangent().getY();
-            tangentData[i * 3 + 2] = vertices[i].getTangent().getZ();
-            bitangentData[i * 3    ] = vertices[i].getBitangent().getX();
-            bitangentData[i * 3 + 1] = vertices[i].getBitangent().getY();
-            bitangentData[i * 3 + 2] = vertices[i].getBitangent().getZ();
-        }
+        vbo = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertexBuffer, GL15.GL_STATIC_DRAW);
+        layout.pointInterleaved();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
 
-        // flip the data to make it handleable by OpenGL
-        tangentBuffer.put(tangentData).flip();
-        bitangentBuffer.put(bitangentData).flip();
+        MemoryUtil.memFree(vertexBuffer);
+    }
 
-        // store the data in the buffer object
-        tan = storeData(tangentBuffer, 3, 3);
-        bitan = storeData(bitangentBuffer, 4, 3);
+    /**
+     * creates tangent buffer
+     */
+    private void makeTangentBuffer() {
+        data.computeTangents();
+        tan = makeBuffer(data.getTangents(), 3, 3);
+        bitan = makeBuffer(data.getBitangents(), 4, 3);
     }
 
     /**
      * helper method to create the position buffer object
      */
     private void makePositionBuffer() {
-        // preallocate memory
-        FloatBuffer positionBuffer = MemoryUtil.memAllocFloat(vertices.length * 3);
-
-        // create a new temp array to store position data
-        float[] positionData = new float[vertices.length * 3];
-
-        // add all the position data to the temp array
-        for (int i = 0; i < vertices.length; i++) {
-            positionData[i * 3    ] = vertices[i].getPosition().getX();
-            positionData[i * 3 + 1] = vertices[i].getPosition().getY();
-            positionData[i * 3 + 2] = vertices[i].getPosition().getZ();
-        }
-
-        // flip the data to make it handleable by OpenGL
-        positionBuffer.put(positionData).flip();
-
-        // store the position data in the position buffer object
-        pbo = storeData(positionBuffer, 0, 3);
+        pbo = makeBuffer(data.getPositions(), 0, 3);
     }
 
     /**
      * helper method to create the color buffer object
      */
     public void makeColorBuffer() {
-        FloatBuffer colorBuffer = MemoryUtil.memAllocFloat(vertices.length * 4);
-        float[] colorData = new float[vertices.length * 4];
-        for (int i = 0; i < vertices.length; i++) {
-            colorData[i * 4] = vertices[i].getColor().getX();
-            colorData[i * 4 + 1] = vertices[i].getColor().getY();
-            colorData[i * 4 + 2] = vertices[i].getColor().getZ();
-            colorData[i * 4 + 3] = vertices[i].getColor().getW();
-        }
-        colorBuffer.put(colorData).flip();
-
-        cbo = storeData(colorBuffer, 1, 4);
+        cbo = makeBuffer(data.getColors(), 1, 4);
     }
 
     /**
      * helper method to create a buffer object for the vector normal to the surface at every vertex
      */
     public void makeNormalBuffer() {
-        FloatBuffer normalBuffer = MemoryUtil.memAllocFloat(vertices.length * 3);
-        float[] normalData = new float[vertices.length * 3];
-        for (int i = 0; i < vertices.length; i++) {
-            normalData[i * 3] = vertices[i].getNormal().getX();
-            normalData[i * 3 + 1] = vertices[i].getNormal().getY();
-            normalData[i * 3 + 2] = vertices[i].getNormal().getZ();
-        }
-        normalBuffer.put(normalData).flip();
-
-        nbo = storeData(normalBuffer, 2, 3);
+        nbo = makeBuffer(data.getNormals(), 2, 3);
     }
 
     /**
      * helper method to create the texture buffer object
      */
     private void makeTextureBuffer() {
-        // preallocate memory
-        FloatBuffer textureBuffer = MemoryUtil.memAllocFloat(vertices.length * 2);
-
-        // create a new temp array to store texture coord data
-        float[] textureData = new float[vertices.length * 2];
-
-        // add all the texture coord data to the temp array
-        for (int i = 0; i < vertices.length; i++) {
-            textureData[i * 2    ] = vertices[i].getTextureCoord().getX();
-            textureData[i * 2 + 1] = vertices[i].getTextureCoord().getY();
-        }
-
-        // flip the data to make it handleable by OpenGL
-        textureBuffer.put(textureData).flip();
+        tbo = makeBuffer(data.getTextureCoords(), 1, 2);
+    }
 
-        // store the texture coord data in the texture buffer object
-        tbo = storeData(textureBuffer, 1, 2);
+    /**
+     * helper method to copy an attribute array into a new buffer object
+     * @param array - the floats of the attribute
+     * @param index - the index of the data
+     * @param size - the size of the data
+     * @return - the buffer ID
+     */
+    private int makeBuffer(float[] array, int index, int size) {
+        // preallocate memory and add all the data straight into it
+        FloatBuffer buffer = MemoryUtil.memAllocFloat(array.length);
+        buffer.put(array).flip();
+
+        // store the data in the buffer object - OpenGL keeps a copy, so the memory can be freed straight away
+        int bufferID = storeData(buffer, index, size);
+        MemoryUtil.memFree(buffer);
+        return bufferID;
     }
 
     /**
      * helper method to create the index buffer object
      */
     private void makeIndexBuffer() {
+        // a mesh built straight into buffers uploads its indices as they are
+        if (indexData != null) {
+            ibo = GL15.glGenBuffers();
+            GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, ibo);
+            GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, indexData, GL15.GL_STATIC_DRAW);
+            GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+            return;
+        }
+
         // preallocate memory
+        int[] indices = data.getIndices();
         IntBuffer indicesBuffer = MemoryUtil.memAllocInt(indices.length);
 
         // put the indices into the index buffer flipped
@@ -288,6 +451,7 @@ public class Mesh {
 
         // unbind the buffer object
         GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+        MemoryUtil.memFree(indicesBuffer);
     }
 
     /**
@@ -317,19 +481,138 @@ public class Mesh {
     }
 
     /**
-     * getter method
-     * @return - the vertices of this mesh
+     * converts the vertices of this mesh to vertex objects, for code that still works on them - getData is cheaper
+     * @return - a new vertex per vertex, or null for a mesh built straight into buffers
      */
     public Vertex[] getVertices() {
-        return this.vertices;
+        return data != null ? data.toVertices() : null;
     }
 
     /**
      * getter method
-     * @return - the indices of this mesh
+     * @return - the indices of this mesh, null for a mesh built straight into buffers
      */
     public int[] getIndices() {
-        return this.indices;
+        return data != null ? data.getIndices() : null;
+    }
+
+    /**
+     * getter method
+     * @return - the vertices and indices of this mesh, one array per attribute, null for a mesh built straight into
+     * buffers
+     */
+    public MeshData getData() {
+        return this.data;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of vertices in this mesh, 0 once the buffers of a mesh built straight into them are freed
+     */
+    public int getVertexCount() {
+        if (vertexData != null) {
+            return vertexData.remaining() / layout.getStride();
+        }
+        if (positionData != null) {
+            return positionData.remaining() / 3;
+        }
+        return data != null ? data.getVertexCount() : 0;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of indices in this mesh, three per triangle, 0 once the buffers of a mesh built straight
+     * into them are freed
+     */
+    public int getIndexCount() {
+        if (indexData != null) {
+            return indexData.remaining();
+        }
+        return data != null ? data.getIndexCount() : 0;
+    }
+
+    /**
+     * getter method
+     * @return - the interleaved vertices of a mesh built straight into an interleaved buffer, otherwise null
+     */
+    public FloatBuffer getVertexData() {
+        return this.vertexData;
+    }
+
+    /**
+     * getter method
+     * @return - three position floats per vertex, null for a mesh made of vertices
+     */
+    public FloatBuffer getPositionData() {
+        return this.positionData;
+    }
+
+    /**
+     * getter method
+     * @return - three normal floats per vertex, null for a mesh made of vertices
+     */
+    public FloatBuffer getNormalData() {
+        return this.normalData;
+    }
+
+    /**
+     * getter method
+     * @return - three indices per triangle, null for a mesh made of vertices
+     */
+    public IntBuffer getIndexData() {
+        return this.indexData;
+    }
+
+    /**
+     * getter method
+     * @return - the color of every vertex if this mesh has no color buffer, otherwise null
+     */
+    public Vector4f getColor() {
+        return this.color;
+    }
+
+    /**
+     * makes the attributes of each vertex interleaved in a single buffer, or kept each in a buffer of its own
+     * @param interleaved - true to interleave the attributes
+     */
+    public void setInterleaved(boolean interleaved) {
+        if (vao != 0) {
+            throw new IllegalStateException("The layout of a mesh can only change before it is created.");
+        }
+        if (vertexData != null && !interleaved) {
+            throw new IllegalStateException("A mesh built straight into an interleaved buffer is always interleaved.");
+        }
+        this.interleaved = interleaved;
+    }
+
+    /**
+     * getter method
+     * @return - if the attributes of each vertex are interleaved in a single buffer
+     */
+    public boolean isInterleaved() {
+        return this.interleaved;
+    }
+
+    /**
+     * getter method
+     * @return - the attributes of the vertices of this mesh
+     */
+    public VertexLayout getLayout() {
+        if (layout != null) {
+            return layout;
+        }
+        if (material != null) {
+            return VertexLayout.TEXTURED;
+        }
+        return positionData != null ? VertexLayout.UNIFORM_COLOR : data.getLayout();
+    }
+
+    /**
+     * getter method
+     * @return - the interleaved vertex buffer object, 0 unless the mesh is interleaved
+     */
+    public int getVBO() {
+        return this.vbo;
     }
 
     /**
@@ -408,13 +691,44 @@ public class Mesh {
      * release the mesh
      */
     public void destroy() {
-        // delete the buffers
+        // delete the buffers - deleting the ones never made, which are 0, does nothing
         GL15.glDeleteBuffers(pbo);
         GL15.glDeleteBuffers(cbo);
+        GL15.glDeleteBuffers(nbo);
         GL15.glDeleteBuffers(ibo);
+        GL15.glDeleteBuffers(tbo);
+        GL15.glDeleteBuffers(tan);
+        GL15.glDeleteBuffers(bitan);
+        GL15.glDeleteBuffers(vbo);
+        free();
 
         // delete the vertex array
         GL30.glDeleteVertexArrays(vao);
     }
 
+    /**
+     * frees the buffers the mesh was built into, if it owns them - destroy does this too, so free is only needed for
+     * a mesh that is dropped without ever being created. the mesh has no vertex data afterwards
+     */
+    public void free() {
+        if (!ownsData) {
+            return;
+        }
+        MemoryUtil.memFree(vertexData);
+        MemoryUtil.memFree(positionData);
+        MemoryUtil.memFree(normalData);
+        MemoryUtil.memFree(indexData);
+        vertexData = positionData = normalData = null;
+        indexData = null;
+        ownsData = false;
+    }
+
+    /**
+     * hands the buffers the mesh was built into over to it, so they are freed with the mesh
+     * only for buffers from MemoryUtil, which nothing else frees
+     */
+    void ownData() {
+        this.ownsData = true;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,265 @@
+package com.bramerlabs.engine.graphics;
+
+import com.bramerlabs.engine.math.Vector4f;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * builds a mesh one vertex at a time, straight into off-heap memory - no vertex objects, no temporary arrays
+ *
+ * each vertex is written interleaved, as the layout says, into a buffer from MemoryUtil that doubles when it runs
+ * full. the attributes of a vertex can be given in any order, then endVertex moves on to the next one:
+ *
+ *     builder.position(x, y, z).normal(nx, ny, nz).color(r, g, b, a).endVertex();
+ *     builder.index(0).index(1).index(2);
+ *
+ * build hands both buffers to the mesh, which frees them when it is destroyed, and the builder starts over empty.
+ * close frees whatever was written since the last build, so a builder used in try with resources never leaks. a
+ * builder is for one thread at a time
+ */
+public class MeshBuilder implements AutoCloseable {
+
+    // the vertices and indices there is room for at first
+    private static final int INITIAL_VERTICES = 1024, INITIAL_INDICES = 3 * INITIAL_VERTICES;
+
+    // the layout of the vertices
+    private final VertexLayout layout;
+
+    // the offsets of the attributes within a vertex, -1 for those the layout does not have
+    private final int positionOffset, colorOffset, textureOffset, normalOffset;
+
+    // the bits of the attributes every vertex needs, and of those given so far for the current vertex
+    private final int required;
+    private int given = 0;
+
+    // the vertices and indices written so far, null until the first is written
+    private FloatBuffer vertices;
+    private IntBuffer indices;
+
+    // the amount of vertices ended and indices written
+    private int vertexCount = 0, indexCount = 0;
+
+    /**
+     * default constructor
+     * @param layout - the layout of the vertices - position, color, texture coordinate and normal are supported
+     */
+    public MeshBuilder(VertexLayout layout) {
+        if (layout.has(VertexLayout.Attribute.TANGENT) || layout.has(VertexLayout.Attribute.BITANGENT)) {
+            throw new IllegalArgumentException("A mesh builder cannot write tangents.");
+        }
+        this.layout = layout;
+        this.positionOffset = layout.getOffset(VertexLayout.Attribute.POSITION);
+        this.colorOffset = layout.getOffset(VertexLayout.Attribute.COLOR);
+        this.textureOffset = layout.getOffset(VertexLayout.Attribute.TEXTURE_COORD);
+        this.normalOffset = layout.getOffset(VertexLayout.Attribute.NORMAL);
+        int bits = 0;
+        for (VertexLayout.Attribute attribute : layout.getAttributes()) {
+            bits |= 1 << attribute.ordinal();
+        }
+        this.required = bits;
+    }
+
+    /**
+     * sets the position of the current vertex
+     * @param x - the x position
+     * @param y - the y position
+     * @param z - the z position
+     * @return - this builder
+     */
+    public MeshBuilder position(float x, float y, float z) {
+        int at = attribute(VertexLayout.Attribute.POSITION, positionOffset);
+        vertices.put(at, x).put(at + 1, y).put(at + 2, z);
+        return this;
+    }
+
+    /**
+     * sets the normal of the current vertex
+     * @param x - the x component
+     * @param y - the y component
+     * @param z - the z component
+     * @return - this builder
+     */
+    public MeshBuilder normal(float x, float y, float z) {
+        int at = attribute(VertexLayout.Attribute.NORMAL, normalOffset);
+        vertices.put(at, x).put(at + 1, y).put(at + 2, z);
+        return this;
+    }
+
+    /**
+     * sets the color of the current vertex
+     * @param r - the red component
+     * @param g - the green component
+     * @param b - the blue component
+     * @param a - the alpha component
+     * @return - this builder
+     */
+    public MeshBuilder color(float r, float g, float b, float a) {
+        int at = attribute(VertexLayout.Attribute.COLOR, colorOffset);
+        vertices.put(at, r).put(at + 1, g).put(at + 2, b).put(at + 3, a);
+        return this;
+    }
+
+    /**
+     * sets the color of the current vertex
+     * @param color - the color
+     * @return - this builder
+     */
+    public MeshBuilder color(Vector4f color) {
+        return color(color.getX(), color.getY(), color.getZ(), color.getW());
+    }
+
+    /**
+     * sets the texture coordinate of the current vertex
+     * @param u - the horizontal coordinate
+     * @param v - the vertical coordinate
+     * @return - this builder
+     */
+    public MeshBuilder textureCoord(float u, float v) {
+        int at = attribute(VertexLayout.Attribute.TEXTURE_COORD, textureOffset);
+        vertices.put(at, u).put(at + 1, v);
+        return this;
+    }
+
+    /**
+     * ends the current vertex, once every attribute of the layout was given, and starts the next one
+     * @return - this builder
+     */
+    public MeshBuilder endVertex() {
+        if (given != required) {
+            for (VertexLayout.Attribute attribute : layout.getAttributes()) {
+                if ((given & 1 << attribute.ordinal()) == 0) {
+                    throw new IllegalStateException("Vertex " + vertexCount + " is missing its " + attribute + ".");
+                }
+            }
+        }
+        given = 0;
+        vertexCount++;
+        return this;
+    }
+
+    /**
+     * adds an index
+     * @param index - the index of a vertex that was already ended
+     * @return - this builder
+     */
+    public MeshBuilder index(int index) {
+        if (index < 0 || index >= vertexCount) {
+            throw new IllegalArgumentException("Index " + index + " is outside the " + vertexCount + " vertices ended so far.");
+        }
+        if (indices == null) {
+            indices = MemoryUtil.memAllocInt(INITIAL_INDICES);
+        } else if (indexCount == indices.capacity()) {
+            indices = MemoryUtil.memRealloc(indices, 2 * indices.capacity());
+        }
+        indices.put(indexCount++, index);
+        return this;
+    }
+
+    /**
+     * adds the three indices of a triangle
+     * @param a - the first vertex, counterclockwise seen from the front
+     * @param b - the second vertex
+     * @param c - the third vertex
+     * @return - this builder
+     */
+    public MeshBuilder triangle(int a, int b, int c) {
+        return index(a).index(b).index(c);
+    }
+
+    /**
+     * hands everything written so far to a new mesh, and starts over empty
+     * @return - the mesh, not yet created, which frees the memory when it is destroyed
+     */
+    public Mesh build() {
+        return build(null);
+    }
+
+    /**
+     * hands everything written so far to a new mesh drawn in one color, and starts over empty
+     * @param color - the color of every vertex, for layouts without colors, or null
+     * @return - the mesh, not yet created, which frees the memory when it is destroyed
+     */
+    public Mesh build(Vector4f color) {
+        if (given != 0) {
+            throw new IllegalStateException("Vertex " + vertexCount + " was started but never ended.");
+        }
+        // an empty mesh still gets buffers of its own, of one unused element, since malloc may not allocate nothing
+        FloatBuffer vertexData = vertices == null ? MemoryUtil.memAllocFloat(1) : vertices;
+        IntBuffer indexData = indices == null ? MemoryUtil.memAllocInt(1) : indices;
+        vertexData.position(0).limit(vertexCount * layout.getStride());
+        indexData.position(0).limit(indexCount);
+
+        Mesh mesh;
+        try {
+            mesh = new Mesh(vertexData, layout, indexData, color);
+        } catch (IllegalArgumentException e) {
+            MemoryUtil.memFree(vertexData);
+            MemoryUtil.memFree(indexData);
+            throw e;
+        } finally {
+            vertices = null;
+            indices = null;
+            vertexCount = indexCount = 0;
+        }
+        mesh.ownData();
+        return mesh;
+    }
+
+    /**
+     * frees everything written since the last build - the builder can still be used afterwards
+     */
+    @Override
+    public void close() {
+        MemoryUtil.memFree(vertices);
+        MemoryUtil.memFree(indices);
+        vertices = null;
+        indices = null;
+        vertexCount = indexCount = given = 0;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of vertices ended so far, which is the index the current vertex will have
+     */
+    public int getVertexCount() {
+        return this.vertexCount;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of indices written so far
+     */
+    public int getIndexCount() {
+        return this.indexCount;
+    }
+
+    /**
+     * getter method
+     * @return - the layout of the vertices
+     */
+    public VertexLayout getLayout() {
+        return this.layout;
+    }
+
+    /**
+     * finds where an attribute of the current vertex goes, making room for the vertex first
+     * @param attribute - the attribute
+     * @param offset - the offset of the attribute within a vertex
+     * @return - the index of its first float
+     */
+    private int attribute(VertexLayout.Attribute attribute, int offset) {
+        if (offset < 0) {
+            throw new IllegalStateException("The layout has no " + attribute + ".");
+        }
+        int stride = layout.getStride();
+        if (vertices == null) {
+            vertices = MemoryUtil.memAllocFloat(INITIAL_VERTICES * stride);
+        } else if ((vertexCount + 1) * stride > vertices.capacity()) {
+            vertices = MemoryUtil.memRealloc(vertices, 2 * vertices.capacity());
+        }
+        given |= 1 << attribute.ordinal();
+        return vertexCount * stride + offset;
+    }
+}
@@ -0,0 +1,427 @@
+package com.bramerlabs.engine.graphics;
+
+import com.bramerlabs.engine.math.Vector2f;
+import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.engine.math.collision.RectangularHitbox;
+
+import java.util.List;
+
+/**
+ * the vertices and indices of a mesh kept on the cpu, as one primitive array per attribute rather than one vertex
+ * object per vertex
+ *
+ * a vertex made of objects costs a header and a pointer for every vector it holds, several times the floats
+ * themselves. here vertex i has its position at positions[3 * i] to positions[3 * i + 2], its color at colors[4 * i]
+ * to colors[4 * i + 3], and so on, so a mesh costs little more than its floats, and the picking, collision and
+ * tangent code can walk it without chasing pointers. every attribute but the positions may be null when the mesh
+ * does not have it
+ */
+public class MeshData {
+
+    // three floats per vertex
+    private final float[] positions;
+
+    // four floats per vertex, for untextured meshes
+    private final float[] colors;
+
+    // two floats per vertex, for textured meshes
+    private final float[] textureCoords;
+
+    // three floats per vertex
+    private final float[] normals;
+
+    // three floats per vertex each, for normal mapped meshes - computed from the texture coordinates when missing
+    private float[] tangents, bitangents;
+
+    // three indices per triangle
+    private final int[] indices;
+
+    /**
+     * default constructor
+     * @param positions - three floats per vertex
+     * @param colors - four floats per vertex, or null
+     * @param textureCoords - two floats per vertex, or null
+     * @param normals - three floats per vertex, or null
+     * @param indices - three indices per triangle
+     */
+    public MeshData(float[] positions, float[] colors, float[] textureCoords, float[] normals, int[] indices) {
+        this(positions, colors, textureCoords, normals, null, null, indices);
+    }
+
+    /**
+     * constructor for a mesh with tangents
+     * @param positions - three floats per vertex
+     * @param colors - four floats per vertex, or null
+     * @param textureCoords - two floats per vertex, or null
+     * @param normals - three floats per vertex, or null
+     * @param tangents - three floats per vertex, or null to compute them
+     * @param bitangents - three floats per vertex, or null to compute them
+     * @param indices - three indices per triangle
+     */
+    public MeshData(float[] positions, float[] colors, float[] textureCoords, float[] normals, float[] tangents,
+                    float[] bitangents, int[] indices) {
+        if (positions.length % 3 != 0) {
+            throw new IllegalArgumentException("Expected three position floats per vertex, got " + positions.length + " floats.");
+        }
+        int vertexCount = positions.length / 3;
+        check("color", colors, 4, vertexCount);
+        check("texture coordinate", textureCoords, 2, vertexCount);
+        check("normal", normals, 3, vertexCount);
+        check("tangent", tangents, 3, vertexCount);
+        check("bitangent", bitangents, 3, vertexCount);
+        if ((tangents == null) != (bitangents == null)) {
+            throw new IllegalArgumentException("Tangents and bitangents are given together or not at all.");
+        }
+        this.positions = positions;
+        this.colors = colors;
+        this.textureCoords = textureCoords;
+        this.normals = normals;
+        this.tangents = tangents;
+        this.bitangents = bitangents;
+        this.indices = indices;
+    }
+
+    /**
+     * converts vertex objects to arrays - an attribute is kept if any vertex has it, and is 0 for those that do not.
+     * tangents are only kept if every vertex has one, otherwise they are all computed when needed
+     * @param vertices - the vertices
+     * @param indices - three indices per triangle
+     * @return - the mesh data
+     */
+    public static MeshData fromVertices(Vertex[] vertices, int[] indices) {
+        int n = vertices.length;
+        boolean hasColors = false, hasTextureCoords = false, hasNormals = false, hasTangents = n > 0;
+        for (Vertex vertex : vertices) {
+            hasColors |= vertex.getColor() != null;
+            hasTextureCoords |= vertex.getTextureCoord() != null;
+            hasNormals |= vertex.getNormal() != null;
+            hasTangents &= vertex.hasTangent() && vertex.hasBitangent();
+        }
+
+        float[] positions = new float[3 * n];
+        float[] colors = hasColors ? new float[4 * n] : null;
+        float[] textureCoords = hasTextureCoords ? new float[2 * n] : null;
+        float[] normals = hasNormals ? new float[3 * n] : null;
+        float[] tangents = hasTangents ? new float[3 * n] : null;
+        float[] bitangents = hasTangents ? new float[3 * n] : null;
+        for (int i = 0; i < n; i++) {
+            Vertex vertex = vertices[i];
+            put(vertex.getPosition(), positions, i);
+            if (hasColors && vertex.getColor() != null) {
+                Vector4f color = vertex.getColor();
+                colors[4 * i] = color.getX();
+                colors[4 * i + 1] = color.getY();
+                colors[4 * i + 2] = color.getZ();
+                colors[4 * i + 3] = color.getW();
+            }
+            if (hasTextureCoords && vertex.getTextureCoord() != null) {
+                textureCoords[2 * i] = vertex.getTextureCoord().getX();
+                textureCoords[2 * i + 1] = vertex.getTextureCoord().getY();
+            }
+            if (hasNormals && vertex.getNormal() != null) {
+                put(vertex.getNormal(), normals, i);
+            }
+            if (hasTangents) {
+                put(vertex.getTangent(), tangents, i);
+                put(vertex.getBitangent(), bitangents, i);
+            }
+        }
+        return new MeshData(positions, colors, textureCoords, normals, tangents, bitangents, indices);
+    }
+
+    /**
+     * makes the color array of a mesh drawn in one color
+     * @param color - the color of every vertex
+     * @param vertexCount - the amount of vertices
+     * @return - four floats per vertex
+     */
+    public static float[] uniformColors(Vector4f color, int vertexCount) {
+        float[] colors = new float[4 * vertexCount];
+        for (int i = 0; i < colors.length; i += 4) {
+            colors[i] = color.getX();
+            colors[i + 1] = color.getY();
+            colors[i + 2] = color.getZ();
+            colors[i + 3] = color.getW();
+        }
+        return colors;
+    }
+
+    /**
+     * merges meshes into one, offsetting the indices of each by the vertices before it
+     * an attribute is kept if the first mesh has it, and every other mesh must have it too
+     * @param parts - the meshes to merge, at least one
+     * @return - the merged mesh
+     */
+    public static MeshData merge(List<MeshData> parts) {
+        MeshData first = parts.get(0);
+        int vertexCount = 0, indexCount = 0;
+        for (MeshData part : parts) {
+            vertexCount += part.getVertexCount();
+            indexCount += part.indices.length;
+        }
+
+        float[] positions = new float[3 * vertexCount];
+        float[] colors = first.colors != null ? new float[4 * vertexCount] : null;
+        float[] textureCoords = first.textureCoords != null ? new float[2 * vertexCount] : null;
+        float[] normals = first.normals != null ? new float[3 * vertexCount] : null;
+        int[] indices = new int[indexCount];
+        int v = 0, i = 0;
+        for (MeshData part : parts) {
+            for (int index : part.indices) {
+                indices[i++] = index + v;
+            }
+            int n = part.getVertexCount();
+            System.arraycopy(part.positions, 0, positions, 3 * v, 3 * n);
+            if (colors != null) {
+                System.arraycopy(part.colors, 0, colors, 4 * v, 4 * n);
+            }
+            if (textureCoords != null) {
+                System.arraycopy(part.textureCoords, 0, textureCoords, 2 * v, 2 * n);
+            }
+            if (normals != null) {
+                System.arraycopy(part.normals, 0, normals, 3 * v, 3 * n);
+            }
+            v += n;
+        }
+        return new MeshData(positions, colors, textureCoords, normals, indices);
+    }
+
+    /**
+     * converts the arrays back to vertex objects, for code that still works on them
+     * @return - a new vertex per vertex, sharing nothing with this mesh
+     */
+    public Vertex[] toVertices() {
+        Vertex[] vertices = new Vertex[getVertexCount()];
+        for (int i = 0; i < vertices.length; i++) {
+            Vector3f position = getPosition(i);
+            Vector3f normal = normals != null ? vector(normals, i) : null;
+            if (textureCoords != null) {
+                Vector2f textureCoord = new Vector2f(textureCoords[2 * i], textureCoords[2 * i + 1]);
+                vertices[i] = tangents != null
+                        ? new Vertex(position, textureCoord, normal, vector(tangents, i), vector(bitangents, i))
+                        : new Vertex(position, textureCoord, normal);
+            } else {
+                Vector4f color = colors != null
+                        ? new Vector4f(colors[4 * i], colors[4 * i + 1], colors[4 * i + 2], colors[4 * i + 3]) : null;
+                vertices[i] = new Vertex(position, color, normal);
+            }
+        }
+        return vertices;
+    }
+
+    /**
+     * gives every vertex the tangent and bitangent of the first triangle it is in, from the change in texture
+     * coordinates along its edges - does nothing if the mesh already has tangents
+     */
+    public void computeTangents() {
+        if (tangents != null) {
+            return;
+        }
+        if (textureCoords == null) {
+            throw new IllegalStateException("Tangents can only be computed for a mesh with texture coordinates.");
+        }
+        int n = getVertexCount();
+        float[] tangents = new float[3 * n], bitangents = new float[3 * n];
+        boolean[] done = new boolean[n];
+
+        // iterate over all triangles
+        for (int i = 0; i + 2 < indices.length; i += 3) {
+            int a = indices[i], b = indices[i + 1], c = indices[i + 2];
+
+            // calculate the edge vectors
+            float e1x = positions[3 * b] - positions[3 * a];
+            float e1y = positions[3 * b + 1] - positions[3 * a + 1];
+            float e1z = positions[3 * b + 2] - positions[3 * a + 2];
+            float e2x = positions[3 * c] - positions[3 * a];
+            float e2y = positions[3 * c + 1] - positions[3 * a + 1];
+            float e2z = positions[3 * c + 2] - positions[3 * a + 2];
+
+            // calculate the difference in texture coord
+            float du1 = textureCoords[2 * b] - textureCoords[2 * a];
+            float dv1 = textureCoords[2 * b + 1] - textureCoords[2 * a + 1];
+            float du2 = textureCoords[2 * c] - textureCoords[2 * a];
+            float dv2 = textureCoords[2 * c + 1] - textureCoords[2 * a + 1];
+
+            // calculate fractional f
+            float f = 1.0f / (du1 * dv2 - du2 * dv1);
+
+            float tx = f * (dv2 * e1x - dv1 * e2x);
+            float ty = f * (dv2 * e1y - dv1 * e2y);
+            float tz = f * (dv2 * e1z - dv1 * e2z);
+
+            float bx = f * (-du2 * e1x + du1 * e2x);
+            float by = f * (-du2 * e1y + du1 * e2y);
+            float bz = f * (-du2 * e1z + du1 * e2z);
+
+            for (int k = 0; k < 3; k++) {
+                int v = indices[i + k];
+                if (done[v]) {
+                    continue;
+                }
+                done[v] = true;
+                tangents[3 * v] = tx;
+                tangents[3 * v + 1] = ty;
+                tangents[3 * v + 2] = tz;
+                bitangents[3 * v] = bx;
+                bitangents[3 * v + 1] = by;
+                bitangents[3 * v + 2] = bz;
+            }
+        }
+        this.tangents = tangents;
+        this.bitangents = bitangents;
+    }
+
+    /**
+     * finds the smallest box around every vertex, for collision tests against the whole mesh
+     * @return - the bounding box, in the coordinates of the vertices
+     */
+    public RectangularHitbox getBounds() {
+        return RectangularHitbox.bounding(positions);
+    }
+
+    /**
+     * getter method
+     * @param vertex - the index of the vertex
+     * @return - a new vector holding the position of the vertex
+     */
+    public Vector3f getPosition(int vertex) {
+        return vector(positions, vertex);
+    }
+
+    /**
+     * getter method
+     * @param attribute - the attribute
+     * @return - the array holding it, or null if this mesh does not have it
+     */
+    public float[] get(VertexLayout.Attribute attribute) {
+        switch (attribute) {
+            case POSITION: return positions;
+            case COLOR: return colors;
+            case TEXTURE_COORD: return textureCoords;
+            case NORMAL: return normals;
+            case TANGENT: return tangents;
+            case BITANGENT: return bitangents;
+            default: return null;
+        }
+    }
+
+    /**
+     * getter method
+     * @return - the layout of the attributes this mesh has, as the renderers draw it
+     */
+    public VertexLayout getLayout() {
+        if (textureCoords != null) {
+            return VertexLayout.TEXTURED;
+        }
+        return colors != null ? VertexLayout.UNTEXTURED : VertexLayout.UNIFORM_COLOR;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of vertices
+     */
+    public int getVertexCount() {
+        return positions.length / 3;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of indices, three per triangle
+     */
+    public int getIndexCount() {
+        return indices.length;
+    }
+
+    /**
+     * getter method
+     * @return - three position floats per vertex
+     */
+    public float[] getPositions() {
+        return this.positions;
+    }
+
+    /**
+     * getter method
+     * @return - four color floats per vertex, or null
+     */
+    public float[] getColors() {
+        return this.colors;
+    }
+
+    /**
+     * getter method
+     * @return - two texture coordinate floats per vertex, or null
+     */
+    public float[] getTextureCoords() {
+        return this.textureCoords;
+    }
+
+    /**
+     * getter method
+     * @return - three normal floats per vertex, or null
+     */
+    public float[] getNormals() {
+        return this.normals;
+    }
+
+    /**
+     * getter method
+     * @return - three tangent floats per vertex, or null until they are computed
+     */
+    public float[] getTangents() {
+        return this.tangents;
+    }
+
+    /**
+     * getter method
+     * @return - three bitangent floats per vertex, or null until they are computed
+     */
+    public float[] getBitangents() {
+        return this.bitangents;
+    }
+
+    /**
+     * getter method
+     * @return - three indices per triangle
+     */
+    public int[] getIndices() {
+        return this.indices;
+    }
+
+    /**
+     * helper method to check the length of an attribute array
+     * @param name - the name of the attribute
+     * @param data - the array, or null
+     * @param size - the floats per vertex
+     * @param vertexCount - the amount of vertices
+     */
+    private static void check(String name, float[] data, int size, int vertexCount) {
+        if (data != null && data.length != size * vertexCount) {
+            throw new IllegalArgumentException("Expected " + size + " " + name + " floats for each of the " + vertexCount
+                    + " vertices, got " + data.length + " floats.");
+        }
+    }
+
+    /**
+     * helper method to write a vector into an array of three floats per vertex
+     * @param vector - the vector
+     * @param data - the array
+     * @param vertex - the index of the vertex
+     */
+    private static void put(Vector3f vector, float[] data, int vertex) {
+        data[3 * vertex] = vector.getX();
+        data[3 * vertex + 1] = vector.getY();
+        data[3 * vertex + 2] = vector.getZ();
+    }
+
+    /**
+     * helper method to read a vector from an array of three floats per vertex
+     * @param data - the array
+     * @param vertex - the index of the vertex
+     * @return - a new vector
+     */
+    private static Vector3f vector(float[] data, int vertex) {
+        return new Vector3f(data[3 * vertex], data[3 * vertex + 1], data[3 * vertex + 2]);
+    }
+}
@@ -0,0 +1,413 @@
+package com.bramerlabs.engine.graphics;
+
+import com.bramerlabs.engine.math.Hash;
+
+import java.util.Arrays;
+
+/**
+ * optimisation passes for generated meshes, which tend to emit one vertex per triangle corner in whatever order the
+ * triangles were made
+ *
+ * weld merges vertices whose every attribute is the same, so each is transformed once rather than once per triangle.
+ * optimizeVertexCache reorders the triangles with Tom Forsyth's linear speed vertex cache optimisation, so that a
+ * vertex is reused while it is still in the post transform cache. optimizeVertexFetch then renumbers the vertices in
+ * the order the triangles first use them, so the vertex fetches walk memory forwards. acmr measures the result as the
+ * average vertices transformed per triangle, between 0.5 for a perfect grid and 3 for no reuse at all
+ */
+public final class MeshOptimizer {
+
+    // the entries of the cache the triangle order is optimised for
+    public static final int CACHE_SIZE = 32;
+
+    // the score of a vertex by its position in the cache - the three most recent ones are used by the last triangle
+    private static final float LAST_TRIANGLE_SCORE = 0.75f, CACHE_DECAY_POWER = 1.5f;
+
+    // the score of a vertex by the triangles still to use it, so lone vertices are finished off early
+    private static final float VALENCE_BOOST_SCALE = 2.0f, VALENCE_BOOST_POWER = 0.5f;
+
+    // the triangles still to use a vertex above which they add no more to its score
+    private static final int MAX_VALENCE = 64;
+
+    // the scores of a vertex by cache position and by triangles still to use it, looked up rather than computed
+    private static final float[] CACHE_SCORES = new float[CACHE_SIZE], VALENCE_SCORES = new float[MAX_VALENCE + 1];
+
+    static {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            CACHE_SCORES[i] = i < 3 ? LAST_TRIANGLE_SCORE
+                    : (float) Math.pow(1 - (i - 3) / (float) (CACHE_SIZE - 3), CACHE_DECAY_POWER);
+        }
+        for (int i = 1; i <= MAX_VALENCE; i++) {
+            VALENCE_SCORES[i] = VALENCE_BOOST_SCALE * (float) Math.pow(i, -VALENCE_BOOST_POWER);
+        }
+    }
+
+    /**
+     * runs every pass - welds the vertices, reorders the triangles for the vertex cache, and renumbers the vertices in
+     * the order they are first used
+     * @param data - the mesh
+     * @return - a new, optimised mesh, drawing the same triangles
+     */
+    public static MeshData optimize(MeshData data) {
+        MeshData welded = weld(data);
+        int[] indices = optimizeVertexCache(welded.getIndices(), welded.getVertexCount());
+        return optimizeVertexFetch(withIndices(welded, indices));
+    }
+
+    /**
+     * merges the vertices whose every attribute is the same, found by hashing them into an open addressed table
+     * @param data - the mesh
+     * @return - a new mesh with every vertex once, in the order they were first seen, and the indices pointing at them
+     */
+    public static MeshData weld(MeshData data) {
+        int n = data.getVertexCount();
+        float[][] attributes = attributes(data);
+        int[] sizes = sizes(data);
+
+        // the first vertex of every hash slot, -1 for empty ones, in a table at most half full
+        int[] table = new int[Integer.highestOneBit(Math.max(2 * n, 2)) << 1];
+        Arrays.fill(table, -1);
+        int mask = table.length - 1;
+
+        int[] remap = new int[n];
+        int[] kept = new int[n];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            int slot = (int) hash(attributes, sizes, v) & mask;
+            while (table[slot] >= 0 && !same(attributes, sizes, table[slot], v)) {
+                slot = (slot + 1) & mask;
+            }
+            if (table[slot] < 0) {
+                table[slot] = v;
+                remap[v] = count;
+                kept[count++] = v;
+            } else {
+                remap[v] = remap[table[slot]];
+            }
+        }
+
+        int[] indices = data.getIndices().clone();
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = remap[indices[i]];
+        }
+        return select(data, Arrays.copyOf(kept, count), indices);
+    }
+
+    /**
+     * reorders the triangles so that each reuses as many of the vertices in the cache as it can - the triangle drawn
+     * next is the one whose vertices score highest, where a vertex scores for being recently used and for having few
+     * triangles left to draw. the winding of every triangle is kept
+     * @param indices - three indices per triangle
+     * @param vertexCount - the amount of vertices the indices point into
+     * @return - the same triangles, in the new order
+     */
+    public static int[] optimizeVertexCache(int[] indices, int vertexCount) {
+        int triangleCount = indices.length / 3;
+
+        // the triangles of every vertex, as offsets into one shared list - the ones still to draw are kept first
+        int[] valence = new int[vertexCount];
+        for (int i = 0; i < 3 * triangleCount; i++) {
+            valence[indices[i]]++;
+        }
+        int[] offsets = new int[vertexCount + 1];
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] = offsets[v] + valence[v];
+        }
+        int[] vertexTriangles = new int[offsets[vertexCount]];
+        int[] filled = Arrays.copyOf(offsets, vertexCount);
+        for (int i = 0; i < 3 * triangleCount; i++) {
+            vertexTriangles[filled[indices[i]]++] = i / 3;
+        }
+
+        // the position of every vertex in the cache, -1 if it is not there, and its score
+        int[] cachePositions = new int[vertexCount];
+        Arrays.fill(cachePositions, -1);
+        float[] vertexScores = new float[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            vertexScores[v] = score(-1, valence[v]);
+        }
+        float[] triangleScores = new float[triangleCount];
+        for (int t = 0; t < triangleCount; t++) {
+            triangleScores[t] = vertexScores[indices[3 * t]] + vertexScores[indices[3 * t + 1]] + vertexScores[indices[3 * t + 2]];
+        }
+        boolean[] emitted = new boolean[triangleCount];
+
+        // the cache, with room for the three vertices of the new triangle pushed in front of it
+        int[] cache = new int[CACHE_SIZE + 3], nextCache = new int[CACHE_SIZE + 3];
+        int cacheCount = 0;
+
+        int[] result = new int[3 * triangleCount];
+        int best = -1, cursor = 0;
+        for (int out = 0; out < triangleCount; out++) {
+
+            // no triangle of a cached vertex is left - start over from the first triangle not drawn yet
+            if (best < 0) {
+                while (emitted[cursor]) {
+                    cursor++;
+                }
+                best = cursor;
+            }
+            emitted[best] = true;
+            int a = indices[3 * best], b = indices[3 * best + 1], c = indices[3 * best + 2];
+            result[3 * out] = a;
+            result[3 * out + 1] = b;
+            result[3 * out + 2] = c;
+
+            // the triangle is no longer left to draw for any of its vertices
+            for (int k = 0; k < 3; k++) {
+                int v = indices[3 * best + k];
+                int end = offsets[v] + --valence[v];
+                for (int i = offsets[v]; i <= end; i++) {
+                    if (vertexTriangles[i] == best) {
+                        vertexTriangles[i] = vertexTriangles[end];
+                        vertexTriangles[end] = best;
+                        break;
+                    }
+                }
+            }
+
+            // push its vertices to the front of the cache, dropping them from where they were
+            int nextCount = 0;
+            nextCache[nextCount++] = a;
+            nextCache[nextCount++] = b;
+            nextCache[nextCount++] = c;
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+                if (v != a && v != b && v != c) {
+                    nextCache[nextCount++] = v;
+                }
+            }
+            int[] swap = cache;
+            cache = nextCache;
+            nextCache = swap;
+            cacheCount = nextCount;
+
+            // score the vertices again, those pushed out of the cache too, and with them the triangles left to them
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+                int position = i < CACHE_SIZE ? i : -1;
+                cachePositions[v] = position;
+                float change = score(position, valence[v]) - vertexScores[v];
+                vertexScores[v] += change;
+                for (int j = offsets[v]; j < offsets[v] + valence[v]; j++) {
+                    triangleScores[vertexTriangles[j]] += change;
+                }
+            }
+            cacheCount = Math.min(cacheCount, CACHE_SIZE);
+
+            // the next triangle is the best of those left to the vertices in the cache
+            best = -1;
+            float bestScore = -1;
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+                for (int j = offsets[v]; j < offsets[v] + valence[v]; j++) {
+                    int t = vertexTriangles[j];
+                    if (triangleScores[t] > bestScore) {
+                        bestScore = triangleScores[t];
+                        best = t;
+                    }
+                }
+            }
+        }
+
+        // any indices after the last whole triangle are kept as they were
+        if (result.length < indices.length) {
+            result = Arrays.copyOf(result, indices.length);
+            System.arraycopy(indices, 3 * triangleCount, result, 3 * triangleCount, indices.length - 3 * triangleCount);
+        }
+        return result;
+    }
+
+    /**
+     * renumbers the vertices in the order the indices first use them, so that drawing reads the vertex data forwards.
+     * vertices no index uses are dropped
+     * @param data - the mesh
+     * @return - a new mesh with the vertices in their new order
+     */
+    public static MeshData optimizeVertexFetch(MeshData data) {
+        int n = data.getVertexCount();
+        int[] remap = new int[n];
+        Arrays.fill(remap, -1);
+        int[] order = new int[n];
+        int count = 0;
+
+        int[] indices = data.getIndices().clone();
+        for (int i = 0; i < indices.length; i++) {
+            int v = indices[i];
+            if (remap[v] < 0) {
+                remap[v] = count;
+                order[count++] = v;
+            }
+            indices[i] = remap[v];
+        }
+        return select(data, Arrays.copyOf(order, count), indices);
+    }
+
+    /**
+     * finds the average cache miss ratio of a triangle order - the vertices transformed per triangle drawn, on a first
+     * in first out post transform cache like the ones of most hardware
+     * @param indices - three indices per triangle
+     * @param cacheSize - the entries of the cache
+     * @return - the vertices transformed per triangle
+     */
+    public static float acmr(int[] indices, int cacheSize) {
+        int triangleCount = indices.length / 3;
+        if (triangleCount == 0) {
+            return 0;
+        }
+        int vertexCount = 0;
+        for (int index : indices) {
+            vertexCount = Math.max(vertexCount, index + 1);
+        }
+
+        // a vertex is still in the cache if fewer than cacheSize misses came after the one that put it there
+        int[] insertedAt = new int[vertexCount];
+        Arrays.fill(insertedAt, Integer.MIN_VALUE / 2);
+        int misses = 0;
+        for (int i = 0; i < 3 * triangleCount; i++) {
+            int v = indices[i];
+            if (misses - insertedAt[v] >= cacheSize) {
+                insertedAt[v] = misses++;
+            }
+        }
+        return misses / (float) triangleCount;
+    }
+
+    /**
+     * helper method to score a vertex
+     * @param cachePosition - the position of the vertex in the cache, -1 if it is not there
+     * @param valence - the triangles still to use the vertex
+     * @return - the score, -1 for a vertex no triangle is left to
+     */
+    private static float score(int cachePosition, int valence) {
+        if (valence == 0) {
+            return -1;
+        }
+        float score = cachePosition < 0 ? 0 : CACHE_SCORES[cachePosition];
+        return score + VALENCE_SCORES[Math.min(valence, MAX_VALENCE)];
+    }
+
+    /**
+     * helper method to hash every attribute of a vertex
+     * @param attributes - the attribute arrays, some of them null
+     * @param sizes - the floats per vertex of each
+     * @param v - the vertex
+     * @return - the hash
+     */
+    private static long hash(float[][] attributes, int[] sizes, int v) {
+        long h = 0;
+        for (int a = 0; a < attributes.length; a++) {
+            float[] attribute = attributes[a];
+            if (attribute != null) {
+                for (int i = sizes[a] * v; i < sizes[a] * (v + 1); i++) {
+                    h = Hash.hash(h, bits(attribute[i]));
+                }
+            }
+        }
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * helper method to check if two vertices have the same attributes
+     * @param attributes - the attribute arrays, some of them null
+     * @param sizes - the floats per vertex of each
+     * @param u - the first vertex
+     * @param v - the second vertex
+     * @return - true if every float of the two is the same
+     */
+    private static boolean same(float[][] attributes, int[] sizes, int u, int v) {
+        for (int a = 0; a < attributes.length; a++) {
+            float[] attribute = attributes[a];
+            if (attribute != null) {
+                for (int i = 0; i < sizes[a]; i++) {
+                    if (bits(attribute[sizes[a] * u + i]) != bits(attribute[sizes[a] * v + i])) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * helper method to find the bits of a float, with 0 and -0 the same
+     * @param f - the float
+     * @return - the bits
+     */
+    private static int bits(float f) {
+        return f == 0 ? 0 : Float.floatToIntBits(f);
+    }
+
+    /**
+     * helper method to find the attribute arrays of a mesh, in the order of the attributes
+     * @param data - the mesh
+     * @return - one array per attribute, null for those the mesh does not have
+     */
+    private static float[][] attributes(MeshData data) {
+        VertexLayout.Attribute[] all = VertexLayout.Attribute.values();
+        float[][] attributes = new float[all.length][];
+        for (int a = 0; a < all.length; a++) {
+            attributes[a] = data.get(all[a]);
+        }
+        return attributes;
+    }
+
+    /**
+     * helper method to find the floats per vertex of every attribute, in the order of the attributes
+     * @param data - the mesh
+     * @return - the sizes
+     */
+    private static int[] sizes(MeshData data) {
+        VertexLayout.Attribute[] all = VertexLayout.Attribute.values();
+        int[] sizes = new int[all.length];
+        for (int a = 0; a < all.length; a++) {
+            sizes[a] = all[a].getSize();
+        }
+        return sizes;
+    }
+
+    /**
+     * helper method to make a mesh of some of the vertices of another
+     * @param data - the mesh
+     * @param vertices - the vertices to keep, in their new order
+     * @param indices - the indices, already pointing at the new order
+     * @return - the new mesh
+     */
+    private static MeshData select(MeshData data, int[] vertices, int[] indices) {
+        return new MeshData(select(data.getPositions(), 3, vertices), select(data.getColors(), 4, vertices),
+                select(data.getTextureCoords(), 2, vertices), select(data.getNormals(), 3, vertices),
+                select(data.getTangents(), 3, vertices), select(data.getBitangents(), 3, vertices), indices);
+    }
+
+    /**
+     * helper method to gather some of the vertices of an attribute array
+     * @param attribute - the attribute array, or null
+     * @param size - the floats per vertex
+     * @param vertices - the vertices to keep, in their new order
+     * @return - the new attribute array, or null
+     */
+    private static float[] select(float[] attribute, int size, int[] vertices) {
+        if (attribute == null) {
+            return null;
+        }
+        float[] selected = new float[size * vertices.length];
+        for (int i = 0; i < vertices.length; i++) {
+            System.arraycopy(attribute, size * vertices[i], selected, size * i, size);
+        }
+        return selected;
+    }
+
+    /**
+     * helper method to make a mesh with the vertices of another and new indices
+     * @param data - the mesh
+     * @param indices - the new indices
+     * @return - the new mesh, sharing the vertex arrays
+     */
+    private static MeshData withIndices(MeshData data, int[] indices) {
+        return new MeshData(data.getPositions(), data.getColors(), data.getTextureCoords(), data.getNormals(),
+                data.getTangents(), data.getBitangents(), indices);
+    }
+
+    private MeshOptimizer() {
+
+    }
+}
@@ -7,7 +7,7 @@ import com.bramerlabs.engine.math.Vector3f;
 import com.bramerlabs.engine.math.Vector4f;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
-import org.lwjgl.system.MemoryUtil;
+import org.lwjgl.system.MemoryStack;
 
 import java.nio.FloatBuffer;
 
@@ -193,14 +193,16 @@ public class Shader {
      * @param value - the value of the uniform
      */
     public void setUniform(String name, Matrix4f value) {
-        // preallocate memory for the float values
-        FloatBuffer matrix = MemoryUtil.memAllocFloat(Matrix4f.SIZE * Matrix4f.SIZE);
+        // the float values go on the stack, so setting a uniform every frame allocates nothing
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            FloatBuffer matrix = stack.mallocFloat(Matrix4f.SIZE * Matrix4f.SIZE);
 
-        // put the values flipped of the matrix into the float buffer
-        matrix.put(value.getAll()).flip();
+            // put the values flipped of the matrix into the float buffer
+            matrix.put(value.getAll()).flip();
 
-        // transpose is true because we create it in row major order instead of column major order
-        GL20.glUniformMatrix4fv(getUniformLocation(name), true, matrix);
+            // transpose is true because we create it in row major order instead of column major order
+            GL20.glUniformMatrix4fv(getUniformLocation(name), true, matrix);
+        }
     }
 
     /**
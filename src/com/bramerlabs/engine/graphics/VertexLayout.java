@@ -0,0 +1,183 @@
+package com.bramerlabs.engine.graphics;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL20;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * describes the attributes of a vertex - which attributes there are, the shader location and size of each, and where
+ * each one sits within an interleaved vertex
+ *
+ * a mesh stores its vertices either with every attribute in a buffer of its own, or interleaved in a single buffer,
+ * one whole vertex after another. the layout is the same either way, only the stride and offsets given to OpenGL differ
+ */
+public class VertexLayout {
+
+    /**
+     * the attributes a vertex can have, with the shader location and amount of floats of each
+     */
+    public enum Attribute {
+
+        // the position of the vertex
+        POSITION(0, 3),
+
+        // the color of the vertex, for untextured meshes
+        COLOR(1, 4),
+
+        // the texture coordinate of the vertex, in the location of the color, for textured meshes
+        TEXTURE_COORD(1, 2),
+
+        // the vector normal to the surface at the vertex
+        NORMAL(2, 3),
+
+        // the tangent and bitangent of the surface at the vertex, for normal mapped meshes
+        TANGENT(3, 3),
+        BITANGENT(4, 3);
+
+        // the location of the attribute in the shaders
+        private final int location;
+
+        // the amount of floats of the attribute
+        private final int size;
+
+        /**
+         * default constructor
+         * @param location - the location of the attribute in the shaders
+         * @param size - the amount of floats of the attribute
+         */
+        Attribute(int location, int size) {
+            this.location = location;
+            this.size = size;
+        }
+
+        /**
+         * getter method
+         * @return - the location of the attribute in the shaders
+         */
+        public int getLocation() {
+            return this.location;
+        }
+
+        /**
+         * getter method
+         * @return - the amount of floats of the attribute
+         */
+        public int getSize() {
+            return this.size;
+        }
+    }
+
+    // the vertices of untextured meshes made of vertices
+    public static final VertexLayout UNTEXTURED = new VertexLayout(Attribute.POSITION, Attribute.COLOR, Attribute.NORMAL);
+
+    // the vertices of textured, normal mapped meshes
+    public static final VertexLayout TEXTURED = new VertexLayout(Attribute.POSITION, Attribute.TEXTURE_COORD,
+            Attribute.NORMAL, Attribute.TANGENT, Attribute.BITANGENT);
+
+    // the vertices of meshes drawn in a single color, without a color attribute
+    public static final VertexLayout UNIFORM_COLOR = new VertexLayout(Attribute.POSITION, Attribute.NORMAL);
+
+    // the attributes, in the order they are interleaved in
+    private final Attribute[] attributes;
+
+    // the offset of every attribute within an interleaved vertex in floats, by attribute, -1 for those not in the layout
+    private final int[] offsets = new int[Attribute.values().length];
+
+    // the floats of a whole vertex
+    private final int stride;
+
+    /**
+     * default constructor
+     * @param attributes - the attributes, in the order they are interleaved in
+     */
+    public VertexLayout(Attribute... attributes) {
+        this.attributes = attributes.clone();
+        Arrays.fill(offsets, -1);
+        int offset = 0;
+        for (Attribute attribute : attributes) {
+            if (offsets[attribute.ordinal()] >= 0) {
+                throw new IllegalArgumentException("The attribute " + attribute + " is in the layout twice.");
+            }
+            offsets[attribute.ordinal()] = offset;
+            offset += attribute.getSize();
+        }
+        this.stride = offset;
+    }
+
+    /**
+     * points every attribute at the interleaved buffer bound to GL_ARRAY_BUFFER, recording it in the bound vertex array
+     */
+    public void pointInterleaved() {
+        for (Attribute attribute : attributes) {
+            GL20.glVertexAttribPointer(attribute.getLocation(), attribute.getSize(), GL11.GL_FLOAT, false,
+                    stride * Float.BYTES, (long) offsets[attribute.ordinal()] * Float.BYTES);
+        }
+    }
+
+    /**
+     * enables every attribute of the layout in the bound vertex array
+     */
+    public void enable() {
+        for (Attribute attribute : attributes) {
+            GL20.glEnableVertexAttribArray(attribute.getLocation());
+        }
+    }
+
+    /**
+     * disables every attribute of the layout in the bound vertex array
+     */
+    public void disable() {
+        for (Attribute attribute : attributes) {
+            GL20.glDisableVertexAttribArray(attribute.getLocation());
+        }
+    }
+
+    /**
+     * writes a vertex of mesh data into an interleaved buffer at its position, moving the position past it
+     * @param data - the mesh data, holding every attribute of the layout
+     * @param vertex - the index of the vertex
+     * @param buffer - the buffer, with room for a whole vertex
+     */
+    public void put(MeshData data, int vertex, FloatBuffer buffer) {
+        for (Attribute attribute : attributes) {
+            int size = attribute.getSize();
+            buffer.put(data.get(attribute), size * vertex, size);
+        }
+    }
+
+    /**
+     * finds if the layout has an attribute
+     * @param attribute - the attribute
+     * @return - true if the layout has it
+     */
+    public boolean has(Attribute attribute) {
+        return offsets[attribute.ordinal()] >= 0;
+    }
+
+    /**
+     * finds where an attribute sits within an interleaved vertex
+     * @param attribute - the attribute
+     * @return - the offset in floats, or -1 if the layout does not have the attribute
+     */
+    public int getOffset(Attribute attribute) {
+        return offsets[attribute.ordinal()];
+    }
+
+    /**
+     * getter method
+     * @return - the attributes, in the order they are interleaved in
+     */
+    public Attribute[] getAttributes() {
+        return this.attributes.clone();
+    }
+
+    /**
+     * getter method
+     * @return - the floats of a whole vertex
+     */
+    public int getStride() {
+        return this.stride;
+    }
+}
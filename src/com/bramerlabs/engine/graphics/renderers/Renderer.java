@@ -1,13 +1,17 @@
 package com.bramerlabs.engine.graphics.renderers;
 
 import com.bramerlabs.engine.graphics.Camera;
+import com.bramerlabs.engine.graphics.Mesh;
 import com.bramerlabs.engine.graphics.Shader;
+import com.bramerlabs.engine.graphics.VertexLayout;
 import com.bramerlabs.engine.io.window.Window;
 import com.bramerlabs.engine.math.Matrix4f;
 import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.engine.math.Vector4f;
 import com.bramerlabs.engine.objects.untextured.RenderObject;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL30;
 
 public class Renderer {
@@ -21,6 +25,9 @@ public class Renderer {
     // the light color
     private Vector3f lightColor = new Vector3f(1.0f, 1.0f, 1.0f);
 
+    // the color of meshes without colors whose object gives none either
+    private static final Vector4f DEFAULT_COLOR = new Vector4f(1.0f, 1.0f, 1.0f, 1.0f);
+
     /**
      * default constructor
      * @param window - the specified window to render to
@@ -36,11 +43,21 @@ public class Renderer {
      * @param camera - the camera perspective
      */
     public void renderMesh(RenderObject object, Camera camera, Shader shader) {
-        GL30.glBindVertexArray(object.getMesh().getVAO());
-        GL30.glEnableVertexAttribArray(0);
-        GL30.glEnableVertexAttribArray(1);
-        GL30.glEnableVertexAttribArray(2);
-        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, object.getMesh().getIBO());
+        Mesh mesh = object.getMesh();
+        GL30.glBindVertexArray(mesh.getVAO());
+        // the attributes are the same whether they are interleaved or not, the vertex array knows where they are
+        VertexLayout layout = mesh.getLayout();
+        layout.enable();
+        if (!layout.has(VertexLayout.Attribute.COLOR)) {
+            // a mesh without a color attribute is drawn in one color, given as the constant value of the attribute
+            // the color of the object comes first, so objects sharing a mesh can each have their own
+            Vector4f color = object.getColor() != null ? object.getColor() : mesh.getColor();
+            if (color == null) {
+                color = DEFAULT_COLOR;
+            }
+            GL20.glVertexAttrib4f(1, color.getX(), color.getY(), color.getZ(), color.getW());
+        }
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, mesh.getIBO());
         shader.bind();
         shader.setUniform("model", Matrix4f.transform(object.getPosition(), object.getRotation(), object.getScale()));
         shader.setUniform("view", Matrix4f.view(camera.getPosition(), camera.getRotation()));
@@ -49,12 +66,10 @@ public class Renderer {
         shader.setUniform("lightLevel", 0.3f);
         shader.setUniform("viewPos", camera.getPosition());
         shader.setUniform("lightColor", lightColor);
-        GL11.glDrawElements(GL11.GL_TRIANGLES, object.getMesh().getIndices().length, GL11.GL_UNSIGNED_INT, 0);
+        GL11.glDrawElements(GL11.GL_TRIANGLES, mesh.getIndexCount(), GL11.GL_UNSIGNED_INT, 0);
         shader.unbind();
         GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
-        GL30.glDisableVertexAttribArray(0);
-        GL30.glDisableVertexAttribArray(1);
-        GL30.glDisableVertexAttribArray(2);
+        layout.disable();
         GL30.glBindVertexArray(0);
     }
 
@@ -2,6 +2,7 @@ package com.bramerlabs.engine.graphics.renderers;
 
 import com.bramerlabs.engine.graphics.Camera;
 import com.bramerlabs.engine.graphics.Shader;
+import com.bramerlabs.engine.graphics.VertexLayout;
 import com.bramerlabs.engine.io.window.Window;
 import com.bramerlabs.engine.math.Matrix4f;
 import com.bramerlabs.engine.math.Vector3f;
@@ -39,12 +40,10 @@ public class TextureRenderer {
      * @param shader - the shader to use to render
      */
     public void renderMesh(RenderObject object, Camera camera, Shader shader) {
+        // the attributes are the same whether they are interleaved or not, the vertex array knows where they are
+        VertexLayout layout = object.getMesh().getLayout();
         GL30.glBindVertexArray(object.getMesh().getVAO());
-        GL30.glEnableVertexAttribArray(0);
-        GL30.glEnableVertexAttribArray(1);
-        GL30.glEnableVertexAttribArray(2);
-        GL30.glEnableVertexAttribArray(3);
-        GL30.glEnableVertexAttribArray(4);
+        layout.enable();
         GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, object.getMesh().getIBO());
 
         // bind the textures
@@ -63,14 +62,10 @@ public class TextureRenderer {
         shader.setUniform("lightLevel", 0.1f);
         shader.setUniform("viewPos", camera.getPosition());
         shader.setUniform("lightColor", lightColor);
-        GL11.glDrawElements(GL11.GL_TRIANGLES, object.getMesh().getIndices().length, GL11.GL_UNSIGNED_INT, 0);
+        GL11.glDrawElements(GL11.GL_TRIANGLES, object.getMesh().getIndexCount(), GL11.GL_UNSIGNED_INT, 0);
         shader.unbind();
         GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
-        GL30.glDisableVertexAttribArray(0);
-        GL30.glDisableVertexAttribArray(1);
-        GL30.glDisableVertexAttribArray(2);
-        GL30.glDisableVertexAttribArray(3);
-        GL30.glDisableVertexAttribArray(4);
+        layout.disable();
         GL30.glBindVertexArray(0);
     }
 
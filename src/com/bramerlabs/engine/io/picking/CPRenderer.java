@@ -50,7 +50,7 @@ public class CPRenderer {
         Vector3f color = Vector3f.divide(new Vector3f(r, g, b), new Vector3f(255));
 
         shader.setUniform("pickingColor", color); // set the picking color uniform
-        GL11.glDrawElements(GL11.GL_TRIANGLES, object.getMesh().getIndices().length, GL11.GL_UNSIGNED_INT, 0);
+        GL11.glDrawElements(GL11.GL_TRIANGLES, object.getMesh().getIndexCount(), GL11.GL_UNSIGNED_INT, 0);
         shader.unbind();
         GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
         GL30.glDisableVertexAttribArray(0);
@@ -0,0 +1,69 @@
+package com.bramerlabs.engine.math;
+
+/**
+ * counter based hashing of seeds and integer coordinates, built on the finaliser of SplitMix64
+ *
+ * a hash depends only on its inputs, so anything seeded from one gets the same values whichever thread asks first, and
+ * neighbouring coordinates get unrelated values
+ */
+public final class Hash {
+
+    // the odd constants the coordinates are spread by before mixing, one per axis
+    private static final long SPREAD_X = 0x9E3779B97F4A7C15L, SPREAD_Y = 0xD6E8FEB86659FD93L, SPREAD_Z = 0xC2B2AE3D27D4EB4FL;
+
+    /**
+     * mixes the bits of a value so every input bit reaches every output bit
+     * @param h - the value
+     * @return - the mixed value
+     */
+    public static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * hashes a seed and a counter, for deriving the seed of one of many independent streams
+     * @param seed - the seed
+     * @param counter - the number of the stream
+     * @return - the hash
+     */
+    public static long hash(long seed, long counter) {
+        return mix(seed ^ (counter * SPREAD_Y));
+    }
+
+    /**
+     * hashes a seed and a pair of integer coordinates
+     * @param seed - the seed
+     * @param x - the x coordinate
+     * @param z - the z coordinate
+     * @return - the hash
+     */
+    public static long hash(long seed, int x, int z) {
+        return mix(seed ^ (x * SPREAD_X) ^ (z * SPREAD_Z));
+    }
+
+    /**
+     * hashes a seed and three integer coordinates
+     * @param seed - the seed
+     * @param x - the x coordinate
+     * @param y - the y coordinate
+     * @param z - the z coordinate
+     * @return - the hash
+     */
+    public static long hash(long seed, int x, int y, int z) {
+        return mix(seed ^ (x * SPREAD_X) ^ (y * SPREAD_Y) ^ (z * SPREAD_Z));
+    }
+
+    /**
+     * turns a hash into a float
+     * @param h - the hash
+     * @return - a float from 0 inclusive to 1 exclusive, from the top 24 bits of the hash
+     */
+    public static float toUnitFloat(long h) {
+        return (h >>> 40) / (float) (1 << 24);
+    }
+
+    private Hash() {
+    }
+}
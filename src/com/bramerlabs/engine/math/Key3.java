@@ -63,7 +63,16 @@ public class Key3 {
      */
     @Override
     public int hashCode() {
-        return 31 * x + 17 * y + z;
+        return 31 * (31 * x + y) + z;
+    }
+
+    /**
+     * converts to string
+     * @return - the string representation
+     */
+    @Override
+    public String toString() {
+        return "(" + x + ", " + y + ", " + z + ")";
     }
 
 }
@@ -44,6 +44,28 @@ public class RectangularHitbox {
         this.zMax = zMax;
     }
 
+    /**
+     * creates the smallest hitbox around a set of points
+     * @param positions - three floats per point, as a mesh keeps its vertex positions
+     * @return - the hitbox, empty at the origin if there are no points
+     */
+    public static RectangularHitbox bounding(float[] positions) {
+        if (positions.length < 3) {
+            return new RectangularHitbox(0, 0, 0, 0, 0, 0);
+        }
+        float xMin = Float.POSITIVE_INFINITY, yMin = Float.POSITIVE_INFINITY, zMin = Float.POSITIVE_INFINITY;
+        float xMax = Float.NEGATIVE_INFINITY, yMax = Float.NEGATIVE_INFINITY, zMax = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i + 2 < positions.length; i += 3) {
+            xMin = Math.min(xMin, positions[i]);
+            xMax = Math.max(xMax, positions[i]);
+            yMin = Math.min(yMin, positions[i + 1]);
+            yMax = Math.max(yMax, positions[i + 1]);
+            zMin = Math.min(zMin, positions[i + 2]);
+            zMax = Math.max(zMax, positions[i + 2]);
+        }
+        return new RectangularHitbox(xMin, xMax, yMin, yMax, zMin, zMax);
+    }
+
     /**
      * sets the values of this hitbox
      * @param xMin - the minimum x value of this hitbox
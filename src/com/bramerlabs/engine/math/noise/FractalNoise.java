@@ -0,0 +1,192 @@
+package com.bramerlabs.engine.math.noise;
+
+import java.util.Random;
+
+// Fractal noise in single precision, built from the same octaves as SimplexNoise.
+// Everything that depends only on the octave - its scale and amplitude - is worked out once in the constructor,
+// so evaluating a sample allocates nothing and never calls Math.pow. Instances are immutable and can be shared
+// between threads.
+
+public class FractalNoise {
+
+    /**
+     * the ways the octaves can be combined
+     */
+    public enum Type {
+        // the plain sum of the octaves, the same as SimplexNoise
+        FBM,
+        // sharp crests where an octave crosses 0, each octave weighted by the one above it
+        RIDGED,
+        // rounded bumps, the absolute value of each octave
+        BILLOW
+    }
+
+    // how much the ridges of one octave gate the next, finer one
+    private static final float RIDGE_GAIN = 2;
+
+    // offsets between the noise read for each axis of a domain warp, so the axes are not correlated
+    private static final float WARP_X = 31.416f, WARP_Y = 47.853f, WARP_Z = 89.137f;
+
+    // the way the octaves are combined
+    private final Type type;
+
+    // the octaves, finest first
+    private final SimplexNoiseOctave[] octaves;
+
+    // the factor each octave scales positions by, 1 / 2^i
+    private final float[] scales;
+
+    // the weight of each octave
+    private final float[] amplitudes;
+
+    // the noise that displaces positions before sampling, or null
+    private final FractalNoise warp;
+
+    // how far the warp displaces positions, in world units
+    private final float warpStrength;
+
+    /**
+     * default constructor
+     * uses the same octaves, scales and weights as a SimplexNoise with the same arguments
+     * @param type - the way the octaves are combined
+     * @param largestFeature - the size of the largest features, the octave count is log2 of this
+     * @param persistence - how much each finer octave contributes relative to the one above it
+     * @param seed - the seed of the octaves
+     */
+    public FractalNoise(Type type, float largestFeature, float persistence, int seed) {
+        this(type, largestFeature, persistence, seed, null, 0);
+    }
+
+    /**
+     * constructor for domain warped noise - positions are displaced by another noise before they are sampled
+     * @param type - the way the octaves are combined
+     * @param largestFeature - the size of the largest features, the octave count is log2 of this
+     * @param persistence - how much each finer octave contributes relative to the one above it
+     * @param seed - the seed of the octaves
+     * @param warp - the noise that displaces positions, or null for no warp
+     * @param warpStrength - how far the warp displaces positions, in world units
+     */
+    public FractalNoise(Type type, float largestFeature, float persistence, int seed, FractalNoise warp, float warpStrength) {
+        if (largestFeature < 2) {
+            throw new IllegalArgumentException("The largest feature must be at least 2, was " + largestFeature + ".");
+        }
+        this.type = type;
+        this.warp = warp;
+        this.warpStrength = warpStrength;
+
+        int numberOfOctaves = (int) Math.ceil(Math.log10(largestFeature) / Math.log10(2));
+        octaves = new SimplexNoiseOctave[numberOfOctaves];
+        scales = new float[numberOfOctaves];
+        amplitudes = new float[numberOfOctaves];
+
+        // the same random sequence as SimplexNoise, so both pick the same permutations for a seed
+        Random rnd = new Random(seed);
+        for (int i = 0; i < numberOfOctaves; i++) {
+            octaves[i] = new SimplexNoiseOctave(rnd.nextInt());
+            scales[i] = (float) Math.pow(2, -i);
+            amplitudes[i] = (float) Math.pow(persistence, numberOfOctaves - i);
+        }
+    }
+
+    /**
+     * samples 2D fractal noise
+     * @param x - the x position
+     * @param y - the y position
+     * @return - the noise at (x, y)
+     */
+    public float getNoise2D(float x, float y) {
+        if (warp != null) {
+            float wx = warp.getNoise2D(x + WARP_X, y + WARP_Y);
+            float wy = warp.getNoise2D(x + WARP_Y, y + WARP_Z);
+            x += warpStrength * wx;
+            y += warpStrength * wy;
+        }
+
+        float result = 0;
+        switch (type) {
+            case FBM:
+                for (int i = 0; i < octaves.length; i++) {
+                    result += octaves[i].floatNoise(x * scales[i], y * scales[i]) * amplitudes[i];
+                }
+                break;
+            case BILLOW:
+                for (int i = 0; i < octaves.length; i++) {
+                    result += (2 * Math.abs(octaves[i].floatNoise(x * scales[i], y * scales[i])) - 1) * amplitudes[i];
+                }
+                break;
+            case RIDGED:
+                // coarsest first, so each octave can be gated by the ridges above it
+                float weight = 1;
+                for (int i = octaves.length - 1; i >= 0; i--) {
+                    float signal = 1 - Math.abs(octaves[i].floatNoise(x * scales[i], y * scales[i]));
+                    signal *= signal * weight;
+                    weight = Math.min(Math.max(signal * RIDGE_GAIN, 0), 1);
+                    result += signal * amplitudes[i];
+                }
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * samples 3D fractal noise
+     * @param x - the x position
+     * @param y - the y position
+     * @param z - the z position
+     * @return - the noise at (x, y, z)
+     */
+    public float getNoise3D(float x, float y, float z) {
+        if (warp != null) {
+            float wx = warp.getNoise3D(x + WARP_X, y + WARP_Y, z + WARP_Z);
+            float wy = warp.getNoise3D(x + WARP_Y, y + WARP_Z, z + WARP_X);
+            float wz = warp.getNoise3D(x + WARP_Z, y + WARP_X, z + WARP_Y);
+            x += warpStrength * wx;
+            y += warpStrength * wy;
+            z += warpStrength * wz;
+        }
+
+        float result = 0;
+        switch (type) {
+            case FBM:
+                for (int i = 0; i < octaves.length; i++) {
+                    float scale = scales[i];
+                    result += octaves[i].floatNoise(x * scale, y * scale, z * scale) * amplitudes[i];
+                }
+                break;
+            case BILLOW:
+                for (int i = 0; i < octaves.length; i++) {
+                    float scale = scales[i];
+                    result += (2 * Math.abs(octaves[i].floatNoise(x * scale, y * scale, z * scale)) - 1) * amplitudes[i];
+                }
+                break;
+            case RIDGED:
+                // coarsest first, so each octave can be gated by the ridges above it
+                float weight = 1;
+                for (int i = octaves.length - 1; i >= 0; i--) {
+                    float scale = scales[i];
+                    float signal = 1 - Math.abs(octaves[i].floatNoise(x * scale, y * scale, z * scale));
+                    signal *= signal * weight;
+                    weight = Math.min(Math.max(signal * RIDGE_GAIN, 0), 1);
+                    result += signal * amplitudes[i];
+                }
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * getter method
+     * @return - the way the octaves are combined
+     */
+    public Type getType() {
+        return this.type;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of octaves
+     */
+    public int getOctaveCount() {
+        return this.octaves.length;
+    }
+}
@@ -148,14 +148,14 @@ public class Noise {
         int A = p[X  ]+Y, AA = p[A]+Z, AB = p[A+1]+Z,      // HASH COORDINATES OF
                 B = p[X+1]+Y, BA = p[B]+Z, BB = p[B+1]+Z;      // THE 8 CUBE CORNERS,
 
-        double result = lerp(w, lerp(v, lerp(u, grad(p[AA  ], x  , y  , z   ),  // AND ADD
-                grad(p[BA  ], x-1, y  , z   )), // BLENDED
-                lerp(u, grad(p[AB  ], x  , y-1, z   ),  // RESULTS
-                        grad(p[BB  ], x-1, y-1, z   ))),// FROM  8
-                lerp(v, lerp(u, grad(p[AA+1], x  , y  , z-1 ),  // CORNERS
-                        grad(p[BA+1], x-1, y  , z-1 )), // OF CUBE
-                        lerp(u, grad(p[AB+1], x  , y-1, z-1 ),
-                                grad(p[BB+1], x-1, y-1, z-1 ))));
+        double result = lerp(lerp(lerp(grad(p[AA  ], x  , y  , z   ),  // AND ADD
+                grad(p[BA  ], x-1, y  , z   ), u), // BLENDED
+                lerp(grad(p[AB  ], x  , y-1, z   ),  // RESULTS
+                        grad(p[BB  ], x-1, y-1, z   ), u), v),// FROM  8
+                lerp(lerp(grad(p[AA+1], x  , y  , z-1 ),  // CORNERS
+                        grad(p[BA+1], x-1, y  , z-1 ), u), // OF CUBE
+                        lerp(grad(p[AB+1], x  , y-1, z-1 ),
+                                grad(p[BB+1], x-1, y-1, z-1 ), u), v), w);
         return Math.abs(result)>=1 ? 0.999999999 : result;
     }
 
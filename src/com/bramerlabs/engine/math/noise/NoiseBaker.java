@@ -0,0 +1,372 @@
+package com.bramerlabs.engine.math.noise;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Bakes fractal noise into square or cubic volumes that tile, and keeps them in a cache directory so later runs memory
+// map the file instead of evaluating the noise again. Files are named after everything that changes their samples -
+// the source, dimensions, seed, octaves, persistence and resolution - and start with a header repeating them, so a
+// stale or damaged file is baked again rather than trusted.
+//
+// The noise is sampled one world unit apart, and made to tile by blending it with copies of itself shifted by the size
+// of the volume, weighted by the distance to each edge. The blend flattens the noise a little towards the middle of
+// the volume, where all the copies count equally.
+
+public class NoiseBaker {
+
+    /**
+     * the noise functions that can be baked
+     */
+    public enum Source {
+        // SimplexNoise with 2^octaves as its largest feature
+        SIMPLEX,
+        // octaves of Noise.perlin, scaled and weighted the same way as SimplexNoise
+        PERLIN
+    }
+
+    // the first bytes of every cache file, "TNNV", and the version of the layout after them
+    private static final int MAGIC = 0x564E4E54, VERSION = 1;
+
+    // the bytes of the header - magic, version, source, dimensions, seed, octaves, persistence and resolution
+    private static final int HEADER_BYTES = 8 * 4;
+
+    // the rows below which a range of rows is not split any further
+    private static final int ROWS_PER_TASK = 16;
+
+    // the directory the cache files are kept in
+    private final File directory;
+
+    // the work stealing pool that volumes are baked on
+    private final ForkJoinPool pool;
+
+    /**
+     * default constructor - bakes on one worker thread per core
+     * @param directory - the directory the cache files are kept in, created when the first file is written
+     */
+    public NoiseBaker(File directory) {
+        this(directory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * constructor for a specified amount of worker threads
+     * @param directory - the directory the cache files are kept in, created when the first file is written
+     * @param threads - the amount of worker threads
+     */
+    public NoiseBaker(File directory, int threads) {
+        this.directory = directory;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * opens a baked volume, memory mapping its cache file if there is a valid one, and baking and caching it if not
+     * if the cache cannot be written the volume is still baked, and kept in memory only
+     * @param source - the noise function
+     * @param dimensions - 2 for a square, 3 for a cube
+     * @param seed - the seed of the noise
+     * @param octaves - the amount of octaves
+     * @param persistence - how much each finer octave contributes relative to the one above it
+     * @param resolution - the amount of samples along each side, and the distance after which the volume repeats
+     * @return - the volume
+     */
+    public NoiseVolume get(Source source, int dimensions, int seed, int octaves, float persistence, int resolution) {
+        File file = getFile(source, dimensions, seed, octaves, persistence, resolution);
+        NoiseVolume volume = map(file, source, dimensions, seed, octaves, persistence, resolution);
+        if (volume != null) {
+            return volume;
+        }
+
+        ByteBuffer baked = bake(source, dimensions, seed, octaves, persistence, resolution);
+        try {
+            write(file, baked);
+            volume = map(file, source, dimensions, seed, octaves, persistence, resolution);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Could not cache noise at " + file);
+        }
+        if (volume == null) {
+            baked.position(HEADER_BYTES);
+            volume = new NoiseVolume(baked.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer(), resolution, dimensions);
+        }
+        return volume;
+    }
+
+    /**
+     * finds the cache file of a volume
+     * @param source - the noise function
+     * @param dimensions - 2 for a square, 3 for a cube
+     * @param seed - the seed of the noise
+     * @param octaves - the amount of octaves
+     * @param persistence - how much each finer octave contributes relative to the one above it
+     * @param resolution - the amount of samples along each side
+     * @return - the file, which may not exist yet
+     */
+    public File getFile(Source source, int dimensions, int seed, int octaves, float persistence, int resolution) {
+        return new File(directory, String.format("%s-%dd-%d-%d-%08x-%d.noise", source.name().toLowerCase(), dimensions,
+                seed, octaves, Float.floatToIntBits(persistence), resolution));
+    }
+
+    /**
+     * evaluates the noise into a new volume, without touching the cache
+     * @param source - the noise function
+     * @param dimensions - 2 for a square, 3 for a cube
+     * @param seed - the seed of the noise
+     * @param octaves - the amount of octaves
+     * @param persistence - how much each finer octave contributes relative to the one above it
+     * @param resolution - the amount of samples along each side
+     * @return - the header followed by the samples, little endian, ready to be written to a cache file
+     */
+    public ByteBuffer bake(Source source, int dimensions, int seed, int octaves, float persistence, int resolution) {
+        if (dimensions != 2 && dimensions != 3) {
+            throw new IllegalArgumentException("A noise volume has 2 or 3 dimensions, not " + dimensions + ".");
+        }
+        if (octaves < 1 || resolution < 2) {
+            throw new IllegalArgumentException("Expected at least 1 octave and 2 samples along each side, got "
+                    + octaves + " octaves and " + resolution + " samples.");
+        }
+        long samples = (long) resolution * resolution * (dimensions == 3 ? resolution : 1);
+        if (HEADER_BYTES + samples * Float.BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A volume of " + samples + " samples does not fit in a single file mapping.");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + (int) samples * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(source.ordinal()).putInt(dimensions)
+                .putInt(seed).putInt(octaves).putFloat(persistence).putInt(resolution);
+        FloatBuffer data = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        buffer.rewind();
+
+        Field field = source == Source.SIMPLEX ? simplex(seed, octaves, persistence) : perlin(seed, octaves, persistence);
+        int rows = dimensions == 3 ? resolution * resolution : resolution;
+        pool.invoke(new RowTask(field, data, resolution, dimensions, 0, rows));
+        return buffer;
+    }
+
+    /**
+     * stops the worker threads
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * memory maps a cache file, if it exists and its header matches
+     * @param file - the cache file
+     * @param source - the noise function
+     * @param dimensions - 2 for a square, 3 for a cube
+     * @param seed - the seed of the noise
+     * @param octaves - the amount of octaves
+     * @param persistence - how much each finer octave contributes relative to the one above it
+     * @param resolution - the amount of samples along each side
+     * @return - the mapped volume, or null if the file is missing, stale or cannot be read
+     */
+    private static NoiseVolume map(File file, Source source, int dimensions, int seed, int octaves, float persistence, int resolution) {
+        if (!file.isFile()) {
+            return null;
+        }
+        long samples = (long) resolution * resolution * (dimensions == 3 ? resolution : 1);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_BYTES + samples * Float.BYTES) {
+                return null;
+            }
+            // the mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != source.ordinal()
+                    || buffer.getInt() != dimensions || buffer.getInt() != seed || buffer.getInt() != octaves
+                    || Float.floatToIntBits(buffer.getFloat()) != Float.floatToIntBits(persistence)
+                    || buffer.getInt() != resolution) {
+                return null;
+            }
+            return new NoiseVolume(buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer(), resolution, dimensions);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Could not read cached noise at " + file);
+            return null;
+        }
+    }
+
+    /**
+     * writes a baked volume to its cache file
+     * the volume is written to a temporary file first and moved into place, so a run that stops half way through, or
+     * another run baking the same volume, never leaves a partial file behind
+     * @param file - the cache file
+     * @param baked - the header followed by the samples
+     * @throws IOException - if the file cannot be written
+     */
+    private static void write(File file, ByteBuffer baked) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        File temporary = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = baked.duplicate();
+            bytes.rewind();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+        try {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    /**
+     * makes fractal simplex noise
+     * @param seed - the seed of the noise
+     * @param octaves - the amount of octaves
+     * @param persistence - how much each finer octave contributes
+     * @return - the noise as a field
+     */
+    private static Field simplex(int seed, int octaves, float persistence) {
+        // the octave count is the log2 of the largest feature, rounded up
+        SimplexNoise noise = new SimplexNoise((float) Math.pow(2, octaves), persistence, seed);
+        return new Field() {
+            @Override
+            public float get(float x, float y) {
+                return (float) noise.getNoise2D(x, y);
+            }
+
+            @Override
+            public float get(float x, float y, float z) {
+                return (float) noise.getNoise3D(x, y, z);
+            }
+        };
+    }
+
+    /**
+     * makes fractal perlin noise
+     * @param seed - the seed of the noise
+     * @param octaves - the amount of octaves
+     * @param persistence - how much each finer octave contributes
+     * @return - the noise as a field
+     */
+    private static Field perlin(int seed, int octaves, float persistence) {
+        // one permutation per octave, picked the same way as SimplexNoise picks them
+        Noise[] noises = new Noise[octaves];
+        double[] frequencies = new double[octaves], amplitudes = new double[octaves];
+        Random rnd = new Random(seed);
+        for (int i = 0; i < octaves; i++) {
+            noises[i] = new Noise(rnd.nextInt());
+            frequencies[i] = Math.pow(2, -i);
+            amplitudes[i] = Math.pow(persistence, octaves - i);
+        }
+        return new Field() {
+            @Override
+            public float get(float x, float y) {
+                return get(x, y, 0);
+            }
+
+            @Override
+            public float get(float x, float y, float z) {
+                double result = 0;
+                for (int i = 0; i < octaves; i++) {
+                    result += noises[i].perlin(x, y, z, frequencies[i]) * amplitudes[i];
+                }
+                return (float) result;
+            }
+        };
+    }
+
+    /**
+     * noise that can be read anywhere, from any thread
+     */
+    private interface Field {
+
+        /**
+         * reads 2D noise
+         * @param x - the x position
+         * @param y - the y position
+         * @return - the noise at (x, y)
+         */
+        float get(float x, float y);
+
+        /**
+         * reads 3D noise
+         * @param x - the x position
+         * @param y - the y position
+         * @param z - the z position
+         * @return - the noise at (x, y, z)
+         */
+        float get(float x, float y, float z);
+    }
+
+    /**
+     * bakes a range of rows, splitting the range in half until it is small enough
+     * a row runs along x, and rows are numbered y first, then z
+     */
+    @SuppressWarnings("serial")
+    private static class RowTask extends RecursiveAction {
+
+        // the noise, and the samples it is baked into
+        private final Field field;
+        private final FloatBuffer data;
+
+        // the amount of samples along each side, and 2 or 3 dimensions
+        private final int resolution, dimensions;
+
+        // the range of rows this task covers
+        private final int start, end;
+
+        /**
+         * default constructor
+         * @param field - the noise
+         * @param data - the samples to fill
+         * @param resolution - the amount of samples along each side
+         * @param dimensions - 2 for a square, 3 for a cube
+         * @param start - the first row of this task, inclusive
+         * @param end - the last row of this task, exclusive
+         */
+        RowTask(Field field, FloatBuffer data, int resolution, int dimensions, int start, int end) {
+            this.field = field;
+            this.data = data;
+            this.resolution = resolution;
+            this.dimensions = dimensions;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * bakes the rows in this range, writing each sample at its own index so tasks never overlap
+         */
+        @Override
+        protected void compute() {
+            if (end - start > ROWS_PER_TASK) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new RowTask(field, data, resolution, dimensions, start, middle),
+                        new RowTask(field, data, resolution, dimensions, middle, end));
+                return;
+            }
+
+            float size = resolution;
+            for (int row = start; row < end; row++) {
+                float y = row % resolution, z = row / resolution;
+                float wy = y / size, wz = z / size;
+                for (int i = 0; i < resolution; i++) {
+                    float x = i, wx = x / size;
+                    float value;
+                    if (dimensions == 2) {
+                        // each copy weighted by how close the sample is to the edge the copy wraps in from
+                        value = (1 - wx) * (1 - wy) * field.get(x, y) + wx * (1 - wy) * field.get(x - size, y)
+                                + (1 - wx) * wy * field.get(x, y - size) + wx * wy * field.get(x - size, y - size);
+                    } else {
+                        value = 0;
+                        for (int c = 0; c < 8; c++) {
+                            boolean cx = (c & 1) != 0, cy = (c & 2) != 0, cz = (c & 4) != 0;
+                            float weight = (cx ? wx : 1 - wx) * (cy ? wy : 1 - wy) * (cz ? wz : 1 - wz);
+                            value += weight * field.get(cx ? x - size : x, cy ? y - size : y, cz ? z - size : z);
+                        }
+                    }
+                    data.put(i + resolution * row, value);
+                }
+            }
+        }
+    }
+}
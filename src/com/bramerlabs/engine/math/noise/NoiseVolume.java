@@ -0,0 +1,153 @@
+package com.bramerlabs.engine.math.noise;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+import org.lwjgl.opengl.GL30;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+// A square or cubic grid of baked noise that wraps around at its edges, so it can be repeated without seams. The
+// samples are usually memory mapped from a NoiseBaker cache file, so opening a volume costs nothing until it is read.
+// Volumes are read only and can be shared between threads.
+
+public class NoiseVolume {
+
+    // the samples, x first, then y, then z
+    private final FloatBuffer data;
+
+    // the amount of samples along each side
+    private final int resolution;
+
+    // 2 for a square, 3 for a cube
+    private final int dimensions;
+
+    /**
+     * default constructor
+     * @param data - the samples, x first, then y, then z
+     * @param resolution - the amount of samples along each side
+     * @param dimensions - 2 for a square, 3 for a cube
+     */
+    public NoiseVolume(FloatBuffer data, int resolution, int dimensions) {
+        if (dimensions != 2 && dimensions != 3) {
+            throw new IllegalArgumentException("A noise volume has 2 or 3 dimensions, not " + dimensions + ".");
+        }
+        long count = dimensions == 2 ? (long) resolution * resolution : (long) resolution * resolution * resolution;
+        if (data.remaining() != count) {
+            throw new IllegalArgumentException("Expected " + count + " samples, got " + data.remaining() + ".");
+        }
+        this.data = data;
+        this.resolution = resolution;
+        this.dimensions = dimensions;
+    }
+
+    /**
+     * reads a sample of a square volume, wrapping around at the edges
+     * @param x - the x index
+     * @param y - the y index
+     * @return - the sample
+     */
+    public float get(int x, int y) {
+        return data.get(Math.floorMod(x, resolution) + resolution * Math.floorMod(y, resolution));
+    }
+
+    /**
+     * reads a sample of a cubic volume, wrapping around at the edges
+     * @param x - the x index
+     * @param y - the y index
+     * @param z - the z index
+     * @return - the sample
+     */
+    public float get(int x, int y, int z) {
+        return data.get(Math.floorMod(x, resolution)
+                + resolution * (Math.floorMod(y, resolution) + resolution * Math.floorMod(z, resolution)));
+    }
+
+    /**
+     * reads a square volume between samples, one sample per world unit
+     * @param x - the x position
+     * @param y - the y position
+     * @return - the bilinearly interpolated noise
+     */
+    public float sample(float x, float y) {
+        int ix = (int) Math.floor(x), iy = (int) Math.floor(y);
+        float u = x - ix, v = y - iy;
+        float a = get(ix, iy) + u * (get(ix + 1, iy) - get(ix, iy));
+        float b = get(ix, iy + 1) + u * (get(ix + 1, iy + 1) - get(ix, iy + 1));
+        return a + v * (b - a);
+    }
+
+    /**
+     * reads a cubic volume between samples, one sample per world unit
+     * @param x - the x position
+     * @param y - the y position
+     * @param z - the z position
+     * @return - the trilinearly interpolated noise
+     */
+    public float sample(float x, float y, float z) {
+        int ix = (int) Math.floor(x), iy = (int) Math.floor(y), iz = (int) Math.floor(z);
+        float u = x - ix, v = y - iy, w = z - iz;
+        float[] layers = new float[2];
+        for (int k = 0; k < 2; k++) {
+            float a = get(ix, iy, iz + k) + u * (get(ix + 1, iy, iz + k) - get(ix, iy, iz + k));
+            float b = get(ix, iy + 1, iz + k) + u * (get(ix + 1, iy + 1, iz + k) - get(ix, iy + 1, iz + k));
+            layers[k] = a + v * (b - a);
+        }
+        return layers[0] + w * (layers[1] - layers[0]);
+    }
+
+    /**
+     * uploads the volume as a single channel float texture that repeats and filters linearly, so shaders can sample it
+     * the same way as sample - has to run on the thread that owns the GL context
+     * @return - the texture, a GL_TEXTURE_2D or a GL_TEXTURE_3D depending on the dimensions
+     */
+    public int createTexture() {
+        // the cache files are little endian, which GL only reads directly on little endian machines
+        FloatBuffer pixels = data.duplicate();
+        if (pixels.order() != ByteOrder.nativeOrder() || !pixels.isDirect()) {
+            pixels = ByteBuffer.allocateDirect(data.remaining() * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+            pixels.put(data.duplicate()).flip();
+        }
+
+        int target = dimensions == 2 ? GL11.GL_TEXTURE_2D : GL12.GL_TEXTURE_3D;
+        int texture = GL11.glGenTextures();
+        GL11.glBindTexture(target, texture);
+        GL11.glTexParameteri(target, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
+        GL11.glTexParameteri(target, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+        GL11.glTexParameteri(target, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
+        GL11.glTexParameteri(target, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
+        if (dimensions == 2) {
+            GL11.glTexImage2D(target, 0, GL30.GL_R32F, resolution, resolution, 0, GL11.GL_RED, GL11.GL_FLOAT, pixels);
+        } else {
+            GL11.glTexParameteri(target, GL12.GL_TEXTURE_WRAP_R, GL11.GL_REPEAT);
+            GL12.glTexImage3D(target, 0, GL30.GL_R32F, resolution, resolution, resolution, 0, GL11.GL_RED, GL11.GL_FLOAT, pixels);
+        }
+        GL11.glBindTexture(target, 0);
+        return texture;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of samples along each side
+     */
+    public int getResolution() {
+        return this.resolution;
+    }
+
+    /**
+     * getter method
+     * @return - 2 for a square, 3 for a cube
+     */
+    public int getDimensions() {
+        return this.dimensions;
+    }
+
+    /**
+     * getter method
+     * @return - a read only view of the samples, x first, then y, then z
+     */
+    public FloatBuffer getData() {
+        return this.data.asReadOnlyBuffer();
+    }
+}
@@ -1,5 +1,7 @@
 package com.bramerlabs.engine.math.noise;
 
+import java.nio.FloatBuffer;
+import java.util.Arrays;
 import java.util.Random;
 
 // Just like in perlin noise you will in general combine several octaves of noise
@@ -55,4 +57,250 @@ public class SimplexNoise {
 
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * 2D fractal noise together with its gradient, in a single evaluation per octave
+     * @param x - the x position
+     * @param y - the y position
+     * @param derivative - receives the partial derivatives of the noise along x and y
+     * @return - the same value as getNoise2D(x, y)
+     */
+    public double getNoise2D(float x, float y, double[] derivative) {
+        double result = 0, dx = 0, dy = 0;
+        double[] octave = new double[2];
+        for(int i=0;i<octaves.length;i++) {
+            result = result + octaves[i].noise(x/frequencys[i], y/frequencys[i], octave)* amplitudes[i];
+
+            // the octave is sampled at x / frequency, so its slope in world space is divided by the frequency
+            double scale = amplitudes[i] / frequencys[i];
+            dx += octave[0] * scale;
+            dy += octave[1] * scale;
+        }
+        derivative[0] = dx;
+        derivative[1] = dy;
+        return result;
+    }
+
+    /**
+     * 3D fractal noise together with its gradient, in a single evaluation per octave
+     * @param x - the x position
+     * @param y - the y position
+     * @param z - the z position
+     * @param derivative - receives the partial derivatives of the noise along x, y and z
+     * @return - the same value as getNoise3D(x, y, z)
+     */
+    public double getNoise3D(float x, float y, float z, double[] derivative) {
+        double result = 0, dx = 0, dy = 0, dz = 0;
+        double[] octave = new double[3];
+        for(int i=0;i<octaves.length;i++) {
+            double frequency = Math.pow(2,i);
+            double amplitude = Math.pow(persistence,octaves.length - i);
+
+            result = result + octaves[i].noise(x/frequency, y/frequency, z/frequency, octave)* amplitude;
+
+            // the octave is sampled at x / frequency, so its slope in world space is divided by the frequency
+            double scale = amplitude / frequency;
+            dx += octave[0] * scale;
+            dy += octave[1] * scale;
+            dz += octave[2] * scale;
+        }
+        derivative[0] = dx;
+        derivative[1] = dy;
+        derivative[2] = dz;
+        return result;
+    }
+
+    /**
+     * fills an array with 2D fractal noise sampled on a regular grid, x first, then y
+     * every sample is the same as getNoise2D(x0 + i * step, y0 + j * step), but the octave scales and sample positions
+     * are worked out once per grid instead of once per sample
+     * @param x0 - the x position of the first sample
+     * @param y0 - the y position of the first sample
+     * @param step - the distance between two adjacent samples
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeY - the amount of samples along the y axis
+     * @param out - the array to fill
+     * @param offset - the index in the array of the first sample
+     */
+    public void getNoise2D(float x0, float y0, float step, int sizeX, int sizeY, float[] out, int offset) {
+        SimplexNoiseOctave.checkGrid(sizeX, sizeY, 1, out.length - offset);
+
+        // the sample positions of each octave, in the same float arithmetic as getNoise2D
+        double[][] xs = new double[octaves.length][sizeX], ys = new double[octaves.length][sizeY];
+        for (int o = 0; o < octaves.length; o++) {
+            for (int x = 0; x < sizeX; x++) {
+                xs[o][x] = (x0 + x * step) / frequencys[o];
+            }
+            for (int y = 0; y < sizeY; y++) {
+                ys[o][y] = (y0 + y * step) / frequencys[o];
+            }
+        }
+
+        double[] row = new double[sizeX];
+        for (int y = 0; y < sizeY; y++) {
+            Arrays.fill(row, 0);
+            for (int o = 0; o < octaves.length; o++) {
+                SimplexNoiseOctave octave = octaves[o];
+                double[] ox = xs[o];
+                double oy = ys[o][y];
+                float amplitude = amplitudes[o];
+                for (int x = 0; x < sizeX; x++) {
+                    row[x] = row[x] + octave.noise(ox[x], oy) * amplitude;
+                }
+            }
+            for (int x = 0; x < sizeX; x++) {
+                out[offset++] = (float) row[x];
+            }
+        }
+    }
+
+    /**
+     * fills an array with 3D fractal noise sampled on a regular grid, x first, then y, then z
+     * every sample is the same as getNoise3D(x0 + i * step, y0 + j * step, z0 + k * step), but the octave scales and
+     * sample positions are worked out once per grid instead of once per sample
+     * @param x0 - the x position of the first sample
+     * @param y0 - the y position of the first sample
+     * @param z0 - the z position of the first sample
+     * @param step - the distance between two adjacent samples
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeY - the amount of samples along the y axis
+     * @param sizeZ - the amount of samples along the z axis
+     * @param out - the array to fill
+     * @param offset - the index in the array of the first sample
+     */
+    public void getNoise3D(float x0, float y0, float z0, float step, int sizeX, int sizeY, int sizeZ, float[] out, int offset) {
+        SimplexNoiseOctave.checkGrid(sizeX, sizeY, sizeZ, out.length - offset);
+        Grid3D grid = new Grid3D(x0, y0, z0, step, sizeX, sizeY, sizeZ);
+        double[] row = new double[sizeX];
+        for (int z = 0; z < sizeZ; z++) {
+            for (int y = 0; y < sizeY; y++) {
+                grid.row(y, z, row);
+                for (int x = 0; x < sizeX; x++) {
+                    out[offset++] = (float) row[x];
+                }
+            }
+        }
+    }
+
+    /**
+     * puts 3D fractal noise sampled on a regular grid into a buffer, x first, then y, then z, starting at its position
+     * @param x0 - the x position of the first sample
+     * @param y0 - the y position of the first sample
+     * @param z0 - the z position of the first sample
+     * @param step - the distance between two adjacent samples
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeY - the amount of samples along the y axis
+     * @param sizeZ - the amount of samples along the z axis
+     * @param out - the buffer to put the samples into, its position is moved past them
+     */
+    public void getNoise3D(float x0, float y0, float z0, float step, int sizeX, int sizeY, int sizeZ, FloatBuffer out) {
+        SimplexNoiseOctave.checkGrid(sizeX, sizeY, sizeZ, out.remaining());
+        Grid3D grid = new Grid3D(x0, y0, z0, step, sizeX, sizeY, sizeZ);
+        double[] row = new double[sizeX];
+        for (int z = 0; z < sizeZ; z++) {
+            for (int y = 0; y < sizeY; y++) {
+                grid.row(y, z, row);
+                for (int x = 0; x < sizeX; x++) {
+                    out.put((float) row[x]);
+                }
+            }
+        }
+    }
+
+    /**
+     * getter method
+     * @return - the amount of octaves
+     */
+    public int getOctaveCount() {
+        return this.octaves.length;
+    }
+
+    /**
+     * getter method
+     * @param i - the index of the octave, finest first
+     * @return - the octave
+     */
+    public SimplexNoiseOctave getOctave(int i) {
+        return this.octaves[i];
+    }
+
+    /**
+     * getter method
+     * @param i - the index of the octave, finest first
+     * @return - the size of the octave's features, positions are divided by this before sampling it
+     */
+    public float getFrequency(int i) {
+        return this.frequencys[i];
+    }
+
+    /**
+     * getter method
+     * @param i - the index of the octave, finest first
+     * @return - the weight of the octave
+     */
+    public float getAmplitude(int i) {
+        return this.amplitudes[i];
+    }
+
+    /**
+     * the per octave sample positions and amplitudes of a 3D grid, worked out once so each row only evaluates noise
+     */
+    private final class Grid3D {
+
+        // the sample positions along each axis, scaled to each octave
+        private final double[][] xs, ys, zs;
+
+        // the amplitude of each octave
+        private final double[] weights;
+
+        /**
+         * default constructor
+         * @param x0 - the x position of the first sample
+         * @param y0 - the y position of the first sample
+         * @param z0 - the z position of the first sample
+         * @param step - the distance between two adjacent samples
+         * @param sizeX - the amount of samples along the x axis
+         * @param sizeY - the amount of samples along the y axis
+         * @param sizeZ - the amount of samples along the z axis
+         */
+        Grid3D(float x0, float y0, float z0, float step, int sizeX, int sizeY, int sizeZ) {
+            xs = new double[octaves.length][sizeX];
+            ys = new double[octaves.length][sizeY];
+            zs = new double[octaves.length][sizeZ];
+            weights = new double[octaves.length];
+            for (int o = 0; o < octaves.length; o++) {
+                // the same float positions and double scales as getNoise3D
+                double frequency = Math.pow(2, o);
+                weights[o] = Math.pow(persistence, octaves.length - o);
+                for (int x = 0; x < sizeX; x++) {
+                    xs[o][x] = (x0 + x * step) / frequency;
+                }
+                for (int y = 0; y < sizeY; y++) {
+                    ys[o][y] = (y0 + y * step) / frequency;
+                }
+                for (int z = 0; z < sizeZ; z++) {
+                    zs[o][z] = (z0 + z * step) / frequency;
+                }
+            }
+        }
+
+        /**
+         * sums the octaves along one row of the grid
+         * @param y - the y index of the row
+         * @param z - the z index of the row
+         * @param row - receives the noise of every sample in the row
+         */
+        void row(int y, int z, double[] row) {
+            Arrays.fill(row, 0);
+            for (int o = 0; o < octaves.length; o++) {
+                SimplexNoiseOctave octave = octaves[o];
+                double[] ox = xs[o];
+                double oy = ys[o][y], oz = zs[o][z];
+                double amplitude = weights[o];
+                for (int x = 0; x < row.length; x++) {
+                    row[x] = row[x] + octave.noise(ox[x], oy, oz) * amplitude;
+                }
+            }
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package com.bramerlabs.engine.math.noise;
 
+import java.nio.FloatBuffer;
+import java.util.Arrays;
 import java.util.Random;
 
 public class SimplexNoiseOctave {
-    public static int RANDOMSEED = 0;
 
     private static Grad[] grad3 = {
             new Grad(1,1,0),new Grad(-1,1,0),new Grad(1,-1,0),new Grad(-1,-1,0),
@@ -22,6 +23,11 @@ public class SimplexNoiseOctave {
             new Grad(-1,1,1,0),new Grad(-1,1,-1,0),new Grad(-1,-1,1,0),new Grad(-1,-1,-1,0)
     };
 
+    // the components of grad3 in single precision, for the float versions of the noise
+    private static final float[] GRAD3_X = {1,-1,1,-1, 1,-1,1,-1, 0,0,0,0};
+    private static final float[] GRAD3_Y = {1,1,-1,-1, 0,0,0,0, 1,-1,1,-1};
+    private static final float[] GRAD3_Z = {0,0,0,0, 1,1,-1,-1, 1,1,-1,-1};
+
     //this contains all the numbers between 0 and 255, these are put in a random order depending upon the seed
     private static short[] p_supply = {
             151,160,137,91,90,15,
@@ -42,14 +48,21 @@ public class SimplexNoiseOctave {
     private short[] perm = new short[512];
     private short[] permMod12 = new short[512];
 
+    /**
+     * constructor for an octave with a seed picked at random, different on every run
+     */
+    public SimplexNoiseOctave() {
+        this(new Random().nextInt());
+    }
+
+    /**
+     * constructor for a seeded octave - every seed, 0 included, always gives the same permutation, so worlds built from
+     * derived seeds never pick up a random one by chance
+     * @param seed - the seed of the permutation
+     */
     public SimplexNoiseOctave(int seed) {
         short[] p = p_supply.clone();
 
-        if (seed==RANDOMSEED){
-            Random rand=new Random();
-            seed=rand.nextInt();
-        }
-
         //the random for the swaps
         Random rand=new Random(seed);
 
@@ -85,6 +98,11 @@ public class SimplexNoiseOctave {
         return x<xi ? xi-1 : xi;
     }
 
+    private static int fastfloor(float x) {
+        int xi = (int)x;
+        return x<xi ? xi-1 : xi;
+    }
+
     private static double dot(Grad g, double x, double y) {
         return g.x*x + g.y*y; }
 
@@ -244,6 +262,295 @@ public class SimplexNoiseOctave {
     }
 
 
+    /**
+     * 2D simplex noise together with its gradient, in a single evaluation
+     * every corner adds t^4 * (g . d) with t = 0.5 - |d|^2, so it adds t^4 * g - 8 * t^3 * (g . d) * d to the gradient
+     * @param xin - the x position
+     * @param yin - the y position
+     * @param derivative - receives the partial derivatives of the noise along x and y
+     * @return - the same value as noise(xin, yin)
+     */
+    public double noise(double xin, double yin, double[] derivative) {
+        double n = 0, dx = 0, dy = 0;
+        double s = (xin+yin)*F2;
+        int i = fastfloor(xin+s);
+        int j = fastfloor(yin+s);
+        double t = (i+j)*G2;
+        double x0 = xin-(i-t);
+        double y0 = yin-(j-t);
+        int i1, j1;
+        if(x0>y0) {i1=1; j1=0;}
+        else {i1=0; j1=1;}
+        double x1 = x0 - i1 + G2;
+        double y1 = y0 - j1 + G2;
+        double x2 = x0 - 1.0 + 2.0 * G2;
+        double y2 = y0 - 1.0 + 2.0 * G2;
+        int ii = i & 255;
+        int jj = j & 255;
+        Grad g0 = grad3[permMod12[ii+perm[jj]]];
+        Grad g1 = grad3[permMod12[ii+i1+perm[jj+j1]]];
+        Grad g2 = grad3[permMod12[ii+1+perm[jj+1]]];
+        double t0 = 0.5 - x0*x0-y0*y0;
+        if(t0>=0) {
+            double d = dot(g0, x0, y0), tt = t0*t0;
+            n += tt * tt * d;
+            double f = 8 * tt * t0 * d;
+            dx += tt * tt * g0.x - f * x0;
+            dy += tt * tt * g0.y - f * y0;
+        }
+        double t1 = 0.5 - x1*x1-y1*y1;
+        if(t1>=0) {
+            double d = dot(g1, x1, y1), tt = t1*t1;
+            n += tt * tt * d;
+            double f = 8 * tt * t1 * d;
+            dx += tt * tt * g1.x - f * x1;
+            dy += tt * tt * g1.y - f * y1;
+        }
+        double t2 = 0.5 - x2*x2-y2*y2;
+        if(t2>=0) {
+            double d = dot(g2, x2, y2), tt = t2*t2;
+            n += tt * tt * d;
+            double f = 8 * tt * t2 * d;
+            dx += tt * tt * g2.x - f * x2;
+            dy += tt * tt * g2.y - f * y2;
+        }
+        derivative[0] = 70.0 * dx;
+        derivative[1] = 70.0 * dy;
+        return 70.0 * n;
+    }
+
+    /**
+     * 3D simplex noise together with its gradient, in a single evaluation
+     * every corner adds t^4 * (g . d) with t = 0.6 - |d|^2, so it adds t^4 * g - 8 * t^3 * (g . d) * d to the gradient
+     * @param xin - the x position
+     * @param yin - the y position
+     * @param zin - the z position
+     * @param derivative - receives the partial derivatives of the noise along x, y and z
+     * @return - the same value as noise(xin, yin, zin)
+     */
+    public double noise(double xin, double yin, double zin, double[] derivative) {
+        double n = 0, dx = 0, dy = 0, dz = 0;
+        double s = (xin+yin+zin)*F3;
+        int i = fastfloor(xin+s);
+        int j = fastfloor(yin+s);
+        int k = fastfloor(zin+s);
+        double t = (i+j+k)*G3;
+        double x0 = xin-(i-t);
+        double y0 = yin-(j-t);
+        double z0 = zin-(k-t);
+        int i1, j1, k1;
+        int i2, j2, k2;
+        if(x0>=y0) {
+            if(y0>=z0) {
+                i1=1; j1=0; k1=0; i2=1; j2=1; k2=0;
+            }
+            else if(x0>=z0) {
+                i1=1; j1=0; k1=0; i2=1; j2=0; k2=1;
+            }
+            else {
+                i1=0; j1=0; k1=1; i2=1; j2=0; k2=1;
+            }
+        }
+        else {
+            if(y0<z0) {
+                i1=0; j1=0; k1=1; i2=0; j2=1; k2=1;
+            }
+            else if(x0<z0) {
+                i1=0; j1=1; k1=0; i2=0; j2=1; k2=1;
+            }
+            else {
+                i1=0; j1=1; k1=0; i2=1; j2=1; k2=0;
+            }
+        }
+        double x1 = x0 - i1 + G3;
+        double y1 = y0 - j1 + G3;
+        double z1 = z0 - k1 + G3;
+        double x2 = x0 - i2 + 2.0*G3;
+        double y2 = y0 - j2 + 2.0*G3;
+        double z2 = z0 - k2 + 2.0*G3;
+        double x3 = x0 - 1.0 + 3.0*G3;
+        double y3 = y0 - 1.0 + 3.0*G3;
+        double z3 = z0 - 1.0 + 3.0*G3;
+        int ii = i & 255;
+        int jj = j & 255;
+        int kk = k & 255;
+        Grad g0 = grad3[permMod12[ii+perm[jj+perm[kk]]]];
+        Grad g1 = grad3[permMod12[ii+i1+perm[jj+j1+perm[kk+k1]]]];
+        Grad g2 = grad3[permMod12[ii+i2+perm[jj+j2+perm[kk+k2]]]];
+        Grad g3 = grad3[permMod12[ii+1+perm[jj+1+perm[kk+1]]]];
+        double t0 = 0.6 - x0*x0 - y0*y0 - z0*z0;
+        if(t0>=0) {
+            double d = dot(g0, x0, y0, z0), tt = t0*t0;
+            n += tt * tt * d;
+            double f = 8 * tt * t0 * d;
+            dx += tt * tt * g0.x - f * x0;
+            dy += tt * tt * g0.y - f * y0;
+            dz += tt * tt * g0.z - f * z0;
+        }
+        double t1 = 0.6 - x1*x1 - y1*y1 - z1*z1;
+        if(t1>=0) {
+            double d = dot(g1, x1, y1, z1), tt = t1*t1;
+            n += tt * tt * d;
+            double f = 8 * tt * t1 * d;
+            dx += tt * tt * g1.x - f * x1;
+            dy += tt * tt * g1.y - f * y1;
+            dz += tt * tt * g1.z - f * z1;
+        }
+        double t2 = 0.6 - x2*x2 - y2*y2 - z2*z2;
+        if(t2>=0) {
+            double d = dot(g2, x2, y2, z2), tt = t2*t2;
+            n += tt * tt * d;
+            double f = 8 * tt * t2 * d;
+            dx += tt * tt * g2.x - f * x2;
+            dy += tt * tt * g2.y - f * y2;
+            dz += tt * tt * g2.z - f * z2;
+        }
+        double t3 = 0.6 - x3*x3 - y3*y3 - z3*z3;
+        if(t3>=0) {
+            double d = dot(g3, x3, y3, z3), tt = t3*t3;
+            n += tt * tt * d;
+            double f = 8 * tt * t3 * d;
+            dx += tt * tt * g3.x - f * x3;
+            dy += tt * tt * g3.y - f * y3;
+            dz += tt * tt * g3.z - f * z3;
+        }
+        derivative[0] = 32.0 * dx;
+        derivative[1] = 32.0 * dy;
+        derivative[2] = 32.0 * dz;
+        return 32.0 * n;
+    }
+
+
+    // single precision skewing and unskewing factors
+    private static final float F2F = (float) F2;
+    private static final float G2F = (float) G2;
+    private static final float F3F = (float) F3;
+    private static final float G3F = (float) G3;
+
+    /**
+     * 2D simplex noise in single precision, the same as noise(x, y) up to float rounding but cheaper where the result is a float
+     * @param xin - the x position
+     * @param yin - the y position
+     * @return - the noise, in [-1, 1]
+     */
+    public float floatNoise(float xin, float yin) {
+        float s = (xin+yin)*F2F;
+        int i = fastfloor(xin+s);
+        int j = fastfloor(yin+s);
+        float t = (i+j)*G2F;
+        float x0 = xin-(i-t);
+        float y0 = yin-(j-t);
+        int i1 = x0>y0 ? 1 : 0;
+        int j1 = 1-i1;
+        float x1 = x0 - i1 + G2F;
+        float y1 = y0 - j1 + G2F;
+        float x2 = x0 - 1.0f + 2.0f * G2F;
+        float y2 = y0 - 1.0f + 2.0f * G2F;
+        int ii = i & 255;
+        int jj = j & 255;
+        float n = 0;
+        float t0 = 0.5f - x0*x0-y0*y0;
+        if(t0>=0) {
+            int g = permMod12[ii+perm[jj]];
+            t0 *= t0;
+            n += t0 * t0 * (GRAD3_X[g]*x0 + GRAD3_Y[g]*y0);
+        }
+        float t1 = 0.5f - x1*x1-y1*y1;
+        if(t1>=0) {
+            int g = permMod12[ii+i1+perm[jj+j1]];
+            t1 *= t1;
+            n += t1 * t1 * (GRAD3_X[g]*x1 + GRAD3_Y[g]*y1);
+        }
+        float t2 = 0.5f - x2*x2-y2*y2;
+        if(t2>=0) {
+            int g = permMod12[ii+1+perm[jj+1]];
+            t2 *= t2;
+            n += t2 * t2 * (GRAD3_X[g]*x2 + GRAD3_Y[g]*y2);
+        }
+        return 70.0f * n;
+    }
+
+    /**
+     * 3D simplex noise in single precision, the same as noise(x, y, z) up to float rounding but cheaper where the result is a float
+     * @param xin - the x position
+     * @param yin - the y position
+     * @param zin - the z position
+     * @return - the noise, just inside [-1, 1]
+     */
+    public float floatNoise(float xin, float yin, float zin) {
+        float s = (xin+yin+zin)*F3F;
+        int i = fastfloor(xin+s);
+        int j = fastfloor(yin+s);
+        int k = fastfloor(zin+s);
+        float t = (i+j+k)*G3F;
+        float x0 = xin-(i-t);
+        float y0 = yin-(j-t);
+        float z0 = zin-(k-t);
+        int i1, j1, k1;
+        int i2, j2, k2;
+        if(x0>=y0) {
+            if(y0>=z0) {
+                i1=1; j1=0; k1=0; i2=1; j2=1; k2=0;
+            }
+            else if(x0>=z0) {
+                i1=1; j1=0; k1=0; i2=1; j2=0; k2=1;
+            }
+            else {
+                i1=0; j1=0; k1=1; i2=1; j2=0; k2=1;
+            }
+        }
+        else {
+            if(y0<z0) {
+                i1=0; j1=0; k1=1; i2=0; j2=1; k2=1;
+            }
+            else if(x0<z0) {
+                i1=0; j1=1; k1=0; i2=0; j2=1; k2=1;
+            }
+            else {
+                i1=0; j1=1; k1=0; i2=1; j2=1; k2=0;
+            }
+        }
+        float x1 = x0 - i1 + G3F;
+        float y1 = y0 - j1 + G3F;
+        float z1 = z0 - k1 + G3F;
+        float x2 = x0 - i2 + 2.0f*G3F;
+        float y2 = y0 - j2 + 2.0f*G3F;
+        float z2 = z0 - k2 + 2.0f*G3F;
+        float x3 = x0 - 1.0f + 3.0f*G3F;
+        float y3 = y0 - 1.0f + 3.0f*G3F;
+        float z3 = z0 - 1.0f + 3.0f*G3F;
+        int ii = i & 255;
+        int jj = j & 255;
+        int kk = k & 255;
+        float n = 0;
+        float t0 = 0.6f - x0*x0 - y0*y0 - z0*z0;
+        if(t0>=0) {
+            int g = permMod12[ii+perm[jj+perm[kk]]];
+            t0 *= t0;
+            n += t0 * t0 * (GRAD3_X[g]*x0 + GRAD3_Y[g]*y0 + GRAD3_Z[g]*z0);
+        }
+        float t1 = 0.6f - x1*x1 - y1*y1 - z1*z1;
+        if(t1>=0) {
+            int g = permMod12[ii+i1+perm[jj+j1+perm[kk+k1]]];
+            t1 *= t1;
+            n += t1 * t1 * (GRAD3_X[g]*x1 + GRAD3_Y[g]*y1 + GRAD3_Z[g]*z1);
+        }
+        float t2 = 0.6f - x2*x2 - y2*y2 - z2*z2;
+        if(t2>=0) {
+            int g = permMod12[ii+i2+perm[jj+j2+perm[kk+k2]]];
+            t2 *= t2;
+            n += t2 * t2 * (GRAD3_X[g]*x2 + GRAD3_Y[g]*y2 + GRAD3_Z[g]*z2);
+        }
+        float t3 = 0.6f - x3*x3 - y3*y3 - z3*z3;
+        if(t3>=0) {
+            int g = permMod12[ii+1+perm[jj+1+perm[kk+1]]];
+            t3 *= t3;
+            n += t3 * t3 * (GRAD3_X[g]*x3 + GRAD3_Y[g]*y3 + GRAD3_Z[g]*z3);
+        }
+        return 32.0f * n;
+    }
+
+
     // 4D simplex noise, better simplex rank ordering method 2012-03-09
     public double noise(double x, double y, double z, double w) {
 
@@ -362,6 +669,117 @@ public class SimplexNoiseOctave {
         return 27.0 * (n0 + n1 + n2 + n3 + n4);
     }
 
+    /**
+     * fills an array with 2D noise sampled on a regular grid, x first, then y
+     * @param x0 - the x position of the first sample
+     * @param y0 - the y position of the first sample
+     * @param step - the distance between two adjacent samples
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeY - the amount of samples along the y axis
+     * @param out - the array to fill
+     * @param offset - the index in the array of the first sample
+     */
+    public void noise(double x0, double y0, double step, int sizeX, int sizeY, float[] out, int offset) {
+        checkGrid(sizeX, sizeY, 1, out.length - offset);
+        double[] xs = axis(x0, step, sizeX);
+        int i = offset;
+        for (int y = 0; y < sizeY; y++) {
+            double yin = y0 + y * step;
+            for (int x = 0; x < sizeX; x++) {
+                out[i++] = (float) noise(xs[x], yin);
+            }
+        }
+    }
+
+    /**
+     * fills an array with 3D noise sampled on a regular grid, x first, then y, then z
+     * @param x0 - the x position of the first sample
+     * @param y0 - the y position of the first sample
+     * @param z0 - the z position of the first sample
+     * @param step - the distance between two adjacent samples
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeY - the amount of samples along the y axis
+     * @param sizeZ - the amount of samples along the z axis
+     * @param out - the array to fill
+     * @param offset - the index in the array of the first sample
+     */
+    public void noise(double x0, double y0, double z0, double step, int sizeX, int sizeY, int sizeZ, float[] out, int offset) {
+        checkGrid(sizeX, sizeY, sizeZ, out.length - offset);
+        double[] xs = axis(x0, step, sizeX);
+        int i = offset;
+        for (int z = 0; z < sizeZ; z++) {
+            double zin = z0 + z * step;
+            for (int y = 0; y < sizeY; y++) {
+                double yin = y0 + y * step;
+                for (int x = 0; x < sizeX; x++) {
+                    out[i++] = (float) noise(xs[x], yin, zin);
+                }
+            }
+        }
+    }
+
+    /**
+     * puts 3D noise sampled on a regular grid into a buffer, x first, then y, then z, starting at its position
+     * @param x0 - the x position of the first sample
+     * @param y0 - the y position of the first sample
+     * @param z0 - the z position of the first sample
+     * @param step - the distance between two adjacent samples
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeY - the amount of samples along the y axis
+     * @param sizeZ - the amount of samples along the z axis
+     * @param out - the buffer to put the samples into, its position is moved past them
+     */
+    public void noise(double x0, double y0, double z0, double step, int sizeX, int sizeY, int sizeZ, FloatBuffer out) {
+        checkGrid(sizeX, sizeY, sizeZ, out.remaining());
+        float[] row = new float[sizeX];
+        for (int z = 0; z < sizeZ; z++) {
+            for (int y = 0; y < sizeY; y++) {
+                noise(x0, y0 + y * step, z0 + z * step, step, sizeX, 1, 1, row, 0);
+                out.put(row);
+            }
+        }
+    }
+
+    /**
+     * lists the positions of the samples along one axis of a grid
+     * @param start - the position of the first sample
+     * @param step - the distance between two adjacent samples
+     * @param size - the amount of samples
+     * @return - the positions
+     */
+    private static double[] axis(double start, double step, int size) {
+        double[] positions = new double[size];
+        for (int i = 0; i < size; i++) {
+            positions[i] = start + i * step;
+        }
+        return positions;
+    }
+
+    /**
+     * makes sure a grid is not empty and fits into the space it is written to
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeY - the amount of samples along the y axis
+     * @param sizeZ - the amount of samples along the z axis
+     * @param space - the amount of floats that can be written
+     */
+    static void checkGrid(int sizeX, int sizeY, int sizeZ, long space) {
+        if (sizeX <= 0 || sizeY <= 0 || sizeZ <= 0) {
+            throw new IllegalArgumentException("A noise grid needs at least 1 sample along each axis.");
+        }
+        if ((long) sizeX * sizeY * sizeZ > space) {
+            throw new IllegalArgumentException("A grid of " + (long) sizeX * sizeY * sizeZ + " samples does not fit into "
+                    + space + " floats.");
+        }
+    }
+
+    /**
+     * getter method
+     * @return - a copy of the permutation this octave hashes lattice points with, the 256 entries before doubling
+     */
+    public short[] getPermutation() {
+        return Arrays.copyOf(perm, 256);
+    }
+
     // Inner class to speed upp gradient computations
     // (array access is a lot slower than member access)
     private static class Grad
@@ -0,0 +1,184 @@
+package com.bramerlabs.engine.math.noise;
+
+import com.bramerlabs.engine.math.Hash;
+
+// Cellular (Worley) noise - the distance to the nearest of a scattering of feature points, one per cell of a square
+// grid. Each point is placed in its cell by a hash of the seed and the cell coordinates, so there is no list of points
+// to build or share: any position can be evaluated on its own, in any order, on any thread.
+
+public class WorleyNoise {
+
+    // how far the feature points stay from the edges of their cells, as a fraction of a cell
+    // at least 0.101 guarantees the two nearest points are always within two cells, so a 5x5 search is exact
+    private static final float MARGIN = 0.125f;
+
+    // the part of a cell the feature points can be in, along each axis
+    private static final float SPAN = 1 - 2 * MARGIN;
+
+    // the value of the lowest bit of a 24 bit fraction
+    private static final float UNIT = 1f / (1 << 24);
+
+    // the cells searched around the cell of a position - (x, y) offsets, the nearest ring first
+    private static final int[][] OFFSETS = new int[25][];
+
+    static {
+        int count = 0;
+        for (int ring = 0; ring <= 2; ring++) {
+            for (int y = -ring; y <= ring; y++) {
+                for (int x = -ring; x <= ring; x++) {
+                    if (Math.max(Math.abs(x), Math.abs(y)) == ring) {
+                        OFFSETS[count++] = new int[] {x, y};
+                    }
+                }
+            }
+        }
+    }
+
+    // the seed of the feature points
+    private final long seed;
+
+    // the length of each side of a cell, in world units
+    private final float cellSize;
+
+    /**
+     * default constructor
+     * @param seed - the seed of the feature points
+     * @param cellSize - the length of each side of a cell, the average distance between feature points
+     */
+    public WorleyNoise(long seed, float cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("The cell size has to be positive, was " + cellSize + ".");
+        }
+        this.seed = seed;
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * samples 2D cellular noise
+     * @param x - the x position
+     * @param y - the y position
+     * @return - the distance to the nearest feature point, in cells
+     */
+    public float getNoise2D(float x, float y) {
+        return getNoise2D(x, y, null, null);
+    }
+
+    /**
+     * samples 2D cellular noise, along with the second nearest feature point and the cells of both
+     * @param x - the x position
+     * @param y - the y position
+     * @param distances - receives the distances to the nearest and the second nearest feature point in cells, or null
+     * @param cells - receives the cells of the nearest and the second nearest feature point, or null
+     * @return - the distance to the nearest feature point, in cells
+     */
+    public float getNoise2D(float x, float y, float[] distances, long[] cells) {
+        float px = x / cellSize, py = y / cellSize;
+        int cx = (int) Math.floor(px), cy = (int) Math.floor(py);
+        float fx = px - cx, fy = py - cy;
+
+        float d1 = Float.MAX_VALUE, d2 = Float.MAX_VALUE;
+        long c1 = 0, c2 = 0;
+        for (int[] offset : OFFSETS) {
+            int ox = offset[0], oy = offset[1];
+
+            // skip the cell if even the nearest spot its point could be in is farther than the second nearest so far
+            float bx = Math.max(0, Math.max(ox + MARGIN - fx, fx - (ox + 1 - MARGIN)));
+            float by = Math.max(0, Math.max(oy + MARGIN - fy, fy - (oy + 1 - MARGIN)));
+            if (bx * bx + by * by >= d2) {
+                continue;
+            }
+
+            long h = hash(cx + ox, cy + oy);
+            float dx = ox + MARGIN + SPAN * ((h & 0xFFFFFF) * UNIT) - fx;
+            float dy = oy + MARGIN + SPAN * (((h >>> 24) & 0xFFFFFF) * UNIT) - fy;
+            float d = dx * dx + dy * dy;
+            if (d < d1) {
+                d2 = d1;
+                c2 = c1;
+                d1 = d;
+                c1 = cell(cx + ox, cy + oy);
+            } else if (d < d2) {
+                d2 = d;
+                c2 = cell(cx + ox, cy + oy);
+            }
+        }
+
+        d1 = (float) Math.sqrt(d1);
+        if (distances != null) {
+            distances[0] = d1;
+            distances[1] = (float) Math.sqrt(d2);
+        }
+        if (cells != null) {
+            cells[0] = c1;
+            cells[1] = c2;
+        }
+        return d1;
+    }
+
+    /**
+     * finds the feature point of a cell
+     * @param cell - the cell, as packed by cell(x, y)
+     * @param position - receives the x and y position of the feature point, in world units
+     */
+    public void getFeature(long cell, float[] position) {
+        int cx = getCellX(cell), cy = getCellY(cell);
+        long h = hash(cx, cy);
+        position[0] = (cx + MARGIN + SPAN * ((h & 0xFFFFFF) * UNIT)) * cellSize;
+        position[1] = (cy + MARGIN + SPAN * (((h >>> 24) & 0xFFFFFF) * UNIT)) * cellSize;
+    }
+
+    /**
+     * hashes a cell to a value of its own, unrelated to the position of its feature point
+     * @param cell - the cell, as packed by cell(x, y)
+     * @return - the value of the cell, in [0, 1)
+     */
+    public float getCellValue(long cell) {
+        return (hash(getCellX(cell), getCellY(cell)) >>> 48) / 65536f;
+    }
+
+    /**
+     * mixes the seed and the cell coordinates into the hash the cell's feature point is read from
+     * @param cx - the x coordinate of the cell
+     * @param cy - the y coordinate of the cell
+     * @return - the hash of the cell
+     */
+    private long hash(int cx, int cy) {
+        return Hash.hash(seed, cx, cy);
+    }
+
+    /**
+     * packs the coordinates of a cell into a single value
+     * @param cx - the x coordinate of the cell
+     * @param cy - the y coordinate of the cell
+     * @return - the packed cell
+     */
+    public static long cell(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    /**
+     * unpacks the x coordinate of a cell
+     * @param cell - the packed cell
+     * @return - the x coordinate of the cell
+     */
+    public static int getCellX(long cell) {
+        return (int) (cell >> 32);
+    }
+
+    /**
+     * unpacks the y coordinate of a cell
+     * @param cell - the packed cell
+     * @return - the y coordinate of the cell
+     */
+    public static int getCellY(long cell) {
+        return (int) cell;
+    }
+
+    /**
+     * getter method
+     * @return - the length of each side of a cell
+     */
+    public float getCellSize() {
+        return this.cellSize;
+    }
+}
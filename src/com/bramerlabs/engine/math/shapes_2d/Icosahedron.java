@@ -1,6 +1,8 @@
 package com.bramerlabs.engine.math.shapes_2d;
 
 import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.graphics.MeshData;
+import com.bramerlabs.engine.graphics.MeshOptimizer;
 import com.bramerlabs.engine.graphics.Vertex;
 import com.bramerlabs.engine.math.Vector3f;
 import com.bramerlabs.engine.math.Vector4f;
@@ -78,11 +80,23 @@ public class Icosahedron {
     }
 
     /**
-     * generates a list of triangles used to render this icosahedron
+     * generates the mesh of this icosahedron, with the corners the faces share welded and the faces ordered for the
+     * vertex cache
      * @param _v - the vertices in this mesh
-     * @return - the list of triangles
+     * @param color - the color of the mesh
+     * @return - the mesh
      */
     public static Mesh generateMesh(Vector3f[] _v, Vector4f color) {
+        return new Mesh(MeshOptimizer.optimize(generateData(_v, color)));
+    }
+
+    /**
+     * generates the vertices of this icosahedron, one vertex per triangle corner
+     * @param _v - the vertices in this mesh
+     * @param color - the color of the mesh
+     * @return - the vertices and indices
+     */
+    public static MeshData generateData(Vector3f[] _v, Vector4f color) {
         Triangle[] triangles = new Triangle[20];
         triangles[0]  = new Triangle(_v[0],  _v[2],  _v[10]);
         triangles[1]  = new Triangle(_v[0],  _v[10], _v[5]);
@@ -118,7 +132,7 @@ public class Icosahedron {
             indices[i] = i;
         }
 
-        return new Mesh(vertices, indices);
+        return MeshData.fromVertices(vertices, indices);
     }
 
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.bramerlabs.engine.objects.untextured;
 import com.bramerlabs.engine.graphics.Material;
 import com.bramerlabs.engine.graphics.Mesh;
 import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.engine.math.Vector4f;
 
 public class RenderObject {
 
@@ -18,6 +19,9 @@ public class RenderObject {
     // the mesh that this object is made of
     private Mesh mesh;
 
+    // the color this object is drawn in if its mesh has no colors, null to use the color of the mesh
+    private Vector4f color = null;
+
     /**
      * default constructor for specified values
      * @param mesh - the mesh that this object is made of
@@ -112,6 +116,22 @@ public class RenderObject {
         return mesh;
     }
 
+    /**
+     * getter method
+     * @return - the color this object is drawn in if its mesh has no colors, or null
+     */
+    public Vector4f getColor() {
+        return this.color;
+    }
+
+    /**
+     * sets the color this object is drawn in if its mesh has no colors, so objects of different colors can share a mesh
+     * @param color - the new color, or null to use the color of the mesh
+     */
+    public void setColor(Vector4f color) {
+        this.color = color;
+    }
+
     /**
      * getter method
      * @return - the ID of this object
@@ -1,6 +1,8 @@
 package com.bramerlabs.engine.objects.untextured.shapes;
 
 import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.graphics.MeshData;
+import com.bramerlabs.engine.graphics.MeshOptimizer;
 import com.bramerlabs.engine.graphics.Vertex;
 import com.bramerlabs.engine.math.Vector3f;
 import com.bramerlabs.engine.math.Vector4f;
@@ -16,67 +18,7 @@ public class Cube extends RenderObject {
      * @param color - the color of this cube
      */
     public Cube(Vector3f position, Vector3f rotation, Vector3f scale, Vector4f color) {
-        super(new Mesh(new Vertex[] {
-                // front face
-                new Vertex(new Vector3f(-0.5f, -0.5f,  0.5f), color, new Vector3f(0, 0, 1)), // 0, 1
-                new Vertex(new Vector3f( 0.5f, -0.5f,  0.5f), color, new Vector3f(0, 0, 1)), // 1, 1
-                new Vertex(new Vector3f( 0.5f,  0.5f,  0.5f), color, new Vector3f(0, 0, 1)), // 1, 0
-                new Vertex(new Vector3f(-0.5f,  0.5f,  0.5f), color, new Vector3f(0, 0, 1)), // 0, 0
-
-                // back face
-                new Vertex(new Vector3f(-0.5f, -0.5f, -0.5f), color, new Vector3f(0, 0, -1)),
-                new Vertex(new Vector3f( 0.5f, -0.5f, -0.5f), color, new Vector3f(0, 0, -1)),
-                new Vertex(new Vector3f( 0.5f,  0.5f, -0.5f), color, new Vector3f(0, 0, -1)),
-                new Vertex(new Vector3f(-0.5f,  0.5f, -0.5f), color, new Vector3f(0, 0, -1)),
-
-                // right face
-                new Vertex(new Vector3f( 0.5f, -0.5f,  0.5f), color, new Vector3f(1, 0, 0)),
-                new Vertex(new Vector3f( 0.5f,  0.5f,  0.5f), color, new Vector3f(1, 0, 0)),
-                new Vertex(new Vector3f( 0.5f, -0.5f, -0.5f), color, new Vector3f(1, 0, 0)),
-                new Vertex(new Vector3f( 0.5f,  0.5f, -0.5f), color, new Vector3f(1, 0, 0)),
-
-                // left face
-                new Vertex(new Vector3f(-0.5f, -0.5f,  0.5f), color, new Vector3f(-1, 0, 0)),
-                new Vertex(new Vector3f(-0.5f,  0.5f,  0.5f), color, new Vector3f(-1, 0, 0)),
-                new Vertex(new Vector3f(-0.5f, -0.5f, -0.5f), color, new Vector3f(-1, 0, 0)),
-                new Vertex(new Vector3f(-0.5f,  0.5f, -0.5f), color, new Vector3f(-1, 0, 0)),
-
-                // top face
-                new Vertex(new Vector3f( 0.5f,  0.5f,  0.5f), color, new Vector3f(0, 1, 0)),
-                new Vertex(new Vector3f(-0.5f,  0.5f,  0.5f), color, new Vector3f(0, 1, 0)),
-                new Vertex(new Vector3f( 0.5f,  0.5f, -0.5f), color, new Vector3f(0, 1, 0)),
-                new Vertex(new Vector3f(-0.5f,  0.5f, -0.5f), color, new Vector3f(0, 1, 0)),
-
-                // bottom face
-                new Vertex(new Vector3f(-0.5f, -0.5f,  0.5f), color, new Vector3f(0, -1, 0)),
-                new Vertex(new Vector3f( 0.5f, -0.5f,  0.5f), color, new Vector3f(0, -1, 0)),
-                new Vertex(new Vector3f(-0.5f, -0.5f, -0.5f), color, new Vector3f(0, -1, 0)),
-                new Vertex(new Vector3f( 0.5f, -0.5f, -0.5f), color, new Vector3f(0, -1, 0)),
-        }, new int[] {
-                // front face
-                0, 1, 2,
-                2, 3, 0,
-
-                // back face
-                5, 4, 7,
-                5, 7, 6,
-
-                // right face
-                8, 10, 11,
-                8, 11, 9,
-
-                // left face
-                14, 12, 13,
-                14, 13, 15,
-
-                // top face
-                17, 16, 18,
-                17, 18, 19,
-
-                // bottom face
-                20, 22, 23,
-                20, 23, 21,
-        }), position, rotation, scale);
+        super(new Mesh(MeshOptimizer.optimize(generateData(color))), position, rotation, scale);
     }
 
 
@@ -87,7 +29,16 @@ public class Cube extends RenderObject {
      * @param color - the color of this cube
      */
     public Cube(Vector3f position, Vector4f color) {
-        super(new Mesh(new Vertex[] {
+        super(new Mesh(MeshOptimizer.optimize(generateData(color))), position, new Vector3f(0, 0, 0), new Vector3f(1, 1, 1));
+    }
+
+    /**
+     * generates the vertices of a cube, four per face so every face has its own normal
+     * @param color - the color of the cube
+     * @return - the vertices and indices of the cube
+     */
+    public static MeshData generateData(Vector4f color) {
+        return MeshData.fromVertices(new Vertex[] {
                 // front face
                 new Vertex(new Vector3f(-0.5f, -0.5f,  0.5f), color, new Vector3f(0, 0, 1)), // 0, 1
                 new Vertex(new Vector3f( 0.5f, -0.5f,  0.5f), color, new Vector3f(0, 0, 1)), // 1, 1
@@ -147,6 +98,6 @@ public class Cube extends RenderObject {
                 // bottom face
                 20, 22, 23,
                 20, 23, 21,
-        }), position, new Vector3f(0, 0, 0), new Vector3f(1, 1, 1));
+        });
     }
 }
@@ -1,6 +1,8 @@
 package com.bramerlabs.engine.objects.untextured.shapes;
 
 import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.graphics.MeshData;
+import com.bramerlabs.engine.graphics.MeshOptimizer;
 import com.bramerlabs.engine.graphics.Vertex;
 import com.bramerlabs.engine.math.shapes_2d.Triangle;
 import com.bramerlabs.engine.math.Vector3f;
@@ -54,15 +56,28 @@ public class Cylinder extends RenderObject {
      */
     public static Cylinder makeCylinder(Vector3f p1, Vector3f p2, Vector4f color, float radius) {
         Vector3f position = Vector3f.midpoint(p1, p2);
+        Mesh mesh = new Mesh(MeshOptimizer.optimize(generateData(p1, p2, color, radius)));
+        return new Cylinder(mesh, position, rotation, scale);
+    }
+
+    /**
+     * generates the vertices of a cylinder with rounded ends, one vertex per triangle corner
+     *
+     * @param p1     - the focus of the first circle
+     * @param p2     - the focus of the second circle
+     * @param color  - the color of this cylinder
+     * @param radius - the radius of this cylinder
+     * @return - the vertices and indices of the cylinder
+     */
+    public static MeshData generateData(Vector3f p1, Vector3f p2, Vector4f color, float radius) {
         ArrayList<Triangle> triangles = generateTriangles(p1, p2, radius, SMOOTHNESS);
 
         // the triangles in the spheres at the ends of the cylinder
         ArrayList<Triangle> sphere1 = Sphere.generateTriangles(radius);
         ArrayList<Triangle> sphere2 = Sphere.generateTriangles(radius);
 
-        Mesh mesh = generateMesh(triangles, color, sphere1, sphere2, p1, p2); // rounded edges
-//        Mesh mesh = generateMesh(triangles, color); // flat, unrendered edges
-        return new Cylinder(mesh, position, rotation, scale);
+        return generateData(triangles, color, sphere1, sphere2, p1, p2); // rounded edges
+//        return generateData(triangles, color); // flat, unrendered edges
     }
 
     /**
@@ -77,6 +92,21 @@ public class Cylinder extends RenderObject {
      */
     public static Cylinder makeCylinder(Vector3f p1, Vector3f p2, Vector4f color, float r1, float r2) {
         Vector3f position = Vector3f.midpoint(p1, p2);
+        Mesh mesh = new Mesh(MeshOptimizer.optimize(generateData(p1, p2, color, r1, r2)));
+        return new Cylinder(mesh, position, rotation, scale);
+    }
+
+    /**
+     * generates the vertices of a cylinder with flat ends, one vertex per triangle corner
+     *
+     * @param p1     - the focus of the first circle
+     * @param p2     - the focus of the second circle
+     * @param color  - the color of this cylinder
+     * @param r1     - the radius of the first circular face of this cylinder
+     * @param r2     - the radius of the second circular face of this cylinder
+     * @return - the vertices and indices of the cylinder
+     */
+    public static MeshData generateData(Vector3f p1, Vector3f p2, Vector4f color, float r1, float r2) {
         ArrayList<Triangle> triangles = generateTriangles(p1, p2, r1, r2, SMOOTHNESS);
 
         // the triangles in the spheres at the ends of the cylinder
@@ -86,19 +116,18 @@ public class Cylinder extends RenderObject {
         // the triangles in the circles at the ends of the cylinder
 
 
-//        Mesh mesh = generateMesh(triangles, color, sphere1, sphere2, p1, p2); // rounded edges
-        Mesh mesh = generateMesh(triangles, color); // flat, unrendered edges
-        return new Cylinder(mesh, position, rotation, scale);
+//        return generateData(triangles, color, sphere1, sphere2, p1, p2); // rounded edges
+        return generateData(triangles, color); // flat, unrendered edges
     }
 
     /**
-     * generates a mesh for this cylinder
+     * generates the vertices for this cylinder
      *
      * @param triangles - the triangles used to make this mesh
      * @param color     - the color of this mesh
-     * @return - the new mesh
+     * @return - the vertices and indices
      */
-    private static Mesh generateMesh(ArrayList<Triangle> triangles, Vector4f color) {
+    private static MeshData generateData(ArrayList<Triangle> triangles, Vector4f color) {
         // create the vertex array
         Vertex[] vertices = new Vertex[triangles.size() * 3];
         for (int i = 0; i < triangles.size(); i++) {
@@ -113,20 +142,20 @@ public class Cylinder extends RenderObject {
             indices[i] = i;
         }
 
-        return new Mesh(vertices, indices);
+        return MeshData.fromVertices(vertices, indices);
     }
 
     /**
-     * generates a rounded mesh
+     * generates the vertices of a rounded mesh
      * @param triangles - the triangles used in the cylindrical part of this mesh
      * @param color - the color of this mesh
      * @param sphere1 - the triangles in the spheres at the ends of the cylinder
      * @param sphere2 - the triangles in the spheres at the ends of the cylinder
      * @param p1 - the position of the first sphere
      * @param p2 - the position of the second sphere
-     * @return - the new mesh
+     * @return - the vertices and indices
      */
-    private static Mesh generateMesh(ArrayList<Triangle> triangles, Vector4f color, ArrayList<Triangle> sphere1, ArrayList<Triangle> sphere2, Vector3f p1, Vector3f p2) {
+    private static MeshData generateData(ArrayList<Triangle> triangles, Vector4f color, ArrayList<Triangle> sphere1, ArrayList<Triangle> sphere2, Vector3f p1, Vector3f p2) {
 
         ArrayList<Vertex> vertices = new ArrayList<>();
         // the triangles on the cylindrical face
@@ -152,7 +181,11 @@ public class Cylinder extends RenderObject {
             vertices.add(new Vertex(t.getV3(), color, Vector3f.subtract(t.getV3(), p2)));
         }
 
-        return new Mesh(vertices);
+        int[] indices = new int[vertices.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        return MeshData.fromVertices(vertices.toArray(new Vertex[0]), indices);
     }
 
     /**
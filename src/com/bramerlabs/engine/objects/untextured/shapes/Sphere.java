@@ -1,13 +1,18 @@
 package com.bramerlabs.engine.objects.untextured.shapes;
 
 import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.graphics.MeshData;
+import com.bramerlabs.engine.graphics.MeshOptimizer;
 import com.bramerlabs.engine.graphics.Vertex;
+import com.bramerlabs.engine.math.Hash;
 import com.bramerlabs.engine.math.shapes_2d.Triangle;
 import com.bramerlabs.engine.math.Vector3f;
 import com.bramerlabs.engine.math.Vector4f;
 import com.bramerlabs.engine.objects.untextured.RenderObject;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 
 public class Sphere extends RenderObject {
 
@@ -17,6 +22,17 @@ public class Sphere extends RenderObject {
     // the golden ratio
     private static final float phi = 1.16180339f;
 
+    // the corners of the 20 faces of the icosahedron
+    private static final int[] FACES = {
+            0, 2, 10,   0, 10, 5,   0, 5, 4,    0, 4, 8,    0, 8, 2,
+            3, 1, 11,   3, 11, 7,   3, 7, 6,    3, 6, 9,    3, 9, 1,
+            2, 6, 7,    2, 7, 10,   10, 7, 11,  10, 11, 5,  5, 11, 1,
+            5, 1, 4,    4, 1, 9,    4, 9, 8,    8, 9, 6,    8, 6, 2
+    };
+
+    // the mesh of a sphere of radius 1 of every depth asked for so far, shared by every sphere of that depth
+    private static final HashMap<Integer, Mesh> templates = new HashMap<>();
+
     /**
      * default constructor for specified values
      *
@@ -30,11 +46,67 @@ public class Sphere extends RenderObject {
     }
 
     /**
-     * create a sphere
+     * create a sphere, sharing the mesh of a sphere of radius 1 with every other sphere made this way, scaled to the
+     * radius and drawn in the color of the sphere
+     * @param position - the position of the sphere
+     * @param color - the color of the sphere
+     * @param radius - the radius of the sphere
      * @return - a new sphere
      */
     public static Sphere makeSphere(Vector3f position, Vector4f color, float radius) {
-        return new Sphere(generateMesh(color, radius), position, new Vector3f(0), new Vector3f(1));
+        Sphere sphere = new Sphere(getTemplate(depth), position, new Vector3f(0), new Vector3f(radius));
+        sphere.setColor(color);
+        return sphere;
+    }
+
+    /**
+     * finds the shared mesh of a sphere of radius 1, generating it the first time. the mesh has no colors, the
+     * object drawing it gives the color
+     * @param depth - the amount of times to subdivide the faces of the icosahedron
+     * @return - the shared mesh
+     */
+    public static synchronized Mesh getTemplate(int depth) {
+        Mesh mesh = templates.get(depth);
+        if (mesh == null) {
+            mesh = new Mesh(optimize(generateIcosphere(1, depth)));
+            templates.put(depth, mesh);
+        }
+        return mesh;
+    }
+
+    /**
+     * deletes every uploaded shared mesh and forgets them, must be called from the thread that owns the GL context
+     */
+    public static synchronized void destroyTemplates() {
+        for (Mesh mesh : templates.values()) {
+            if (mesh.getVAO() != 0) {
+                mesh.destroy();
+            }
+        }
+        templates.clear();
+    }
+
+    /**
+     * creates the mesh, unless it is a shared mesh another sphere has already uploaded
+     */
+    @Override
+    public void createMesh() {
+        if (getMesh().getVAO() == 0) {
+            super.createMesh();
+        }
+    }
+
+    /**
+     * releases the sphere - a shared mesh stays, for the other spheres drawing it, until destroyTemplates
+     */
+    @Override
+    public void destroy() {
+        synchronized (Sphere.class) {
+            if (templates.containsValue(getMesh())) {
+                return;
+            }
+        }
+        super.destroy();
     }
 
     /**
@@ -44,17 +116,54 @@ public class Sphere extends RenderObject {
      * @return - the mesh of the sphere
      */
     public static Mesh generateMesh(Vector4f color, float radius) {
+        return generateMesh(color, radius, depth);
+    }
+
+    /**
+     * generates a mesh of its own, every corner shared by the triangles around it and the triangles ordered for the
+     * vertex cache - spheres that only differ in position, radius and color should share a template instead
+     * @param color - the color of the sphere
+     * @param radius - the radius of the sphere
+     * @param depth - the amount of times to subdivide the faces of the icosahedron
+     * @return - the mesh of the sphere
+     */
+    public static Mesh generateMesh(Vector4f color, float radius, int depth) {
+        MeshData sphere = generateIcosphere(radius, depth);
+        return new Mesh(optimize(new MeshData(sphere.getPositions(), MeshData.uniformColors(color, sphere.getVertexCount()),
+                null, sphere.getNormals(), sphere.getIndices())));
+    }
+
+    /**
+     * orders the triangles of a sphere for the vertex cache and its vertices in the order they are first used. the
+     * vertices of an icosphere are shared already, so unlike MeshOptimizer.optimize there is nothing to weld
+     * @param data - the sphere
+     * @return - the optimised sphere
+     */
+    private static MeshData optimize(MeshData data) {
+        int[] indices = MeshOptimizer.optimizeVertexCache(data.getIndices(), data.getVertexCount());
+        return MeshOptimizer.optimizeVertexFetch(new MeshData(data.getPositions(), data.getColors(), null,
+                data.getNormals(), indices));
+    }
+
+    /**
+     * generates the vertices of a sphere straight into one array per attribute, one vertex per triangle corner
+     * @param color - the color of the sphere
+     * @param radius - the radius of the sphere
+     * @param depth - the amount of times to subdivide the faces of the icosahedron
+     * @return - the vertices and indices of the sphere
+     */
+    public static MeshData generateData(Vector4f color, float radius, int depth) {
 
         // generate the triangles
-        ArrayList<Triangle> triangles = generateTriangles(radius);
+        ArrayList<Triangle> triangles = generateTriangles(radius, depth);
 
-        // create the vertex array
-        Vertex[] vertices = new Vertex[triangles.size() * 3];
+        // the normal of a point on a sphere around the origin is the point itself
+        float[] positions = new float[triangles.size() * 9];
         for (int i = 0; i < triangles.size(); i++) {
             Triangle t = triangles.get(i);
-            vertices[3 * i] = new Vertex(t.getV1(), color, Vector3f.subtract(t.getV1(), new Vector3f(0)));
-            vertices[3 * i + 1] = new Vertex(t.getV2(), color, Vector3f.subtract(t.getV2(), new Vector3f(0)));
-            vertices[3 * i + 2] = new Vertex(t.getV3(), color, Vector3f.subtract(t.getV3(), new Vector3f(0)));
+            put(positions, 3 * i, t.getV1());
+            put(positions, 3 * i + 1, t.getV2());
+            put(positions, 3 * i + 2, t.getV3());
         }
 
         int[] indices = new int[triangles.size() * 3];
@@ -62,8 +171,7 @@ public class Sphere extends RenderObject {
             indices[i] = i;
         }
 
-        // make a new mesh
-        return new Mesh(vertices, indices);
+        return new MeshData(positions, MeshData.uniformColors(color, indices.length), null, positions.clone(), indices);
     }
 
     /**
@@ -94,11 +202,46 @@ public class Sphere extends RenderObject {
      * @param radius - the radius of the sphere
      */
     public static ArrayList<Triangle> generateTriangles(float radius) {
+        return generateTriangles(radius, depth);
+    }
 
-        ArrayList<Triangle> faces = new ArrayList<>();
+    /**
+     * generates vertices of a sphere
+     * @param radius - the radius of the sphere
+     * @param depth - the amount of times to subdivide the faces of the icosahedron
+     */
+    public static ArrayList<Triangle> generateTriangles(float radius, int depth) {
+        MeshData data = generateIcosphere(radius, depth);
+        float[] positions = data.getPositions();
+        int[] indices = data.getIndices();
+
+        // the triangles share the vectors of their shared corners, as they share the vertices of the icosphere
+        Vector3f[] vertices = new Vector3f[data.getVertexCount()];
+        for (int v = 0; v < vertices.length; v++) {
+            vertices[v] = new Vector3f(positions[3 * v], positions[3 * v + 1], positions[3 * v + 2]);
+        }
+        ArrayList<Triangle> faces = new ArrayList<>(indices.length / 3);
+        for (int i = 0; i < indices.length; i += 3) {
+            faces.add(new Triangle(vertices[indices[i]], vertices[indices[i + 1]], vertices[indices[i + 2]]));
+        }
+        return faces;
+    }
+
+    /**
+     * generates an icosphere, every corner shared by the triangles around it. each level splits every triangle into
+     * four, and the midpoint of every edge is made once and looked up by the triangle on the other side of the edge
+     * the triangles come out in the order the recursive subdivision made them, at exactly the same positions
+     * @param radius - the radius of the sphere
+     * @param depth - the amount of times to subdivide the faces of the icosahedron
+     * @return - the positions and indices of the sphere, with the normals the same as the positions and no colors
+     */
+    private static MeshData generateIcosphere(float radius, int depth) {
+        if (depth < 0 || depth > 12) {
+            throw new IllegalArgumentException("The depth of a sphere must be from 0 to 12.");
+        }
+        Vector3f[] vertices = new Vector3f[10 * (1 << 2 * depth) + 2];
 
         // define a regular icosahedron using 12 vertices
-        Vector3f[] vertices = new Vector3f[12];
         vertices[0]  = new Vector3f( 0.5f * radius, 0,  phi/2 * radius);
         vertices[1]  = new Vector3f( 0.5f * radius, 0, -phi/2 * radius);
         vertices[2]  = new Vector3f(-0.5f * radius, 0,  phi/2 * radius);
@@ -111,68 +254,87 @@ public class Sphere extends RenderObject {
         vertices[9]  = new Vector3f(0,  phi/2 * radius,-0.5f * radius);
         vertices[10] = new Vector3f(0, -phi/2 * radius, 0.5f * radius);
         vertices[11] = new Vector3f(0, -phi/2 * radius,-0.5f * radius);
+        int vertexCount = 12;
 
-        // subdivide each triangular face (20 total) recursively
-        faces.addAll(subdivide(vertices[0],  vertices[2],  vertices[10], depth, radius));
-        faces.addAll(subdivide(vertices[0],  vertices[10], vertices[5],  depth, radius));
-        faces.addAll(subdivide(vertices[0],  vertices[5],  vertices[4],  depth, radius));
-        faces.addAll(subdivide(vertices[0],  vertices[4],  vertices[8],  depth, radius));
-        faces.addAll(subdivide(vertices[0],  vertices[8],  vertices[2],  depth, radius));
-        faces.addAll(subdivide(vertices[3],  vertices[1],  vertices[11], depth, radius));
-        faces.addAll(subdivide(vertices[3],  vertices[11], vertices[7],  depth, radius));
-        faces.addAll(subdivide(vertices[3],  vertices[7],  vertices[6],  depth, radius));
-        faces.addAll(subdivide(vertices[3],  vertices[6],  vertices[9],  depth, radius));
-        faces.addAll(subdivide(vertices[3],  vertices[9],  vertices[1],  depth, radius));
-        faces.addAll(subdivide(vertices[2],  vertices[6],  vertices[7],  depth, radius));
-        faces.addAll(subdivide(vertices[2],  vertices[7],  vertices[10], depth, radius));
-        faces.addAll(subdivide(vertices[10], vertices[7],  vertices[11], depth, radius));
-        faces.addAll(subdivide(vertices[10], vertices[11], vertices[5],  depth, radius));
-        faces.addAll(subdivide(vertices[5],  vertices[11], vertices[1],  depth, radius));
-        faces.addAll(subdivide(vertices[5],  vertices[1],  vertices[4],  depth, radius));
-        faces.addAll(subdivide(vertices[4],  vertices[1],  vertices[9],  depth, radius));
-        faces.addAll(subdivide(vertices[4],  vertices[9],  vertices[8],  depth, radius));
-        faces.addAll(subdivide(vertices[8],  vertices[9],  vertices[6],  depth, radius));
-        faces.addAll(subdivide(vertices[8],  vertices[6],  vertices[2],  depth, radius));
-
-        return faces;
-    }
-
-    /**
-     * recursively subdivides a triangle into 4 triangles, and then normalizes each new vertex to a radius of 1
-     * @param v1 - the first vertex of the triangle
-     * @param v2 - the second vertex of the triangle
-     * @param v3 - the third vertex of the triangle
-     * @param depth - the current depth of recursion
-     */
-    private static ArrayList<Triangle> subdivide(Vector3f v1, Vector3f v2, Vector3f v3, long depth, float radius) {
-
-        ArrayList<Triangle> faces = new ArrayList<>();
-
-        // default condition
-        if (depth == 0) {
+        // split every triangle into 4 at each level, the corners of each new triangle in the order subdivide used
+        int[] faces = FACES;
+        for (int level = 0; level < depth; level++) {
+            int[] next = new int[faces.length * 4];
 
-            // create new vectors to modify
-            Vector3f v1p = Vector3f.normalize(v1, radius);
-            Vector3f v2p = Vector3f.normalize(v2, radius);
-            Vector3f v3p = Vector3f.normalize(v3, radius);
+            // the midpoint of every edge of this level, keyed by its two ends, in an open addressed table
+            int mask = Integer.highestOneBit(faces.length * 2) * 2 - 1;
+            long[] edges = new long[mask + 1];
+            int[] midpoints = new int[mask + 1];
+            Arrays.fill(edges, -1);
 
-            faces.add(new Triangle(v1p, v2p, v3p));
-            return faces;
+            for (int t = 0, n = 0; t < faces.length; t += 3) {
+                int v1 = faces[t], v2 = faces[t + 1], v3 = faces[t + 2];
+                int v12 = -1, v23 = -1, v31 = -1;
+                for (int e = 0; e < 3; e++) {
+                    int a = e == 0 ? v1 : e == 1 ? v2 : v3;
+                    int b = e == 0 ? v2 : e == 1 ? v3 : v1;
+                    long key = (long) Math.min(a, b) << 32 | Math.max(a, b);
+                    int slot = (int) Hash.mix(key) & mask;
+                    while (edges[slot] != -1 && edges[slot] != key) {
+                        slot = (slot + 1) & mask;
+                    }
+                    if (edges[slot] == -1) {
+                        Vector3f u = vertices[a], w = vertices[b];
+                        vertices[vertexCount] = Vector3f.normalize(new Vector3f(u.getX() + w.getX(),
+                                u.getY() + w.getY(), u.getZ() + w.getZ()), radius);
+                        edges[slot] = key;
+                        midpoints[slot] = vertexCount++;
+                    }
+                    if (e == 0) {
+                        v12 = midpoints[slot];
+                    } else if (e == 1) {
+                        v23 = midpoints[slot];
+                    } else {
+                        v31 = midpoints[slot];
+                    }
+                }
+                n = put(next, n, v1, v12, v31);
+                n = put(next, n, v2, v23, v12);
+                n = put(next, n, v3, v31, v23);
+                n = put(next, n, v12, v23, v31);
+            }
+            faces = next;
         }
 
+        // every vertex ends up on the sphere, the corners of the icosahedron included
+        float[] positions = new float[3 * vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            put(positions, v, Vector3f.normalize(vertices[v], radius));
+        }
+        return new MeshData(positions, null, null, positions.clone(), depth == 0 ? faces.clone() : faces);
+    }
 
-        // create new vertices for each face
-        Vector3f v12 = Vector3f.normalize(new Vector3f(v1.getX() + v2.getX(), v1.getY() + v2.getY(), v1.getZ() + v2.getZ()), radius);
-        Vector3f v23 = Vector3f.normalize(new Vector3f(v2.getX() + v3.getX(), v2.getY() + v3.getY(), v2.getZ() + v3.getZ()), radius);
-        Vector3f v31 = Vector3f.normalize(new Vector3f(v3.getX() + v1.getX(), v3.getY() + v1.getY(), v3.getZ() + v1.getZ()), radius);
-
-        // recursive part
-        faces.addAll(subdivide(v1, v12, v31, depth-1, radius));
-        faces.addAll(subdivide(v2, v23, v12, depth-1, radius));
-        faces.addAll(subdivide(v3, v31, v23, depth-1, radius));
-        faces.addAll(subdivide(v12, v23, v31,depth-1, radius));
+    /**
+     * writes the corners of a triangle into an index array
+     * @param indices - the index array
+     * @param n - the index the triangle starts at
+     * @param v1 - the first corner
+     * @param v2 - the second corner
+     * @param v3 - the third corner
+     * @return - the index after the triangle
+     */
+    private static int put(int[] indices, int n, int v1, int v2, int v3) {
+        indices[n] = v1;
+        indices[n + 1] = v2;
+        indices[n + 2] = v3;
+        return n + 3;
+    }
 
-        return faces;
+    /**
+     * writes a vector into an array of three floats per vertex
+     * @param data - the array
+     * @param vertex - the index of the vertex
+     * @param vector - the vector
+     */
+    private static void put(float[] data, int vertex, Vector3f vector) {
+        data[3 * vertex] = vector.getX();
+        data[3 * vertex + 1] = vector.getY();
+        data[3 * vertex + 2] = vector.getZ();
     }
 
     /**
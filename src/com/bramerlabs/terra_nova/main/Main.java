@@ -5,11 +5,21 @@ import com.bramerlabs.engine.graphics.renderers.Renderer;
 import com.bramerlabs.engine.graphics.Shader;
 import com.bramerlabs.engine.io.window.Input;
 import com.bramerlabs.engine.io.window.Window;
+import com.bramerlabs.engine.math.Key3;
 import com.bramerlabs.engine.math.Vector3f;
 import com.bramerlabs.engine.math.Vector4f;
 import com.bramerlabs.engine.objects.untextured.shapes.Cube;
 import com.bramerlabs.engine.objects.untextured.shapes.Cylinder;
 import com.bramerlabs.terra_nova.main.objects.Tree;
+import com.bramerlabs.terra_nova.main.world.Brush;
+import com.bramerlabs.terra_nova.main.world.Chunk;
+import com.bramerlabs.terra_nova.main.world.ChunkGenerator;
+import com.bramerlabs.terra_nova.main.world.ChunkStreamer;
+import com.bramerlabs.terra_nova.main.world.DensityCache;
+import com.bramerlabs.terra_nova.main.world.TerrainDensity;
+import com.bramerlabs.terra_nova.main.world.World;
+import com.bramerlabs.terra_nova.main.world.WorldSeed;
+import org.lwjgl.glfw.GLFW;
 import org.lwjgl.opengl.GL46;
 
 public class Main implements Runnable {
@@ -36,6 +46,16 @@ public class Main implements Runnable {
     private Cube lightCube;
     private Tree tree;
 
+    // the seed of the world, which every system that generates anything takes its own seed from
+    private final WorldSeed seeds = new WorldSeed(200);
+
+    // the voxel terrain, streamed in around the camera
+    private World world;
+    private ChunkStreamer streamer;
+
+    // the terrain brush - its radius, the density it adds or removes each frame, and how far away it reaches
+    private static final float BRUSH_RADIUS = 2, BRUSH_STRENGTH = 0.01f, BRUSH_REACH = 100;
+
     /**
      * the main runnable method
      * @param args - jvm arguments
@@ -90,7 +110,15 @@ public class Main implements Runnable {
         lightCube = new Cube(lightPosition, new Vector3f(0), new Vector3f(0.5f), new Vector4f(1.0f));
         lightCube.createMesh();
 
-        tree = Tree.getInstance(200);
+        // the tree at the origin is shaped by the first seed of its chunk, as a tree scattered there would be
+        tree = Tree.getInstance(seeds.getRandom(WorldSeed.Stream.TREES, new Key3(0, 0, 0)).nextInt());
+        tree.createMesh();
+
+        // the terrain is generated on the worker threads as the camera moves, out to 1 km with distant chunks at lower detail
+        // chunks that are left and come back again reuse their densities from a 128 MB cache
+        world = new World(new ChunkGenerator(new TerrainDensity(seeds.getIntSeed(WorldSeed.Stream.TERRAIN)),
+                new Vector4f(0.4f, 0.6f, 0.3f, 1.0f), new DensityCache(128L << 20)));
+        streamer = new ChunkStreamer(world, 32, 2, 1024, 4.0f);
 
     }
 
@@ -108,12 +136,30 @@ public class Main implements Runnable {
 
         // update the camera
         camera.updateArcball();
+
+        // stream the terrain around the camera
+        streamer.update(camera);
+
+        // dig with the right mouse button and raise with the middle one, where the camera is looking
+        boolean dig = input.isMouseButtonDown(GLFW.GLFW_MOUSE_BUTTON_RIGHT);
+        boolean raise = input.isMouseButtonDown(GLFW.GLFW_MOUSE_BUTTON_MIDDLE);
+        if (dig || raise) {
+            Vector3f target = world.raycast(camera.getPosition(), camera.getForward(), BRUSH_REACH);
+            if (target != null) {
+                world.edit(dig ? Brush.dig(target, BRUSH_RADIUS, BRUSH_STRENGTH) : Brush.raise(target, BRUSH_RADIUS, BRUSH_STRENGTH));
+            }
+        }
     }
 
     private void render() {
         // render the objects
         renderer.renderMesh(lightCube, camera, lightShader);
         renderer.renderMesh(tree, camera, defaultShader);
+        for (Chunk chunk : world.getChunks()) {
+            if (chunk.isUploaded() && !chunk.isEmpty()) {
+                renderer.renderMesh(chunk, camera, defaultShader);
+            }
+        }
 
         // swap buffers at the end
         window.swapBuffers();
@@ -125,6 +171,8 @@ public class Main implements Runnable {
 
         // release the objects
         lightCube.destroy();
+        tree.destroy();
+        world.destroy();
 
         // release the shaders
         defaultShader.destroy();
@@ -0,0 +1,180 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.math.noise.WorleyNoise;
+import com.bramerlabs.terra_nova.main.world.Biome;
+import com.bramerlabs.terra_nova.main.world.BiomeMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class BiomeBenchmark {
+
+    // the seed of the world
+    private static final int SEED = 200;
+
+    // the length of each side of a chunk, and the biome samples along each side of it
+    private static final float CHUNK_SIZE = 32;
+    private static final int SAMPLES = 33;
+
+    // the chunks along each side of the checked area
+    private static final int AREA = 16;
+
+    /**
+     * headless benchmark - checks the cellular noise against a brute force search, reports biome chunks and samples per
+     * second, then classifies the same area in a shuffled order on several threads and checks that every chunk comes
+     * out the same and that neighbouring chunks agree along their shared edges, and reports how much of the world each
+     * biome covers
+     * @param args - optionally the seconds to measure for (default 2) and the threads of the shuffled pass (default 4)
+     */
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        BiomeMap map = new BiomeMap(SEED);
+        System.out.println("cellular noise samples that differ from a brute force search: " + checkWorley(map.getRegions(), 200000));
+
+        // warm up the JIT
+        measure(map, seconds / 4);
+        long[] result = measure(map, seconds);
+        double elapsed = result[1] / 1e9;
+        System.out.printf("%.0f chunks/s, %.2f M samples/s%n", result[0] / elapsed, result[0] * SAMPLES * SAMPLES / elapsed / 1e6);
+
+        // the same samples one at a time, without sharing the regions' biomes
+        long start = System.nanoTime(), samples = 0;
+        float[] weights = new float[Biome.values().length];
+        float[] chunk = map.sampleChunk(3, 5, CHUNK_SIZE, SAMPLES);
+        boolean same = true;
+        while (System.nanoTime() - start < seconds * 1e9 / 4) {
+            for (int j = 0; j < SAMPLES; j++) {
+                for (int i = 0; i < SAMPLES; i++, samples++) {
+                    map.getWeights(3 * CHUNK_SIZE + i * CHUNK_SIZE / (SAMPLES - 1), 5 * CHUNK_SIZE + j * CHUNK_SIZE / (SAMPLES - 1), weights);
+                    for (int b = 0; b < weights.length; b++) {
+                        same &= weights[b] == chunk[(i + SAMPLES * j) * weights.length + b];
+                    }
+                }
+            }
+        }
+        System.out.printf("one sample at a time: %.2f M samples/s, same weights as the chunk: %b%n",
+                samples / ((System.nanoTime() - start) / 1e9) / 1e6, same);
+
+        // the same area in order on one thread, and shuffled on several
+        float[][] ordered = new float[AREA * AREA][];
+        for (int i = 0; i < ordered.length; i++) {
+            ordered[i] = map.sampleChunk(i % AREA, i / AREA, CHUNK_SIZE, SAMPLES);
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < AREA * AREA; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(1));
+        float[][] shuffled = new float[AREA * AREA][];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        BiomeMap other = new BiomeMap(SEED);
+        pool.submit(() -> order.parallelStream().forEach(i -> shuffled[i] = other.sampleChunk(i % AREA, i / AREA, CHUNK_SIZE, SAMPLES))).join();
+        pool.shutdownNow();
+        System.out.println("shuffled on " + threads + " threads gives the same weights: " + Arrays.deepEquals(ordered, shuffled));
+        System.out.println("samples on shared chunk edges that differ: " + countSeams(ordered, weights.length));
+
+        // how much of a large area each biome covers, and how many scattered points grow a tree
+        int[] counts = new int[weights.length];
+        int trees = 0, points = 0;
+        Random random = new Random(2);
+        for (int i = 0; i < 200000; i++) {
+            float x = random.nextFloat() * 16384, z = random.nextFloat() * 16384;
+            counts[map.getBiome(x, z).ordinal()]++;
+            if (map.getTreeMask().accept(x, z)) {
+                trees++;
+            }
+            points++;
+        }
+        for (Biome biome : Biome.values()) {
+            System.out.printf("%s covers %.1f%%%n", biome, 100.0 * counts[biome.ordinal()] / points);
+        }
+        System.out.printf("%.1f%% of scattered points grow a tree%n", 100.0 * trees / points);
+    }
+
+    /**
+     * classifies chunks in a row for a while
+     * @param map - the biome map
+     * @param seconds - how long to keep classifying
+     * @return - the chunks classified and the nanoseconds taken
+     */
+    private static long[] measure(BiomeMap map, double seconds) {
+        long start = System.nanoTime(), end = start + (long) (seconds * 1e9);
+        long chunks = 0;
+        while (System.nanoTime() < end) {
+            map.sampleChunk((int) chunks, 7, CHUNK_SIZE, SAMPLES);
+            chunks++;
+        }
+        return new long[] {chunks, System.nanoTime() - start};
+    }
+
+    /**
+     * compares the two nearest feature points found by the noise with those of every cell within four cells
+     * @param noise - the cellular noise
+     * @param samples - the amount of random positions to check
+     * @return - the amount of positions where the distances differ
+     */
+    private static int checkWorley(WorleyNoise noise, int samples) {
+        Random random = new Random(3);
+        float size = noise.getCellSize();
+        float[] distances = new float[2], feature = new float[2];
+        int wrong = 0;
+        for (int s = 0; s < samples; s++) {
+            float x = (random.nextFloat() - 0.5f) * 64 * size, y = (random.nextFloat() - 0.5f) * 64 * size;
+            noise.getNoise2D(x, y, distances, null);
+
+            int cx = (int) Math.floor(x / size), cy = (int) Math.floor(y / size);
+            float d1 = Float.MAX_VALUE, d2 = Float.MAX_VALUE;
+            for (int j = cy - 4; j <= cy + 4; j++) {
+                for (int i = cx - 4; i <= cx + 4; i++) {
+                    noise.getFeature(WorleyNoise.cell(i, j), feature);
+                    float dx = (feature[0] - x) / size, dy = (feature[1] - y) / size;
+                    float d = (float) Math.sqrt(dx * dx + dy * dy);
+                    if (d < d1) {
+                        d2 = d1;
+                        d1 = d;
+                    } else if (d < d2) {
+                        d2 = d;
+                    }
+                }
+            }
+            if (Math.abs(d1 - distances[0]) > 1e-4f || Math.abs(d2 - distances[1]) > 1e-4f) {
+                wrong++;
+            }
+        }
+        return wrong;
+    }
+
+    /**
+     * counts the samples along the shared edges of neighbouring chunks that do not match
+     * @param chunks - the weights of every chunk in the area, x first
+     * @param biomes - the amount of biomes
+     * @return - the amount of mismatched samples
+     */
+    private static int countSeams(float[][] chunks, int biomes) {
+        int seams = 0;
+        for (int cz = 0; cz < AREA; cz++) {
+            for (int cx = 0; cx < AREA; cx++) {
+                float[] chunk = chunks[cx + AREA * cz];
+                for (int k = 0; k < SAMPLES; k++) {
+                    for (int b = 0; b < biomes; b++) {
+                        if (cx + 1 < AREA && chunk[((SAMPLES - 1) + SAMPLES * k) * biomes + b]
+                                != chunks[cx + 1 + AREA * cz][(SAMPLES * k) * biomes + b]) {
+                            seams++;
+                        }
+                        if (cz + 1 < AREA && chunk[(k + SAMPLES * (SAMPLES - 1)) * biomes + b]
+                                != chunks[cx + AREA * (cz + 1)][k * biomes + b]) {
+                            seams++;
+                        }
+                    }
+                }
+            }
+        }
+        return seams;
+    }
+}
@@ -0,0 +1,55 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.math.Key3;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.terra_nova.main.world.ChunkGenerator;
+import com.bramerlabs.terra_nova.main.world.TerrainDensity;
+import com.bramerlabs.terra_nova.main.world.World;
+
+import java.util.List;
+
+public class ChunkBenchmark {
+
+    /**
+     * headless benchmark - generates the same block of chunks with 1 to N worker threads and reports chunks per second
+     * @param args - optionally the amount of chunks along each axis (default 8, i.e. 512 chunks) and the highest thread count
+     */
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        ChunkGenerator generator = new ChunkGenerator(new TerrainDensity(200), new Vector4f(0.4f, 0.6f, 0.3f, 1.0f));
+        List<Key3> keys = World.region(new Key3(-side / 2, -side / 2, -side / 2), new Key3(side - side / 2 - 1, side - side / 2 - 1, side - side / 2 - 1));
+
+        // warm up the JIT so the single threaded run is not penalised
+        run(generator, keys, maxThreads);
+
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            double seconds = run(generator, keys, threads);
+            double chunksPerSecond = keys.size() / seconds;
+            if (threads == 1) {
+                baseline = chunksPerSecond;
+            }
+            System.out.printf("%2d threads: %6.1f chunks/s (%.2fx)%n", threads, chunksPerSecond, chunksPerSecond / baseline);
+        }
+    }
+
+    /**
+     * generates every chunk once
+     * @param generator - the chunk generator
+     * @param keys - the chunks to generate
+     * @param threads - the amount of worker threads
+     * @return - the time taken in seconds
+     */
+    private static double run(ChunkGenerator generator, List<Key3> keys, int threads) {
+        World world = new World(generator, threads);
+        long start = System.nanoTime();
+        world.generate(keys);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // nothing was uploaded, so there is nothing to release on the GPU
+        world.shutdown();
+        return seconds;
+    }
+}
@@ -0,0 +1,74 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.math.Key3;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.terra_nova.main.world.ChunkGenerator;
+import com.bramerlabs.terra_nova.main.world.DensityCache;
+import com.bramerlabs.terra_nova.main.world.TerrainDensity;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class DensityCacheBenchmark {
+
+    // how many chunks around the walker are loaded, horizontally
+    private static final int RADIUS = 2;
+
+    // the vertical range of loaded chunks
+    private static final int MIN_Y = -2, MAX_Y = 1;
+
+    /**
+     * headless benchmark - walks back and forth along x, generating every chunk that comes into range, once without
+     * and once with a density cache, and reports the time taken, the hit rate and the bytes resident
+     * @param args - optionally the length of the walk in chunks (default 12), the amount of laps (default 3) and the
+     *             cache budget in megabytes (default 64)
+     */
+    public static void main(String[] args) {
+        int length = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        int laps = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        long budget = (args.length > 2 ? Long.parseLong(args[2]) : 64) << 20;
+        Vector4f color = new Vector4f(0.4f, 0.6f, 0.3f, 1.0f);
+
+        // warm up the JIT
+        walk(new ChunkGenerator(new TerrainDensity(200), color), 2, 1);
+
+        double uncached = walk(new ChunkGenerator(new TerrainDensity(200), color), length, laps);
+        System.out.printf("no cache: %6.2f s%n", uncached);
+
+        DensityCache cache = new DensityCache(budget);
+        double cached = walk(new ChunkGenerator(new TerrainDensity(200), color, cache), length, laps);
+        System.out.printf("cache:    %6.2f s (%.2fx)%n", cached, uncached / cached);
+        System.out.println(cache);
+    }
+
+    /**
+     * walks from x = 0 to x = length and back, generating the chunks that come into range at every step
+     * @param generator - the chunk generator
+     * @param length - the length of the walk in chunks
+     * @param laps - the amount of times to walk there and back
+     * @return - the time taken in seconds
+     */
+    private static double walk(ChunkGenerator generator, int length, int laps) {
+        Set<Key3> loaded = new HashSet<>();
+        long start = System.nanoTime();
+        for (int lap = 0; lap < laps; lap++) {
+            for (int step = 0; step < 2 * length; step++) {
+                int center = step < length ? step : 2 * length - step;
+
+                // forget the chunks out of range, then generate the ones that came into range
+                loaded.removeIf(key -> Math.abs(key.getX() - center) > RADIUS);
+                for (int x = center - RADIUS; x <= center + RADIUS; x++) {
+                    for (int y = MIN_Y; y <= MAX_Y; y++) {
+                        for (int z = -RADIUS; z <= RADIUS; z++) {
+                            Key3 key = new Key3(x, y, z);
+                            if (loaded.add(key)) {
+                                generator.generate(key);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+}
@@ -0,0 +1,159 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.graphics.MeshData;
+import com.bramerlabs.engine.math.Hash;
+import com.bramerlabs.engine.math.Key3;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.terra_nova.main.world.BiomeMap;
+import com.bramerlabs.terra_nova.main.world.Chunk;
+import com.bramerlabs.terra_nova.main.world.ChunkGenerator;
+import com.bramerlabs.terra_nova.main.world.PoissonDiskSampler;
+import com.bramerlabs.terra_nova.main.world.TerrainDensity;
+import com.bramerlabs.terra_nova.main.world.World;
+import com.bramerlabs.terra_nova.main.world.WorldSeed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+public class DeterminismBenchmark {
+
+    // the smallest distance between two scattered trees
+    private static final float TREE_RADIUS = 4;
+
+    /**
+     * headless benchmark - generates the same region of a world on 1, 4 and N threads, each time from new generators and
+     * in a different shuffled order, and hashes the densities, meshes and scattered trees of every chunk, reporting the
+     * time of each run and exiting with status 1 if any chunk hashes differently from the single threaded run
+     * @param args - optionally the world seed (default 200), the chunks along each horizontal side (default 6), and N
+     *             (default the available processors)
+     */
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 200;
+        int side = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int n = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        List<Key3> keys = World.region(new Key3(-side / 2, -1, -side / 2), new Key3(side / 2 - 1, 0, side / 2 - 1));
+        WorldSeed seeds = new WorldSeed(seed);
+
+        // warm up the JIT, so the first run is not slower only for being first
+        generate(seeds, keys.subList(0, Math.min(4, keys.size())), 1, 0);
+
+        int[] threadCounts = {1, 4, n};
+        long[][] hashes = new long[threadCounts.length][];
+        boolean same = true;
+        for (int run = 0; run < threadCounts.length; run++) {
+            long start = System.nanoTime();
+            hashes[run] = generate(seeds, keys, threadCounts[run], run);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d threads: %d chunks in %.2f s, %.0f chunks/s, region hash %016x%n", threadCounts[run],
+                    keys.size(), seconds, keys.size() / seconds, combine(hashes[run]));
+
+            for (int i = 0; i < keys.size(); i++) {
+                if (hashes[run][i] != hashes[0][i]) {
+                    Key3 key = keys.get(i);
+                    System.out.println("chunk (" + key.getX() + ", " + key.getY() + ", " + key.getZ() + ") differs on "
+                            + threadCounts[run] + " threads");
+                    same = false;
+                }
+            }
+        }
+        System.out.println("every chunk hashes the same on 1, 4 and " + n + " threads: " + same);
+        if (!same) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * generates a region from new generators on a pool of its own, in a shuffled order
+     * @param seeds - the seed of the world
+     * @param keys - the integer coordinates of the chunks
+     * @param threads - the threads of the pool
+     * @param shuffle - the seed of the order the chunks are handed to the pool in
+     * @return - the hash of every chunk, in the order of the keys
+     */
+    private static long[] generate(WorldSeed seeds, List<Key3> keys, int threads, long shuffle) {
+        ChunkGenerator generator = new ChunkGenerator(new TerrainDensity(seeds.getIntSeed(WorldSeed.Stream.TERRAIN)),
+                new Vector4f(0.3f, 0.6f, 0.2f, 1));
+        BiomeMap biomes = new BiomeMap(seeds.getIntSeed(WorldSeed.Stream.BIOMES));
+        PoissonDiskSampler sampler = new PoissonDiskSampler(seeds.getSeed(WorldSeed.Stream.SCATTER), TREE_RADIUS, Chunk.WORLD_SIZE);
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(shuffle));
+
+        long[] hashes = new long[keys.size()];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        pool.submit(() -> order.parallelStream().forEach(i -> {
+            Key3 key = keys.get(i);
+            Chunk chunk = generator.generate(key);
+            long h = hashValues(seeds.getSeed(), chunk.getField().getValues());
+            h = hashMesh(h, chunk.getMesh());
+
+            // trees stand on the top layer of chunks, each shaped by a seed of its own
+            if (key.getY() == 0) {
+                float[] points = sampler.sample(key.getX(), key.getZ(), biomes.getTreeMask());
+                SplittableRandom random = seeds.getRandom(WorldSeed.Stream.TREES, key);
+                for (int p = 0; p < points.length; p += 2) {
+                    h = Hash.hash(h, Float.floatToRawIntBits(points[p]), Float.floatToRawIntBits(points[p + 1]));
+                    h = Hash.hash(h, random.nextInt());
+                }
+            }
+            hashes[i] = h;
+        })).join();
+        pool.shutdownNow();
+        return hashes;
+    }
+
+    /**
+     * hashes the exact bits of every value
+     * @param h - the hash so far
+     * @param values - the values
+     * @return - the new hash
+     */
+    private static long hashValues(long h, float[] values) {
+        for (float value : values) {
+            h = Hash.hash(h, Float.floatToRawIntBits(value));
+        }
+        return h;
+    }
+
+    /**
+     * hashes the positions, normals and colors of every vertex of a mesh, then its indices
+     * @param h - the hash so far
+     * @param mesh - the mesh
+     * @return - the new hash
+     */
+    private static long hashMesh(long h, Mesh mesh) {
+        MeshData data = mesh.getData();
+        float[] positions = data.getPositions(), normals = data.getNormals(), colors = data.getColors();
+        for (int i = 0; i < data.getVertexCount(); i++) {
+            h = hashValues(h, new float[]{positions[3 * i], positions[3 * i + 1], positions[3 * i + 2],
+                    normals[3 * i], normals[3 * i + 1], normals[3 * i + 2],
+                    colors[4 * i], colors[4 * i + 1], colors[4 * i + 2], colors[4 * i + 3]});
+        }
+        for (int index : mesh.getIndices()) {
+            h = Hash.hash(h, index);
+        }
+        return h;
+    }
+
+    /**
+     * combines the hashes of every chunk into one for the region
+     * @param hashes - the hashes, in the order of the keys
+     * @return - the hash of the region
+     */
+    private static long combine(long[] hashes) {
+        long h = 0;
+        for (long chunk : hashes) {
+            h = Hash.hash(h, chunk);
+        }
+        return h;
+    }
+}
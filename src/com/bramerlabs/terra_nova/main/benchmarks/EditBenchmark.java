@@ -0,0 +1,57 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.math.Key3;
+import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.terra_nova.main.world.Brush;
+import com.bramerlabs.terra_nova.main.world.Chunk;
+import com.bramerlabs.terra_nova.main.world.ChunkGenerator;
+import com.bramerlabs.terra_nova.main.world.TerrainDensity;
+import com.bramerlabs.terra_nova.main.world.World;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class EditBenchmark {
+
+    /**
+     * headless benchmark - generates a 256 x 256 x 256 world, then digs and raises with a 2 m brush at random points
+     * on the surface and reports the time per stroke. nothing is uploaded, so the GPU patch is not included.
+     * @param args - optionally the amount of strokes (default 2000)
+     */
+    public static void main(String[] args) {
+        int strokes = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int side = 8;
+
+        World world = new World(new ChunkGenerator(new TerrainDensity(200), new Vector4f(0.4f, 0.6f, 0.3f, 1.0f)));
+        world.generate(World.region(new Key3(-side / 2, -side / 2, -side / 2), new Key3(side / 2 - 1, side / 2 - 1, side / 2 - 1)));
+        world.loadPending();
+        float extent = side / 2f * Chunk.WORLD_SIZE;
+
+        Random random = new Random(1);
+        long[] times = new long[strokes];
+        int count = 0, chunks = 0;
+        while (count < strokes) {
+            // drop a ray straight down onto the terrain
+            Vector3f origin = new Vector3f((random.nextFloat() * 2 - 1) * (extent - 4), extent - 1, (random.nextFloat() * 2 - 1) * (extent - 4));
+            Vector3f target = world.raycast(origin, new Vector3f(0, -1, 0), 2 * extent - 2);
+            if (target == null) {
+                continue;
+            }
+
+            Brush brush = random.nextBoolean() ? Brush.dig(target, 2, 0.05f) : Brush.raise(target, 2, 0.05f);
+            long start = System.nanoTime();
+            chunks += world.edit(brush);
+            times[count++] = System.nanoTime() - start;
+        }
+        world.shutdown();
+
+        // the first half warms up the JIT
+        long[] measured = Arrays.copyOfRange(times, strokes / 2, strokes);
+        Arrays.sort(measured);
+        double mean = Arrays.stream(measured).average().orElse(0);
+        System.out.printf("%d strokes, %.2f chunks per stroke%n", strokes, (double) chunks / strokes);
+        System.out.printf("mean %.3f ms, median %.3f ms, p99 %.3f ms, max %.3f ms%n", mean / 1e6,
+                measured[measured.length / 2] / 1e6, measured[measured.length * 99 / 100] / 1e6, measured[measured.length - 1] / 1e6);
+    }
+}
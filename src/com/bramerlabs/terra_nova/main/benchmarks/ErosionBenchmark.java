@@ -0,0 +1,93 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.math.noise.SimplexNoise;
+import com.bramerlabs.terra_nova.main.heightmap.Erosion;
+
+import java.util.Arrays;
+
+public class ErosionBenchmark {
+
+    // the seed of the droplets
+    private static final long SEED = 200;
+
+    // the height of the terrain where the noise is 1
+    private static final float HEIGHT_SCALE = 64;
+
+    // the steepest stable slope of the thermal pass
+    private static final float TALUS = 1.5f;
+
+    /**
+     * headless benchmark - erodes a noise heightfield with droplets on one thread and on several, reporting droplets per
+     * second and checking that every run with the same seed comes out the same, then times the thermal pass and checks
+     * that it moves height without creating any
+     * @param args - optionally the samples along each side (default 2048), the amount of droplets (default 1000000), the
+     *             worker threads of the parallel run (default 4) and the thermal iterations (default 50)
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 2048;
+        long droplets = args.length > 1 ? Long.parseLong(args[1]) : 1000000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+
+        float[] original = new float[size * size];
+        new SimplexNoise(128, 0.5f, 200).getNoise2D(0, 0, 1, size, size, original, 0);
+        for (int i = 0; i < original.length; i++) {
+            original[i] *= HEIGHT_SCALE;
+        }
+
+        // warm up the JIT
+        Erosion single = new Erosion(1), parallel = new Erosion(threads);
+        single.hydraulic(original.clone(), size, size, droplets / 10, SEED + 1);
+
+        float[] first = original.clone(), second = original.clone(), third = original.clone();
+        hydraulic(single, first, size, droplets, 1);
+        hydraulic(single, second, size, droplets, 1);
+        hydraulic(parallel, third, size, droplets, threads);
+        System.out.println("the same seed twice gives the same heights: " + Arrays.equals(first, second));
+        System.out.println("1 and " + threads + " threads give the same heights: " + Arrays.equals(first, third));
+
+        double before = 0, after = 0, deepest = 0;
+        for (int i = 0; i < first.length; i++) {
+            deepest = Math.max(deepest, original[i] - first[i]);
+        }
+        System.out.printf("deepest channel: %.2f%n", deepest);
+
+        // the thermal pass over the eroded heights
+        float[] heights = first.clone();
+        for (float h : heights) {
+            before += h;
+        }
+        long start = System.nanoTime();
+        parallel.thermal(heights, size, size, TALUS, iterations);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        for (float h : heights) {
+            after += h;
+        }
+        System.out.printf("thermal, %d iterations on %d threads: %.2f s, %.1f M samples/s, mean height %.6f before, %.6f after%n",
+                iterations, threads, seconds, (double) iterations * heights.length / seconds / 1e6,
+                before / heights.length, after / heights.length);
+
+        float[] other = first.clone();
+        single.thermal(other, size, size, TALUS, iterations);
+        System.out.println("1 and " + threads + " threads give the same thermal heights: " + Arrays.equals(heights, other));
+
+        single.shutdown();
+        parallel.shutdown();
+    }
+
+    /**
+     * runs the droplets over a heightfield and reports how long they took
+     * @param erosion - the erosion to run
+     * @param heights - the heights, changed in place
+     * @param size - the samples along each side
+     * @param droplets - the amount of droplets
+     * @param threads - the worker threads of the erosion, for the report
+     */
+    private static void hydraulic(Erosion erosion, float[] heights, int size, long droplets, int threads) {
+        long start = System.nanoTime();
+        long run = erosion.hydraulic(heights, size, size, droplets, SEED);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%dx%d, %d droplets on %d threads: %.2f s, %.2f M droplets/s%n",
+                size, size, run, threads, seconds, run / seconds / 1e6);
+    }
+}
@@ -0,0 +1,104 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.graphics.Vertex;
+import com.bramerlabs.engine.math.Key3;
+import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.terra_nova.main.marching_cubes.DensityField;
+import com.bramerlabs.terra_nova.main.marching_cubes.Isosurface;
+import com.bramerlabs.terra_nova.main.marching_cubes.MCMesh;
+import com.bramerlabs.terra_nova.main.world.Chunk;
+import com.bramerlabs.terra_nova.main.world.TerrainDensity;
+import com.bramerlabs.terra_nova.main.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ExtractorBenchmark {
+
+    // triangles with an angle below this are counted as thin
+    private static final double THIN_ANGLE = Math.toRadians(10);
+
+    /**
+     * headless benchmark - extracts the same terrain chunks with every isosurface method and reports the time,
+     * vertex count and triangle count per chunk, and the fraction of thin triangles
+     * @param args - optionally the amount of chunks along x and z (default 4, with 4 chunks vertically)
+     */
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        Vector4f color = new Vector4f(0.4f, 0.6f, 0.3f, 1.0f);
+        TerrainDensity density = new TerrainDensity(200);
+
+        // every method runs on the same fields, sampled with the overlap the dual methods need
+        List<DensityField> fields = new ArrayList<>();
+        for (Key3 key : World.region(new Key3(0, -2, 0), new Key3(side - 1, 1, side - 1))) {
+            DensityField field = Chunk.createField(key, 0, 2).sample(density);
+            if (new MCMesh(field, 0).createMesh(color).getIndices().length > 0) {
+                fields.add(field);
+            }
+        }
+        System.out.printf("%d chunks with a surface%n", fields.size());
+
+        for (Isosurface method : Isosurface.values()) {
+            // warm up the JIT
+            for (int i = 0; i < 3; i++) {
+                for (DensityField field : fields) {
+                    method.create(field, 0).createMesh(color);
+                }
+            }
+
+            long vertices = 0, triangles = 0, thin = 0;
+            long start = System.nanoTime();
+            List<Mesh> meshes = new ArrayList<>();
+            for (DensityField field : fields) {
+                meshes.add(method.create(field, 0).createMesh(color));
+            }
+            double millis = (System.nanoTime() - start) / 1e6 / fields.size();
+
+            for (Mesh mesh : meshes) {
+                vertices += mesh.getVertexCount();
+                triangles += mesh.getIndices().length / 3;
+                thin += countThin(mesh);
+            }
+            System.out.printf("%-16s %7.3f ms/chunk %8.0f vertices/chunk %8.0f triangles/chunk %5.1f%% thin%n",
+                    method, millis, (double) vertices / fields.size(), (double) triangles / fields.size(), 100.0 * thin / triangles);
+        }
+    }
+
+    /**
+     * counts the triangles with a small angle
+     * @param mesh - the mesh
+     * @return - the amount of triangles with an angle below THIN_ANGLE
+     */
+    private static int countThin(Mesh mesh) {
+        Vertex[] vertices = mesh.getVertices();
+        int[] indices = mesh.getIndices();
+        int thin = 0;
+        for (int i = 0; i < indices.length; i += 3) {
+            Vector3f a = vertices[indices[i]].getPosition();
+            Vector3f b = vertices[indices[i + 1]].getPosition();
+            Vector3f c = vertices[indices[i + 2]].getPosition();
+            if (angle(a, b, c) < THIN_ANGLE || angle(b, c, a) < THIN_ANGLE || angle(c, a, b) < THIN_ANGLE) {
+                thin++;
+            }
+        }
+        return thin;
+    }
+
+    /**
+     * finds the angle of a triangle at one corner
+     * @param at - the corner
+     * @param p - the second corner
+     * @param q - the third corner
+     * @return - the angle in radians, 0 for a degenerate triangle
+     */
+    private static double angle(Vector3f at, Vector3f p, Vector3f q) {
+        Vector3f u = Vector3f.subtract(p, at), v = Vector3f.subtract(q, at);
+        double lengths = Vector3f.length(u) * Vector3f.length(v);
+        if (lengths == 0) {
+            return 0;
+        }
+        return Math.acos(Math.max(-1, Math.min(1, Vector3f.dot(u, v) / lengths)));
+    }
+}
@@ -0,0 +1,150 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.math.noise.FractalNoise;
+import com.bramerlabs.engine.math.noise.SimplexNoise;
+
+public class FractalNoiseBenchmark {
+
+    // the amount of samples along each side of the block
+    private static final int SIZE = 32;
+
+    // the position of the first sample, away from the origin so negative and positive cells are both covered
+    private static final float X0 = -500.3f, Y0 = -20.1f, Z0 = 300.7f;
+
+    // the settings of the terrain noise
+    private static final float LARGEST_FEATURE = 128, PERSISTENCE = 0.5f;
+    private static final int SEED = 200;
+
+    /**
+     * headless benchmark - samples a block with the double precision SimplexNoise and with the single precision
+     * FractalNoise, reports samples per second for every type, and the largest difference between the two fBm results
+     * @param args - optionally the seconds to run each case (default 2)
+     */
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+
+        SimplexNoise reference = new SimplexNoise(LARGEST_FEATURE, PERSISTENCE, SEED);
+        FractalNoise fbm = new FractalNoise(FractalNoise.Type.FBM, LARGEST_FEATURE, PERSISTENCE, SEED);
+        FractalNoise ridged = new FractalNoise(FractalNoise.Type.RIDGED, LARGEST_FEATURE, PERSISTENCE, SEED);
+        FractalNoise billow = new FractalNoise(FractalNoise.Type.BILLOW, LARGEST_FEATURE, PERSISTENCE, SEED);
+        FractalNoise warped = new FractalNoise(FractalNoise.Type.FBM, LARGEST_FEATURE, PERSISTENCE, SEED,
+                new FractalNoise(FractalNoise.Type.FBM, 8, PERSISTENCE, SEED + 1), 16);
+
+        Sampler2D[] samplers2D = {
+                (x, y) -> (float) reference.getNoise2D(x, y), fbm::getNoise2D, ridged::getNoise2D,
+                billow::getNoise2D, warped::getNoise2D};
+        Sampler3D[] samplers3D = {
+                (x, y, z) -> (float) reference.getNoise3D(x, y, z), fbm::getNoise3D, ridged::getNoise3D,
+                billow::getNoise3D, warped::getNoise3D};
+        String[] names = {"SimplexNoise", "fBm", "ridged", "billow", "warped fBm"};
+
+        // warm up the JIT
+        for (int i = 0; i < names.length; i++) {
+            measure2D(samplers2D[i], seconds / 4);
+            measure3D(samplers3D[i], seconds / 4);
+        }
+
+        double base2D = 0, base3D = 0;
+        for (int i = 0; i < names.length; i++) {
+            double rate2D = measure2D(samplers2D[i], seconds), rate3D = measure3D(samplers3D[i], seconds);
+            if (i == 0) {
+                base2D = rate2D;
+                base3D = rate3D;
+            }
+            System.out.printf("%-12s 2D: %6.2f M samples/s (%.2fx)   3D: %6.2f M samples/s (%.2fx)%n",
+                    names[i], rate2D / 1e6, rate2D / base2D, rate3D / 1e6, rate3D / base3D);
+        }
+
+        // the single precision fBm against the double precision sum it replaces
+        double worst2D = 0, worst3D = 0;
+        for (int z = 0; z < SIZE; z++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    float px = X0 + x, py = Y0 + y, pz = Z0 + z;
+                    worst2D = Math.max(worst2D, Math.abs(fbm.getNoise2D(px, pz) - reference.getNoise2D(px, pz)));
+                    worst3D = Math.max(worst3D, Math.abs(fbm.getNoise3D(px, py, pz) - reference.getNoise3D(px, py, pz)));
+                }
+            }
+        }
+        System.out.printf("largest fBm difference from SimplexNoise: 2D %.2e, 3D %.2e%n", worst2D, worst3D);
+    }
+
+    /**
+     * samples a square over and over for a while
+     * @param sampler - the noise to sample
+     * @param seconds - how long to keep sampling
+     * @return - the samples per second
+     */
+    private static double measure2D(Sampler2D sampler, double seconds) {
+        long start = System.nanoTime(), end = start + (long) (seconds * 1e9);
+        long samples = 0;
+        float sink = 0;
+        while (System.nanoTime() < end) {
+            for (int y = 0; y < SIZE * 8; y++) {
+                for (int x = 0; x < SIZE * 4; x++) {
+                    sink += sampler.sample(X0 + x, Z0 + y);
+                }
+            }
+            samples += SIZE * SIZE * 32;
+        }
+        if (sink == 0.5f) {
+            System.out.println();
+        }
+        return samples / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * samples a block over and over for a while
+     * @param sampler - the noise to sample
+     * @param seconds - how long to keep sampling
+     * @return - the samples per second
+     */
+    private static double measure3D(Sampler3D sampler, double seconds) {
+        long start = System.nanoTime(), end = start + (long) (seconds * 1e9);
+        long samples = 0;
+        float sink = 0;
+        while (System.nanoTime() < end) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int y = 0; y < SIZE; y++) {
+                    for (int x = 0; x < SIZE; x++) {
+                        sink += sampler.sample(X0 + x, Y0 + y, Z0 + z);
+                    }
+                }
+            }
+            samples += SIZE * SIZE * SIZE;
+        }
+        if (sink == 0.5f) {
+            System.out.println();
+        }
+        return samples / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * a 2D noise to measure
+     */
+    private interface Sampler2D {
+
+        /**
+         * samples the noise
+         * @param x - the x position
+         * @param y - the y position
+         * @return - the noise at (x, y)
+         */
+        float sample(float x, float y);
+    }
+
+    /**
+     * a 3D noise to measure
+     */
+    private interface Sampler3D {
+
+        /**
+         * samples the noise
+         * @param x - the x position
+         * @param y - the y position
+         * @param z - the z position
+         * @return - the noise at (x, y, z)
+         */
+        float sample(float x, float y, float z);
+    }
+}
@@ -0,0 +1,93 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.engine.math.noise.SimplexNoise;
+import com.bramerlabs.terra_nova.main.heightmap.HeightmapMesher;
+
+public class HeightmapBenchmark {
+
+    // the distance between two adjacent samples
+    private static final float CELL_SIZE = 1;
+
+    // the height of the terrain where the noise is 1
+    private static final float HEIGHT_SCALE = 64;
+
+    /**
+     * headless benchmark - builds a heightfield mesh a few times, reports the time of each build, vertices per second and
+     * the size of the buffers, and checks the winding and normals of the result
+     * @param args - optionally the samples along each side (default 4097), the worker threads (default one per core) and
+     *             the amount of builds (default 3)
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 4097;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int builds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        SimplexNoise noise = new SimplexNoise(128, 0.5f, 200);
+        HeightmapMesher mesher = new HeightmapMesher(noise, HEIGHT_SCALE, threads);
+        Vector4f color = new Vector4f(0.3f, 0.6f, 0.2f, 1);
+
+        // warm up the JIT
+        mesher.generate(0, 0, CELL_SIZE, 257, color);
+
+        Mesh mesh = null;
+        for (int i = 0; i < builds; i++) {
+            // drop the previous build first, so its buffers can be freed
+            mesh = null;
+            long start = System.nanoTime();
+            mesh = mesher.generate(-size / 2f, -size / 2f, CELL_SIZE, size, color);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%dx%d on %d threads: %.2f s, %.2f M vertices/s%n",
+                    size, size, threads, seconds, mesh.getVertexCount() / seconds / 1e6);
+        }
+        long bytes = 2L * mesh.getVertexCount() * 3 * Float.BYTES + (long) mesh.getIndexCount() * Integer.BYTES;
+        System.out.printf("%d vertices, %d triangles, %.0f MB of buffers%n",
+                mesh.getVertexCount(), mesh.getIndexCount() / 3, bytes / 1e6);
+
+        mesher.shutdown();
+        check(mesher, noise, color);
+    }
+
+    /**
+     * builds a small heightfield and checks that every triangle faces up and that the normals match central
+     * differences of the heights
+     * @param mesher - the mesher to check
+     * @param noise - the noise it reads
+     * @param color - the color of the terrain
+     */
+    private static void check(HeightmapMesher mesher, SimplexNoise noise, Vector4f color) {
+        HeightmapMesher single = new HeightmapMesher(noise, mesher.getHeightScale(), 1);
+        int size = 129;
+        Mesh mesh = single.generate(10.5f, -20.25f, CELL_SIZE, size, color);
+        single.shutdown();
+
+        float[] p = new float[mesh.getVertexCount() * 3], n = new float[p.length];
+        int[] indices = new int[mesh.getIndexCount()];
+        mesh.getPositionData().duplicate().get(p);
+        mesh.getNormalData().duplicate().get(n);
+        mesh.getIndexData().duplicate().get(indices);
+
+        int downward = 0;
+        for (int t = 0; t < indices.length; t += 3) {
+            int a = 3 * indices[t], b = 3 * indices[t + 1], c = 3 * indices[t + 2];
+            float ux = p[b] - p[a], uz = p[b + 2] - p[a + 2], vx = p[c] - p[a], vz = p[c + 2] - p[a + 2];
+            if (uz * vx - ux * vz <= 0) {
+                downward++;
+            }
+        }
+
+        double worst = 0, h = 0.01;
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            float x = p[3 * v], z = p[3 * v + 2];
+            double dx = (noise.getNoise2D((float) (x + h), z) - noise.getNoise2D((float) (x - h), z)) / (2 * h) * mesher.getHeightScale();
+            double dz = (noise.getNoise2D(x, (float) (z + h)) - noise.getNoise2D(x, (float) (z - h))) / (2 * h) * mesher.getHeightScale();
+            double length = Math.sqrt(dx * dx + 1 + dz * dz);
+            worst = Math.max(worst, Math.abs(n[3 * v] + dx / length));
+            worst = Math.max(worst, Math.abs(n[3 * v + 1] - 1 / length));
+            worst = Math.max(worst, Math.abs(n[3 * v + 2] + dz / length));
+        }
+        System.out.printf("check: %d downward triangles, largest normal difference from central differences %.2e%n",
+                downward, worst);
+    }
+}
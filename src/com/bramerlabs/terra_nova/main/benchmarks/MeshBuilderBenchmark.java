@@ -0,0 +1,127 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.graphics.MeshBuilder;
+import com.bramerlabs.engine.graphics.Vertex;
+import com.bramerlabs.engine.graphics.VertexLayout;
+import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.engine.math.Vector4f;
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+
+public class MeshBuilderBenchmark {
+
+    /**
+     * headless benchmark - builds the same heightfield grid as vertex objects and with a mesh builder, and reports the
+     * time and the heap allocated by each, including the copy into float arrays the vertex path makes when the mesh
+     * is made. the builder needs the lwjgl natives of this platform
+     * @param args - optionally the amount of vertices along each side of the grid (default 1415, about 2M vertices)
+     */
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 1415;
+        Vector4f color = new Vector4f(0.3f, 0.6f, 0.2f, 1);
+        System.out.println(side * side + " vertices, " + 6L * (side - 1) * (side - 1) / 3 + " triangles");
+
+        // a few rounds, so both paths are compiled before the last is reported
+        for (int round = 0; round < 3; round++) {
+            long allocated = allocatedBytes(), start = System.nanoTime();
+            Mesh mesh = buildVertices(side, color);
+            report("vertex objects", round, System.nanoTime() - start, allocatedBytes() - allocated,
+                    mesh.getData().getPositions().length);
+
+            allocated = allocatedBytes();
+            start = System.nanoTime();
+            Mesh built;
+            try (MeshBuilder builder = new MeshBuilder(VertexLayout.UNTEXTURED)) {
+                built = buildDirect(builder, side, color);
+            }
+            report("mesh builder", round, System.nanoTime() - start, allocatedBytes() - allocated,
+                    built.getVertexData().remaining());
+            built.free();
+        }
+    }
+
+    /**
+     * builds a wavy grid the way meshes are built today, one vertex object at a time
+     * @param side - the vertices along each side
+     * @param color - the color of every vertex
+     * @return - the mesh
+     */
+    private static Mesh buildVertices(int side, Vector4f color) {
+        Vertex[] vertices = new Vertex[side * side];
+        for (int z = 0; z < side; z++) {
+            for (int x = 0; x < side; x++) {
+                vertices[x + z * side] = new Vertex(new Vector3f(x, height(x, z), z), color, new Vector3f(0, 1, 0));
+            }
+        }
+        int[] indices = new int[6 * (side - 1) * (side - 1)];
+        int i = 0;
+        for (int z = 0; z < side - 1; z++) {
+            for (int x = 0; x < side - 1; x++) {
+                int v = x + z * side;
+                indices[i++] = v;
+                indices[i++] = v + side;
+                indices[i++] = v + 1;
+                indices[i++] = v + 1;
+                indices[i++] = v + side;
+                indices[i++] = v + side + 1;
+            }
+        }
+        return new Mesh(vertices, indices);
+    }
+
+    /**
+     * builds the same grid straight into off-heap memory
+     * @param builder - the builder
+     * @param side - the vertices along each side
+     * @param color - the color of every vertex
+     * @return - the mesh
+     */
+    private static Mesh buildDirect(MeshBuilder builder, int side, Vector4f color) {
+        for (int z = 0; z < side; z++) {
+            for (int x = 0; x < side; x++) {
+                builder.position(x, height(x, z), z).color(color).normal(0, 1, 0).endVertex();
+            }
+        }
+        for (int z = 0; z < side - 1; z++) {
+            for (int x = 0; x < side - 1; x++) {
+                int v = x + z * side;
+                builder.triangle(v, v + side, v + 1).triangle(v + 1, v + side, v + side + 1);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * the height of the grid at a vertex
+     * @param x - the x index
+     * @param z - the z index
+     * @return - the height
+     */
+    private static float height(int x, int z) {
+        return (float) (Math.sin(x * 0.05) * Math.cos(z * 0.05));
+    }
+
+    /**
+     * finds the heap allocated by this thread so far
+     * @return - the bytes allocated
+     */
+    private static long allocatedBytes() {
+        return ((ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * prints the time and heap of a build
+     * @param name - how the mesh was built
+     * @param round - the round
+     * @param nanos - the time it took
+     * @param bytes - the heap allocated
+     * @param check - a number read from the result, so the build cannot be skipped
+     */
+    private static void report(String name, int round, long nanos, long bytes, int check) {
+        if (round == 2) {
+            System.out.printf("%s: %.0f ms, %.1f MB of heap allocated (%d)%n", name, nanos / 1e6, bytes / 1e6, check);
+        }
+    }
+}
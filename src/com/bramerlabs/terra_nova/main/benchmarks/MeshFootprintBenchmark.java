@@ -0,0 +1,114 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.graphics.Vertex;
+import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.engine.math.shapes_2d.Triangle;
+import com.bramerlabs.engine.objects.untextured.shapes.Sphere;
+
+import java.lang.ref.Reference;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class MeshFootprintBenchmark {
+
+    // the times the heap is measured for each representation, keeping the smallest
+    private static final int ROUNDS = 3;
+
+    /**
+     * headless benchmark - generates the same sphere, one vertex per triangle corner, as vertex objects, the way
+     * Sphere.generateMesh used to keep it, and as one array per attribute, the way Sphere.generateData makes it, and
+     * reports the heap each retains once the garbage of generating it is collected. run it with -Xms1g for exact
+     * figures - a heap still growing while it is measured skews them
+     * @param args - optionally the amount of times the sphere is subdivided (default 6)
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        Vector4f color = new Vector4f(0.8f, 0.2f, 0.2f, 1);
+        int vertexCount = Sphere.generateData(color, 1, depth).getVertexCount();
+        System.out.println("sphere subdivided " + depth + " times, " + vertexCount / 3 + " triangles, " + vertexCount
+                + " vertices");
+
+        long objects = Long.MAX_VALUE, arrays = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            objects = Math.min(objects, retained(() -> generateVertices(color, depth)));
+            arrays = Math.min(arrays, retained(() -> Sphere.generateData(color, 1, depth)));
+        }
+        report("vertex objects", objects, vertexCount);
+        report("arrays", arrays, vertexCount);
+        System.out.printf("arrays retain %.1f times less heap%n", (double) objects / arrays);
+    }
+
+    /**
+     * generates the sphere as vertex objects and indices, as Sphere.generateMesh did before its mesh kept arrays
+     * @param color - the color of the sphere
+     * @param depth - the amount of times the sphere is subdivided
+     * @return - the vertices and the indices
+     */
+    private static Object[] generateVertices(Vector4f color, int depth) {
+        List<Triangle> triangles = Sphere.generateTriangles(1, depth);
+        Vertex[] vertices = new Vertex[triangles.size() * 3];
+        for (int i = 0; i < triangles.size(); i++) {
+            Triangle t = triangles.get(i);
+            vertices[3 * i] = new Vertex(t.getV1(), color, Vector3f.subtract(t.getV1(), new Vector3f(0)));
+            vertices[3 * i + 1] = new Vertex(t.getV2(), color, Vector3f.subtract(t.getV2(), new Vector3f(0)));
+            vertices[3 * i + 2] = new Vertex(t.getV3(), color, Vector3f.subtract(t.getV3(), new Vector3f(0)));
+        }
+        int[] indices = new int[vertices.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        return new Object[]{vertices, indices};
+    }
+
+    /**
+     * finds the heap a value keeps reachable, as the heap freed by a collection once it is dropped. the value is made
+     * on a thread of its own that has ended before the heap is measured, so no stale slot of a frame that made it can
+     * keep the garbage of making it reachable
+     * @param generator - makes the value
+     * @return - the bytes retained
+     */
+    private static long retained(Supplier<Object> generator) {
+        Object[] holder = new Object[1];
+        Thread thread = new Thread(() -> holder[0] = generator.get());
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("Interrupted while generating the mesh.", e);
+        }
+        long with = usedAfterCollection();
+        holder[0] = null;
+        long without = usedAfterCollection();
+        Reference.reachabilityFence(holder);
+        return with - without;
+    }
+
+    /**
+     * collects the garbage until the heap in use stops shrinking
+     * @return - the bytes in use
+     */
+    private static long usedAfterCollection() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    /**
+     * prints the heap retained by a representation
+     * @param name - the representation
+     * @param bytes - the bytes retained
+     * @param vertexCount - the vertices of the sphere
+     */
+    private static void report(String name, long bytes, int vertexCount) {
+        System.out.printf("%s: %.1f MB retained, %.1f bytes per vertex%n", name, bytes / 1e6, (double) bytes / vertexCount);
+    }
+}
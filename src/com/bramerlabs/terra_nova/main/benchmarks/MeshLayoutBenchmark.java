@@ -0,0 +1,147 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.graphics.Shader;
+import com.bramerlabs.engine.graphics.VertexLayout;
+import com.bramerlabs.engine.math.Key3;
+import com.bramerlabs.engine.math.Matrix4f;
+import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.terra_nova.main.world.ChunkGenerator;
+import com.bramerlabs.terra_nova.main.world.TerrainDensity;
+import com.bramerlabs.terra_nova.main.world.World;
+import org.lwjgl.glfw.GLFW;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL30;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MeshLayoutBenchmark {
+
+    // the size of the hidden window drawn into
+    private static final int WIDTH = 1280, HEIGHT = 720;
+
+    // the frames drawn before timing, and the frames timed
+    private static final int WARMUP_FRAMES = 20, FRAMES = 200;
+
+    /**
+     * benchmark - needs a display and OpenGL 4.6. meshes the same terrain chunks twice, uploads one copy with every
+     * attribute in a buffer of its own and the other interleaved in a single buffer, and reports the upload time of
+     * each, then draws every chunk a few hundred times with each layout and reports the time per frame and the
+     * triangles drawn per second
+     * @param args - optionally the amount of chunks along x and z (default 8, with 4 chunks vertically)
+     */
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+
+        if (!GLFW.glfwInit()) {
+            throw new IllegalStateException("Unable to initialize the GLFW.");
+        }
+        GLFW.glfwDefaultWindowHints();
+        GLFW.glfwWindowHint(GLFW.GLFW_VISIBLE, GLFW.GLFW_FALSE);
+        long window = GLFW.glfwCreateWindow(WIDTH, HEIGHT, "mesh layout benchmark", 0, 0);
+        if (window == 0) {
+            throw new IllegalStateException("Failed to create the GLFW window.");
+        }
+        GLFW.glfwMakeContextCurrent(window);
+        GL.createCapabilities();
+        GL11.glEnable(GL11.GL_DEPTH_TEST);
+        GL11.glEnable(GL11.GL_CULL_FACE);
+        GL11.glViewport(0, 0, WIDTH, HEIGHT);
+
+        Shader shader = new Shader("/shaders/default/vertex.glsl", "/shaders/default/fragment.glsl").create();
+        ChunkGenerator generator = new ChunkGenerator(new TerrainDensity(200), new Vector4f(0.3f, 0.6f, 0.2f, 1));
+        List<Mesh> separate = new ArrayList<>(), interleaved = new ArrayList<>();
+        long triangles = 0;
+        for (Key3 key : World.region(new Key3(-side / 2, -2, -side / 2), new Key3(side / 2 - 1, 1, side / 2 - 1))) {
+            Mesh mesh = generator.generate(key).getMesh();
+            if (mesh.getIndexCount() == 0) {
+                continue;
+            }
+            Mesh copy = new Mesh(mesh.getData());
+            copy.setInterleaved(true);
+            separate.add(mesh);
+            interleaved.add(copy);
+            triangles += mesh.getIndexCount() / 3;
+        }
+        System.out.println(separate.size() + " chunks, " + triangles + " triangles");
+
+        upload("separate buffers", separate);
+        upload("interleaved", interleaved);
+
+        shader.bind();
+        shader.setUniform("model", Matrix4f.identity());
+        shader.setUniform("view", Matrix4f.view(new Vector3f(0, 96, 0), new Vector3f(90, 0, 0)));
+        shader.setUniform("projection", Matrix4f.projection(70, (float) WIDTH / HEIGHT, 0.1f, 1000));
+        shader.setUniform("lightPos", new Vector3f(0, 200, 0));
+        shader.setUniform("lightLevel", 0.3f);
+        shader.setUniform("viewPos", new Vector3f(0, 96, 0));
+        shader.setUniform("lightColor", new Vector3f(1));
+
+        // each layout twice, alternating, so neither gains from running second
+        for (int pass = 0; pass < 2; pass++) {
+            draw("separate buffers", separate, triangles);
+            draw("interleaved", interleaved, triangles);
+        }
+        shader.unbind();
+
+        for (int i = 0; i < separate.size(); i++) {
+            separate.get(i).destroy();
+            interleaved.get(i).destroy();
+        }
+        shader.destroy();
+        GLFW.glfwDestroyWindow(window);
+        GLFW.glfwTerminate();
+    }
+
+    /**
+     * creates the buffers of every mesh, and reports how long it took
+     * @param name - the name of the layout
+     * @param meshes - the meshes
+     */
+    private static void upload(String name, List<Mesh> meshes) {
+        GL11.glFinish();
+        long start = System.nanoTime();
+        long bytes = 0;
+        for (Mesh mesh : meshes) {
+            mesh.create();
+            bytes += (long) mesh.getVertexCount() * mesh.getLayout().getStride() * Float.BYTES
+                    + (long) mesh.getIndexCount() * Integer.BYTES;
+        }
+        GL11.glFinish();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: uploaded %d meshes in %.1f ms, %.1f MB/s%n", name, meshes.size(), seconds * 1e3,
+                bytes / seconds / 1e6);
+    }
+
+    /**
+     * draws every mesh a few hundred times, the way the renderer does, and reports the time per frame
+     * @param name - the name of the layout
+     * @param meshes - the meshes
+     * @param triangles - the triangles of all the meshes together
+     */
+    private static void draw(String name, List<Mesh> meshes, long triangles) {
+        long start = 0;
+        for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; frame++) {
+            if (frame == WARMUP_FRAMES) {
+                GL11.glFinish();
+                start = System.nanoTime();
+            }
+            GL11.glClear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT);
+            for (Mesh mesh : meshes) {
+                VertexLayout layout = mesh.getLayout();
+                GL30.glBindVertexArray(mesh.getVAO());
+                layout.enable();
+                GL11.glDrawElements(GL11.GL_TRIANGLES, mesh.getIndexCount(), GL11.GL_UNSIGNED_INT, 0);
+                layout.disable();
+            }
+            GL30.glBindVertexArray(0);
+        }
+        GL11.glFinish();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %.3f ms per frame, %.1f M triangles/s%n", name, seconds * 1e3 / FRAMES,
+                triangles * FRAMES / seconds / 1e6);
+    }
+}
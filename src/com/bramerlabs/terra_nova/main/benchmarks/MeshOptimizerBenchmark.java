@@ -0,0 +1,102 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.graphics.MeshData;
+import com.bramerlabs.engine.graphics.MeshOptimizer;
+import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.engine.math.shapes_2d.Icosahedron;
+import com.bramerlabs.engine.objects.untextured.shapes.Cube;
+import com.bramerlabs.engine.objects.untextured.shapes.Cylinder;
+import com.bramerlabs.engine.objects.untextured.shapes.Sphere;
+
+import java.util.Arrays;
+
+public class MeshOptimizerBenchmark {
+
+    // the entries of the first in first out caches the triangle orders are measured on
+    private static final int[] CACHE_SIZES = {16, 32};
+
+    /**
+     * headless benchmark - generates every built in shape the way it was generated before, one vertex per triangle
+     * corner, optimises it, and reports the vertices and the average cache miss ratio before and after, checking that
+     * the optimised mesh still draws the same triangles
+     * @param args - optionally the amount of times the sphere is subdivided (default 4, as Sphere.makeSphere does)
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        Vector4f color = new Vector4f(0.8f, 0.2f, 0.2f, 1);
+        Vector3f p1 = new Vector3f(0), p2 = new Vector3f(0, 4, 0);
+
+        System.out.printf("%-24s %10s %10s %14s %14s %9s%n", "shape", "vertices", "triangles",
+                "acmr fifo 16", "acmr fifo 32", "time");
+        run("sphere, depth " + depth, Sphere.generateData(color, 1, depth));
+        run("cube", Cube.generateData(color));
+        run("icosahedron", Icosahedron.generateData(new Icosahedron(1).getVertices(), color));
+        run("cylinder, rounded", Cylinder.generateData(p1, p2, color, 0.5f));
+        run("cylinder, flat", Cylinder.generateData(p1, p2, color, 0.5f, 0.3f));
+    }
+
+    /**
+     * optimises a mesh, and prints its numbers before and after
+     * @param name - the name of the shape
+     * @param data - the mesh, as the shape generates it
+     */
+    private static void run(String name, MeshData data) {
+        // a few times, so the last is timed compiled
+        MeshData optimized = null;
+        long nanos = 0;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            optimized = MeshOptimizer.optimize(data);
+            nanos = System.nanoTime() - start;
+        }
+        if (!Arrays.equals(triangles(data), triangles(optimized))) {
+            System.out.println(name + ": the optimised mesh draws different triangles");
+            System.exit(1);
+        }
+        report(name + ", before", data, 0);
+        report(name + ", after", optimized, nanos);
+    }
+
+    /**
+     * prints the vertices and cache miss ratios of a mesh
+     * @param name - the name of the mesh
+     * @param data - the mesh
+     * @param nanos - the time it took to optimise, or 0
+     */
+    private static void report(String name, MeshData data, long nanos) {
+        System.out.printf("%-24s %10d %10d", name, data.getVertexCount(), data.getIndexCount() / 3);
+        for (int cacheSize : CACHE_SIZES) {
+            System.out.printf(" %14.3f", MeshOptimizer.acmr(data.getIndices(), cacheSize));
+        }
+        System.out.println(nanos > 0 ? String.format(" %6.2f ms", nanos / 1e6) : "");
+    }
+
+    /**
+     * lists the corners of every triangle by position, each triangle turned to start at its lowest corner so the
+     * winding is kept, and the triangles sorted, so two meshes drawing the same triangles give the same list
+     * @param data - the mesh
+     * @return - the sorted triangles, as strings of nine floats
+     */
+    private static String[] triangles(MeshData data) {
+        float[] positions = data.getPositions();
+        int[] indices = data.getIndices();
+        String[] triangles = new String[indices.length / 3];
+        for (int t = 0; t < triangles.length; t++) {
+            String[] corners = new String[3];
+            for (int k = 0; k < 3; k++) {
+                int v = indices[3 * t + k];
+                corners[k] = positions[3 * v] + " " + positions[3 * v + 1] + " " + positions[3 * v + 2];
+            }
+            int first = 0;
+            for (int k = 1; k < 3; k++) {
+                if (corners[k].compareTo(corners[first]) < 0) {
+                    first = k;
+                }
+            }
+            triangles[t] = corners[first] + ", " + corners[(first + 1) % 3] + ", " + corners[(first + 2) % 3];
+        }
+        Arrays.sort(triangles);
+        return triangles;
+    }
+}
@@ -0,0 +1,128 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.math.noise.NoiseBaker;
+import com.bramerlabs.engine.math.noise.NoiseVolume;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+
+public class NoiseBakeBenchmark {
+
+    // the seed of the reference world
+    private static final int SEED = 200;
+
+    // the octaves and persistence of the reference world's terrain, the same as a SimplexNoise(128, 0.5f)
+    private static final int OCTAVES = 7;
+    private static final float PERSISTENCE = 0.5f;
+
+    // the bytes of a cache file's header, before the samples
+    private static final int HEADER_BYTES = 32;
+
+    /**
+     * headless benchmark - bakes the reference world's noise volumes into an empty cache, then opens them again from
+     * the cache, reporting both times, and checks that the cached samples match the baked ones and that every volume
+     * wraps around without a seam
+     * @param args - optionally the cache directory (default a new temporary directory), the resolution of the cubic
+     *             volume (default 128) and of the square volumes (default 1024)
+     * @throws IOException - if the temporary directory cannot be created
+     */
+    public static void main(String[] args) throws IOException {
+        File directory = args.length > 0 ? new File(args[0]) : Files.createTempDirectory("noise").toFile();
+        int cube = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+        int square = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+
+        Object[][] volumes = {
+                {NoiseBaker.Source.SIMPLEX, 3, cube},
+                {NoiseBaker.Source.SIMPLEX, 2, square},
+                {NoiseBaker.Source.PERLIN, 2, square},
+        };
+
+        NoiseBaker cold = new NoiseBaker(directory);
+        for (Object[] v : volumes) {
+            cold.getFile((NoiseBaker.Source) v[0], (int) v[1], SEED, OCTAVES, PERSISTENCE, (int) v[2]).delete();
+        }
+        double coldTotal = 0, warmTotal = 0;
+        FloatBuffer[] baked = new FloatBuffer[volumes.length];
+        for (int i = 0; i < volumes.length; i++) {
+            long start = System.nanoTime();
+            cold.get((NoiseBaker.Source) volumes[i][0], (int) volumes[i][1], SEED, OCTAVES, PERSISTENCE, (int) volumes[i][2]);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            coldTotal += seconds;
+            System.out.printf("baked %s: %.3f s%n", describe(volumes[i]), seconds);
+
+            // the same volume again, in memory only, to compare the cache with
+            ByteBuffer bytes = cold.bake((NoiseBaker.Source) volumes[i][0], (int) volumes[i][1], SEED, OCTAVES, PERSISTENCE, (int) volumes[i][2]);
+            bytes.position(HEADER_BYTES);
+            baked[i] = bytes.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        }
+        cold.shutdown();
+
+        // a new baker, as on the next launch
+        NoiseBaker warm = new NoiseBaker(directory);
+        for (int i = 0; i < volumes.length; i++) {
+            long start = System.nanoTime();
+            NoiseVolume volume = warm.get((NoiseBaker.Source) volumes[i][0], (int) volumes[i][1], SEED, OCTAVES, PERSISTENCE, (int) volumes[i][2]);
+            double opened = (System.nanoTime() - start) / 1e9;
+
+            // read every sample, so the pages are actually loaded
+            double sum = 0;
+            FloatBuffer data = volume.getData();
+            while (data.hasRemaining()) {
+                sum += data.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            warmTotal += seconds;
+            System.out.printf("cached %s: %.4f s to map, %.4f s to read every sample, same samples: %b, seam %.4f against %.4f between neighbours%n",
+                    describe(volumes[i]), opened, seconds, volume.getData().equals(baked[i]),
+                    seam(volume), neighbour(volume));
+        }
+        warm.shutdown();
+        System.out.printf("cold start %.2f s, warm start %.3f s, cache in %s%n", coldTotal, warmTotal, directory);
+    }
+
+    /**
+     * describes a volume
+     * @param volume - the source, dimensions and resolution
+     * @return - the description
+     */
+    private static String describe(Object[] volume) {
+        int resolution = (int) volume[2];
+        return volume[0].toString().toLowerCase() + " " + resolution + ((int) volume[1] == 3 ? "^3" : "^2");
+    }
+
+    /**
+     * finds the largest difference between the samples on opposite edges of a volume, which wrap onto each other
+     * @param volume - the volume
+     * @return - the largest difference across the wrap along x
+     */
+    private static float seam(NoiseVolume volume) {
+        int n = volume.getResolution();
+        float largest = 0;
+        for (int j = 0; j < n; j++) {
+            largest = Math.max(largest, volume.getDimensions() == 2
+                    ? Math.abs(volume.get(n - 1, j) - volume.get(n, j))
+                    : Math.abs(volume.get(n - 1, j, j) - volume.get(n, j, j)));
+        }
+        return largest;
+    }
+
+    /**
+     * finds the largest difference between neighbouring samples along the middle of a volume, for comparison
+     * @param volume - the volume
+     * @return - the largest difference between neighbours along x
+     */
+    private static float neighbour(NoiseVolume volume) {
+        int n = volume.getResolution();
+        float largest = 0;
+        for (int j = 0; j < n; j++) {
+            largest = Math.max(largest, volume.getDimensions() == 2
+                    ? Math.abs(volume.get(n / 2 - 1, j) - volume.get(n / 2, j))
+                    : Math.abs(volume.get(n / 2 - 1, j, j) - volume.get(n / 2, j, j)));
+        }
+        return largest;
+    }
+}
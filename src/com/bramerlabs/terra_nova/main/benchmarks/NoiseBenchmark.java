@@ -0,0 +1,119 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.math.noise.SimplexNoise;
+import com.bramerlabs.engine.math.noise.SimplexNoiseOctave;
+
+public class NoiseBenchmark {
+
+    // the amount of samples along each side of the block
+    private static final int SIZE = 32;
+
+    // the position of the first sample, away from the origin so negative and positive cells are both covered
+    private static final float X0 = -13.37f, Y0 = -5.1f, Z0 = 100.7f;
+
+    /**
+     * headless benchmark - fills a 32^3 block with noise one point at a time and with the grid methods, for a single
+     * octave and for the fractal terrain noise, and reports points per second and the largest difference between the two
+     * @param args - optionally the distance between samples (default 1) and the seconds to run each case (default 2)
+     */
+    public static void main(String[] args) {
+        float step = args.length > 0 ? Float.parseFloat(args[0]) : 1;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+
+        SimplexNoiseOctave octave = new SimplexNoiseOctave(200);
+        SimplexNoise noise = new SimplexNoise(128, 0.5f, 200);
+        float[] scalar = new float[SIZE * SIZE * SIZE], grid = new float[scalar.length];
+
+        // warm up the JIT
+        measure(() -> octaveScalar(octave, step, scalar), seconds / 4);
+        measure(() -> octave.noise(X0, Y0, Z0, step, SIZE, SIZE, SIZE, grid, 0), seconds / 4);
+        measure(() -> fractalScalar(noise, step, scalar), seconds / 4);
+        measure(() -> noise.getNoise3D(X0, Y0, Z0, step, SIZE, SIZE, SIZE, grid, 0), seconds / 4);
+
+        double octaveBase = measure(() -> octaveScalar(octave, step, scalar), seconds);
+        double octaveGrid = measure(() -> octave.noise(X0, Y0, Z0, step, SIZE, SIZE, SIZE, grid, 0), seconds);
+        print("octave  point", octaveBase, octaveBase, 0);
+        print("octave  grid ", octaveGrid, octaveBase, maxDifference(scalar, grid));
+
+        double fractalBase = measure(() -> fractalScalar(noise, step, scalar), seconds);
+        double fractalGrid = measure(() -> noise.getNoise3D(X0, Y0, Z0, step, SIZE, SIZE, SIZE, grid, 0), seconds);
+        print("fractal point", fractalBase, fractalBase, 0);
+        print("fractal grid ", fractalGrid, fractalBase, maxDifference(scalar, grid));
+    }
+
+    /**
+     * fills the block with one octave, one call per point
+     * @param octave - the noise octave
+     * @param step - the distance between samples
+     * @param out - the array to fill
+     */
+    private static void octaveScalar(SimplexNoiseOctave octave, float step, float[] out) {
+        int i = 0;
+        for (int z = 0; z < SIZE; z++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    out[i++] = (float) octave.noise(X0 + x * (double) step, Y0 + y * (double) step, Z0 + z * (double) step);
+                }
+            }
+        }
+    }
+
+    /**
+     * fills the block with fractal noise, one call per point
+     * @param noise - the fractal noise
+     * @param step - the distance between samples
+     * @param out - the array to fill
+     */
+    private static void fractalScalar(SimplexNoise noise, float step, float[] out) {
+        int i = 0;
+        for (int z = 0; z < SIZE; z++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    out[i++] = (float) noise.getNoise3D(X0 + x * step, Y0 + y * step, Z0 + z * step);
+                }
+            }
+        }
+    }
+
+    /**
+     * fills the block over and over for a while
+     * @param fill - fills the block once
+     * @param seconds - how long to keep filling
+     * @return - the points filled per second
+     */
+    private static double measure(Runnable fill, double seconds) {
+        long start = System.nanoTime(), end = start + (long) (seconds * 1e9);
+        long blocks = 0;
+        while (System.nanoTime() < end) {
+            fill.run();
+            blocks++;
+        }
+        return blocks * SIZE * SIZE * SIZE / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * finds the largest difference between two arrays
+     * @param a - the first array
+     * @param b - the second array
+     * @return - the largest absolute difference
+     */
+    private static float maxDifference(float[] a, float[] b) {
+        float max = 0;
+        for (int i = 0; i < a.length; i++) {
+            max = Math.max(max, Math.abs(a[i] - b[i]));
+        }
+        return max;
+    }
+
+    /**
+     * prints one line of results
+     * @param name - the name of the case
+     * @param pointsPerSecond - the measured rate
+     * @param baseline - the rate of the matching scalar case
+     * @param difference - the largest difference from the scalar case
+     */
+    private static void print(String name, double pointsPerSecond, double baseline, float difference) {
+        System.out.printf("%s: %6.2f M points/s (%.2fx), max difference %g%n",
+                name, pointsPerSecond / 1e6, pointsPerSecond / baseline, difference);
+    }
+}
@@ -0,0 +1,171 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.math.noise.SimplexNoise;
+import com.bramerlabs.engine.math.noise.SimplexNoiseOctave;
+
+import java.util.Random;
+
+public class NoiseGradientBenchmark {
+
+    // the amount of random sample positions
+    private static final int POINTS = 1 << 16;
+
+    // the spacing of the central differences the analytic gradient replaces, one terrain cell
+    private static final float CELL = 1;
+
+    /**
+     * headless benchmark - finds the gradient of the fractal terrain noise at random points with central differences
+     * and with one derivative evaluation, reports both rates, and checks the derivatives of a single octave against
+     * fine central differences
+     * @param args - optionally the seconds to run each case (default 2)
+     */
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+
+        SimplexNoise noise = new SimplexNoise(128, 0.5f, 200);
+        float[] xs = new float[POINTS], ys = new float[POINTS], zs = new float[POINTS];
+        Random random = new Random(200);
+        for (int i = 0; i < POINTS; i++) {
+            xs[i] = (random.nextFloat() - 0.5f) * 1000;
+            ys[i] = (random.nextFloat() - 0.5f) * 100;
+            zs[i] = (random.nextFloat() - 0.5f) * 1000;
+        }
+
+        // warm up the JIT
+        for (int pass = 0; pass < 2; pass++) {
+            measure(() -> differences2D(noise, xs, zs), seconds / 4);
+            measure(() -> analytic2D(noise, xs, zs), seconds / 4);
+            measure(() -> differences3D(noise, xs, ys, zs), seconds / 4);
+            measure(() -> analytic3D(noise, xs, ys, zs), seconds / 4);
+        }
+
+        double base2D = measure(() -> differences2D(noise, xs, zs), seconds);
+        double fast2D = measure(() -> analytic2D(noise, xs, zs), seconds);
+        System.out.printf("2D central differences: %6.2f M gradients/s%n", base2D / 1e6);
+        System.out.printf("2D analytic:            %6.2f M gradients/s (%.2fx)%n", fast2D / 1e6, fast2D / base2D);
+
+        double base3D = measure(() -> differences3D(noise, xs, ys, zs), seconds);
+        double fast3D = measure(() -> analytic3D(noise, xs, ys, zs), seconds);
+        System.out.printf("3D central differences: %6.2f M gradients/s%n", base3D / 1e6);
+        System.out.printf("3D analytic:            %6.2f M gradients/s (%.2fx)%n", fast3D / 1e6, fast3D / base3D);
+
+        // the analytic derivatives of one octave against central differences small enough to be exact up to rounding
+        SimplexNoiseOctave octave = new SimplexNoiseOctave(200);
+        double h = 1e-6, worst2D = 0, worst3D = 0;
+        double[] derivative = new double[3];
+        for (int i = 0; i < POINTS; i++) {
+            double x = xs[i] / 16.0, y = ys[i] / 16.0, z = zs[i] / 16.0;
+            octave.noise(x, z, derivative);
+            worst2D = Math.max(worst2D, Math.abs(derivative[0] - (octave.noise(x + h, z) - octave.noise(x - h, z)) / (2 * h)));
+            worst2D = Math.max(worst2D, Math.abs(derivative[1] - (octave.noise(x, z + h) - octave.noise(x, z - h)) / (2 * h)));
+            octave.noise(x, y, z, derivative);
+            worst3D = Math.max(worst3D, Math.abs(derivative[0] - (octave.noise(x + h, y, z) - octave.noise(x - h, y, z)) / (2 * h)));
+            worst3D = Math.max(worst3D, Math.abs(derivative[1] - (octave.noise(x, y + h, z) - octave.noise(x, y - h, z)) / (2 * h)));
+            worst3D = Math.max(worst3D, Math.abs(derivative[2] - (octave.noise(x, y, z + h) - octave.noise(x, y, z - h)) / (2 * h)));
+        }
+        System.out.printf("largest difference from fine central differences: 2D %.2e, 3D %.2e%n", worst2D, worst3D);
+    }
+
+    /**
+     * finds the 2D gradient at every point with four extra samples
+     * @param noise - the fractal noise
+     * @param xs - the x positions
+     * @param ys - the y positions
+     * @return - a sum of the gradients, so the work is not optimised away
+     */
+    private static double differences2D(SimplexNoise noise, float[] xs, float[] ys) {
+        double sum = 0;
+        for (int i = 0; i < POINTS; i++) {
+            float x = xs[i], y = ys[i];
+            sum += (noise.getNoise2D(x + CELL, y) - noise.getNoise2D(x - CELL, y)) / (2 * CELL);
+            sum += (noise.getNoise2D(x, y + CELL) - noise.getNoise2D(x, y - CELL)) / (2 * CELL);
+        }
+        return sum;
+    }
+
+    /**
+     * finds the 2D gradient at every point with one derivative evaluation
+     * @param noise - the fractal noise
+     * @param xs - the x positions
+     * @param ys - the y positions
+     * @return - a sum of the gradients, so the work is not optimised away
+     */
+    private static double analytic2D(SimplexNoise noise, float[] xs, float[] ys) {
+        double sum = 0;
+        double[] derivative = new double[2];
+        for (int i = 0; i < POINTS; i++) {
+            noise.getNoise2D(xs[i], ys[i], derivative);
+            sum += derivative[0] + derivative[1];
+        }
+        return sum;
+    }
+
+    /**
+     * finds the 3D gradient at every point with six extra samples
+     * @param noise - the fractal noise
+     * @param xs - the x positions
+     * @param ys - the y positions
+     * @param zs - the z positions
+     * @return - a sum of the gradients, so the work is not optimised away
+     */
+    private static double differences3D(SimplexNoise noise, float[] xs, float[] ys, float[] zs) {
+        double sum = 0;
+        for (int i = 0; i < POINTS; i++) {
+            float x = xs[i], y = ys[i], z = zs[i];
+            sum += (noise.getNoise3D(x + CELL, y, z) - noise.getNoise3D(x - CELL, y, z)) / (2 * CELL);
+            sum += (noise.getNoise3D(x, y + CELL, z) - noise.getNoise3D(x, y - CELL, z)) / (2 * CELL);
+            sum += (noise.getNoise3D(x, y, z + CELL) - noise.getNoise3D(x, y, z - CELL)) / (2 * CELL);
+        }
+        return sum;
+    }
+
+    /**
+     * finds the 3D gradient at every point with one derivative evaluation
+     * @param noise - the fractal noise
+     * @param xs - the x positions
+     * @param ys - the y positions
+     * @param zs - the z positions
+     * @return - a sum of the gradients, so the work is not optimised away
+     */
+    private static double analytic3D(SimplexNoise noise, float[] xs, float[] ys, float[] zs) {
+        double sum = 0;
+        double[] derivative = new double[3];
+        for (int i = 0; i < POINTS; i++) {
+            noise.getNoise3D(xs[i], ys[i], zs[i], derivative);
+            sum += derivative[0] + derivative[1] + derivative[2];
+        }
+        return sum;
+    }
+
+    /**
+     * finds gradients over and over for a while
+     * @param pass - finds the gradient at every point once
+     * @param seconds - how long to keep going
+     * @return - the gradients found per second
+     */
+    private static double measure(Pass pass, double seconds) {
+        long start = System.nanoTime(), end = start + (long) (seconds * 1e9);
+        long passes = 0;
+        double sink = 0;
+        while (System.nanoTime() < end) {
+            sink += pass.run();
+            passes++;
+        }
+        if (sink == 0.5) {
+            System.out.println();
+        }
+        return passes * POINTS / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * one pass over every point
+     */
+    private interface Pass {
+
+        /**
+         * finds the gradient at every point
+         * @return - a sum of the gradients
+         */
+        double run();
+    }
+}
@@ -0,0 +1,133 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.math.noise.SimplexNoise;
+import com.bramerlabs.terra_nova.main.world.PlacementMask;
+import com.bramerlabs.terra_nova.main.world.PoissonDiskSampler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class PoissonBenchmark {
+
+    // the seed of the world
+    private static final long SEED = 200;
+
+    // the smallest distance between two trees, and the size of a chunk
+    private static final float RADIUS = 2, CHUNK_SIZE = 32;
+
+    // the chunks along each side of the checked area
+    private static final int AREA = 16;
+
+    /**
+     * headless benchmark - scatters points over chunks on one thread and reports candidates, points and chunks per
+     * second, then scatters the same area in a shuffled order on several threads and checks that every chunk comes out
+     * the same and that no two points anywhere are closer than the radius
+     * @param args - optionally the seconds to measure for (default 2) and the threads of the shuffled pass (default 4)
+     */
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        // warm up the JIT
+        measure(new PoissonDiskSampler(SEED, RADIUS, CHUNK_SIZE), seconds / 4);
+
+        PoissonDiskSampler sampler = new PoissonDiskSampler(SEED, RADIUS, CHUNK_SIZE);
+        long[] result = measure(sampler, seconds);
+        double elapsed = result[2] / 1e9;
+        System.out.printf("%.2f M candidates/s, %.2f M points/s, %.0f chunks/s, %.1f points per chunk%n",
+                sampler.getCandidateCount() / elapsed / 1e6, result[1] / elapsed / 1e6, result[0] / elapsed,
+                (double) result[1] / result[0]);
+
+        // the same area in order on one thread, and shuffled on several
+        float[][] ordered = new float[AREA * AREA][];
+        for (int i = 0; i < ordered.length; i++) {
+            ordered[i] = sampler.sample(i % AREA, i / AREA);
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < AREA * AREA; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(1));
+        float[][] shuffled = new float[AREA * AREA][];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        PoissonDiskSampler other = new PoissonDiskSampler(SEED, RADIUS, CHUNK_SIZE);
+        pool.submit(() -> order.parallelStream().forEach(i -> shuffled[i] = other.sample(i % AREA, i / AREA))).join();
+        pool.shutdownNow();
+        System.out.println("shuffled on " + threads + " threads gives the same points: " + Arrays.deepEquals(ordered, shuffled));
+        System.out.println("pairs closer than the radius: " + countCrowded(ordered));
+
+        // keep trees on dry land and off steep slopes
+        SimplexNoise noise = new SimplexNoise(128, 0.5f, 200);
+        float heightScale = 16;
+        PlacementMask mask = (x, z) -> {
+            double[] slope = new double[2];
+            double height = noise.getNoise2D(x, z, slope) * heightScale;
+            return height > 0 && Math.hypot(slope[0], slope[1]) * heightScale < 1;
+        };
+        long all = 0, kept = 0;
+        for (int i = 0; i < AREA * AREA; i++) {
+            all += ordered[i].length / 2;
+            kept += sampler.sample(i % AREA, i / AREA, mask).length / 2;
+        }
+        System.out.printf("dry, gentle ground keeps %d of %d points (%.1f%%)%n", kept, all, 100.0 * kept / all);
+    }
+
+    /**
+     * samples chunks in a row for a while
+     * @param sampler - the sampler
+     * @param seconds - how long to keep sampling
+     * @return - the chunks sampled, the points placed and the nanoseconds taken
+     */
+    private static long[] measure(PoissonDiskSampler sampler, double seconds) {
+        long start = System.nanoTime(), end = start + (long) (seconds * 1e9);
+        long chunks = 0, points = 0;
+        while (System.nanoTime() < end) {
+            points += sampler.sample((int) chunks, 7).length / 2;
+            chunks++;
+        }
+        return new long[] {chunks, points, System.nanoTime() - start};
+    }
+
+    /**
+     * counts the pairs of points closer than the radius, across chunk borders too
+     * @param chunks - the points of every chunk in the area, x first
+     * @return - the amount of crowded pairs
+     */
+    private static int countCrowded(float[][] chunks) {
+        // bucket every point into cells one radius wide, then compare each point with the cells around it
+        int cells = (int) Math.ceil(AREA * CHUNK_SIZE / RADIUS);
+        List<List<float[]>> grid = new ArrayList<>();
+        for (int i = 0; i < cells * cells; i++) {
+            grid.add(new ArrayList<>());
+        }
+        for (float[] points : chunks) {
+            for (int i = 0; i < points.length; i += 2) {
+                grid.get(Math.min((int) (points[i] / RADIUS), cells - 1) + cells * Math.min((int) (points[i + 1] / RADIUS), cells - 1))
+                        .add(new float[] {points[i], points[i + 1]});
+            }
+        }
+
+        int crowded = 0;
+        for (int cz = 0; cz < cells; cz++) {
+            for (int cx = 0; cx < cells; cx++) {
+                for (float[] p : grid.get(cx + cells * cz)) {
+                    for (int z = Math.max(cz - 1, 0); z <= Math.min(cz + 1, cells - 1); z++) {
+                        for (int x = Math.max(cx - 1, 0); x <= Math.min(cx + 1, cells - 1); x++) {
+                            for (float[] q : grid.get(x + cells * z)) {
+                                float dx = p[0] - q[0], dz = p[1] - q[1];
+                                if (p != q && dx * dx + dz * dz < RADIUS * RADIUS) {
+                                    crowded++;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return crowded / 2;
+    }
+}
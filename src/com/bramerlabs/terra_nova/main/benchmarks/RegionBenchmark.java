@@ -0,0 +1,96 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.math.Key3;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.terra_nova.main.marching_cubes.DensityField;
+import com.bramerlabs.terra_nova.main.world.Chunk;
+import com.bramerlabs.terra_nova.main.world.ChunkCompression;
+import com.bramerlabs.terra_nova.main.world.ChunkGenerator;
+import com.bramerlabs.terra_nova.main.world.RegionStore;
+import com.bramerlabs.terra_nova.main.world.TerrainDensity;
+import com.bramerlabs.terra_nova.main.world.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+public class RegionBenchmark {
+
+    /**
+     * headless benchmark - samples a block of chunks from noise, saves them to region files, then loads them back in a
+     * new store, reporting chunks and megabytes per second for sampling, saving and loading, and the size on disk, and
+     * checks that every loaded chunk matches the sampled one
+     * @param args - optionally the compression (default lz4 - lz4 and zstd need the lwjgl natives of this platform),
+     *             the chunks along each horizontal side (default 8), and the region directory (default a new
+     *             temporary directory)
+     * @throws IOException - if the temporary directory cannot be created
+     */
+    public static void main(String[] args) throws IOException {
+        ChunkCompression compression = args.length > 0 ? ChunkCompression.valueOf(args[0].toUpperCase()) : ChunkCompression.LZ4;
+        int side = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        File directory = args.length > 2 ? new File(args[2]) : Files.createTempDirectory("regions").toFile();
+
+        ChunkGenerator generator = new ChunkGenerator(new TerrainDensity(200), new Vector4f(0.3f, 0.6f, 0.2f, 1));
+        List<Key3> keys = World.region(new Key3(-side / 2, -1, -side / 2), new Key3(side / 2 - 1, 0, side / 2 - 1));
+
+        // warm up the JIT
+        generator.sample(new Key3(100, 0, 100));
+
+        float[][] sampled = new float[keys.size()][];
+        long start = System.nanoTime();
+        for (int i = 0; i < keys.size(); i++) {
+            sampled[i] = generator.sample(keys.get(i)).getValues();
+        }
+        double bytes = (double) keys.size() * sampled[0].length * Float.BYTES;
+        report("sampled from noise", keys.size(), bytes, System.nanoTime() - start);
+
+        RegionStore store = new RegionStore(directory, compression);
+        start = System.nanoTime();
+        for (int i = 0; i < keys.size(); i++) {
+            store.store(keys.get(i), 0, sampled[i]);
+        }
+        store.flush();
+        report("saved with " + compression, keys.size(), bytes, System.nanoTime() - start);
+        long used = store.getUsedBytes();
+        store.close();
+        System.out.printf("%.2f MB of densities in %.2f MB of sectors, %.1f%%%n", bytes / 1e6, used / 1e6, 100 * used / bytes);
+
+        // a new store, as on the next launch, read a few times so the timing settles
+        RegionStore reopened = new RegionStore(directory, compression);
+        float[] values = new float[sampled[0].length];
+        boolean same = true;
+        for (int pass = 0; pass < 5; pass++) {
+            start = System.nanoTime();
+            for (int i = 0; i < keys.size(); i++) {
+                same &= reopened.load(keys.get(i), 0, values) && Arrays.equals(values, sampled[i]);
+            }
+            if (pass == 0 || pass == 4) {
+                report(pass == 0 ? "first load" : "fifth load", keys.size(), bytes, System.nanoTime() - start);
+            }
+        }
+        System.out.println("loaded chunks match the sampled ones: " + same);
+
+        // an edited chunk written over its old entry, and a chunk that was never saved
+        DensityField edited = Chunk.createField(keys.get(0));
+        Arrays.fill(edited.getValues(), 1);
+        reopened.store(keys.get(0), 0, edited.getValues());
+        boolean rewritten = reopened.load(keys.get(0), 0, values) && Arrays.equals(values, edited.getValues());
+        boolean missing = !reopened.load(new Key3(1000, 1000, 1000), 0, values);
+        System.out.println("rewritten chunk reads back: " + rewritten + ", unsaved chunk is missing: " + missing);
+        reopened.close();
+    }
+
+    /**
+     * prints the throughput of a pass over the chunks
+     * @param what - what the pass did
+     * @param chunks - the amount of chunks
+     * @param bytes - the uncompressed bytes of their densities
+     * @param nanos - the time the pass took
+     */
+    private static void report(String what, int chunks, double bytes, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%s: %d chunks in %.3f s, %.0f chunks/s, %.1f MB/s%n", what, chunks, seconds, chunks / seconds, bytes / seconds / 1e6);
+    }
+}
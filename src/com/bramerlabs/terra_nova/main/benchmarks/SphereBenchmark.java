@@ -0,0 +1,73 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.engine.objects.untextured.shapes.Sphere;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.Set;
+
+public class SphereBenchmark {
+
+    // the amount of bytes a vertex of a sphere of its own takes up once uploaded - position, color and normal
+    private static final int VERTEX_BYTES = (3 + 4 + 3) * Float.BYTES;
+
+    // the amount of bytes a vertex of a shared sphere takes up once uploaded - position and normal
+    private static final int TEMPLATE_VERTEX_BYTES = (3 + 3) * Float.BYTES;
+
+    /**
+     * headless benchmark - spawns spheres of random positions, radii and colors through Sphere.makeSphere, and reports
+     * the time, the meshes and the vertex data they upload against generating a mesh for every sphere
+     * @param args - optionally the amount of spheres (default 10000)
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        Random random = new Random(200);
+
+        // warm up the JIT
+        for (int i = 0; i < 8; i++) {
+            Sphere.generateMesh(new Vector4f(1), 1);
+        }
+
+        // a few spheres with a mesh each, the cost every sphere paid before they shared one
+        int samples = Math.min(count, 64);
+        long start = System.nanoTime();
+        long sampleVertices = 0;
+        for (int i = 0; i < samples; i++) {
+            sampleVertices += Sphere.generateMesh(color(random), 0.5f + random.nextFloat()).getVertexCount();
+        }
+        double perSphere = (System.nanoTime() - start) / 1e9 / samples;
+        double verticesPerSphere = (double) sampleVertices / samples;
+
+        // every sphere through makeSphere
+        Set<Mesh> meshes = Collections.newSetFromMap(new IdentityHashMap<>());
+        long uploaded = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Sphere sphere = Sphere.makeSphere(new Vector3f(random.nextFloat() * 1000, random.nextFloat() * 100,
+                    random.nextFloat() * 1000), color(random), 0.5f + random.nextFloat());
+            if (meshes.add(sphere.getMesh())) {
+                uploaded += sphere.getMesh().getVertexCount();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("one sphere: %.2f ms, %.0f vertices%n", perSphere * 1e3, verticesPerSphere);
+        System.out.printf("%d spheres with a mesh each: ~%.1f s, %d meshes, ~%.0f MB of vertex data%n",
+                count, perSphere * count, count, verticesPerSphere * count * VERTEX_BYTES / 1e6);
+        System.out.printf("%d spheres sharing a mesh:   %.3f s, %d meshes, %.2f MB of vertex data%n",
+                count, seconds, meshes.size(), (double) uploaded * TEMPLATE_VERTEX_BYTES / 1e6);
+    }
+
+    /**
+     * makes a random opaque color
+     * @param random - the random number generator
+     * @return - the color
+     */
+    private static Vector4f color(Random random) {
+        return new Vector4f(random.nextFloat(), random.nextFloat(), random.nextFloat(), 1);
+    }
+}
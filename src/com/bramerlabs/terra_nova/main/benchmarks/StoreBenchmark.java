@@ -0,0 +1,100 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.math.Key3;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.terra_nova.main.world.ChunkCompression;
+import com.bramerlabs.terra_nova.main.world.ChunkGenerator;
+import com.bramerlabs.terra_nova.main.world.ChunkStore;
+import com.bramerlabs.terra_nova.main.world.LmdbChunkStore;
+import com.bramerlabs.terra_nova.main.world.RegionStore;
+import com.bramerlabs.terra_nova.main.world.TerrainDensity;
+import com.bramerlabs.terra_nova.main.world.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class StoreBenchmark {
+
+    // the chunks saved per commit, as a frame of the streamer unloading a ring of chunks
+    private static final int CHUNKS_PER_FRAME = 16;
+
+    // the random reads timed per store
+    private static final int READS = 20000;
+
+    /**
+     * headless benchmark - saves the same chunks to region files and to LMDB, committing a frame at a time, then times
+     * random reads of single chunks from each, reporting the write throughput and the median, 99th percentile and mean
+     * latency of a read, and checks that every read matches the saved chunk
+     * @param args - optionally the stores to compare (default both - region or lmdb for one, lmdb needs the lwjgl
+     *             natives of this platform), the compression (default deflate), and the chunks along each horizontal
+     *             side (default 8)
+     * @throws IOException - if the temporary directories cannot be created
+     */
+    public static void main(String[] args) throws IOException {
+        String stores = args.length > 0 ? args[0].toLowerCase() : "both";
+        ChunkCompression compression = args.length > 1 ? ChunkCompression.valueOf(args[1].toUpperCase()) : ChunkCompression.DEFLATE;
+        int side = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        ChunkGenerator generator = new ChunkGenerator(new TerrainDensity(200), new Vector4f(0.3f, 0.6f, 0.2f, 1));
+        List<Key3> keys = World.region(new Key3(-side / 2, -1, -side / 2), new Key3(side / 2 - 1, 0, side / 2 - 1));
+        float[][] sampled = new float[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            sampled[i] = generator.sample(keys.get(i)).getValues();
+        }
+        System.out.println(keys.size() + " chunks sampled, " + compression + ", " + READS + " random reads per store");
+
+        if (!stores.equals("lmdb")) {
+            File directory = Files.createTempDirectory("regions").toFile();
+            measure("region", new RegionStore(directory, compression), keys, sampled);
+            measure("region", new RegionStore(directory, compression), keys, sampled);
+        }
+        if (!stores.equals("region")) {
+            File directory = Files.createTempDirectory("lmdb").toFile();
+            measure("lmdb", new LmdbChunkStore(directory, compression), keys, sampled);
+            measure("lmdb", new LmdbChunkStore(directory, compression), keys, sampled);
+        }
+    }
+
+    /**
+     * saves the chunks a frame at a time, then times random reads, and closes the store
+     * a store given chunks that are already saved overwrites them, so the second run of a store measures a warm map
+     * @param name - the name of the store
+     * @param store - the store
+     * @param keys - the integer coordinates of the chunks
+     * @param sampled - the densities of the chunks
+     */
+    private static void measure(String name, ChunkStore store, List<Key3> keys, float[][] sampled) {
+        long start = System.nanoTime();
+        for (int i = 0; i < keys.size(); i++) {
+            store.store(keys.get(i), 0, sampled[i]);
+            if ((i + 1) % CHUNKS_PER_FRAME == 0) {
+                store.commit();
+            }
+        }
+        store.flush();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: saved %d chunks in %.3f s, %.0f chunks/s%n", name, keys.size(), seconds, keys.size() / seconds);
+
+        Random random = new Random(1);
+        float[] values = new float[sampled[0].length];
+        long[] latencies = new long[READS];
+        boolean same = true;
+        for (int i = 0; i < READS; i++) {
+            int chunk = random.nextInt(keys.size());
+            long before = System.nanoTime();
+            boolean found = store.load(keys.get(chunk), 0, values);
+            latencies[i] = System.nanoTime() - before;
+            same &= found && Arrays.equals(values, sampled[chunk]);
+        }
+        store.close();
+
+        Arrays.sort(latencies);
+        double mean = Arrays.stream(latencies).average().orElse(0);
+        System.out.printf("%s: random read p50 %.1f us, p99 %.1f us, mean %.1f us, reads match: %b%n", name,
+                latencies[READS / 2] / 1e3, latencies[READS * 99 / 100] / 1e3, mean / 1e3, same);
+    }
+}
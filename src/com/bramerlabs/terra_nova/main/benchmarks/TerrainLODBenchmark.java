@@ -0,0 +1,158 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.terra_nova.main.heightmap.TerrainNode;
+import com.bramerlabs.terra_nova.main.heightmap.TerrainQuadTree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TerrainLODBenchmark {
+
+    // the length of each side of the finest nodes, and the distance out to which they are drawn
+    private static final float LEAF_SIZE = 16, LEAF_RANGE = 48;
+
+    // the amount of cells along each side of the patch
+    private static final int GRID_CELLS = 32;
+
+    // the heights the terrain can reach
+    private static final float MIN_HEIGHT = -64, MAX_HEIGHT = 64;
+
+    // the camera positions to select from - near the origin, far away, very far away and high above the ground
+    private static final Vector3f[] CAMERAS = {
+            new Vector3f(0, 10, 0), new Vector3f(12345.6f, 30, -54321.1f),
+            new Vector3f(1000003, 20, 999997), new Vector3f(0, 2000, 0)};
+
+    /**
+     * headless benchmark - selects the terrain nodes around a few camera positions for several view distances, reports
+     * the nodes, draw calls and vertices each frame would submit and the selection time, against a uniform grid of the
+     * finest spacing, and checks every seam between levels for cracks
+     * @param args - optionally the seconds to time the selection for (default 1)
+     */
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 1;
+        int patchVertices = (GRID_CELLS + 1) * (GRID_CELLS + 1);
+        float spacing = LEAF_SIZE / GRID_CELLS;
+
+        for (int levels = 6; levels <= 12; levels += 2) {
+            TerrainQuadTree tree = new TerrainQuadTree(LEAF_SIZE, levels, LEAF_RANGE, MIN_HEIGHT, MAX_HEIGHT);
+            double uniform = Math.pow(2 * tree.getViewDistance() / spacing, 2);
+            System.out.printf("%d levels, view distance %.1f km, a uniform grid would need %.3g vertices%n",
+                    levels, tree.getViewDistance() / 1000, uniform);
+
+            for (Vector3f camera : CAMERAS) {
+                List<TerrainNode> nodes = new ArrayList<>();
+                tree.select(camera, nodes);
+
+                int calls = 0, quadrants = 0;
+                for (TerrainNode node : nodes) {
+                    quadrants += Integer.bitCount(node.getQuadrants());
+                    // one draw call per run of neighbouring quadrants, the same as CDLODTerrain
+                    calls += Integer.bitCount(node.getQuadrants() & ~(node.getQuadrants() << 1));
+                }
+                long vertices = (long) quadrants * patchVertices / 4;
+                double micros = measure(tree, camera, seconds) * 1e6;
+                System.out.printf("  camera (%.0f, %.0f, %.0f): %4d nodes, %4d draw calls, %8d vertices, %6.1f us to select, %d cracks%n",
+                        camera.getX(), camera.getY(), camera.getZ(), nodes.size(), calls, vertices, micros,
+                        countCracks(tree, camera, nodes));
+            }
+        }
+    }
+
+    /**
+     * selects the nodes over and over for a while
+     * @param tree - the quadtree
+     * @param camera - the position of the camera
+     * @param seconds - how long to keep selecting
+     * @return - the seconds per selection
+     */
+    private static double measure(TerrainQuadTree tree, Vector3f camera, double seconds) {
+        List<TerrainNode> nodes = new ArrayList<>();
+        long start = System.nanoTime(), end = start + (long) (seconds * 1e9);
+        long selections = 0;
+        while (System.nanoTime() < end) {
+            nodes.clear();
+            tree.select(camera, nodes);
+            selections++;
+        }
+        return (System.nanoTime() - start) / 1e9 / selections;
+    }
+
+    /**
+     * checks every edge shared by two drawn regions of different levels - the levels may differ by one at most, the
+     * finer side has to be fully morphed into the coarser grid, and the coarser side not morphed at all, so both sides
+     * place their vertices on the same points
+     * @param tree - the quadtree
+     * @param camera - the position of the camera
+     * @param nodes - the selected nodes
+     * @return - the amount of shared edges that would show a crack
+     */
+    private static int countCracks(TerrainQuadTree tree, Vector3f camera, List<TerrainNode> nodes) {
+        // every drawn region - x, z, size, level, vertex spacing
+        List<float[]> regions = new ArrayList<>();
+        for (TerrainNode node : nodes) {
+            float half = node.getSize() / 2;
+            for (int q = 0; q < 4; q++) {
+                if ((node.getQuadrants() & (1 << q)) != 0) {
+                    regions.add(new float[] {node.getX() + (q & 1) * half, node.getZ() + (q >> 1) * half, half,
+                            node.getLevel(), node.getSize() / GRID_CELLS});
+                }
+            }
+        }
+
+        int cracks = 0;
+        for (int a = 0; a < regions.size(); a++) {
+            for (int b = a + 1; b < regions.size(); b++) {
+                float[] ra = regions.get(a), rb = regions.get(b);
+                if (ra[3] == rb[3]) {
+                    continue;
+                }
+                float[] fine = ra[3] < rb[3] ? ra : rb, coarse = fine == ra ? rb : ra;
+                for (int axis = 0; axis < 2; axis++) {
+                    // the edge of the fine region facing the coarse one, along the other axis
+                    int other = 1 - axis;
+                    boolean touching = fine[axis] + fine[2] == coarse[axis] || coarse[axis] + coarse[2] == fine[axis];
+                    float from = Math.max(fine[other], coarse[other]);
+                    float to = Math.min(fine[other] + fine[2], coarse[other] + coarse[2]);
+                    if (!touching || to <= from) {
+                        continue;
+                    }
+                    float line = fine[axis] + fine[2] == coarse[axis] ? coarse[axis] : fine[axis];
+                    if (coarse[3] - fine[3] > 1 || !sealed(tree, camera, fine, coarse, axis, line, from, to)) {
+                        cracks++;
+                    }
+                }
+            }
+        }
+        return cracks;
+    }
+
+    /**
+     * checks the vertices of both regions along a shared edge
+     * @param tree - the quadtree
+     * @param camera - the position of the camera
+     * @param fine - the finer region
+     * @param coarse - the coarser region
+     * @param axis - 0 if the edge runs along z at a fixed x, 1 if it runs along x at a fixed z
+     * @param line - the fixed coordinate of the edge
+     * @param from - the start of the shared part of the edge
+     * @param to - the end of the shared part of the edge
+     * @return - true if both sides place their vertices on the same points
+     */
+    private static boolean sealed(TerrainQuadTree tree, Vector3f camera, float[] fine, float[] coarse, int axis,
+                                  float line, float from, float to) {
+        for (float t = from; t <= to; t += fine[4]) {
+            float x = axis == 0 ? line : t, z = axis == 0 ? t : line;
+            if (tree.morph((int) fine[3], tree.distance(x, z, camera)) < 1) {
+                return false;
+            }
+        }
+        for (float t = from; t <= to; t += coarse[4]) {
+            float x = axis == 0 ? line : t, z = axis == 0 ? t : line;
+            if (tree.morph((int) coarse[3], tree.distance(x, z, camera)) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,79 @@
+package com.bramerlabs.terra_nova.main.benchmarks;
+
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.graphics.MeshData;
+import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.terra_nova.main.objects.Tree;
+import com.bramerlabs.terra_nova.main.objects.TreeCache;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class TreeBenchmark {
+
+    // the size of the forest
+    private static final int TREES = 10000;
+
+    // the amount of bytes a vertex takes up once uploaded - position, color and normal
+    private static final int VERTEX_BYTES = (3 + 4 + 3) * Float.BYTES;
+
+    /**
+     * headless benchmark - plants a forest from a limited set of variants through a TreeCache, and reports the time,
+     * the meshes and the vertex data it uploads against generating a mesh for every tree
+     * @param args - optionally the amount of distinct variants (default 64)
+     */
+    public static void main(String[] args) {
+        int variants = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+
+        // warm up the JIT
+        for (int i = 0; i < 8; i++) {
+            Tree.generateMesh(-1 - i);
+        }
+
+        // one variant on its own, the cost a forest without a cache pays for every tree
+        long start = System.nanoTime();
+        int samples = Math.min(variants, 16);
+        long sampleVertices = 0;
+        for (int i = 0; i < samples; i++) {
+            sampleVertices += Tree.generateMesh(i).getVertexCount();
+        }
+        double perTree = (System.nanoTime() - start) / 1e9 / samples;
+        double verticesPerTree = (double) sampleVertices / samples;
+
+        // the forest through the cache
+        TreeCache cache = new TreeCache();
+        Random random = new Random(200);
+        long uploaded = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < TREES; i++) {
+            int before = cache.getVariantCount();
+            Tree tree = cache.getTree(random.nextInt(variants), new Vector3f(random.nextFloat() * 1000, 0, random.nextFloat() * 1000),
+                    new Vector3f(0, random.nextFloat() * 360, 0), new Vector3f(0.8f + 0.4f * random.nextFloat()));
+            if (cache.getVariantCount() > before) {
+                uploaded += tree.getMesh().getVertexCount();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("one variant: %.1f ms, %.0f vertices%n", perTree * 1e3, verticesPerTree);
+        System.out.printf("%d trees without a cache: ~%.1f s, %d meshes, ~%.0f MB of vertex data%n",
+                TREES, perTree * TREES, TREES, verticesPerTree * TREES * VERTEX_BYTES / 1e6);
+        System.out.printf("%d trees with a cache:    %.2f s, %d meshes, %.1f MB of vertex data (%s)%n",
+                TREES, seconds, cache.getVariantCount(), (double) uploaded * VERTEX_BYTES / 1e6, cache);
+
+        // the same seed has to give the same tree, or variants would not be interchangeable
+        System.out.println("seed 7 generates the same mesh twice: " + same(Tree.generateMesh(7), Tree.generateMesh(7)));
+    }
+
+    /**
+     * compares two meshes vertex by vertex
+     * @param a - the first mesh
+     * @param b - the second mesh
+     * @return - true if both have the same indices and the same vertex positions, colors and normals
+     */
+    private static boolean same(Mesh a, Mesh b) {
+        MeshData u = a.getData(), v = b.getData();
+        return Arrays.equals(u.getIndices(), v.getIndices()) && Arrays.equals(u.getPositions(), v.getPositions())
+                && Arrays.equals(u.getNormals(), v.getNormals()) && Arrays.equals(u.getColors(), v.getColors());
+    }
+}
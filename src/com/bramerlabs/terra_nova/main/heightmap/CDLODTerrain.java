@@ -0,0 +1,253 @@
+package com.bramerlabs.terra_nova.main.heightmap;
+
+import com.bramerlabs.engine.graphics.Camera;
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.graphics.Shader;
+import com.bramerlabs.engine.io.window.Window;
+import com.bramerlabs.engine.math.Matrix4f;
+import com.bramerlabs.engine.math.Vector2f;
+import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.engine.math.noise.SimplexNoise;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * heightfield terrain out to any view distance with a constant vertex budget
+ *
+ * a single grid patch is uploaded once and drawn for every node the quadtree picks, moved and scaled into place by the
+ * vertex shader, which also reads the height and normal straight from the noise. the permutations of the noise octaves
+ * are uploaded as a texture, so the shader finds the same heights as SimplexNoise.getNoise2D on the CPU
+ */
+public class CDLODTerrain {
+
+    // the most octaves the terrain shader can evaluate
+    public static final int MAX_OCTAVES = 16;
+
+    // the noise the heights are read from
+    private final SimplexNoise noise;
+
+    // the height of the terrain where the noise is 1
+    private final float heightScale;
+
+    // the color of the terrain
+    private final Vector4f color;
+
+    // picks the nodes to draw each frame
+    private final TerrainQuadTree tree;
+
+    // the amount of cells along each side of the patch
+    private final int gridCells;
+
+    // the patch drawn for every node, and the indices of each of its quadrants
+    private Mesh patch;
+    private int quadrantIndices;
+
+    // the texture holding the permutations of the noise octaves
+    private int permutationTexture;
+
+    // the shader that places, morphs and lights the patches
+    private Shader shader;
+
+    // the nodes picked for the current frame
+    private final List<TerrainNode> nodes = new ArrayList<>();
+
+    /**
+     * default constructor
+     * @param noise - the noise the heights are read from
+     * @param heightScale - the height of the terrain where the noise is 1
+     * @param color - the color of the terrain
+     * @param leafSize - the length of each side of the finest nodes
+     * @param levels - the amount of levels of detail, each reaching twice as far as the last
+     * @param leafRange - the distance out to which the finest level is drawn
+     * @param gridCells - the amount of cells along each side of the patch, a power of 2
+     */
+    public CDLODTerrain(SimplexNoise noise, float heightScale, Vector4f color, float leafSize, int levels, float leafRange, int gridCells) {
+        if (gridCells < 2 || Integer.bitCount(gridCells) != 1) {
+            throw new IllegalArgumentException("The patch needs a power of 2 cells along each side, got " + gridCells + ".");
+        }
+        if (noise.getOctaveCount() > MAX_OCTAVES) {
+            throw new IllegalArgumentException("The terrain shader evaluates at most " + MAX_OCTAVES + " octaves.");
+        }
+        this.noise = noise;
+        this.heightScale = heightScale;
+        this.color = color;
+        this.gridCells = gridCells;
+
+        // every octave stays between -1 and 1, so the heights stay within the sum of the weights
+        float bound = 0;
+        for (int i = 0; i < noise.getOctaveCount(); i++) {
+            bound += noise.getAmplitude(i);
+        }
+        bound *= Math.abs(heightScale);
+        this.tree = new TerrainQuadTree(leafSize, levels, leafRange, -bound, bound);
+    }
+
+    /**
+     * builds the patch every node is drawn with - a grid over the unit square at height 0, its triangles ordered by
+     * quadrant so a single quadrant can be drawn on its own
+     * @param gridCells - the amount of cells along each side, a power of 2
+     * @return - the new mesh, not yet created
+     */
+    public static Mesh createPatch(int gridCells) {
+        int size = gridCells + 1, half = gridCells / 2;
+        FloatBuffer positions = HeightmapMesher.allocate(size * size * 3 * Float.BYTES).asFloatBuffer();
+        FloatBuffer normals = HeightmapMesher.allocate(size * size * 3 * Float.BYTES).asFloatBuffer();
+        IntBuffer indices = HeightmapMesher.allocate(gridCells * gridCells * 6 * Integer.BYTES).asIntBuffer();
+
+        for (int j = 0; j < size; j++) {
+            for (int i = 0; i < size; i++) {
+                positions.put((float) i / gridCells).put(0).put((float) j / gridCells);
+                normals.put(0).put(1).put(0);
+            }
+        }
+
+        // counterclockwise seen from above, quadrant qx + 2 * qz after quadrant
+        for (int q = 0; q < 4; q++) {
+            int i0 = (q & 1) * half, j0 = (q >> 1) * half;
+            for (int j = j0; j < j0 + half; j++) {
+                for (int i = i0; i < i0 + half; i++) {
+                    int v00 = i + j * size, v10 = v00 + 1, v01 = v00 + size, v11 = v01 + 1;
+                    indices.put(v00).put(v01).put(v10).put(v10).put(v01).put(v11);
+                }
+            }
+        }
+        positions.flip();
+        normals.flip();
+        indices.flip();
+        return new Mesh(positions, normals, indices, new Vector4f(1.0f));
+    }
+
+    /**
+     * creates the patch, the permutation texture and the shader
+     */
+    public void create() {
+        patch = createPatch(gridCells);
+        patch.create();
+        quadrantIndices = patch.getIndexCount() / 4;
+
+        // one row of the doubled permutation per octave, as floats so the shader can fetch them without a sampler type
+        int octaves = noise.getOctaveCount();
+        FloatBuffer data = MemoryUtil.memAllocFloat(512 * octaves);
+        for (int o = 0; o < octaves; o++) {
+            short[] permutation = noise.getOctave(o).getPermutation();
+            for (int i = 0; i < 512; i++) {
+                data.put(permutation[i & 255]);
+            }
+        }
+        data.flip();
+        permutationTexture = GL11.glGenTextures();
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, permutationTexture);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
+        GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL30.GL_R32F, 512, octaves, 0, GL11.GL_RED, GL11.GL_FLOAT, data);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+        MemoryUtil.memFree(data);
+
+        shader = new Shader(
+                "/shaders/terrain/vertex.glsl",
+                "/shaders/default/fragment.glsl").create();
+    }
+
+    /**
+     * picks the nodes around the camera and draws them
+     * @param camera - the camera perspective
+     * @param window - the window to render to
+     * @param lightPosition - the position of the light
+     * @param lightColor - the light color
+     */
+    public void render(Camera camera, Window window, Vector3f lightPosition, Vector3f lightColor) {
+        nodes.clear();
+        tree.select(camera.getPosition(), nodes);
+
+        GL30.glBindVertexArray(patch.getVAO());
+        GL30.glEnableVertexAttribArray(0);
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, patch.getIBO());
+        GL13.glActiveTexture(GL13.GL_TEXTURE0);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, permutationTexture);
+        shader.bind();
+        shader.setUniform("view", Matrix4f.view(camera.getPosition(), camera.getRotation()));
+        shader.setUniform("projection", window.getProjectionMatrix());
+        shader.setUniform("viewPos", camera.getPosition());
+        shader.setUniform("lightPos", lightPosition);
+        shader.setUniform("lightLevel", 0.3f);
+        shader.setUniform("lightColor", lightColor);
+        shader.setUniform("color", color);
+        shader.setUniform("heightScale", heightScale);
+        shader.setUniform("heightRange", new Vector2f(tree.getMinHeight(), tree.getMaxHeight()));
+        shader.setUniform("gridCells", (float) gridCells);
+        shader.setUniform("permutations", 0);
+        shader.setUniform("octaveCount", noise.getOctaveCount());
+        for (int i = 0; i < noise.getOctaveCount(); i++) {
+            shader.setUniform("frequencies[" + i + "]", noise.getFrequency(i));
+            shader.setUniform("amplitudes[" + i + "]", noise.getAmplitude(i));
+        }
+
+        for (TerrainNode node : nodes) {
+            shader.setUniform("nodeOffset", new Vector2f(node.getX(), node.getZ()));
+            shader.setUniform("nodeSize", node.getSize());
+            shader.setUniform("morphRange", new Vector2f(tree.getMorphStart(node.getLevel()), tree.getMorphEnd(node.getLevel())));
+
+            // each run of neighbouring quadrants is one draw call, the whole node being a single one
+            int quadrants = node.getQuadrants();
+            for (int q = 0; q < 4; q++) {
+                if ((quadrants & (1 << q)) == 0) {
+                    continue;
+                }
+                int first = q;
+                while (q + 1 < 4 && (quadrants & (1 << (q + 1))) != 0) {
+                    q++;
+                }
+                GL11.glDrawElements(GL11.GL_TRIANGLES, (q - first + 1) * quadrantIndices, GL11.GL_UNSIGNED_INT,
+                        (long) first * quadrantIndices * Integer.BYTES);
+            }
+        }
+
+        shader.unbind();
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+        GL30.glDisableVertexAttribArray(0);
+        GL30.glBindVertexArray(0);
+    }
+
+    /**
+     * deletes the patch, the texture and the shader
+     */
+    public void destroy() {
+        patch.destroy();
+        GL11.glDeleteTextures(permutationTexture);
+        shader.destroy();
+    }
+
+    /**
+     * getter method
+     * @return - the quadtree that picks the nodes to draw
+     */
+    public TerrainQuadTree getTree() {
+        return this.tree;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of cells along each side of the patch
+     */
+    public int getGridCells() {
+        return this.gridCells;
+    }
+
+    /**
+     * getter method
+     * @return - the nodes drawn in the last frame
+     */
+    public List<TerrainNode> getNodes() {
+        return this.nodes;
+    }
+}
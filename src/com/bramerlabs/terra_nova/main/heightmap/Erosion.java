@@ -0,0 +1,410 @@
+package com.bramerlabs.terra_nova.main.heightmap;
+
+import com.bramerlabs.engine.math.Hash;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * weathers a heightfield - droplets of water that carve channels and drop sediment in the valleys (hydraulic erosion),
+ * and slopes steeper than the talus angle crumbling onto their neighbours (thermal erosion)
+ *
+ * heights are a float per sample, x first, one unit between samples. the droplets are split into square tiles, each
+ * with its own random generator, and a droplet never leaves the margin around its tile. the tiles run in four phases
+ * of every other tile along each axis, so no two tiles running at once can reach the same sample, and the result only
+ * depends on the seed, never on the amount of threads
+ */
+public class Erosion {
+
+    // the length of each side of a tile of droplets
+    private static final int TILE_SIZE = 128;
+
+    // the most steps a droplet takes, one sample each
+    private static final int LIFETIME = 30;
+
+    // the radius of the area a droplet erodes
+    private static final int BRUSH_RADIUS = 3;
+
+    // how far a droplet can get from its tile, so tiles two apart never touch the same sample
+    private static final int MARGIN = LIFETIME + BRUSH_RADIUS + 1;
+
+    // how much a droplet keeps its direction instead of following the slope
+    private static final float INERTIA = 0.05f;
+
+    // how much sediment a droplet can carry, and the least slope used when working it out
+    private static final float CAPACITY = 4, MIN_SLOPE = 0.01f;
+
+    // the fraction of the spare capacity eroded, and of the excess sediment deposited, each step
+    private static final float ERODE_RATE = 0.3f, DEPOSIT_RATE = 0.3f;
+
+    // the fraction of water lost each step, and the pull of gravity on a droplet's speed
+    private static final float EVAPORATION = 0.01f, GRAVITY = 4;
+
+    // the fraction of the excess height difference moved between two samples each thermal iteration
+    private static final float THERMAL_RATE = 0.05f;
+
+    // the rows below which a range of rows is not split any further
+    private static final int ROWS_PER_TASK = 16;
+
+    // the offsets and weights of the samples a droplet erodes, relative to the sample it is over
+    private static final int[] BRUSH_X, BRUSH_Z;
+    private static final float[] BRUSH_WEIGHTS;
+
+    static {
+        int count = 0;
+        int[] xs = new int[(2 * BRUSH_RADIUS + 1) * (2 * BRUSH_RADIUS + 1)], zs = new int[xs.length];
+        float[] weights = new float[xs.length];
+        float total = 0;
+        for (int z = -BRUSH_RADIUS; z <= BRUSH_RADIUS; z++) {
+            for (int x = -BRUSH_RADIUS; x <= BRUSH_RADIUS; x++) {
+                float distance = (float) Math.sqrt(x * x + z * z);
+                if (distance < BRUSH_RADIUS) {
+                    xs[count] = x;
+                    zs[count] = z;
+                    weights[count] = 1 - distance / BRUSH_RADIUS;
+                    total += weights[count++];
+                }
+            }
+        }
+        BRUSH_X = Arrays.copyOf(xs, count);
+        BRUSH_Z = Arrays.copyOf(zs, count);
+        BRUSH_WEIGHTS = Arrays.copyOf(weights, count);
+        for (int i = 0; i < count; i++) {
+            BRUSH_WEIGHTS[i] /= total;
+        }
+    }
+
+    // the work stealing pool that tiles and rows are eroded on
+    private final ForkJoinPool pool;
+
+    /**
+     * default constructor - erodes on one worker thread per core
+     */
+    public Erosion() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * constructor for a specified amount of worker threads
+     * @param threads - the amount of worker threads
+     */
+    public Erosion(int threads) {
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * runs droplets over the heightfield
+     * the droplets are shared out between the tiles by area, so the total can differ from the amount asked for by a
+     * few droplets of rounding
+     * @param heights - the heights, x first, changed in place
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeZ - the amount of samples along the z axis
+     * @param droplets - the amount of droplets to run
+     * @param seed - the seed of the droplets' start positions
+     * @return - the amount of droplets run
+     */
+    public long hydraulic(float[] heights, int sizeX, int sizeZ, long droplets, long seed) {
+        checkSize(heights, sizeX, sizeZ);
+        int tilesX = (sizeX + TILE_SIZE - 1) / TILE_SIZE, tilesZ = (sizeZ + TILE_SIZE - 1) / TILE_SIZE;
+        double perSample = (double) droplets / ((long) sizeX * sizeZ);
+
+        long run = 0;
+        for (int phase = 0; phase < 4; phase++) {
+            int count = 0;
+            int[] tiles = new int[tilesX * tilesZ];
+            for (int tz = phase >> 1; tz < tilesZ; tz += 2) {
+                for (int tx = phase & 1; tx < tilesX; tx += 2) {
+                    tiles[count++] = tx + tilesX * tz;
+                    int w = Math.min(TILE_SIZE, sizeX - tx * TILE_SIZE), h = Math.min(TILE_SIZE, sizeZ - tz * TILE_SIZE);
+                    run += Math.round(perSample * w * h);
+                }
+            }
+            pool.invoke(new TileTask(heights, sizeX, sizeZ, tilesX, tiles, 0, count, perSample, seed));
+        }
+        return run;
+    }
+
+    /**
+     * lets slopes steeper than the talus crumble onto their lower neighbours, moving height without creating or losing any
+     * every sample is worked out from the heights before the iteration, so rows can run in any order
+     * @param heights - the heights, x first, changed in place
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeZ - the amount of samples along the z axis
+     * @param talus - the steepest stable slope, height per unit of distance
+     * @param iterations - the amount of iterations to run
+     */
+    public void thermal(float[] heights, int sizeX, int sizeZ, float talus, int iterations) {
+        checkSize(heights, sizeX, sizeZ);
+        float[] from = heights, to = new float[heights.length];
+        for (int i = 0; i < iterations; i++) {
+            pool.invoke(new ThermalTask(from, to, sizeX, sizeZ, talus, 0, sizeZ));
+            float[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != heights) {
+            System.arraycopy(from, 0, heights, 0, heights.length);
+        }
+    }
+
+    /**
+     * stops the worker threads
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * makes sure a heightfield has at least two samples along each axis and fits into its array
+     * @param heights - the heights
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeZ - the amount of samples along the z axis
+     */
+    private static void checkSize(float[] heights, int sizeX, int sizeZ) {
+        if (sizeX < 2 || sizeZ < 2 || (long) sizeX * sizeZ != heights.length) {
+            throw new IllegalArgumentException("Expected a heightfield of at least 2x2 samples filling its array, got "
+                    + sizeX + "x" + sizeZ + " for " + heights.length + " heights.");
+        }
+    }
+
+    /**
+     * runs the droplets of one tile
+     * @param heights - the heights
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeZ - the amount of samples along the z axis
+     * @param tileX - the x index of the tile
+     * @param tileZ - the z index of the tile
+     * @param droplets - the amount of droplets to run
+     * @param random - the tile's random generator
+     */
+    private static void erodeTile(float[] heights, int sizeX, int sizeZ, int tileX, int tileZ, long droplets, SplittableRandom random) {
+        int x0 = tileX * TILE_SIZE, z0 = tileZ * TILE_SIZE;
+        int x1 = Math.min(x0 + TILE_SIZE, sizeX), z1 = Math.min(z0 + TILE_SIZE, sizeZ);
+
+        // the area the droplets stay in, one sample in from the edge of the map so the corners below them always exist
+        float minX = Math.max(x0 - MARGIN + BRUSH_RADIUS, 0), maxX = Math.min(x1 + MARGIN - BRUSH_RADIUS, sizeX - 1) - 1e-3f;
+        float minZ = Math.max(z0 - MARGIN + BRUSH_RADIUS, 0), maxZ = Math.min(z1 + MARGIN - BRUSH_RADIUS, sizeZ - 1) - 1e-3f;
+
+        for (long d = 0; d < droplets; d++) {
+            float x = Math.min(x0 + (float) random.nextDouble() * (x1 - x0), maxX);
+            float z = Math.min(z0 + (float) random.nextDouble() * (z1 - z0), maxZ);
+            float dx = 0, dz = 0, speed = 1, water = 1, sediment = 0;
+
+            for (int step = 0; step < LIFETIME; step++) {
+                int ix = (int) x, iz = (int) z, i = ix + sizeX * iz;
+                float u = x - ix, v = z - iz;
+                float h00 = heights[i], h10 = heights[i + 1], h01 = heights[i + sizeX], h11 = heights[i + sizeX + 1];
+                float height = h00 * (1 - u) * (1 - v) + h10 * u * (1 - v) + h01 * (1 - u) * v + h11 * u * v;
+                float gx = (h10 - h00) * (1 - v) + (h11 - h01) * v;
+                float gz = (h01 - h00) * (1 - u) + (h11 - h10) * u;
+
+                // downhill, keeping a little of the old direction
+                dx = dx * INERTIA - gx * (1 - INERTIA);
+                dz = dz * INERTIA - gz * (1 - INERTIA);
+                float length = (float) Math.sqrt(dx * dx + dz * dz);
+                if (length == 0) {
+                    break;
+                }
+                dx /= length;
+                dz /= length;
+                float nx = x + dx, nz = z + dz;
+                if (nx < minX || nx > maxX || nz < minZ || nz > maxZ) {
+                    break;
+                }
+
+                float delta = sample(heights, sizeX, nx, nz) - height;
+                float capacity = Math.max(-delta, MIN_SLOPE) * speed * water * CAPACITY;
+                if (sediment > capacity || delta > 0) {
+                    // uphill the droplet fills the pit it is leaving, otherwise it drops what it cannot carry
+                    float deposit = delta > 0 ? Math.min(delta, sediment) : (sediment - capacity) * DEPOSIT_RATE;
+                    sediment -= deposit;
+                    heights[i] += deposit * (1 - u) * (1 - v);
+                    heights[i + 1] += deposit * u * (1 - v);
+                    heights[i + sizeX] += deposit * (1 - u) * v;
+                    heights[i + sizeX + 1] += deposit * u * v;
+                } else {
+                    // never dig deeper than the drop to the next position
+                    float erode = Math.min((capacity - sediment) * ERODE_RATE, -delta);
+                    for (int b = 0; b < BRUSH_WEIGHTS.length; b++) {
+                        int bx = ix + BRUSH_X[b], bz = iz + BRUSH_Z[b];
+                        if (bx >= 0 && bz >= 0 && bx < sizeX && bz < sizeZ) {
+                            heights[bx + sizeX * bz] -= erode * BRUSH_WEIGHTS[b];
+                        }
+                    }
+                    sediment += erode;
+                }
+
+                speed = (float) Math.sqrt(Math.max(speed * speed - delta * GRAVITY, 0));
+                water *= 1 - EVAPORATION;
+                x = nx;
+                z = nz;
+            }
+        }
+    }
+
+    /**
+     * reads the height between samples
+     * @param heights - the heights
+     * @param sizeX - the amount of samples along the x axis
+     * @param x - the x position, within the map
+     * @param z - the z position, within the map
+     * @return - the bilinearly interpolated height
+     */
+    private static float sample(float[] heights, int sizeX, float x, float z) {
+        int ix = (int) x, iz = (int) z, i = ix + sizeX * iz;
+        float u = x - ix, v = z - iz;
+        return heights[i] * (1 - u) * (1 - v) + heights[i + 1] * u * (1 - v)
+                + heights[i + sizeX] * (1 - u) * v + heights[i + sizeX + 1] * u * v;
+    }
+
+    /**
+     * mixes the seed and the tile coordinates into the seed of the tile's random generator
+     * @param seed - the seed of the droplets
+     * @param tileX - the x index of the tile
+     * @param tileZ - the z index of the tile
+     * @return - the seed of the tile
+     */
+    private static long tileSeed(long seed, int tileX, int tileZ) {
+        return Hash.hash(seed, tileX, tileZ);
+    }
+
+    /**
+     * runs the droplets of a range of tiles of one phase, splitting the range in half until each task holds a single tile
+     */
+    @SuppressWarnings("serial")
+    private static class TileTask extends RecursiveAction {
+
+        // the heightfield
+        private final float[] heights;
+        private final int sizeX, sizeZ, tilesX;
+
+        // the tiles of the phase, x + tilesX * z each, and the range this task covers
+        private final int[] tiles;
+        private final int start, end;
+
+        // the droplets per sample, and the seed of the droplets
+        private final double perSample;
+        private final long seed;
+
+        /**
+         * default constructor
+         * @param heights - the heights
+         * @param sizeX - the amount of samples along the x axis
+         * @param sizeZ - the amount of samples along the z axis
+         * @param tilesX - the amount of tiles along the x axis
+         * @param tiles - the tiles of the phase
+         * @param start - the first tile of this task, inclusive
+         * @param end - the last tile of this task, exclusive
+         * @param perSample - the droplets per sample
+         * @param seed - the seed of the droplets
+         */
+        TileTask(float[] heights, int sizeX, int sizeZ, int tilesX, int[] tiles, int start, int end, double perSample, long seed) {
+            this.heights = heights;
+            this.sizeX = sizeX;
+            this.sizeZ = sizeZ;
+            this.tilesX = tilesX;
+            this.tiles = tiles;
+            this.start = start;
+            this.end = end;
+            this.perSample = perSample;
+            this.seed = seed;
+        }
+
+        /**
+         * runs the droplets of the tiles in this range
+         */
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                int tx = tiles[start] % tilesX, tz = tiles[start] / tilesX;
+                int w = Math.min(TILE_SIZE, sizeX - tx * TILE_SIZE), h = Math.min(TILE_SIZE, sizeZ - tz * TILE_SIZE);
+                erodeTile(heights, sizeX, sizeZ, tx, tz, Math.round(perSample * w * h), new SplittableRandom(tileSeed(seed, tx, tz)));
+            } else if (end > start) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new TileTask(heights, sizeX, sizeZ, tilesX, tiles, start, middle, perSample, seed),
+                        new TileTask(heights, sizeX, sizeZ, tilesX, tiles, middle, end, perSample, seed));
+            }
+        }
+    }
+
+    /**
+     * runs one thermal iteration over a range of rows, splitting the range in half until it is small enough
+     */
+    @SuppressWarnings("serial")
+    private static class ThermalTask extends RecursiveAction {
+
+        // the heights before and after the iteration
+        private final float[] from, to;
+        private final int sizeX, sizeZ;
+
+        // the steepest stable slope
+        private final float talus;
+
+        // the range of rows this task covers
+        private final int start, end;
+
+        /**
+         * default constructor
+         * @param from - the heights before the iteration
+         * @param to - receives the heights after the iteration
+         * @param sizeX - the amount of samples along the x axis
+         * @param sizeZ - the amount of samples along the z axis
+         * @param talus - the steepest stable slope
+         * @param start - the first row of this task, inclusive
+         * @param end - the last row of this task, exclusive
+         */
+        ThermalTask(float[] from, float[] to, int sizeX, int sizeZ, float talus, int start, int end) {
+            this.from = from;
+            this.to = to;
+            this.sizeX = sizeX;
+            this.sizeZ = sizeZ;
+            this.talus = talus;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * works out the new heights of the rows in this range
+         * every pair of neighbours exchanges the same amount in opposite directions, so the total height never changes
+         */
+        @Override
+        protected void compute() {
+            if (end - start > ROWS_PER_TASK) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new ThermalTask(from, to, sizeX, sizeZ, talus, start, middle),
+                        new ThermalTask(from, to, sizeX, sizeZ, talus, middle, end));
+                return;
+            }
+
+            float diagonal = talus * (float) Math.sqrt(2);
+            for (int z = start; z < end; z++) {
+                for (int x = 0; x < sizeX; x++) {
+                    int i = x + sizeX * z;
+                    float h = from[i], change = 0;
+                    for (int oz = -1; oz <= 1; oz++) {
+                        int nz = z + oz;
+                        if (nz < 0 || nz >= sizeZ) {
+                            continue;
+                        }
+                        for (int ox = -1; ox <= 1; ox++) {
+                            int nx = x + ox;
+                            if ((ox == 0 && oz == 0) || nx < 0 || nx >= sizeX) {
+                                continue;
+                            }
+                            float limit = ox != 0 && oz != 0 ? diagonal : talus;
+                            float difference = from[nx + sizeX * nz] - h;
+                            if (difference > limit) {
+                                change += THERMAL_RATE * (difference - limit);
+                            } else if (difference < -limit) {
+                                change += THERMAL_RATE * (difference + limit);
+                            }
+                        }
+                    }
+                    to[i] = h + change;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.bramerlabs.terra_nova.main.heightmap;
+
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.engine.math.noise.SimplexNoise;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * builds a heightfield terrain mesh from 2D noise, straight into off heap buffers
+ *
+ * every sample becomes one shared vertex, and every cell two triangles indexing the four vertices around it, so a
+ * heightfield of size * size samples has size^2 vertices and 6 * (size - 1)^2 indices. the rows are split over a pool of
+ * worker threads, each writing its own part of the buffers
+ */
+public class HeightmapMesher {
+
+    // the amount of rows below which a range of rows is not split any further
+    private static final int ROWS_PER_TASK = 8;
+
+    // the largest heightfield whose index buffer still fits into a single buffer
+    private static final int MAX_SIZE = 9460;
+
+    // the noise the heights are read from
+    private final SimplexNoise noise;
+
+    // the height of the terrain where the noise is 1
+    private final float heightScale;
+
+    // the work stealing pool that rows are built on
+    private final ForkJoinPool pool;
+
+    /**
+     * default constructor - builds on one worker thread per core
+     * @param noise - the noise the heights are read from
+     * @param heightScale - the height of the terrain where the noise is 1
+     */
+    public HeightmapMesher(SimplexNoise noise, float heightScale) {
+        this(noise, heightScale, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * constructor for a specified amount of worker threads
+     * @param noise - the noise the heights are read from
+     * @param heightScale - the height of the terrain where the noise is 1
+     * @param threads - the amount of worker threads
+     */
+    public HeightmapMesher(SimplexNoise noise, float heightScale, int threads) {
+        this.noise = noise;
+        this.heightScale = heightScale;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * builds the mesh of a square heightfield
+     * @param originX - the x position of the first sample
+     * @param originZ - the z position of the first sample
+     * @param cellSize - the distance between two adjacent samples
+     * @param size - the amount of samples along each side
+     * @param color - the color of the terrain
+     * @return - the new mesh, not yet created
+     */
+    public Mesh generate(float originX, float originZ, float cellSize, int size, Vector4f color) {
+        if (size < 2 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("A heightfield needs between 2 and " + MAX_SIZE + " samples along each side, got " + size + ".");
+        }
+
+        int vertices = size * size, cells = (size - 1) * (size - 1);
+        FloatBuffer positions = allocate(vertices * 3 * Float.BYTES).asFloatBuffer();
+        FloatBuffer normals = allocate(vertices * 3 * Float.BYTES).asFloatBuffer();
+        IntBuffer indices = allocate(cells * 6 * Integer.BYTES).asIntBuffer();
+
+        pool.invoke(new RowTask(positions, normals, indices, originX, originZ, cellSize, size, 0, size));
+        return new Mesh(positions, normals, indices, color);
+    }
+
+    /**
+     * allocates a direct buffer in the native byte order, the order OpenGL reads it in
+     * @param bytes - the size of the buffer
+     * @return - the new buffer
+     */
+    static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * stops the worker threads
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * getter method
+     * @return - the height of the terrain where the noise is 1
+     */
+    public float getHeightScale() {
+        return this.heightScale;
+    }
+
+    /**
+     * builds a range of rows, splitting the range in half until it is small enough
+     * every row writes its own vertices and the triangles of the cells between it and the next row, so no two tasks write
+     * the same part of a buffer
+     */
+    @SuppressWarnings("serial")
+    private class RowTask extends RecursiveAction {
+
+        // the buffers being filled, written with absolute puts only so the tasks can share them
+        private final FloatBuffer positions, normals;
+        private final IntBuffer indices;
+
+        // the placement of the heightfield
+        private final float originX, originZ, cellSize;
+        private final int size;
+
+        // the range of rows this task covers
+        private final int start, end;
+
+        /**
+         * default constructor
+         * @param positions - receives three floats per vertex
+         * @param normals - receives three floats per vertex
+         * @param indices - receives six indices per cell
+         * @param originX - the x position of the first sample
+         * @param originZ - the z position of the first sample
+         * @param cellSize - the distance between two adjacent samples
+         * @param size - the amount of samples along each side
+         * @param start - the first row of this task, inclusive
+         * @param end - the last row of this task, exclusive
+         */
+        RowTask(FloatBuffer positions, FloatBuffer normals, IntBuffer indices, float originX, float originZ,
+                float cellSize, int size, int start, int end) {
+            this.positions = positions;
+            this.normals = normals;
+            this.indices = indices;
+            this.originX = originX;
+            this.originZ = originZ;
+            this.cellSize = cellSize;
+            this.size = size;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * builds the rows in this range
+         */
+        @Override
+        protected void compute() {
+            if (end - start > ROWS_PER_TASK) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new RowTask(positions, normals, indices, originX, originZ, cellSize, size, start, middle),
+                        new RowTask(positions, normals, indices, originX, originZ, cellSize, size, middle, end));
+                return;
+            }
+
+            double[] derivative = new double[2];
+            for (int j = start; j < end; j++) {
+                float z = originZ + j * cellSize;
+                int p = 3 * j * size;
+                for (int i = 0; i < size; i++, p += 3) {
+                    float x = originX + i * cellSize;
+                    float height = (float) noise.getNoise2D(x, z, derivative) * heightScale;
+                    positions.put(p, x);
+                    positions.put(p + 1, height);
+                    positions.put(p + 2, z);
+
+                    // the surface y = h(x, z) has the normal (-dh/dx, 1, -dh/dz)
+                    float nx = (float) -derivative[0] * heightScale, nz = (float) -derivative[1] * heightScale;
+                    float length = (float) Math.sqrt(nx * nx + 1 + nz * nz);
+                    normals.put(p, nx / length);
+                    normals.put(p + 1, 1 / length);
+                    normals.put(p + 2, nz / length);
+                }
+
+                // the cells between this row and the next, counterclockwise seen from above
+                if (j < size - 1) {
+                    int q = 6 * j * (size - 1);
+                    for (int i = 0; i < size - 1; i++) {
+                        int v00 = i + j * size, v10 = v00 + 1, v01 = v00 + size, v11 = v01 + 1;
+                        indices.put(q++, v00);
+                        indices.put(q++, v01);
+                        indices.put(q++, v10);
+                        indices.put(q++, v10);
+                        indices.put(q++, v01);
+                        indices.put(q++, v11);
+                    }
+                }
+            }
+        }
+    }
+}
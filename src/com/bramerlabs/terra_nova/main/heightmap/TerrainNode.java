@@ -0,0 +1,80 @@
+package com.bramerlabs.terra_nova.main.heightmap;
+
+/**
+ * a square of terrain picked by the quadtree, drawn as one copy of the shared patch moved and scaled into place
+ *
+ * a node whose children are only partly picked draws just the quadrants its children leave uncovered
+ */
+public class TerrainNode {
+
+    // every quadrant, the whole node
+    public static final int ALL_QUADRANTS = 15;
+
+    // the lowest x and z corner of the node
+    private final float x, z;
+
+    // the length of each side of the node
+    private final float size;
+
+    // the level of detail, 0 being the finest
+    private final int level;
+
+    // the quadrants to draw, bit qx + 2 * qz for the quadrant at (qx, qz)
+    private final int quadrants;
+
+    /**
+     * default constructor
+     * @param x - the lowest x corner of the node
+     * @param z - the lowest z corner of the node
+     * @param size - the length of each side of the node
+     * @param level - the level of detail, 0 being the finest
+     * @param quadrants - the quadrants to draw, bit qx + 2 * qz for the quadrant at (qx, qz)
+     */
+    public TerrainNode(float x, float z, float size, int level, int quadrants) {
+        this.x = x;
+        this.z = z;
+        this.size = size;
+        this.level = level;
+        this.quadrants = quadrants;
+    }
+
+    /**
+     * getter method
+     * @return - the lowest x corner of the node
+     */
+    public float getX() {
+        return this.x;
+    }
+
+    /**
+     * getter method
+     * @return - the lowest z corner of the node
+     */
+    public float getZ() {
+        return this.z;
+    }
+
+    /**
+     * getter method
+     * @return - the length of each side of the node
+     */
+    public float getSize() {
+        return this.size;
+    }
+
+    /**
+     * getter method
+     * @return - the level of detail, 0 being the finest
+     */
+    public int getLevel() {
+        return this.level;
+    }
+
+    /**
+     * getter method
+     * @return - the quadrants to draw, bit qx + 2 * qz for the quadrant at (qx, qz)
+     */
+    public int getQuadrants() {
+        return this.quadrants;
+    }
+}
@@ -0,0 +1,212 @@
+package com.bramerlabs.terra_nova.main.heightmap;
+
+import com.bramerlabs.engine.math.Vector3f;
+
+import java.util.List;
+
+/**
+ * picks the terrain nodes to draw around the camera, continuous distance dependent level of detail (CDLOD)
+ *
+ * the world is tiled with root nodes of the coarsest level, and each node is split into four while the camera is within
+ * the range of the next finer level. every level reaches twice as far as the one below it, and nodes are twice as
+ * large, so each level adds about the same amount of nodes and the amount drawn depends on the number of levels only,
+ * never on the size of the world
+ *
+ * near the end of its range a node morphs into the grid of its parent, so by the time the camera is far enough away for
+ * the parent to be drawn instead, the two look the same and nothing pops
+ *
+ * distances are measured from the camera to the slab of heights the terrain can reach, rather than to the terrain
+ * itself, so the shader can find the same distance for a vertex without sampling the heights first
+ */
+public class TerrainQuadTree {
+
+    // the fraction of a level's band of distances after which its nodes start morphing into their parents
+    public static final float MORPH_START = 0.7f;
+
+    // the length of each side of the finest nodes
+    private final float leafSize;
+
+    // the distance out to which each level is drawn, finest first
+    private final float[] ranges;
+
+    // the lowest and highest height the terrain can reach
+    private final float minHeight, maxHeight;
+
+    /**
+     * default constructor
+     * @param leafSize - the length of each side of the finest nodes
+     * @param levels - the amount of levels of detail, the view distance is leafRange * 2^(levels - 1)
+     * @param leafRange - the distance out to which the finest level is drawn
+     * @param minHeight - the lowest height the terrain can reach
+     * @param maxHeight - the highest height the terrain can reach
+     */
+    public TerrainQuadTree(float leafSize, int levels, float leafRange, float minHeight, float maxHeight) {
+        if (leafSize <= 0 || levels < 1 || levels > 30) {
+            throw new IllegalArgumentException("A terrain quadtree needs a positive leaf size and between 1 and 30 levels.");
+        }
+        // a node's far edge has to be fully morphed before its coarser neighbour starts morphing itself
+        if (leafRange * MORPH_START < Math.sqrt(2) * leafSize) {
+            throw new IllegalArgumentException("The range of the finest level has to be at least "
+                    + (float) (Math.sqrt(2) * leafSize / MORPH_START) + " for leaves of size " + leafSize + ".");
+        }
+        this.leafSize = leafSize;
+        this.minHeight = minHeight;
+        this.maxHeight = maxHeight;
+        this.ranges = new float[levels];
+        for (int level = 0; level < levels; level++) {
+            ranges[level] = leafRange * (1 << level);
+        }
+    }
+
+    /**
+     * picks the nodes to draw
+     * @param camera - the position of the camera
+     * @param out - receives the nodes to draw
+     * @return - the amount of nodes added
+     */
+    public int select(Vector3f camera, List<TerrainNode> out) {
+        int before = out.size();
+        int top = ranges.length - 1;
+        float rootSize = getNodeSize(top), reach = ranges[top];
+
+        // only the roots within reach of the camera, not the whole world
+        int minX = (int) Math.floor((camera.getX() - reach) / rootSize), maxX = (int) Math.floor((camera.getX() + reach) / rootSize);
+        int minZ = (int) Math.floor((camera.getZ() - reach) / rootSize), maxZ = (int) Math.floor((camera.getZ() + reach) / rootSize);
+        for (int z = minZ; z <= maxZ; z++) {
+            for (int x = minX; x <= maxX; x++) {
+                select(x * rootSize, z * rootSize, top, camera, out);
+            }
+        }
+        return out.size() - before;
+    }
+
+    /**
+     * picks the nodes to draw in one node
+     * @param x - the lowest x corner of the node
+     * @param z - the lowest z corner of the node
+     * @param level - the level of the node
+     * @param camera - the position of the camera
+     * @param out - receives the nodes to draw
+     * @return - false if the node is out of range of its level, and its parent has to cover it
+     */
+    private boolean select(float x, float z, int level, Vector3f camera, List<TerrainNode> out) {
+        float size = getNodeSize(level);
+        if (distance(x, z, size, camera) > ranges[level]) {
+            return false;
+        }
+        if (level == 0 || distance(x, z, size, camera) > ranges[level - 1]) {
+            out.add(new TerrainNode(x, z, size, level, TerrainNode.ALL_QUADRANTS));
+            return true;
+        }
+
+        // the children cover themselves where they are in range, this node covers the rest
+        float half = size / 2;
+        int uncovered = 0;
+        for (int q = 0; q < 4; q++) {
+            if (!select(x + (q & 1) * half, z + (q >> 1) * half, level - 1, camera, out)) {
+                uncovered |= 1 << q;
+            }
+        }
+        if (uncovered != 0) {
+            out.add(new TerrainNode(x, z, size, level, uncovered));
+        }
+        return true;
+    }
+
+    /**
+     * finds the distance from the camera to the closest point of a node
+     * @param x - the lowest x corner of the node
+     * @param z - the lowest z corner of the node
+     * @param size - the length of each side of the node
+     * @param camera - the position of the camera
+     * @return - the distance
+     */
+    private float distance(float x, float z, float size, Vector3f camera) {
+        float dx = Math.max(Math.max(x - camera.getX(), camera.getX() - (x + size)), 0);
+        float dz = Math.max(Math.max(z - camera.getZ(), camera.getZ() - (z + size)), 0);
+        float dy = Math.max(Math.max(minHeight - camera.getY(), camera.getY() - maxHeight), 0);
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * finds the distance from the camera to a point of the terrain, the same way the terrain shader does
+     * @param x - the x position of the point
+     * @param z - the z position of the point
+     * @param camera - the position of the camera
+     * @return - the distance
+     */
+    public float distance(float x, float z, Vector3f camera) {
+        return distance(x, z, 0, camera);
+    }
+
+    /**
+     * finds how far a vertex of a level has morphed into the grid of the level above, the same way the terrain shader does
+     * @param level - the level of the vertex
+     * @param distance - the distance from the camera to the vertex
+     * @return - 0 for the vertex's own grid, 1 for the parent's
+     */
+    public float morph(int level, float distance) {
+        float start = getMorphStart(level), end = getMorphEnd(level);
+        return Math.min(Math.max((distance - start) / (end - start), 0), 1);
+    }
+
+    /**
+     * getter method
+     * @param level - the level of detail
+     * @return - the length of each side of a node of the level
+     */
+    public float getNodeSize(int level) {
+        return leafSize * (1 << level);
+    }
+
+    /**
+     * getter method
+     * @param level - the level of detail
+     * @return - the distance at which nodes of the level start morphing into their parents
+     */
+    public float getMorphStart(int level) {
+        float previous = level == 0 ? 0 : ranges[level - 1];
+        return previous + (ranges[level] - previous) * MORPH_START;
+    }
+
+    /**
+     * getter method
+     * @param level - the level of detail
+     * @return - the distance at which nodes of the level have fully morphed into their parents
+     */
+    public float getMorphEnd(int level) {
+        return ranges[level];
+    }
+
+    /**
+     * getter method
+     * @return - the amount of levels of detail
+     */
+    public int getLevelCount() {
+        return this.ranges.length;
+    }
+
+    /**
+     * getter method
+     * @return - the distance out to which terrain is drawn
+     */
+    public float getViewDistance() {
+        return this.ranges[ranges.length - 1];
+    }
+
+    /**
+     * getter method
+     * @return - the lowest height the terrain can reach
+     */
+    public float getMinHeight() {
+        return this.minHeight;
+    }
+
+    /**
+     * getter method
+     * @return - the highest height the terrain can reach
+     */
+    public float getMaxHeight() {
+        return this.maxHeight;
+    }
+}
@@ -0,0 +1,147 @@
+package com.bramerlabs.terra_nova.main.marching_cubes;
+
+public class DCMesh extends DualMesh {
+
+    // eigenvalues below this fraction of the largest are treated as 0, so flat and creased cells stay stable
+    private static final float SINGULAR_THRESHOLD = 0.1f;
+
+    // the amount of jacobi sweeps - a 3 x 3 matrix converges well within this
+    private static final int SWEEPS = 6;
+
+    /**
+     * default constructor for a specified field and iso level
+     * @param field - the sampled density field
+     * @param isoLevel - the density at which the surface is extracted
+     */
+    public DCMesh(DensityField field, float isoLevel) {
+        super(field, isoLevel);
+    }
+
+    /**
+     * dual contouring - the vertex minimises the squared distance to the tangent planes at the edge crossings (the
+     * quadratic error function), which puts it on the corner or crease where those planes meet
+     * the system is solved around the average of the crossings with a truncated pseudo inverse, so directions the
+     * planes do not pin down stay at the average, and the result is clamped to the cell
+     * @param count - the amount of crossed edges
+     * @param points - the crossing points in sample coordinates, three floats each
+     * @param normals - the unit surface normals at the crossing points, three floats each
+     * @param x - the x index of the cell
+     * @param y - the y index of the cell
+     * @param z - the z index of the cell
+     * @param out - receives the vertex position in sample coordinates
+     */
+    @Override
+    protected void placeVertex(int count, float[] points, float[] normals, int x, int y, int z, float[] out) {
+        // the mass point
+        float cx = 0, cy = 0, cz = 0;
+        for (int i = 0; i < count; i++) {
+            cx += points[3 * i];
+            cy += points[3 * i + 1];
+            cz += points[3 * i + 2];
+        }
+        cx /= count;
+        cy /= count;
+        cz /= count;
+
+        // the normal equations A^T A x = A^T b, relative to the mass point
+        double[][] ata = new double[3][3];
+        double[] atb = new double[3];
+        for (int i = 0; i < count; i++) {
+            double nx = normals[3 * i], ny = normals[3 * i + 1], nz = normals[3 * i + 2];
+            double b = nx * (points[3 * i] - cx) + ny * (points[3 * i + 1] - cy) + nz * (points[3 * i + 2] - cz);
+            ata[0][0] += nx * nx; ata[0][1] += nx * ny; ata[0][2] += nx * nz;
+            ata[1][1] += ny * ny; ata[1][2] += ny * nz;
+            ata[2][2] += nz * nz;
+            atb[0] += nx * b;
+            atb[1] += ny * b;
+            atb[2] += nz * b;
+        }
+        ata[1][0] = ata[0][1];
+        ata[2][0] = ata[0][2];
+        ata[2][1] = ata[1][2];
+
+        // x = V diag(1 / lambda) V^T A^T b, dropping the small eigenvalues
+        double[][] vectors = new double[3][3];
+        double[] values = new double[3];
+        eigen(ata, vectors, values);
+        double largest = Math.max(Math.abs(values[0]), Math.max(Math.abs(values[1]), Math.abs(values[2])));
+        double[] offset = new double[3];
+        for (int k = 0; k < 3; k++) {
+            if (largest == 0 || Math.abs(values[k]) < SINGULAR_THRESHOLD * largest) {
+                continue;
+            }
+            double projection = (vectors[0][k] * atb[0] + vectors[1][k] * atb[1] + vectors[2][k] * atb[2]) / values[k];
+            offset[0] += vectors[0][k] * projection;
+            offset[1] += vectors[1][k] * projection;
+            offset[2] += vectors[2][k] * projection;
+        }
+
+        out[0] = clamp((float) (cx + offset[0]), x, x + 1);
+        out[1] = clamp((float) (cy + offset[1]), y, y + 1);
+        out[2] = clamp((float) (cz + offset[2]), z, z + 1);
+    }
+
+    /**
+     * finds the eigenvalues and eigenvectors of a symmetric 3 x 3 matrix with cyclic jacobi rotations
+     * @param matrix - the matrix, overwritten with its diagonalised form
+     * @param vectors - receives the eigenvectors as columns
+     * @param values - receives the eigenvalues
+     */
+    private static void eigen(double[][] matrix, double[][] vectors, double[] values) {
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                vectors[i][j] = i == j ? 1 : 0;
+            }
+        }
+
+        for (int sweep = 0; sweep < SWEEPS; sweep++) {
+            for (int p = 0; p < 2; p++) {
+                for (int q = p + 1; q < 3; q++) {
+                    double apq = matrix[p][q];
+                    if (Math.abs(apq) < 1e-12) {
+                        continue;
+                    }
+
+                    // the rotation that zeroes matrix[p][q]
+                    double theta = (matrix[q][q] - matrix[p][p]) / (2 * apq);
+                    double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+                    if (theta == 0) {
+                        t = 1;
+                    }
+                    double c = 1 / Math.sqrt(t * t + 1), s = t * c;
+
+                    for (int k = 0; k < 3; k++) {
+                        double akp = matrix[k][p], akq = matrix[k][q];
+                        matrix[k][p] = c * akp - s * akq;
+                        matrix[k][q] = s * akp + c * akq;
+                    }
+                    for (int k = 0; k < 3; k++) {
+                        double apk = matrix[p][k], aqk = matrix[q][k];
+                        matrix[p][k] = c * apk - s * aqk;
+                        matrix[q][k] = s * apk + c * aqk;
+                    }
+                    for (int k = 0; k < 3; k++) {
+                        double vkp = vectors[k][p], vkq = vectors[k][q];
+                        vectors[k][p] = c * vkp - s * vkq;
+                        vectors[k][q] = s * vkp + c * vkq;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < 3; i++) {
+            values[i] = matrix[i][i];
+        }
+    }
+
+    /**
+     * clamps a value to a range
+     * @param value - the value
+     * @param min - the lowest allowed value
+     * @param max - the highest allowed value
+     * @return - the clamped value
+     */
+    private static float clamp(float value, float min, float max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,225 @@
+package com.bramerlabs.terra_nova.main.marching_cubes;
+
+public class DensityField {
+
+    // the amount of samples along each axis
+    private final int sizeX, sizeY, sizeZ;
+
+    // the world space position of the first sample
+    private final float originX, originY, originZ;
+
+    // the world space distance between two adjacent samples
+    private final float cellSize;
+
+    // the sampled densities, stored x first, then y, then z
+    private final float[] values;
+
+    /**
+     * default constructor for an empty field
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeY - the amount of samples along the y axis
+     * @param sizeZ - the amount of samples along the z axis
+     * @param originX - the x position of the first sample
+     * @param originY - the y position of the first sample
+     * @param originZ - the z position of the first sample
+     * @param cellSize - the distance between two adjacent samples
+     */
+    public DensityField(int sizeX, int sizeY, int sizeZ, float originX, float originY, float originZ, float cellSize) {
+        this(new float[sizeX * sizeY * sizeZ], sizeX, sizeY, sizeZ, originX, originY, originZ, cellSize);
+    }
+
+    /**
+     * constructor for a field backed by an existing array
+     * @param values - the densities, stored x first, then y, then z
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeY - the amount of samples along the y axis
+     * @param sizeZ - the amount of samples along the z axis
+     * @param originX - the x position of the first sample
+     * @param originY - the y position of the first sample
+     * @param originZ - the z position of the first sample
+     * @param cellSize - the distance between two adjacent samples
+     */
+    public DensityField(float[] values, int sizeX, int sizeY, int sizeZ, float originX, float originY, float originZ, float cellSize) {
+        if (sizeX < 2 || sizeY < 2 || sizeZ < 2) {
+            throw new IllegalArgumentException("A density field needs at least 2 samples along each axis.");
+        }
+        if (values.length != sizeX * sizeY * sizeZ) {
+            throw new IllegalArgumentException("Expected " + sizeX * sizeY * sizeZ + " samples, got " + values.length + ".");
+        }
+        this.values = values;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * fills this field by evaluating a density function at every sample
+     * @param function - the density function
+     * @return - this field
+     */
+    public DensityField sample(DensityFunction function) {
+        function.density(values, originX, originY, originZ, cellSize, sizeX, sizeY, sizeZ);
+        return this;
+    }
+
+    /**
+     * computes the index of a sample in the backing array
+     * @param x - the x index of the sample
+     * @param y - the y index of the sample
+     * @param z - the z index of the sample
+     * @return - the index into the values array
+     */
+    public int index(int x, int y, int z) {
+        return x + sizeX * (y + sizeY * z);
+    }
+
+    /**
+     * getter method
+     * @param x - the x index of the sample
+     * @param y - the y index of the sample
+     * @param z - the z index of the sample
+     * @return - the density at the sample
+     */
+    public float get(int x, int y, int z) {
+        return values[index(x, y, z)];
+    }
+
+    /**
+     * sets the density of a sample
+     * @param x - the x index of the sample
+     * @param y - the y index of the sample
+     * @param z - the z index of the sample
+     * @param value - the new density
+     */
+    public void set(int x, int y, int z, float value) {
+        values[index(x, y, z)] = value;
+    }
+
+    /**
+     * finds the density gradient along x by central differences, one sided at the border
+     * @param x - the x index of the sample
+     * @param y - the y index of the sample
+     * @param z - the z index of the sample
+     * @return - the change in density per sample along x
+     */
+    public float gradientX(int x, int y, int z) {
+        int x1 = Math.max(x - 1, 0), x2 = Math.min(x + 1, getSizeX() - 1);
+        return (get(x2, y, z) - get(x1, y, z)) / (x2 - x1);
+    }
+
+    /**
+     * finds the density gradient along y by central differences, one sided at the border
+     * @param x - the x index of the sample
+     * @param y - the y index of the sample
+     * @param z - the z index of the sample
+     * @return - the change in density per sample along y
+     */
+    public float gradientY(int x, int y, int z) {
+        int y1 = Math.max(y - 1, 0), y2 = Math.min(y + 1, getSizeY() - 1);
+        return (get(x, y2, z) - get(x, y1, z)) / (y2 - y1);
+    }
+
+    /**
+     * finds the density gradient along z by central differences, one sided at the border
+     * @param x - the x index of the sample
+     * @param y - the y index of the sample
+     * @param z - the z index of the sample
+     * @return - the change in density per sample along z
+     */
+    public float gradientZ(int x, int y, int z) {
+        int z1 = Math.max(z - 1, 0), z2 = Math.min(z + 1, getSizeZ() - 1);
+        return (get(x, y, z2) - get(x, y, z1)) / (z2 - z1);
+    }
+
+    /**
+     * interpolates the density at a world space position, clamped to the field
+     * @param x - the x position
+     * @param y - the y position
+     * @param z - the z position
+     * @return - the trilinearly interpolated density
+     */
+    public float interpolate(float x, float y, float z) {
+        float gx = Math.max(0, Math.min((x - originX) / cellSize, sizeX - 1));
+        float gy = Math.max(0, Math.min((y - originY) / cellSize, sizeY - 1));
+        float gz = Math.max(0, Math.min((z - originZ) / cellSize, sizeZ - 1));
+        int x0 = Math.min((int) gx, sizeX - 2), y0 = Math.min((int) gy, sizeY - 2), z0 = Math.min((int) gz, sizeZ - 2);
+        float tx = gx - x0, ty = gy - y0, tz = gz - z0;
+
+        int i = index(x0, y0, z0), layer = sizeX * sizeY;
+        float c00 = values[i] + tx * (values[i + 1] - values[i]);
+        float c10 = values[i + sizeX] + tx * (values[i + sizeX + 1] - values[i + sizeX]);
+        float c01 = values[i + layer] + tx * (values[i + layer + 1] - values[i + layer]);
+        float c11 = values[i + layer + sizeX] + tx * (values[i + layer + sizeX + 1] - values[i + layer + sizeX]);
+        float c0 = c00 + ty * (c10 - c00);
+        float c1 = c01 + ty * (c11 - c01);
+        return c0 + tz * (c1 - c0);
+    }
+
+    /**
+     * getter method
+     * @return - the backing array of densities
+     */
+    public float[] getValues() {
+        return this.values;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of samples along the x axis
+     */
+    public int getSizeX() {
+        return this.sizeX;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of samples along the y axis
+     */
+    public int getSizeY() {
+        return this.sizeY;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of samples along the z axis
+     */
+    public int getSizeZ() {
+        return this.sizeZ;
+    }
+
+    /**
+     * getter method
+     * @return - the x position of the first sample
+     */
+    public float getOriginX() {
+        return this.originX;
+    }
+
+    /**
+     * getter method
+     * @return - the y position of the first sample
+     */
+    public float getOriginY() {
+        return this.originY;
+    }
+
+    /**
+     * getter method
+     * @return - the z position of the first sample
+     */
+    public float getOriginZ() {
+        return this.originZ;
+    }
+
+    /**
+     * getter method
+     * @return - the distance between two adjacent samples
+     */
+    public float getCellSize() {
+        return this.cellSize;
+    }
+}
@@ -0,0 +1,41 @@
+package com.bramerlabs.terra_nova.main.marching_cubes;
+
+public interface DensityFunction {
+
+    /**
+     * samples the density at a point in world space
+     * positive values are solid, negative values are empty
+     * @param x - the x position
+     * @param y - the y position
+     * @param z - the z position
+     * @return - the density at (x, y, z)
+     */
+    float density(float x, float y, float z);
+
+    /**
+     * samples the density on a regular grid, x first, then y, then z
+     * functions that can share work between neighbouring samples override this, the default samples one point at a time
+     * @param values - the array to fill
+     * @param originX - the x position of the first sample
+     * @param originY - the y position of the first sample
+     * @param originZ - the z position of the first sample
+     * @param step - the distance between two adjacent samples
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeY - the amount of samples along the y axis
+     * @param sizeZ - the amount of samples along the z axis
+     */
+    default void density(float[] values, float originX, float originY, float originZ, float step,
+                         int sizeX, int sizeY, int sizeZ) {
+        int i = 0;
+        for (int z = 0; z < sizeZ; z++) {
+            float wz = originZ + z * step;
+            for (int y = 0; y < sizeY; y++) {
+                float wy = originY + y * step;
+                for (int x = 0; x < sizeX; x++) {
+                    values[i++] = density(originX + x * step, wy, wz);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,326 @@
+package com.bramerlabs.terra_nova.main.marching_cubes;
+
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.graphics.MeshData;
+import com.bramerlabs.engine.math.Vector4f;
+
+import java.util.Arrays;
+
+/**
+ * the shared part of the dual methods - one vertex inside every cell the surface crosses, and a quad joining the four
+ * cells around every crossed edge
+ *
+ * a quad is only made for an edge whose lower end has every index between 1 and size - 2, so fields that overlap by
+ * two layers of samples split the edges between them exactly and their surfaces join without a seam
+ */
+abstract class DualMesh implements IsosurfaceExtractor {
+
+    // the field to extract the surface from
+    protected final DensityField field;
+
+    // the density at which the surface is extracted
+    protected final float isoLevel;
+
+    // the color the mesh was created with, reused by remesh
+    private Vector4f color;
+
+    // the generated vertex data, three floats per vertex
+    private float[] positions, normals;
+    private int vertexCount;
+
+    // the generated triangles, three indices per triangle
+    private int[] indices;
+    private int indexCount;
+
+    /**
+     * default constructor for a specified field and iso level
+     * @param field - the sampled density field
+     * @param isoLevel - the density at which the surface is extracted
+     */
+    protected DualMesh(DensityField field, float isoLevel) {
+        this.field = field;
+        this.isoLevel = isoLevel;
+    }
+
+    /**
+     * places the vertex of a cell from the points where the surface crosses its edges
+     * @param count - the amount of crossed edges
+     * @param points - the crossing points in sample coordinates, three floats each
+     * @param normals - the unit surface normals at the crossing points, three floats each
+     * @param x - the x index of the cell
+     * @param y - the y index of the cell
+     * @param z - the z index of the cell
+     * @param out - receives the vertex position in sample coordinates
+     */
+    protected abstract void placeVertex(int count, float[] points, float[] normals, int x, int y, int z, float[] out);
+
+    /**
+     * extracts the surface into an indexed mesh
+     * @param color - the color of the mesh
+     * @return - the new mesh
+     */
+    @Override
+    public Mesh createMesh(Vector4f color) {
+        this.color = color;
+        build();
+        return new Mesh(toData());
+    }
+
+    /**
+     * extracts the whole field again - the dual methods keep no per cell bookkeeping to patch a region with
+     * @param mesh - the mesh returned by createMesh
+     * @param minX - the lowest x index of the changed samples
+     * @param minY - the lowest y index of the changed samples
+     * @param minZ - the lowest z index of the changed samples
+     * @param maxX - the highest x index of the changed samples, inclusive
+     * @param maxY - the highest y index of the changed samples, inclusive
+     * @param maxZ - the highest z index of the changed samples, inclusive
+     */
+    @Override
+    public void remesh(Mesh mesh, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        if (color == null) {
+            throw new IllegalStateException("The mesh has to be created before it can be remeshed.");
+        }
+        build();
+        mesh.update(toData(), 0, 0, indexCount);
+    }
+
+    /**
+     * places a vertex in every crossed cell, then joins them with a quad around every crossed edge
+     */
+    private void build() {
+        int sx = field.getSizeX(), sy = field.getSizeY(), sz = field.getSizeZ();
+        int cx = sx - 1, cy = sy - 1;
+
+        positions = new float[3 * Math.max(64, sx * sy)];
+        normals = new float[positions.length];
+        indices = new int[positions.length * 2];
+        vertexCount = 0;
+        indexCount = 0;
+
+        // the vertex of every cell, -1 where the surface does not cross
+        int[] cellVertices = new int[cx * cy * (sz - 1)];
+        Arrays.fill(cellVertices, -1);
+
+        float[] d = new float[8];
+        float[] gx = new float[8], gy = new float[8], gz = new float[8];
+        float[] points = new float[36], edgeNormals = new float[36];
+        float[] vertex = new float[3];
+        float cellSize = field.getCellSize();
+
+        float[] values = field.getValues();
+        int layer = sx * sy;
+        for (int z = 0; z < sz - 1; z++) {
+            for (int y = 0; y < cy; y++) {
+                int i0 = field.index(0, y, z);
+                for (int x = 0; x < cx; x++) {
+                    // corners in the order of MCTables.CORNERS
+                    int i = i0 + x;
+                    d[0] = values[i];
+                    d[1] = values[i + 1];
+                    d[2] = values[i + 1 + sx];
+                    d[3] = values[i + sx];
+                    d[4] = values[i + layer];
+                    d[5] = values[i + 1 + layer];
+                    d[6] = values[i + 1 + sx + layer];
+                    d[7] = values[i + sx + layer];
+                    int cube = 0;
+                    for (int c = 0; c < 8; c++) {
+                        if (d[c] >= isoLevel) {
+                            cube |= 1 << c;
+                        }
+                    }
+                    if (cube == 0 || cube == 255) {
+                        continue;
+                    }
+
+                    // the density increases into the solid, so the surface normal is the negative gradient
+                    for (int c = 0; c < 8; c++) {
+                        int[] corner = MCTables.CORNERS[c];
+                        gx[c] = -field.gradientX(x + corner[0], y + corner[1], z + corner[2]);
+                        gy[c] = -field.gradientY(x + corner[0], y + corner[1], z + corner[2]);
+                        gz[c] = -field.gradientZ(x + corner[0], y + corner[1], z + corner[2]);
+                    }
+
+                    // the crossing point and normal on every crossed edge, and their average normal
+                    int count = 0;
+                    float nx = 0, ny = 0, nz = 0;
+                    for (int[] edge : MCTables.EDGES) {
+                        int a = edge[0], b = edge[1];
+                        if (((cube >> a) & 1) == ((cube >> b) & 1)) {
+                            continue;
+                        }
+                        int[] ca = MCTables.CORNERS[a], cb = MCTables.CORNERS[b];
+                        float t = (isoLevel - d[a]) / (d[b] - d[a]);
+                        points[3 * count    ] = x + ca[0] + t * (cb[0] - ca[0]);
+                        points[3 * count + 1] = y + ca[1] + t * (cb[1] - ca[1]);
+                        points[3 * count + 2] = z + ca[2] + t * (cb[2] - ca[2]);
+
+                        float ex = gx[a] + t * (gx[b] - gx[a]);
+                        float ey = gy[a] + t * (gy[b] - gy[a]);
+                        float ez = gz[a] + t * (gz[b] - gz[a]);
+                        float length = (float) Math.sqrt(ex * ex + ey * ey + ez * ez);
+                        if (length > 0) {
+                            ex /= length;
+                            ey /= length;
+                            ez /= length;
+                        }
+                        edgeNormals[3 * count    ] = ex;
+                        edgeNormals[3 * count + 1] = ey;
+                        edgeNormals[3 * count + 2] = ez;
+                        nx += ex;
+                        ny += ey;
+                        nz += ez;
+                        count++;
+                    }
+
+                    placeVertex(count, points, edgeNormals, x, y, z, vertex);
+                    float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+                    if (length > 0) {
+                        nx /= length;
+                        ny /= length;
+                        nz /= length;
+                    }
+                    cellVertices[x + cx * (y + cy * z)] = appendVertex(
+                            field.getOriginX() + vertex[0] * cellSize,
+                            field.getOriginY() + vertex[1] * cellSize,
+                            field.getOriginZ() + vertex[2] * cellSize,
+                            nx, ny, nz);
+                }
+            }
+        }
+
+        // a quad around every crossed edge whose lower end is owned by this field
+        int[] p = new int[3];
+        for (int z = 1; z < sz - 1; z++) {
+            for (int y = 1; y < sy - 1; y++) {
+                for (int x = 1; x < sx - 1; x++) {
+                    boolean solid = field.get(x, y, z) >= isoLevel;
+                    for (int axis = 0; axis < 3; axis++) {
+                        boolean next = field.get(x + (axis == 0 ? 1 : 0), y + (axis == 1 ? 1 : 0), z + (axis == 2 ? 1 : 0)) >= isoLevel;
+                        if (solid == next) {
+                            continue;
+                        }
+
+                        // the four cells around the edge, counterclockwise around the axis
+                        int u = (axis + 1) % 3, v = (axis + 2) % 3;
+                        p[0] = x;
+                        p[1] = y;
+                        p[2] = z;
+                        p[u]--;
+                        p[v]--;
+                        int v0 = cellVertices[p[0] + cx * (p[1] + cy * p[2])];
+                        p[u]++;
+                        int v1 = cellVertices[p[0] + cx * (p[1] + cy * p[2])];
+                        p[v]++;
+                        int v2 = cellVertices[p[0] + cx * (p[1] + cy * p[2])];
+                        p[u]--;
+                        int v3 = cellVertices[p[0] + cx * (p[1] + cy * p[2])];
+
+                        // the normal points away from the solid end of the edge
+                        if (solid) {
+                            addQuad(v0, v1, v2, v3);
+                        } else {
+                            addQuad(v0, v3, v2, v1);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * adds a quad as two triangles, split along its shorter diagonal
+     * @param v0 - the first corner
+     * @param v1 - the second corner
+     * @param v2 - the third corner
+     * @param v3 - the fourth corner
+     */
+    private void addQuad(int v0, int v1, int v2, int v3) {
+        if (indexCount + 6 > indices.length) {
+            indices = Arrays.copyOf(indices, indices.length * 2);
+        }
+        if (distanceSquared(v0, v2) <= distanceSquared(v1, v3)) {
+            indices[indexCount++] = v0;
+            indices[indexCount++] = v1;
+            indices[indexCount++] = v2;
+            indices[indexCount++] = v0;
+            indices[indexCount++] = v2;
+            indices[indexCount++] = v3;
+        } else {
+            indices[indexCount++] = v1;
+            indices[indexCount++] = v2;
+            indices[indexCount++] = v3;
+            indices[indexCount++] = v1;
+            indices[indexCount++] = v3;
+            indices[indexCount++] = v0;
+        }
+    }
+
+    /**
+     * finds the squared distance between two generated vertices
+     * @param a - the first vertex
+     * @param b - the second vertex
+     * @return - the squared distance
+     */
+    private float distanceSquared(int a, int b) {
+        float dx = positions[3 * a] - positions[3 * b];
+        float dy = positions[3 * a + 1] - positions[3 * b + 1];
+        float dz = positions[3 * a + 2] - positions[3 * b + 2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * adds a vertex to the generated vertex data
+     * @param px - the x position
+     * @param py - the y position
+     * @param pz - the z position
+     * @param nx - the x component of the normal
+     * @param ny - the y component of the normal
+     * @param nz - the z component of the normal
+     * @return - the index of the new vertex
+     */
+    private int appendVertex(float px, float py, float pz, float nx, float ny, float nz) {
+        if (vertexCount * 3 == positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+            normals = Arrays.copyOf(normals, normals.length * 2);
+        }
+
+        int p = vertexCount * 3;
+        positions[p    ] = px;
+        positions[p + 1] = py;
+        positions[p + 2] = pz;
+        normals[p    ] = nx;
+        normals[p + 1] = ny;
+        normals[p + 2] = nz;
+
+        return vertexCount++;
+    }
+
+    /**
+     * copies the generated vertex data into mesh data of its own
+     * @return - the mesh data
+     */
+    private MeshData toData() {
+        return new MeshData(Arrays.copyOf(positions, 3 * vertexCount), MeshData.uniformColors(color, vertexCount), null,
+                Arrays.copyOf(normals, 3 * vertexCount), Arrays.copyOf(indices, indexCount));
+    }
+
+    /**
+     * getter method
+     * @return - the field this mesh is extracted from
+     */
+    @Override
+    public DensityField getField() {
+        return this.field;
+    }
+
+    /**
+     * getter method
+     * @return - the density at which the surface is extracted
+     */
+    @Override
+    public float getIsoLevel() {
+        return this.isoLevel;
+    }
+}
@@ -0,0 +1,49 @@
+package com.bramerlabs.terra_nova.main.marching_cubes;
+
+public enum Isosurface {
+
+    // one vertex per crossed edge, thin triangles but an exact match at shared borders
+    MARCHING_CUBES(1),
+
+    // one vertex per crossed cell at the average of its edge crossings
+    SURFACE_NETS(2),
+
+    // one vertex per crossed cell where the edge tangent planes meet, keeping sharp features
+    DUAL_CONTOURING(2);
+
+    // how many layers of samples neighbouring fields must share for their surfaces to join without a seam
+    private final int overlap;
+
+    /**
+     * default constructor
+     * @param overlap - how many layers of samples neighbouring fields must share
+     */
+    Isosurface(int overlap) {
+        this.overlap = overlap;
+    }
+
+    /**
+     * creates an extractor of this kind for a field
+     * @param field - the sampled density field
+     * @param isoLevel - the density at which the surface is extracted
+     * @return - the new extractor
+     */
+    public IsosurfaceExtractor create(DensityField field, float isoLevel) {
+        switch (this) {
+            case SURFACE_NETS:
+                return new SNMesh(field, isoLevel);
+            case DUAL_CONTOURING:
+                return new DCMesh(field, isoLevel);
+            default:
+                return new MCMesh(field, isoLevel);
+        }
+    }
+
+    /**
+     * getter method
+     * @return - how many layers of samples neighbouring fields must share for their surfaces to join without a seam
+     */
+    public int getOverlap() {
+        return this.overlap;
+    }
+}
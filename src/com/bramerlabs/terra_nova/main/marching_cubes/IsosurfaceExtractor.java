@@ -0,0 +1,38 @@
+package com.bramerlabs.terra_nova.main.marching_cubes;
+
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.math.Vector4f;
+
+public interface IsosurfaceExtractor {
+
+    /**
+     * extracts the surface of the field into an indexed mesh
+     * @param color - the color of the mesh
+     * @return - the new mesh
+     */
+    Mesh createMesh(Vector4f color);
+
+    /**
+     * brings a mesh created by this extractor up to date after samples of the field changed
+     * @param mesh - the mesh returned by createMesh
+     * @param minX - the lowest x index of the changed samples
+     * @param minY - the lowest y index of the changed samples
+     * @param minZ - the lowest z index of the changed samples
+     * @param maxX - the highest x index of the changed samples, inclusive
+     * @param maxY - the highest y index of the changed samples, inclusive
+     * @param maxZ - the highest z index of the changed samples, inclusive
+     */
+    void remesh(Mesh mesh, int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
+
+    /**
+     * getter method
+     * @return - the field the surface is extracted from
+     */
+    DensityField getField();
+
+    /**
+     * getter method
+     * @return - the density at which the surface is extracted
+     */
+    float getIsoLevel();
+}
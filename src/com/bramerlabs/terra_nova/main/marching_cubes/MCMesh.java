@@ -1,60 +1,589 @@
 package com.bramerlabs.terra_nova.main.marching_cubes;
 
-import com.bramerlabs.engine.math.shapes_2d.Triangle;
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.graphics.MeshData;
+import com.bramerlabs.engine.math.Vector4f;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
-public class MCMesh {
+public class MCMesh implements IsosurfaceExtractor {
 
-    private int cubeCount = 10;
+    // the amount of samples along each axis of the default test field
+    private static final int DEFAULT_SIZE = 10;
 
-    private int cubeSize = 1;
+    // the radius of the sphere in the default test field
+    private static final float DEFAULT_RADIUS = 4;
 
-    private int[] x, y, z;
+    // the field to extract the surface from
+    private final DensityField field;
 
-    private int[][][] cases;
+    // the density at which the surface is extracted
+    private final float isoLevel;
 
-    private ArrayList<Triangle> faces;
+    // the generated vertex data, three floats per vertex
+    private float[] positions, normals;
+    private int vertexCount;
+
+    // the generated triangles, three indices per triangle
+    private int[] indices;
+    private int indexCount;
+
+    // the cell each triangle came from, or a negative value for skirts and for slots freed by a remesh
+    private int[] owners;
+
+    // the color and skirt length the mesh was created with, reused by remesh
+    private Vector4f color;
+    private float skirtLength;
+
+    // the amount of vertices after the last full extraction, and the triangle slots freed since then
+    private int builtVertexCount;
+    private int freeTriangles;
+
+    // the owner of a triangle slot that no longer holds a triangle
+    private static final int FREE = Integer.MIN_VALUE;
 
     /**
-     * main constructor
+     * main constructor - a sphere of radius 4 around the origin, sampled on a 10 x 10 x 10 grid
      */
     public MCMesh() {
-        x = new int[cubeCount / cubeSize];
-        y = new int[cubeCount / cubeSize];
-        z = new int[cubeCount / cubeSize];
-        for (int i = 0; i < cubeCount / cubeSize; i++) {
-            x[i] = i;
-            y[i] = i;
-            z[i] = i;
-        }
-        cases = new int[x.length - 1][y.length - 1][z.length - 1];
-    }
-
-    private boolean function(float x, float y, float z) {
-        return x * x + y * y + z * z < 4 * 4;
-    }
-
-    private void createMesh() {
-        for (int i = 0; i < x.length - 1; i++) {
-            for (int j = 0; j < y.length - 1; j++) {
-                for (int k = 0; k < z.length - 1; k++) {
-                    int x1 = x[i], x2 = x[i+1];
-                    int y1 = y[j], y2 = y[j+1];
-                    int z1 = z[k], z2 = z[k+1];
-
-                    int q1 = function(x2, y2, z2) ? 1 : 0;
-                    int q2 = function(x2, y2, y1) ? 10 : 0;
-                    int q3 = function(x1, y2, z1) ? 100 : 0;
-                    int q4 = function(x1, y2, z2) ? 1000 : 0;
-                    int q5 = function(x2, y1, z2) ? 10000 : 0;
-                    int q6 = function(x2, y1, z1) ? 100000 : 0;
-                    int q7 = function(x1, y1, z1) ? 1000000 : 0;
-                    int q8 = function(x1, y1, z2) ? 10000000 : 0;
-
-                    cases[i][j][k] = q1 + q2 + q3 + q4 + q5 + q6 + q7 + q8;
+        this(new DensityField(DEFAULT_SIZE, DEFAULT_SIZE, DEFAULT_SIZE, 0, 0, 0, 1)
+                .sample((x, y, z) -> DEFAULT_RADIUS * DEFAULT_RADIUS - (x * x + y * y + z * z)), 0);
+    }
+
+    /**
+     * default constructor for a specified field and iso level
+     * @param field - the sampled density field
+     * @param isoLevel - the density at which the surface is extracted
+     */
+    public MCMesh(DensityField field, float isoLevel) {
+        this.field = field;
+        this.isoLevel = isoLevel;
+    }
+
+    /**
+     * extracts the surface into an indexed mesh
+     * every vertex lies on a grid edge and is shared by all triangles touching that edge
+     * @param color - the color of the mesh
+     * @return - the new mesh
+     */
+    @Override
+    public Mesh createMesh(Vector4f color) {
+        return createMesh(color, 0);
+    }
+
+    /**
+     * extracts the surface into an indexed mesh with skirts around the border of the field
+     * a skirt hangs off the outline of the surface on each side of the field, lying in that side's plane and
+     * reaching into the solid, so cracks against a neighbouring field of a different resolution are covered
+     * @param color - the color of the mesh
+     * @param skirtLength - how far the skirts reach into the solid, 0 for no skirts
+     * @return - the new mesh
+     */
+    public Mesh createMesh(Vector4f color, float skirtLength) {
+        this.color = color;
+        this.skirtLength = skirtLength;
+        build();
+        return new Mesh(toData());
+    }
+
+    /**
+     * re-extracts the surface around samples whose densities changed, and patches the mesh to match
+     * only the cells whose vertex positions or normals depend on the changed samples are run again. their old
+     * triangles are dropped, the new ones take over the freed slots, and the mesh only uploads what moved.
+     * vertices on the border of the region are recreated rather than shared, at exactly the same position.
+     * once the mesh has collected as much garbage as it holds live data, the whole field is extracted again.
+     * @param mesh - the mesh returned by createMesh
+     * @param minX - the lowest x index of the changed samples
+     * @param minY - the lowest y index of the changed samples
+     * @param minZ - the lowest z index of the changed samples
+     * @param maxX - the highest x index of the changed samples, inclusive
+     * @param maxY - the highest y index of the changed samples, inclusive
+     * @param maxZ - the highest z index of the changed samples, inclusive
+     */
+    @Override
+    public void remesh(Mesh mesh, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        if (color == null) {
+            throw new IllegalStateException("The mesh has to be created before it can be remeshed.");
+        }
+
+        // too much garbage - start over
+        if (vertexCount > 2 * builtVertexCount + 1024 || 2 * freeTriangles > indexCount / 3) {
+            build();
+            mesh.update(toData(), 0, 0, indexCount);
+            return;
+        }
+
+        // a normal is the gradient, which reaches one sample further, so the cells around the changed ones go too
+        int sx = field.getSizeX(), sy = field.getSizeY(), sz = field.getSizeZ();
+        int x0 = Math.max(minX - 2, 0), y0 = Math.max(minY - 2, 0), z0 = Math.max(minZ - 2, 0);
+        int x1 = Math.min(maxX + 1, sx - 2), y1 = Math.min(maxY + 1, sy - 2), z1 = Math.min(maxZ + 1, sz - 2);
+        if (x0 > x1 || y0 > y1 || z0 > z1) {
+            return;
+        }
+        boolean[] sides = new boolean[6];
+        for (int axis = 0; axis < 3; axis++) {
+            int low = axis == 0 ? x0 : axis == 1 ? y0 : z0;
+            int high = axis == 0 ? x1 : axis == 1 ? y1 : z1;
+            int cells = (axis == 0 ? sx : axis == 1 ? sy : sz) - 2;
+            sides[2 * axis] = skirtLength > 0 && low == 0;
+            sides[2 * axis + 1] = skirtLength > 0 && high == cells;
+        }
+
+        // free the slots of the triangles from the region
+        int triangles = indexCount / 3;
+        int[] freed = new int[Math.max(16, triangles)];
+        int freedCount = 0;
+        for (int t = 0; t < triangles; t++) {
+            int owner = owners[t];
+            boolean free = owner == FREE;
+            if (owner >= 0) {
+                int x = owner % (sx - 1), y = (owner / (sx - 1)) % (sy - 1), z = owner / ((sx - 1) * (sy - 1));
+                free = x >= x0 && x <= x1 && y >= y0 && y <= y1 && z >= z0 && z <= z1;
+            } else if (owner != FREE) {
+                free = sides[-1 - owner];
+            }
+            if (free) {
+                freed[freedCount++] = t;
+            }
+        }
+
+        // extract the region again, appending to the end
+        int firstVertex = vertexCount;
+        polygonize(x0, y0, z0, x1 + 1, y1 + 1, z1 + 1);
+        for (int side = 0; side < 6; side++) {
+            if (sides[side]) {
+                addSkirt(side / 2, side % 2 == 1, skirtLength);
+            }
+        }
+
+        // move the new triangles into the freed slots, and mark the slots left over as free
+        int next = triangles, end = indexCount / 3;
+        for (int i = 0; i < freedCount; i++) {
+            int t = freed[i];
+            if (next < end) {
+                moveTriangle(next++, t);
+            } else {
+                indices[3 * t] = indices[3 * t + 1] = indices[3 * t + 2] = 0;
+                owners[t] = FREE;
+            }
+        }
+        int appended = end - next;
+        for (int i = 0; i < appended; i++) {
+            moveTriangle(next + i, triangles + i);
+        }
+        indexCount = 3 * (triangles + appended);
+        freeTriangles = Math.max(0, freedCount - (end - triangles));
+
+        // only the slots from the first freed one on have changed
+        int firstIndex = freedCount > 0 ? 3 * freed[0] : 3 * triangles;
+        mesh.update(toData(), firstVertex, firstIndex, indexCount);
+    }
+
+    /**
+     * extracts the whole field, replacing any previous output
+     */
+    private void build() {
+        int sx = field.getSizeX(), sy = field.getSizeY(), sz = field.getSizeZ();
+
+        // a surface usually crosses a couple of cells per column, so start with room for that
+        positions = new float[3 * Math.max(64, sx * sy * 2)];
+        normals = new float[positions.length];
+        indices = new int[positions.length * 2];
+        owners = new int[indices.length / 3];
+        vertexCount = 0;
+        indexCount = 0;
+        freeTriangles = 0;
+
+        polygonize(0, 0, 0, sx - 1, sy - 1, sz - 1);
+        if (skirtLength > 0) {
+            for (int axis = 0; axis < 3; axis++) {
+                addSkirt(axis, false, skirtLength);
+                addSkirt(axis, true, skirtLength);
+            }
+        }
+        builtVertexCount = vertexCount;
+    }
+
+    /**
+     * copies the generated vertex data into mesh data of its own, so later remeshes do not change it under the mesh
+     * @return - the mesh data
+     */
+    private MeshData toData() {
+        return new MeshData(Arrays.copyOf(positions, 3 * vertexCount), MeshData.uniformColors(color, vertexCount), null,
+                Arrays.copyOf(normals, 3 * vertexCount), Arrays.copyOf(indices, indexCount));
+    }
+
+    /**
+     * copies a triangle and its owner to another slot
+     * @param from - the triangle to copy
+     * @param to - the slot to copy it to
+     */
+    private void moveTriangle(int from, int to) {
+        indices[3 * to    ] = indices[3 * from    ];
+        indices[3 * to + 1] = indices[3 * from + 1];
+        indices[3 * to + 2] = indices[3 * from + 2];
+        owners[to] = owners[from];
+    }
+
+    /**
+     * runs marching cubes over a box of cells, one z slab at a time
+     * @param x0 - the lowest x index of the cells
+     * @param y0 - the lowest y index of the cells
+     * @param z0 - the lowest z index of the cells
+     * @param x1 - the highest x index of the cells, exclusive
+     * @param y1 - the highest y index of the cells, exclusive
+     * @param z1 - the highest z index of the cells, exclusive
+     */
+    private void polygonize(int x0, int y0, int z0, int x1, int y1, int z1) {
+        int sx = field.getSizeX(), sy = field.getSizeY();
+        float[] d = field.getValues();
+
+        // vertex indices of the edges on the lower and upper face of the current slab, keyed by the lower corner
+        int[] xEdgesLow = new int[sx * sy], yEdgesLow = new int[sx * sy];
+        int[] xEdgesHigh = new int[sx * sy], yEdgesHigh = new int[sx * sy];
+        int[] zEdges = new int[sx * sy];
+        Arrays.fill(xEdgesLow, -1);
+        Arrays.fill(yEdgesLow, -1);
+
+        int[] cellEdges = new int[12];
+        int layer = sx * sy;
+
+        for (int z = z0; z < z1; z++) {
+            Arrays.fill(xEdgesHigh, -1);
+            Arrays.fill(yEdgesHigh, -1);
+            Arrays.fill(zEdges, -1);
+
+            for (int y = y0; y < y1; y++) {
+                int i0 = field.index(0, y, z);
+
+                // corners on the near x side of the first cell, shifted along as x increases
+                float d0 = d[i0 + x0], d3 = d[i0 + x0 + sx], d4 = d[i0 + x0 + layer], d7 = d[i0 + x0 + sx + layer];
+
+                for (int x = x0; x < x1; x++) {
+                    int i = i0 + x;
+                    float d1 = d[i + 1], d2 = d[i + 1 + sx], d5 = d[i + 1 + layer], d6 = d[i + 1 + sx + layer];
+
+                    int cube = 0;
+                    if (d0 >= isoLevel) cube |= 1;
+                    if (d1 >= isoLevel) cube |= 2;
+                    if (d2 >= isoLevel) cube |= 4;
+                    if (d3 >= isoLevel) cube |= 8;
+                    if (d4 >= isoLevel) cube |= 16;
+                    if (d5 >= isoLevel) cube |= 32;
+                    if (d6 >= isoLevel) cube |= 64;
+                    if (d7 >= isoLevel) cube |= 128;
+
+                    int edgeMask = MCTables.EDGE_TABLE[cube];
+                    if (edgeMask != 0) {
+                        int e = x + sx * y;
+
+                        // look up or create the vertex on every crossed edge
+                        if ((edgeMask & 0x001) != 0) cellEdges[0]  = edgeVertex(xEdgesLow,  e,          x,     y,     z,     0);
+                        if ((edgeMask & 0x002) != 0) cellEdges[1]  = edgeVertex(yEdgesLow,  e + 1,      x + 1, y,     z,     1);
+                        if ((edgeMask & 0x004) != 0) cellEdges[2]  = edgeVertex(xEdgesLow,  e + sx,     x,     y + 1, z,     0);
+                        if ((edgeMask & 0x008) != 0) cellEdges[3]  = edgeVertex(yEdgesLow,  e,          x,     y,     z,     1);
+                        if ((edgeMask & 0x010) != 0) cellEdges[4]  = edgeVertex(xEdgesHigh, e,          x,     y,     z + 1, 0);
+                        if ((edgeMask & 0x020) != 0) cellEdges[5]  = edgeVertex(yEdgesHigh, e + 1,      x + 1, y,     z + 1, 1);
+                        if ((edgeMask & 0x040) != 0) cellEdges[6]  = edgeVertex(xEdgesHigh, e + sx,     x,     y + 1, z + 1, 0);
+                        if ((edgeMask & 0x080) != 0) cellEdges[7]  = edgeVertex(yEdgesHigh, e,          x,     y,     z + 1, 1);
+                        if ((edgeMask & 0x100) != 0) cellEdges[8]  = edgeVertex(zEdges,     e,          x,     y,     z,     2);
+                        if ((edgeMask & 0x200) != 0) cellEdges[9]  = edgeVertex(zEdges,     e + 1,      x + 1, y,     z,     2);
+                        if ((edgeMask & 0x400) != 0) cellEdges[10] = edgeVertex(zEdges,     e + 1 + sx, x + 1, y + 1, z,     2);
+                        if ((edgeMask & 0x800) != 0) cellEdges[11] = edgeVertex(zEdges,     e + sx,     x,     y + 1, z,     2);
+
+                        // emit the triangles of this case
+                        int[] triangles = MCTables.TRI_TABLE[cube];
+                        ensureIndexCapacity(triangles.length);
+                        int owner = x + (sx - 1) * (y + (sy - 1) * z);
+                        for (int t = 0; t < triangles.length; t += 3) {
+                            owners[indexCount / 3] = owner;
+                            indices[indexCount++] = cellEdges[triangles[t]];
+                            indices[indexCount++] = cellEdges[triangles[t + 1]];
+                            indices[indexCount++] = cellEdges[triangles[t + 2]];
+                        }
+                    }
+
+                    // the far side of this cell is the near side of the next one
+                    d0 = d1;
+                    d3 = d2;
+                    d4 = d5;
+                    d7 = d6;
                 }
             }
+
+            // the upper face of this slab is the lower face of the next one
+            int[] temp = xEdgesLow;
+            xEdgesLow = xEdgesHigh;
+            xEdgesHigh = temp;
+            temp = yEdgesLow;
+            yEdgesLow = yEdgesHigh;
+            yEdgesHigh = temp;
+        }
+    }
+
+    /**
+     * gets the vertex on a grid edge, creating it if no other cell has yet
+     * @param cache - the vertex indices of the edges in this layer
+     * @param key - the index of the edge in the cache
+     * @param x - the x index of the lower corner of the edge
+     * @param y - the y index of the lower corner of the edge
+     * @param z - the z index of the lower corner of the edge
+     * @param axis - the axis the edge runs along, 0 = x, 1 = y, 2 = z
+     * @return - the index of the vertex
+     */
+    private int edgeVertex(int[] cache, int key, int x, int y, int z, int axis) {
+        int vertex = cache[key];
+        if (vertex < 0) {
+            vertex = createVertex(x, y, z, axis);
+            cache[key] = vertex;
+        }
+        return vertex;
+    }
+
+    /**
+     * interpolates a new vertex where the surface crosses a grid edge
+     * @param x - the x index of the lower corner of the edge
+     * @param y - the y index of the lower corner of the edge
+     * @param z - the z index of the lower corner of the edge
+     * @param axis - the axis the edge runs along, 0 = x, 1 = y, 2 = z
+     * @return - the index of the new vertex
+     */
+    private int createVertex(int x, int y, int z, int axis) {
+        int x2 = axis == 0 ? x + 1 : x;
+        int y2 = axis == 1 ? y + 1 : y;
+        int z2 = axis == 2 ? z + 1 : z;
+
+        float d1 = field.get(x, y, z);
+        float d2 = field.get(x2, y2, z2);
+        float t = (isoLevel - d1) / (d2 - d1);
+
+        // the position along the edge
+        float cellSize = field.getCellSize();
+        float px = field.getOriginX() + (x + (x2 - x) * t) * cellSize;
+        float py = field.getOriginY() + (y + (y2 - y) * t) * cellSize;
+        float pz = field.getOriginZ() + (z + (z2 - z) * t) * cellSize;
+
+        // the density increases into the solid, so the surface normal is the negative gradient
+        float nx = -lerp(field.gradientX(x, y, z), field.gradientX(x2, y2, z2), t);
+        float ny = -lerp(field.gradientY(x, y, z), field.gradientY(x2, y2, z2), t);
+        float nz = -lerp(field.gradientZ(x, y, z), field.gradientZ(x2, y2, z2), t);
+        float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (length > 0) {
+            nx /= length;
+            ny /= length;
+            nz /= length;
         }
+
+        return appendVertex(px, py, pz, nx, ny, nz);
+    }
+
+    /**
+     * adds a vertex to the generated vertex data
+     * @param px - the x position
+     * @param py - the y position
+     * @param pz - the z position
+     * @param nx - the x component of the normal
+     * @param ny - the y component of the normal
+     * @param nz - the z component of the normal
+     * @return - the index of the new vertex
+     */
+    private int appendVertex(float px, float py, float pz, float nx, float ny, float nz) {
+        if (vertexCount * 3 == positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+            normals = Arrays.copyOf(normals, normals.length * 2);
+        }
+
+        int p = vertexCount * 3;
+        positions[p    ] = px;
+        positions[p + 1] = py;
+        positions[p + 2] = pz;
+        normals[p    ] = nx;
+        normals[p + 1] = ny;
+        normals[p + 2] = nz;
+
+        return vertexCount++;
+    }
+
+    /**
+     * adds a skirt along one side of the field
+     * the outline is found with marching squares using the same rule as the cube faces (solid corners are kept
+     * apart), so it matches the edge of the surface exactly. every outline vertex is pushed along the surface
+     * gradient, flattened into the side's plane, to make the bottom of the skirt. the skirt is double sided
+     * because the crack it covers can be seen from either neighbour.
+     * @param axis - the axis the side faces along, 0 = x, 1 = y, 2 = z
+     * @param far - false for the side at index 0, true for the side at the last index
+     * @param skirtLength - how far the skirt reaches into the solid
+     */
+    private void addSkirt(int axis, boolean far, float skirtLength) {
+        int[] size = {field.getSizeX(), field.getSizeY(), field.getSizeZ()};
+        int uAxis = (axis + 1) % 3, vAxis = (axis + 2) % 3;
+        int nu = size[uAxis], nv = size[vAxis];
+
+        // the top vertex of the skirt on each edge of the side, the bottom vertex always follows it
+        int[] uEdges = new int[nu * nv], vEdges = new int[nu * nv];
+        Arrays.fill(uEdges, -1);
+        Arrays.fill(vEdges, -1);
+
+        // skirt triangles are owned by their side, so a remesh can find them again
+        int owner = -1 - (2 * axis + (far ? 1 : 0));
+
+        int[] p = new int[3];
+        p[axis] = far ? size[axis] - 1 : 0;
+        boolean[] solid = new boolean[4];
+        int[] squareEdges = new int[4];
+
+        for (int v = 0; v < nv - 1; v++) {
+            for (int u = 0; u < nu - 1; u++) {
+                // corners counterclockwise from (u, v)
+                int crossings = 0;
+                for (int c = 0; c < 4; c++) {
+                    p[uAxis] = u + (c == 1 || c == 2 ? 1 : 0);
+                    p[vAxis] = v + (c >= 2 ? 1 : 0);
+                    solid[c] = field.get(p[0], p[1], p[2]) >= isoLevel;
+                }
+                for (int c = 0; c < 4; c++) {
+                    if (solid[c] != solid[(c + 1) % 4]) {
+                        crossings++;
+                    }
+                }
+                if (crossings == 0) {
+                    continue;
+                }
+
+                // the skirt vertices on the crossed edges: 0 = (u, v)-(u+1, v), 1 = (u+1, v)-(u+1, v+1),
+                // 2 = (u, v+1)-(u+1, v+1), 3 = (u, v)-(u, v+1)
+                if (solid[0] != solid[1]) squareEdges[0] = skirtVertex(uEdges, u + nu * v,       p, axis, uAxis, vAxis, u,     v,     uAxis, skirtLength, far);
+                if (solid[1] != solid[2]) squareEdges[1] = skirtVertex(vEdges, u + 1 + nu * v,   p, axis, uAxis, vAxis, u + 1, v,     vAxis, skirtLength, far);
+                if (solid[3] != solid[2]) squareEdges[2] = skirtVertex(uEdges, u + nu * (v + 1), p, axis, uAxis, vAxis, u,     v + 1, uAxis, skirtLength, far);
+                if (solid[0] != solid[3]) squareEdges[3] = skirtVertex(vEdges, u + nu * v,       p, axis, uAxis, vAxis, u,     v,     vAxis, skirtLength, far);
+
+                if (crossings == 2) {
+                    int first = -1, second = -1;
+                    for (int e = 0; e < 4; e++) {
+                        if (solid[e] != solid[(e + 1) % 4]) {
+                            if (first < 0) first = squareEdges[e];
+                            else second = squareEdges[e];
+                        }
+                    }
+                    addSkirtQuad(first, second, owner);
+                } else {
+                    // diagonal corners are solid - cut each solid corner off on its own
+                    for (int c = 0; c < 4; c++) {
+                        if (solid[c]) {
+                            addSkirtQuad(squareEdges[(c + 3) % 4], squareEdges[c], owner);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * gets the skirt vertices on an edge of a side of the field, creating them if no other square has yet
+     * @param cache - the top vertex indices of the edges in this direction
+     * @param key - the index of the edge in the cache
+     * @param p - scratch grid position with the side's axis already set
+     * @param axis - the axis the side faces along
+     * @param uAxis - the first axis in the side's plane
+     * @param vAxis - the second axis in the side's plane
+     * @param u - the u index of the lower corner of the edge
+     * @param v - the v index of the lower corner of the edge
+     * @param edgeAxis - the axis the edge runs along
+     * @param skirtLength - how far the skirt reaches into the solid
+     * @param far - if the side is at the last index of its axis
+     * @return - the index of the top vertex, the bottom vertex is the next one
+     */
+    private int skirtVertex(int[] cache, int key, int[] p, int axis, int uAxis, int vAxis,
+                            int u, int v, int edgeAxis, float skirtLength, boolean far) {
+        if (cache[key] >= 0) {
+            return cache[key];
+        }
+        p[uAxis] = u;
+        p[vAxis] = v;
+        int top = createVertex(p[0], p[1], p[2], edgeAxis);
+
+        // the direction into the solid is the negative normal, flattened into the side's plane
+        float[] direction = {-normals[3 * top], -normals[3 * top + 1], -normals[3 * top + 2]};
+        direction[axis] = 0;
+        float length = (float) Math.sqrt(direction[0] * direction[0] + direction[1] * direction[1] + direction[2] * direction[2]);
+        if (length > 1e-4f) {
+            for (int i = 0; i < 3; i++) {
+                direction[i] *= skirtLength / length;
+            }
+        } else {
+            // the surface runs along the side, so hang the skirt into the field instead
+            direction[axis] = far ? -skirtLength : skirtLength;
+        }
+
+        appendVertex(positions[3 * top] + direction[0], positions[3 * top + 1] + direction[1], positions[3 * top + 2] + direction[2],
+                normals[3 * top], normals[3 * top + 1], normals[3 * top + 2]);
+        cache[key] = top;
+        return top;
+    }
+
+    /**
+     * adds a double sided quad hanging off an outline segment
+     * @param top1 - the top vertex at the start of the segment, its bottom vertex follows it
+     * @param top2 - the top vertex at the end of the segment, its bottom vertex follows it
+     * @param owner - the owner of the side the quad is on
+     */
+    private void addSkirtQuad(int top1, int top2, int owner) {
+        ensureIndexCapacity(12);
+        for (int t = 0; t < 4; t++) {
+            owners[indexCount / 3 + t] = owner;
+        }
+        int bottom1 = top1 + 1, bottom2 = top2 + 1;
+        indices[indexCount++] = top1;
+        indices[indexCount++] = top2;
+        indices[indexCount++] = bottom2;
+        indices[indexCount++] = top1;
+        indices[indexCount++] = bottom2;
+        indices[indexCount++] = bottom1;
+        indices[indexCount++] = top1;
+        indices[indexCount++] = bottom2;
+        indices[indexCount++] = top2;
+        indices[indexCount++] = top1;
+        indices[indexCount++] = bottom1;
+        indices[indexCount++] = bottom2;
+    }
+
+    /**
+     * grows the index and owner arrays so that they can hold more indices
+     * @param count - the amount of indices about to be added
+     */
+    private void ensureIndexCapacity(int count) {
+        if (indexCount + count > indices.length) {
+            indices = Arrays.copyOf(indices, Math.max(indices.length * 2, indexCount + count));
+            owners = Arrays.copyOf(owners, indices.length / 3);
+        }
+    }
+
+    /**
+     * linear interpolation
+     * @param a - the value at t = 0
+     * @param b - the value at t = 1
+     * @param t - the interpolation factor
+     * @return - the interpolated value
+     */
+    private static float lerp(float a, float b, float t) {
+        return a + t * (b - a);
+    }
+
+    /**
+     * getter method
+     * @return - the field this mesh is extracted from
+     */
+    @Override
+    public DensityField getField() {
+        return this.field;
+    }
+
+    /**
+     * getter method
+     * @return - the density at which the surface is extracted
+     */
+    @Override
+    public float getIsoLevel() {
+        return this.isoLevel;
     }
 }
@@ -0,0 +1,36 @@
+package com.bramerlabs.terra_nova.main.marching_cubes;
+
+public class SNMesh extends DualMesh {
+
+    /**
+     * default constructor for a specified field and iso level
+     * @param field - the sampled density field
+     * @param isoLevel - the density at which the surface is extracted
+     */
+    public SNMesh(DensityField field, float isoLevel) {
+        super(field, isoLevel);
+    }
+
+    /**
+     * naive surface nets - the vertex sits at the average of the edge crossings, which smooths the surface
+     * @param count - the amount of crossed edges
+     * @param points - the crossing points in sample coordinates, three floats each
+     * @param normals - the unit surface normals at the crossing points, three floats each
+     * @param x - the x index of the cell
+     * @param y - the y index of the cell
+     * @param z - the z index of the cell
+     * @param out - receives the vertex position in sample coordinates
+     */
+    @Override
+    protected void placeVertex(int count, float[] points, float[] normals, int x, int y, int z, float[] out) {
+        float px = 0, py = 0, pz = 0;
+        for (int i = 0; i < count; i++) {
+            px += points[3 * i];
+            py += points[3 * i + 1];
+            pz += points[3 * i + 2];
+        }
+        out[0] = px / count;
+        out[1] = py / count;
+        out[2] = pz / count;
+    }
+}
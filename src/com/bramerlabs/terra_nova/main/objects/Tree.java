@@ -1,18 +1,31 @@
 package com.bramerlabs.terra_nova.main.objects;
 
 import com.bramerlabs.engine.graphics.Mesh;
-import com.bramerlabs.engine.graphics.Vertex;
+import com.bramerlabs.engine.graphics.MeshData;
+import com.bramerlabs.engine.graphics.MeshOptimizer;
 import com.bramerlabs.engine.math.Vector3f;
 import com.bramerlabs.engine.math.Vector4f;
 import com.bramerlabs.engine.math.noise.SimplexNoiseOctave;
-import com.bramerlabs.engine.math.shapes_2d.Icosahedron;
 import com.bramerlabs.engine.math.shapes_2d.Triangle;
 import com.bramerlabs.engine.objects.untextured.RenderObject;
+import com.bramerlabs.engine.objects.untextured.shapes.Cylinder;
+import com.bramerlabs.engine.objects.untextured.shapes.Sphere;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 public class Tree extends RenderObject {
 
+    // the color of the bark
+    private static final Vector4f BARK = new Vector4f(0.40f, 0.27f, 0.15f, 1.0f);
+
+    // the radius of the trunk at the ground
+    private static final float TRUNK_RADIUS = 0.25f;
+
+    // how far the canopy bulges in and out, relative to its radius, and the size of the bulges
+    private static final float CANOPY_ROUGHNESS = 0.3f, CANOPY_FEATURE = 0.6f;
+
     /**
      * default constructor for specified values
      *
@@ -27,31 +40,120 @@ public class Tree extends RenderObject {
 
     /**
      * procedurally generates a random tree
+     * every call builds a new mesh - trees that share a seed should come from a TreeCache instead
      * @param seed - the seed used to generate the tree
      * @return - a new instance of a tree generated from the seed with the base of the trunk at the origin
      */
     public static Tree getInstance(int seed) {
+        return new Tree(generateMesh(seed), new Vector3f(0), new Vector3f(0), new Vector3f(1));
+    }
+
+    /**
+     * generates the mesh of a tree - a tapering trunk, a few branches, and a lumpy canopy at the top of the trunk and
+     * at the end of every branch, all merged into one mesh
+     * @param seed - the seed used to generate the tree, the same seed always gives the same mesh
+     * @return - the mesh, with the base of the trunk at the origin
+     */
+    public static Mesh generateMesh(int seed) {
         Random random = new Random(seed);
         SimplexNoiseOctave noise = new SimplexNoiseOctave(seed);
+        List<MeshData> parts = new ArrayList<>();
+        Vector4f leaves = new Vector4f(0.20f + 0.15f * random.nextFloat(), 0.45f + 0.20f * random.nextFloat(),
+                0.15f + 0.10f * random.nextFloat(), 1.0f);
+
+        // the trunk skeleton, rising with a little sideways drift, thinner at every joint
+        int segments = 3 + random.nextInt(3);
+        Vector3f[] trunk = new Vector3f[segments + 1];
+        float[] radii = new float[segments + 1];
+        trunk[0] = new Vector3f(0);
+        radii[0] = TRUNK_RADIUS;
+        for (int i = 1; i <= segments; i++) {
+            trunk[i] = Vector3f.add(trunk[i - 1], 0.4f * (random.nextFloat() - 0.5f), 0.8f + 0.6f * random.nextFloat(),
+                    0.4f * (random.nextFloat() - 0.5f));
+            radii[i] = radii[i - 1] * 0.8f;
+            parts.add(MeshOptimizer.optimize(Cylinder.generateData(trunk[i - 1], trunk[i], BARK, radii[i - 1], radii[i])));
+        }
+        Vector3f top = trunk[segments];
+        float height = top.getY();
+        parts.add(canopy(noise, top, height * (0.35f + 0.15f * random.nextFloat()), leaves));
+
+        // branches from the upper half of the trunk, pointing outwards and upwards
+        int branches = 1 + random.nextInt(4);
+        for (int b = 0; b < branches; b++) {
+            int joint = segments / 2 + random.nextInt(segments - segments / 2);
+            double angle = 2 * Math.PI * (b + random.nextFloat() * 0.5f) / branches;
+            float length = height * (0.25f + 0.2f * random.nextFloat());
+            Vector3f start = trunk[joint];
+            Vector3f end = Vector3f.add(start, (float) Math.cos(angle) * length, length * (0.4f + 0.4f * random.nextFloat()),
+                    (float) Math.sin(angle) * length);
+            parts.add(MeshOptimizer.optimize(Cylinder.generateData(start, end, BARK, radii[joint] * 0.6f, radii[joint] * 0.3f)));
+            parts.add(canopy(noise, end, length * (0.5f + 0.2f * random.nextFloat()), leaves));
+        }
+
+        return new Mesh(MeshData.merge(parts));
+    }
+
+    /**
+     * generates a lump of leaves - a sphere whose radius is pushed in and out by noise
+     * @param noise - the noise that shapes the lump
+     * @param center - the center of the lump
+     * @param radius - the radius of the sphere before it is displaced
+     * @param color - the color of the leaves
+     * @return - the vertices and indices of the lump, with a flat normal per face
+     */
+    private static MeshData canopy(SimplexNoiseOctave noise, Vector3f center, float radius, Vector4f color) {
+        List<Triangle> triangles = Sphere.generateTriangles(radius);
+        float[] positions = new float[triangles.size() * 9];
+        float[] normals = new float[positions.length];
+        int[] indices = new int[positions.length / 3];
+        for (int i = 0; i < triangles.size(); i++) {
+            Triangle t = triangles.get(i);
+            Vector3f v1 = displace(noise, center, t.getV1(), radius);
+            Vector3f v2 = displace(noise, center, t.getV2(), radius);
+            Vector3f v3 = displace(noise, center, t.getV3(), radius);
 
-        // generate the skeleton
-        int n = 1 + random.nextInt(5);
-        Vector3f origin = new Vector3f(0, 0, 0);
-        Vector3f[] trunkSkeleton = new Vector3f[n];
-        trunkSkeleton[0] = origin;
-        for (int i = 1; i < n; i++) {
-            Vector3f nextVertex = Vector3f.add(trunkSkeleton[i-1], random.nextFloat(), random.nextFloat(), random.nextFloat());
-            if (nextVertex.y < trunkSkeleton[i-1].y) {
-                break;
-            } else {
-                trunkSkeleton[i] = nextVertex;
+            // faces point away from the center, whichever way the sphere winds them
+            Vector3f normal = Vector3f.cross(Vector3f.subtract(v2, v1), Vector3f.subtract(v3, v1));
+            if (Vector3f.dot(normal, Vector3f.subtract(v1, center)) < 0) {
+                normal = Vector3f.scale(normal, -1);
+            }
+            put(positions, 3 * i, v1);
+            put(positions, 3 * i + 1, v2);
+            put(positions, 3 * i + 2, v3);
+            for (int k = 0; k < 3; k++) {
+                put(normals, 3 * i + k, normal);
             }
         }
-        for (Vector3f vector3f : trunkSkeleton) {
-            System.out.println(vector3f);
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
         }
+        return new MeshData(positions, MeshData.uniformColors(color, indices.length), null, normals, indices);
+    }
 
-        // randomly create points around the skeleton
-        return null;
+    /**
+     * writes a vector into an array of three floats per vertex
+     * @param data - the array
+     * @param vertex - the index of the vertex
+     * @param vector - the vector
+     */
+    private static void put(float[] data, int vertex, Vector3f vector) {
+        data[3 * vertex] = vector.getX();
+        data[3 * vertex + 1] = vector.getY();
+        data[3 * vertex + 2] = vector.getZ();
+    }
+
+    /**
+     * pushes a point of a sphere in or out along its radius
+     * @param noise - the noise that shapes the sphere
+     * @param center - the center of the sphere
+     * @param point - the point, relative to the center
+     * @param radius - the radius of the sphere
+     * @return - the displaced point, in world space
+     */
+    private static Vector3f displace(SimplexNoiseOctave noise, Vector3f center, Vector3f point, float radius) {
+        // sampled in world space, so two lumps of the same tree do not bulge the same way
+        double n = noise.noise((center.getX() + point.getX()) / CANOPY_FEATURE, (center.getY() + point.getY()) / CANOPY_FEATURE,
+                (center.getZ() + point.getZ()) / CANOPY_FEATURE);
+        return Vector3f.add(center, Vector3f.normalize(point, radius * (1 + CANOPY_ROUGHNESS * (float) n)));
     }
-}
\ No newline at end of file
+}
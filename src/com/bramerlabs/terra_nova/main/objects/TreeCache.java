@@ -0,0 +1,97 @@
+package com.bramerlabs.terra_nova.main.objects;
+
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.math.Vector3f;
+
+import java.util.HashMap;
+
+/**
+ * generates every tree variant once and shares its mesh between all the trees grown from the same seed, so a forest
+ * only uploads as many meshes as it has distinct variants
+ *
+ * meshes are generated on first use, and uploaded by create, which has to run on the thread that owns the GL context
+ */
+public class TreeCache {
+
+    // the mesh of every variant generated so far, keyed by seed
+    private final HashMap<Integer, Mesh> meshes = new HashMap<>();
+
+    // how many trees were asked for, and how many of them needed a new mesh
+    private long requests, misses;
+
+    /**
+     * makes a tree that shares its mesh with every other tree of the same seed
+     * @param seed - the seed of the variant
+     * @param position - the position of the base of the trunk
+     * @param rotation - the rotation of the tree
+     * @param scale - the scale of the tree
+     * @return - the new tree
+     */
+    public Tree getTree(int seed, Vector3f position, Vector3f rotation, Vector3f scale) {
+        return new Tree(getMesh(seed), position, rotation, scale);
+    }
+
+    /**
+     * finds the mesh of a variant, generating it the first time
+     * @param seed - the seed of the variant
+     * @return - the shared mesh
+     */
+    public Mesh getMesh(int seed) {
+        requests++;
+        Mesh mesh = meshes.get(seed);
+        if (mesh == null) {
+            misses++;
+            mesh = Tree.generateMesh(seed);
+            meshes.put(seed, mesh);
+        }
+        return mesh;
+    }
+
+    /**
+     * uploads every mesh that has not been uploaded yet
+     */
+    public void create() {
+        for (Mesh mesh : meshes.values()) {
+            if (mesh.getVAO() == 0) {
+                mesh.create();
+            }
+        }
+    }
+
+    /**
+     * deletes every uploaded mesh and forgets every variant
+     */
+    public void destroy() {
+        for (Mesh mesh : meshes.values()) {
+            if (mesh.getVAO() != 0) {
+                mesh.destroy();
+            }
+        }
+        meshes.clear();
+    }
+
+    /**
+     * getter method
+     * @return - the amount of distinct variants generated
+     */
+    public int getVariantCount() {
+        return meshes.size();
+    }
+
+    /**
+     * getter method
+     * @return - the amount of trees that reused a mesh, as a fraction of every tree asked for
+     */
+    public double getHitRate() {
+        return requests == 0 ? 0 : (double) (requests - misses) / requests;
+    }
+
+    /**
+     * describes how well the cache is doing
+     * @return - the variants, trees and hit rate
+     */
+    @Override
+    public String toString() {
+        return String.format("%d variants for %d trees, %.1f%% hits", meshes.size(), requests, 100 * getHitRate());
+    }
+}
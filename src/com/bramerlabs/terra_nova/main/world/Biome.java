@@ -0,0 +1,60 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import com.bramerlabs.engine.math.Vector4f;
+
+public enum Biome {
+
+    // temperate woodland - plenty of trees on green, rolling ground
+    FOREST(0.8f, new Vector4f(0.3f, 0.6f, 0.2f, 1), 1),
+
+    // hot and dry - the odd tree on flat sand
+    DESERT(0.03f, new Vector4f(0.85f, 0.75f, 0.5f, 1), 0.4f),
+
+    // cold - sparse, stunted trees on pale ground
+    TUNDRA(0.15f, new Vector4f(0.75f, 0.8f, 0.8f, 1), 0.7f);
+
+    // the fraction of scattered points that grow a tree
+    private final float treeDensity;
+
+    // the color of the ground
+    private final Vector4f color;
+
+    // how tall the terrain is, relative to the forest
+    private final float heightScale;
+
+    /**
+     * default constructor
+     * @param treeDensity - the fraction of scattered points that grow a tree
+     * @param color - the color of the ground
+     * @param heightScale - how tall the terrain is, relative to the forest
+     */
+    Biome(float treeDensity, Vector4f color, float heightScale) {
+        this.treeDensity = treeDensity;
+        this.color = color;
+        this.heightScale = heightScale;
+    }
+
+    /**
+     * getter method
+     * @return - the fraction of scattered points that grow a tree
+     */
+    public float getTreeDensity() {
+        return this.treeDensity;
+    }
+
+    /**
+     * getter method
+     * @return - a copy of the color of the ground
+     */
+    public Vector4f getColor() {
+        return new Vector4f(this.color);
+    }
+
+    /**
+     * getter method
+     * @return - how tall the terrain is, relative to the forest
+     */
+    public float getHeightScale() {
+        return this.heightScale;
+    }
+}
@@ -0,0 +1,260 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import com.bramerlabs.engine.math.Hash;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.engine.math.noise.SimplexNoise;
+import com.bramerlabs.engine.math.noise.WorleyNoise;
+
+import java.util.Arrays;
+
+/**
+ * splits the world into regions of cellular noise and gives each region a biome from the climate at its feature point
+ * - cold ground is tundra, hot and dry ground is desert, everything else is forest. temperature, moisture and height are
+ * smooth noise fields, and height cools the climate, so tundra gathers on high ground
+ *
+ * near the border between two regions their biomes are blended, so tree density, ground color and terrain shape change
+ * gradually instead of at a hard edge
+ *
+ * everything is a function of the seed and the position only, and the noise is read only after construction, so any
+ * chunk can be classified on its own, in any order, on any thread
+ */
+public class BiomeMap {
+
+    // the average distance between the centres of two regions, in world units
+    private static final float REGION_SIZE = 256;
+
+    // the size of the largest features of the climate fields
+    private static final float CLIMATE_FEATURE = 1024;
+
+    // how much each smaller octave of the climate contributes
+    private static final float PERSISTENCE = 0.5f;
+
+    // the width of the blend between two regions, in cells of the region noise
+    private static final float BLEND = 0.15f;
+
+    // how much the temperature drops where the height noise is 1
+    private static final float LAPSE = 0.5f;
+
+    // below this temperature is tundra, and above this temperature and below this moisture is desert
+    private static final float COLD = -0.2f, HOT = 0f, DRY = 0f;
+
+    // the biomes, in the order of the weights
+    private static final Biome[] BIOMES = Biome.values();
+
+    // the seed of the world
+    private final int seed;
+
+    // the regions, one per feature point
+    private final WorleyNoise regions;
+
+    // the climate fields
+    private final SimplexNoise temperature, moisture, height;
+
+    /**
+     * default constructor
+     * @param seed - the seed of the world
+     */
+    public BiomeMap(int seed) {
+        this.seed = seed;
+        this.regions = new WorleyNoise(seed, REGION_SIZE);
+        this.temperature = new SimplexNoise(CLIMATE_FEATURE, PERSISTENCE, seed + 1);
+        this.moisture = new SimplexNoise(CLIMATE_FEATURE, PERSISTENCE, seed + 2);
+        this.height = new SimplexNoise(CLIMATE_FEATURE, PERSISTENCE, seed + 3);
+    }
+
+    /**
+     * classifies the climate at a point, ignoring the regions
+     * @param x - the x position
+     * @param z - the z position
+     * @return - the biome the climate at (x, z) belongs to
+     */
+    public Biome classify(float x, float z) {
+        float t = (float) temperature.getNoise2D(x, z) - LAPSE * Math.max((float) height.getNoise2D(x, z), 0);
+        if (t < COLD) {
+            return Biome.TUNDRA;
+        }
+        if (t > HOT && moisture.getNoise2D(x, z) < DRY) {
+            return Biome.DESERT;
+        }
+        return Biome.FOREST;
+    }
+
+    /**
+     * finds the biome of a region
+     * @param cell - the cell of the region, as packed by WorleyNoise
+     * @param feature - scratch space for the position of the region's feature point
+     * @return - the biome of the climate at the region's feature point
+     */
+    private Biome regionBiome(long cell, float[] feature) {
+        regions.getFeature(cell, feature);
+        return classify(feature[0], feature[1]);
+    }
+
+    /**
+     * finds the biome of the region a point is in
+     * @param x - the x position
+     * @param z - the z position
+     * @return - the biome of the region containing (x, z)
+     */
+    public Biome getBiome(float x, float z) {
+        long[] cells = new long[2];
+        regions.getNoise2D(x, z, null, cells);
+        return regionBiome(cells[0], new float[2]);
+    }
+
+    /**
+     * works out how much each biome contributes at a point
+     * @param x - the x position
+     * @param z - the z position
+     * @param weights - receives the weight of every biome, in the order of Biome.values(), summing to 1
+     */
+    public void getWeights(float x, float z, float[] weights) {
+        float[] distances = new float[2];
+        long[] cells = new long[2];
+        float[] feature = new float[2];
+        regions.getNoise2D(x, z, distances, cells);
+        blend(regionBiome(cells[0], feature), regionBiome(cells[1], feature), distances, weights, 0);
+    }
+
+    /**
+     * works out the biome weights of a square grid of samples over a chunk
+     * the samples include both edges of the chunk, so neighbouring chunks agree where they meet. the biome of each region
+     * is only classified once per chunk, however many samples fall in it
+     * @param chunkX - the x coordinate of the chunk
+     * @param chunkZ - the z coordinate of the chunk
+     * @param chunkSize - the length of each side of a chunk
+     * @param samples - the amount of samples along each side, at least 2
+     * @return - the weight of every biome at every sample, x first, Biome.values().length per sample
+     */
+    public float[] sampleChunk(int chunkX, int chunkZ, float chunkSize, int samples) {
+        if (samples < 2) {
+            throw new IllegalArgumentException("A chunk needs at least 2 samples along each side, got " + samples + ".");
+        }
+        float[] weights = new float[samples * samples * BIOMES.length];
+        float[] distances = new float[2];
+        long[] cells = new long[2];
+        float[] feature = new float[2];
+        Biome[] pair = new Biome[2];
+
+        // the regions seen so far in this chunk and their biomes - only a handful, so a linear search is fastest
+        long[] seen = new long[8];
+        Biome[] biomes = new Biome[8];
+        int seenCount = 0;
+
+        float step = chunkSize / (samples - 1);
+        for (int j = 0; j < samples; j++) {
+            for (int i = 0; i < samples; i++) {
+                regions.getNoise2D(chunkX * chunkSize + i * step, chunkZ * chunkSize + j * step, distances, cells);
+                for (int c = 0; c < 2; c++) {
+                    int k = 0;
+                    while (k < seenCount && seen[k] != cells[c]) {
+                        k++;
+                    }
+                    if (k == seenCount) {
+                        if (seenCount == seen.length) {
+                            seen = Arrays.copyOf(seen, seenCount * 2);
+                            biomes = Arrays.copyOf(biomes, seenCount * 2);
+                        }
+                        seen[k] = cells[c];
+                        biomes[k] = regionBiome(cells[c], feature);
+                        seenCount++;
+                    }
+                    pair[c] = biomes[k];
+                }
+                blend(pair[0], pair[1], distances, weights, (i + samples * j) * BIOMES.length);
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * blends the biomes of the two nearest regions by how far a point is from the border between them
+     * @param nearest - the biome of the nearest region
+     * @param second - the biome of the second nearest region
+     * @param distances - the distances to the feature points of both regions, in cells
+     * @param weights - receives the weights
+     * @param offset - the index in the weights of the first biome
+     */
+    private static void blend(Biome nearest, Biome second, float[] distances, float[] weights, int offset) {
+        for (int b = 0; b < BIOMES.length; b++) {
+            weights[offset + b] = 0;
+        }
+
+        // half and half on the border, all the nearest region a blend width away from it
+        float t = Math.min((distances[1] - distances[0]) / BLEND, 1);
+        float w = 0.5f + 0.5f * t * t * (3 - 2 * t);
+        weights[offset + nearest.ordinal()] += w;
+        weights[offset + second.ordinal()] += 1 - w;
+    }
+
+    /**
+     * blends the tree density of the biomes at a point
+     * @param x - the x position
+     * @param z - the z position
+     * @return - the fraction of scattered points that grow a tree
+     */
+    public float getTreeDensity(float x, float z) {
+        float[] weights = new float[BIOMES.length];
+        getWeights(x, z, weights);
+        float density = 0;
+        for (int b = 0; b < BIOMES.length; b++) {
+            density += weights[b] * BIOMES[b].getTreeDensity();
+        }
+        return density;
+    }
+
+    /**
+     * blends the height scale of the biomes at a point
+     * @param x - the x position
+     * @param z - the z position
+     * @return - how tall the terrain is, relative to the forest
+     */
+    public float getHeightScale(float x, float z) {
+        float[] weights = new float[BIOMES.length];
+        getWeights(x, z, weights);
+        float scale = 0;
+        for (int b = 0; b < BIOMES.length; b++) {
+            scale += weights[b] * BIOMES[b].getHeightScale();
+        }
+        return scale;
+    }
+
+    /**
+     * blends the ground color of the biomes at a point
+     * @param x - the x position
+     * @param z - the z position
+     * @return - the color of the ground
+     */
+    public Vector4f getColor(float x, float z) {
+        float[] weights = new float[BIOMES.length];
+        getWeights(x, z, weights);
+        Vector4f color = new Vector4f(0);
+        for (int b = 0; b < BIOMES.length; b++) {
+            Vector4f c = BIOMES[b].getColor();
+            color.set(color.getX() + weights[b] * c.getX(), color.getY() + weights[b] * c.getY(),
+                    color.getZ() + weights[b] * c.getZ(), color.getW() + weights[b] * c.getW());
+        }
+        return color;
+    }
+
+    /**
+     * makes a mask that thins scattered points out to the tree density of the biomes
+     * whether a point is kept depends only on its position and the seed, so the same point is always kept or dropped
+     * @return - the mask
+     */
+    public PlacementMask getTreeMask() {
+        return (x, z) -> {
+            // hashed over the exact position, so nearby points are kept independently
+            long h = Hash.hash(seed, Float.floatToIntBits(x), Float.floatToIntBits(z));
+            return Hash.toUnitFloat(h) < getTreeDensity(x, z);
+        };
+    }
+
+    /**
+     * getter method
+     * @return - the region noise
+     */
+    public WorleyNoise getRegions() {
+        return this.regions;
+    }
+}
@@ -0,0 +1,158 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import com.bramerlabs.engine.math.Key3;
+import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.terra_nova.main.marching_cubes.DensityField;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Brush {
+
+    // the center of the brush in world space
+    private final Vector3f center;
+
+    // the radius of the brush in world units
+    private final float radius;
+
+    // the density added at the center, negative to dig
+    private final float strength;
+
+    /**
+     * default constructor
+     * @param center - the center of the brush in world space
+     * @param radius - the radius of the brush in world units
+     * @param strength - the density added at the center, falling off smoothly to 0 at the radius, negative to dig
+     */
+    public Brush(Vector3f center, float radius, float strength) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException("Brush radius must be positive, was " + radius + ".");
+        }
+        this.center = new Vector3f(center.x, center.y, center.z);
+        this.radius = radius;
+        this.strength = strength;
+    }
+
+    /**
+     * creates a brush that removes terrain
+     * @param center - the center of the brush
+     * @param radius - the radius of the brush
+     * @param strength - the density removed at the center
+     * @return - the new brush
+     */
+    public static Brush dig(Vector3f center, float radius, float strength) {
+        return new Brush(center, radius, -Math.abs(strength));
+    }
+
+    /**
+     * creates a brush that adds terrain
+     * @param center - the center of the brush
+     * @param radius - the radius of the brush
+     * @param strength - the density added at the center
+     * @return - the new brush
+     */
+    public static Brush raise(Vector3f center, float radius, float strength) {
+        return new Brush(center, radius, Math.abs(strength));
+    }
+
+    /**
+     * finds the change in density at a position
+     * @param x - the x position
+     * @param y - the y position
+     * @param z - the z position
+     * @return - the density to add
+     */
+    public float delta(float x, float y, float z) {
+        float dx = x - center.x, dy = y - center.y, dz = z - center.z;
+        float t = 1 - (dx * dx + dy * dy + dz * dz) / (radius * radius);
+        return t > 0 ? strength * t * t : 0;
+    }
+
+    /**
+     * adds the brush to the samples of a field
+     * @param field - the field to change
+     * @return - the lowest and highest indices of the changed samples as {minX, minY, minZ, maxX, maxY, maxZ},
+     *           or null if the brush missed the field
+     */
+    public int[] apply(DensityField field) {
+        float cellSize = field.getCellSize();
+        int minX = Math.max((int) Math.ceil((center.x - radius - field.getOriginX()) / cellSize), 0);
+        int minY = Math.max((int) Math.ceil((center.y - radius - field.getOriginY()) / cellSize), 0);
+        int minZ = Math.max((int) Math.ceil((center.z - radius - field.getOriginZ()) / cellSize), 0);
+        int maxX = Math.min((int) Math.floor((center.x + radius - field.getOriginX()) / cellSize), field.getSizeX() - 1);
+        int maxY = Math.min((int) Math.floor((center.y + radius - field.getOriginY()) / cellSize), field.getSizeY() - 1);
+        int maxZ = Math.min((int) Math.floor((center.z + radius - field.getOriginZ()) / cellSize), field.getSizeZ() - 1);
+
+        int[] changed = null;
+        float[] values = field.getValues();
+        for (int z = minZ; z <= maxZ; z++) {
+            float pz = field.getOriginZ() + z * cellSize;
+            for (int y = minY; y <= maxY; y++) {
+                float py = field.getOriginY() + y * cellSize;
+                for (int x = minX; x <= maxX; x++) {
+                    float delta = delta(field.getOriginX() + x * cellSize, py, pz);
+                    if (delta == 0) {
+                        continue;
+                    }
+                    values[field.index(x, y, z)] += delta;
+                    if (changed == null) {
+                        changed = new int[] {x, y, z, x, y, z};
+                    } else {
+                        changed[0] = Math.min(changed[0], x);
+                        changed[1] = Math.min(changed[1], y);
+                        changed[2] = Math.min(changed[2], z);
+                        changed[3] = Math.max(changed[3], x);
+                        changed[4] = Math.max(changed[4], y);
+                        changed[5] = Math.max(changed[5], z);
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * lists the chunks whose samples the brush can reach, including chunks whose fields only overlap it
+     * @return - the coordinates of the chunks
+     */
+    public List<Key3> getChunks() {
+        // a field can overlap the next chunk by a layer of its coarsest cells
+        float overlap = Chunk.cellSize(Chunk.MAX_LOD);
+        int minX = (int) Math.floor((center.x - radius - overlap) / Chunk.WORLD_SIZE), maxX = (int) Math.floor((center.x + radius) / Chunk.WORLD_SIZE);
+        int minY = (int) Math.floor((center.y - radius - overlap) / Chunk.WORLD_SIZE), maxY = (int) Math.floor((center.y + radius) / Chunk.WORLD_SIZE);
+        int minZ = (int) Math.floor((center.z - radius - overlap) / Chunk.WORLD_SIZE), maxZ = (int) Math.floor((center.z + radius) / Chunk.WORLD_SIZE);
+        List<Key3> keys = new ArrayList<>();
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    keys.add(new Key3(x, y, z));
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * getter method
+     * @return - the center of the brush
+     */
+    public Vector3f getCenter() {
+        return this.center;
+    }
+
+    /**
+     * getter method
+     * @return - the radius of the brush
+     */
+    public float getRadius() {
+        return this.radius;
+    }
+
+    /**
+     * getter method
+     * @return - the density added at the center
+     */
+    public float getStrength() {
+        return this.strength;
+    }
+}
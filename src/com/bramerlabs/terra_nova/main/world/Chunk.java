@@ -0,0 +1,183 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.math.Key3;
+import com.bramerlabs.engine.math.Vector3f;
+import com.bramerlabs.engine.objects.untextured.RenderObject;
+import com.bramerlabs.terra_nova.main.marching_cubes.DensityField;
+import com.bramerlabs.terra_nova.main.marching_cubes.IsosurfaceExtractor;
+
+public class Chunk extends RenderObject {
+
+    // the amount of cells along each axis of a chunk
+    public static final int SIZE = 32;
+
+    // the world space size of a single cell
+    public static final float CELL_SIZE = 1.0f;
+
+    // the world space size of a chunk
+    public static final float WORLD_SIZE = SIZE * CELL_SIZE;
+
+    // the coarsest level of detail - a chunk at level l samples every 2^l cells, so SIZE >> MAX_LOD must stay above 1
+    public static final int MAX_LOD = 3;
+
+    // the integer coordinates of this chunk
+    private final Key3 key;
+
+    // the level of detail this chunk was generated at
+    private final int lod;
+
+    // the sampled densities of this chunk, at least (SIZE >> lod) + 1 samples along each axis so that neighbours share their border
+    private final DensityField field;
+
+    // the extractor that made the surface, kept so that edits can remesh the cells they touch
+    private final IsosurfaceExtractor mesher;
+
+    // if the mesh has been uploaded to the GPU, and if its buffers exist - an empty mesh is never created
+    private boolean uploaded = false, created = false;
+
+    /**
+     * default constructor
+     * the mesh is in world space, so the chunk itself sits at the origin
+     * @param key - the integer coordinates of this chunk
+     * @param lod - the level of detail the chunk was generated at
+     * @param mesher - the extractor that made the surface from the sampled densities of this chunk
+     * @param mesh - the extracted surface of this chunk
+     */
+    public Chunk(Key3 key, int lod, IsosurfaceExtractor mesher, Mesh mesh) {
+        super(mesh, new Vector3f(0), new Vector3f(0), new Vector3f(1));
+        this.key = key;
+        this.lod = lod;
+        this.field = mesher.getField();
+        this.mesher = mesher;
+    }
+
+    /**
+     * creates an empty density field covering a chunk at full detail
+     * @param key - the integer coordinates of the chunk
+     * @return - a new field with SIZE + 1 samples along each axis
+     */
+    public static DensityField createField(Key3 key) {
+        return createField(key, 0);
+    }
+
+    /**
+     * creates an empty density field covering a chunk at a level of detail
+     * the field always covers the whole chunk, only the spacing of the samples changes
+     * @param key - the integer coordinates of the chunk
+     * @param lod - the level of detail, from 0 to MAX_LOD
+     * @return - a new field with (SIZE >> lod) + 1 samples along each axis
+     */
+    public static DensityField createField(Key3 key, int lod) {
+        return createField(key, lod, 1);
+    }
+
+    /**
+     * creates an empty density field covering a chunk and overlapping the next chunk along each axis
+     * @param key - the integer coordinates of the chunk
+     * @param lod - the level of detail, from 0 to MAX_LOD
+     * @param overlap - how many layers of samples are shared with the next chunk, 1 for just the border
+     * @return - a new field with (SIZE >> lod) + overlap samples along each axis
+     */
+    public static DensityField createField(Key3 key, int lod, int overlap) {
+        if (lod < 0 || lod > MAX_LOD) {
+            throw new IllegalArgumentException("Level of detail " + lod + " is outside 0 to " + MAX_LOD + ".");
+        }
+        int samples = (SIZE >> lod) + overlap;
+        return new DensityField(samples, samples, samples,
+                key.getX() * WORLD_SIZE, key.getY() * WORLD_SIZE, key.getZ() * WORLD_SIZE, cellSize(lod));
+    }
+
+    /**
+     * finds the spacing of the samples at a level of detail
+     * @param lod - the level of detail
+     * @return - the world space size of a cell
+     */
+    public static float cellSize(int lod) {
+        return CELL_SIZE * (1 << lod);
+    }
+
+    /**
+     * uploads the mesh to the GPU - must be called from the render thread
+     */
+    public void upload() {
+        if (!uploaded && !isEmpty()) {
+            createMesh();
+            created = true;
+        }
+        uploaded = true;
+    }
+
+    /**
+     * adds a brush to the densities and remeshes the cells it changed, patching the uploaded mesh in place
+     * must be called from the render thread once the chunk is uploaded
+     * @param brush - the brush to apply
+     * @return - true if the brush changed any samples of this chunk
+     */
+    public boolean edit(Brush brush) {
+        int[] changed = brush.apply(field);
+        if (changed == null) {
+            return false;
+        }
+        mesher.remesh(getMesh(), changed[0], changed[1], changed[2], changed[3], changed[4], changed[5]);
+
+        // a chunk that had no surface before has no buffers to patch yet
+        if (uploaded && !created && !isEmpty()) {
+            createMesh();
+            created = true;
+        }
+        return true;
+    }
+
+    /**
+     * releases the mesh - must be called from the render thread
+     */
+    @Override
+    public void destroy() {
+        if (created) {
+            super.destroy();
+        }
+        uploaded = false;
+        created = false;
+    }
+
+    /**
+     * determines if the surface does not pass through this chunk
+     * @return - true if the mesh has no triangles
+     */
+    public boolean isEmpty() {
+        return getMesh().getIndices().length == 0;
+    }
+
+    /**
+     * getter method
+     * @return - if the mesh has been uploaded to the GPU
+     */
+    public boolean isUploaded() {
+        return this.uploaded;
+    }
+
+    /**
+     * getter method
+     * @return - the integer coordinates of this chunk
+     */
+    public Key3 getKey() {
+        return this.key;
+    }
+
+    /**
+     * getter method
+     * @return - the level of detail this chunk was generated at
+     */
+    public int getLod() {
+        return this.lod;
+    }
+
+    /**
+     * getter method
+     * @return - the sampled densities of this chunk
+     */
+    public DensityField getField() {
+        return this.field;
+    }
+}
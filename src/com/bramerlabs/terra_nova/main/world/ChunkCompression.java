@@ -0,0 +1,124 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import org.lwjgl.util.zstd.Zstd;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public enum ChunkCompression {
+
+    // stored as they are
+    NONE,
+
+    // LZ4 from lwjgl-lz4 - fast to decompress, a modest ratio
+    LZ4,
+
+    // Zstandard from lwjgl-zstd at its default level - a better ratio for a little more time
+    ZSTD,
+
+    // java.util.zip - the slowest, but needs no natives
+    DEFLATE;
+
+    /**
+     * finds the most bytes compressing a block can produce
+     * @param bytes - the size of the block
+     * @return - the size the output buffer must have room for
+     */
+    public int bound(int bytes) {
+        switch (this) {
+            case LZ4:
+                // the class is spelled out, since the constant of the same name hides it
+                return org.lwjgl.util.lz4.LZ4.LZ4_compressBound(bytes);
+            case ZSTD:
+                return (int) Zstd.ZSTD_compressBound(bytes);
+            case DEFLATE:
+                // the worst case of stored blocks, plus the zlib header and checksum
+                return bytes + (bytes >> 12) * 5 + 64;
+            default:
+                return bytes;
+        }
+    }
+
+    /**
+     * compresses a block
+     * the positions of both buffers are left where they were
+     * @param src - the block, from its position to its limit - direct, for the native codecs
+     * @param dst - receives the compressed block at its position, with room for bound(src.remaining()) - direct, for
+     *            the native codecs
+     * @return - the size of the compressed block
+     */
+    public int compress(ByteBuffer src, ByteBuffer dst) {
+        switch (this) {
+            case LZ4:
+                int written = org.lwjgl.util.lz4.LZ4.LZ4_compress_default(src, dst);
+                if (written <= 0) {
+                    throw new IllegalStateException("LZ4 could not compress a block of " + src.remaining() + " bytes.");
+                }
+                return written;
+            case ZSTD:
+                long result = Zstd.ZSTD_compress(dst, src, Zstd.ZSTD_CLEVEL_DEFAULT);
+                if (Zstd.ZSTD_isError(result)) {
+                    throw new IllegalStateException("Zstd could not compress a block: " + Zstd.ZSTD_getErrorName(result) + ".");
+                }
+                return (int) result;
+            case DEFLATE:
+                Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                deflater.setInput(src.duplicate());
+                deflater.finish();
+                ByteBuffer out = dst.duplicate();
+                while (!deflater.finished()) {
+                    deflater.deflate(out);
+                }
+                deflater.end();
+                return out.position() - dst.position();
+            default:
+                dst.duplicate().put(src.duplicate());
+                return src.remaining();
+        }
+    }
+
+    /**
+     * decompresses a block
+     * the positions of both buffers are left where they were
+     * @param src - the compressed block, from its position to its limit - direct, for the native codecs
+     * @param dst - receives the block, which must fill it from its position to its limit exactly - direct, for the
+     *            native codecs
+     */
+    public void decompress(ByteBuffer src, ByteBuffer dst) {
+        long read;
+        switch (this) {
+            case LZ4:
+                read = org.lwjgl.util.lz4.LZ4.LZ4_decompress_safe(src, dst);
+                break;
+            case ZSTD:
+                read = Zstd.ZSTD_decompress(dst, src);
+                if (Zstd.ZSTD_isError(read)) {
+                    throw new IllegalStateException("Zstd could not decompress a block: " + Zstd.ZSTD_getErrorName(read) + ".");
+                }
+                break;
+            case DEFLATE:
+                Inflater inflater = new Inflater();
+                inflater.setInput(src.duplicate());
+                ByteBuffer out = dst.duplicate();
+                try {
+                    while (out.hasRemaining() && !inflater.finished() && !inflater.needsInput()) {
+                        inflater.inflate(out);
+                    }
+                } catch (DataFormatException e) {
+                    throw new IllegalStateException("Deflate could not decompress a block.", e);
+                } finally {
+                    inflater.end();
+                }
+                read = out.position() - dst.position();
+                break;
+            default:
+                dst.duplicate().put(src.duplicate());
+                read = src.remaining();
+        }
+        if (read != dst.remaining()) {
+            throw new IllegalStateException("Expected a block of " + dst.remaining() + " bytes, got " + read + ".");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * the stored form of a chunk's densities, shared by every chunk store - a byte naming the compression, the length of
+ * the densities in bytes, then the densities split into byte planes and compressed
+ *
+ * the planes hold the first byte of every float, then the second, and so on, so the slowly changing sign and exponent
+ * bytes sit next to each other and compress far better than whole floats
+ */
+class ChunkEncoding {
+
+    // the bytes before the compressed densities - the compression and the uncompressed length
+    static final int HEADER_BYTES = 5;
+
+    // direct buffers for the planes and the encoded entry of each thread, grown as needed
+    private static final ThreadLocal<ByteBuffer[]> SCRATCH = ThreadLocal.withInitial(() -> new ByteBuffer[2]);
+
+    /**
+     * finds the most bytes encoding densities can produce
+     * @param compression - the compression
+     * @param floats - the amount of densities
+     * @return - the size the output buffer must have room for
+     */
+    static int bound(ChunkCompression compression, int floats) {
+        return HEADER_BYTES + compression.bound(floats * Float.BYTES);
+    }
+
+    /**
+     * encodes densities
+     * @param values - the densities
+     * @param compression - the compression
+     * @param out - receives the encoded densities at its position, which is moved past them - direct, for the native
+     *            codecs, with room for bound(compression, values.length)
+     */
+    static void encode(float[] values, ChunkCompression compression, ByteBuffer out) {
+        int n = values.length;
+        ByteBuffer planes = scratch(0, n * Float.BYTES);
+        for (int i = 0; i < n; i++) {
+            int bits = Float.floatToRawIntBits(values[i]);
+            planes.put(i, (byte) bits);
+            planes.put(n + i, (byte) (bits >>> 8));
+            planes.put(2 * n + i, (byte) (bits >>> 16));
+            planes.put(3 * n + i, (byte) (bits >>> 24));
+        }
+        planes.limit(n * Float.BYTES);
+
+        out.order(ByteOrder.LITTLE_ENDIAN).put((byte) compression.ordinal()).putInt(n * Float.BYTES);
+        out.position(out.position() + compression.compress(planes, out));
+    }
+
+    /**
+     * decodes densities, decompressing straight out of the entry and skipping the copy for uncompressed entries
+     * @param entry - the encoded densities, from its position to its limit, which is left where it was - direct, for
+     *              the native codecs
+     * @param values - receives the densities
+     * @return - true if the entry held as many densities as the array, false if the array was left untouched
+     */
+    static boolean decode(ByteBuffer entry, float[] values) {
+        int n = values.length;
+        ByteBuffer in = entry.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        ChunkCompression compression = ChunkCompression.values()[in.get()];
+        if (in.getInt() != n * Float.BYTES) {
+            return false;
+        }
+
+        ByteBuffer planes = in;
+        if (compression != ChunkCompression.NONE) {
+            planes = scratch(0, n * Float.BYTES);
+            planes.limit(n * Float.BYTES);
+            compression.decompress(in, planes);
+        }
+        int base = planes.position();
+        for (int i = 0; i < n; i++) {
+            int bits = (planes.get(base + i) & 0xFF) | (planes.get(base + n + i) & 0xFF) << 8
+                    | (planes.get(base + 2 * n + i) & 0xFF) << 16 | (planes.get(base + 3 * n + i) & 0xFF) << 24;
+            values[i] = Float.intBitsToFloat(bits);
+        }
+        return true;
+    }
+
+    /**
+     * finds a scratch buffer of this thread, growing it if needed
+     * @param which - 0 for the planes, 1 for an encoded entry
+     * @param bytes - the least capacity needed
+     * @return - the buffer, cleared
+     */
+    static ByteBuffer scratch(int which, int bytes) {
+        ByteBuffer[] buffers = SCRATCH.get();
+        if (buffers[which] == null || buffers[which].capacity() < bytes) {
+            int grown = buffers[which] == null ? 0 : 2 * buffers[which].capacity();
+            buffers[which] = ByteBuffer.allocateDirect(Math.max(bytes, grown)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        buffers[which].clear();
+        return buffers[which];
+    }
+}
@@ -0,0 +1,235 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import com.bramerlabs.engine.graphics.Mesh;
+import com.bramerlabs.engine.math.Key3;
+import com.bramerlabs.engine.math.Vector4f;
+import com.bramerlabs.terra_nova.main.marching_cubes.DensityField;
+import com.bramerlabs.terra_nova.main.marching_cubes.DensityFunction;
+import com.bramerlabs.terra_nova.main.marching_cubes.IsosurfaceExtractor;
+import com.bramerlabs.terra_nova.main.marching_cubes.Isosurface;
+import com.bramerlabs.terra_nova.main.marching_cubes.MCMesh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class ChunkGenerator {
+
+    // the density at which the surface is extracted
+    private static final float ISO_LEVEL = 0;
+
+    // how far the crack covering skirts reach, in cells of the chunk's own level of detail
+    // neighbouring chunks differ by at most one level, so the outlines never drift more than a coarse cell apart
+    private static final float SKIRT_CELLS = 2;
+
+    // the function sampled into every chunk
+    private final DensityFunction density;
+
+    // the color of the terrain
+    private final Vector4f color;
+
+    // recently sampled densities, so chunks seen again skip the noise, or null to always sample
+    private final DensityCache cache;
+
+    // the method used to extract the surface of each chunk
+    private final Isosurface method;
+
+    // saved densities of chunks from this and earlier runs, or null to keep nothing between runs
+    private final ChunkStore store;
+
+    // every edit made to the terrain, by the chunks it reaches, replayed whenever one of those chunks is sampled
+    private final ConcurrentHashMap<Key3, List<Brush>> edits = new ConcurrentHashMap<>();
+
+    // for each level of detail, how many of a chunk's edits its saved densities already hold
+    private final List<ConcurrentHashMap<Key3, Integer>> saved = new ArrayList<>();
+
+    /**
+     * default constructor
+     * the density function is called from worker threads, so it must be safe to share between them
+     * @param density - the function sampled into every chunk
+     * @param color - the color of the terrain
+     */
+    public ChunkGenerator(DensityFunction density, Vector4f color) {
+        this(density, color, null);
+    }
+
+    /**
+     * constructor with a density cache
+     * @param density - the function sampled into every chunk
+     * @param color - the color of the terrain
+     * @param cache - recently sampled densities, or null to always sample
+     */
+    public ChunkGenerator(DensityFunction density, Vector4f color, DensityCache cache) {
+        this(density, color, cache, Isosurface.MARCHING_CUBES);
+    }
+
+    /**
+     * constructor with a density cache and an extraction method
+     * only marching cubes gets skirts, so the dual methods show cracks where the level of detail changes
+     * @param density - the function sampled into every chunk
+     * @param color - the color of the terrain
+     * @param cache - recently sampled densities, or null to always sample
+     * @param method - the method used to extract the surface of each chunk
+     */
+    public ChunkGenerator(DensityFunction density, Vector4f color, DensityCache cache, Isosurface method) {
+        this(density, color, cache, method, null);
+    }
+
+    /**
+     * constructor with a density cache, an extraction method and a store for saved chunks
+     * @param density - the function sampled into every chunk
+     * @param color - the color of the terrain
+     * @param cache - recently sampled densities, or null to always sample
+     * @param method - the method used to extract the surface of each chunk
+     * @param store - saved densities of chunks, loaded in place of sampling, or null to keep nothing between runs
+     */
+    public ChunkGenerator(DensityFunction density, Vector4f color, DensityCache cache, Isosurface method, ChunkStore store) {
+        this.density = density;
+        this.color = color;
+        this.cache = cache;
+        this.method = method;
+        this.store = store;
+        for (int lod = 0; lod <= Chunk.MAX_LOD; lod++) {
+            saved.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * samples the densities of a chunk at full detail
+     * @param key - the integer coordinates of the chunk
+     * @return - the sampled field
+     */
+    public DensityField sample(Key3 key) {
+        return sample(key, 0);
+    }
+
+    /**
+     * loads the saved densities of a chunk at a level of detail, or samples them or copies them out of the cache, then
+     * replays the edits they do not hold yet
+     * @param key - the integer coordinates of the chunk
+     * @param lod - the level of detail
+     * @return - the sampled field
+     */
+    public DensityField sample(Key3 key, int lod) {
+        DensityField field = Chunk.createField(key, lod, method.getOverlap());
+        int replayed = 0;
+        if (store != null && store.load(key, lod, field.getValues())) {
+            // saved densities hold every edit made before they were saved, in this run or an earlier one
+            replayed = saved.get(lod).getOrDefault(key, 0);
+        } else if (cache == null) {
+            field.sample(density);
+        } else if (!cache.load(key, lod, field.getValues())) {
+            // the cache holds the untouched densities, so it stays valid as the terrain is edited
+            cache.store(key, lod, field.sample(density).getValues());
+        }
+
+        List<Brush> brushes = edits.get(key);
+        if (brushes != null) {
+            for (int i = replayed; i < brushes.size(); i++) {
+                brushes.get(i).apply(field);
+            }
+        }
+        return field;
+    }
+
+    /**
+     * saves the densities of a chunk, edits included, so it is loaded instead of sampled from now on
+     * the edits are only kept in memory, so an edited chunk is saved at every other level of detail too, with the
+     * edits replayed - otherwise a level saved before the edit would load without it after a restart, and the terrain
+     * would change shape as the level of detail switched. does nothing without a store
+     * @param chunk - the chunk to save
+     */
+    public void save(Chunk chunk) {
+        if (store == null) {
+            return;
+        }
+        Key3 key = chunk.getKey();
+        List<Brush> brushes = edits.get(key);
+        int count = brushes == null ? 0 : brushes.size();
+        store.store(key, chunk.getLod(), chunk.getField().getValues());
+        saved.get(chunk.getLod()).put(key, count);
+
+        // the other levels, unless they already hold every edit - sample loads what they have and replays the rest
+        for (int lod = 0; count > 0 && lod <= Chunk.MAX_LOD; lod++) {
+            if (lod != chunk.getLod() && saved.get(lod).getOrDefault(key, 0) < count) {
+                store.store(key, lod, sample(key, lod).getValues());
+                saved.get(lod).put(key, count);
+            }
+        }
+    }
+
+    /**
+     * records an edit so that it is replayed when the chunks it reaches are sampled again
+     * @param brush - the brush that was applied
+     */
+    public void addEdit(Brush brush) {
+        for (Key3 key : brush.getChunks()) {
+            edits.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(brush);
+        }
+    }
+
+    /**
+     * samples and meshes a chunk at full detail - does not touch OpenGL, so it can run on any thread
+     * @param key - the integer coordinates of the chunk
+     * @return - the new chunk, not yet uploaded
+     */
+    public Chunk generate(Key3 key) {
+        return generate(key, 0);
+    }
+
+    /**
+     * samples and meshes a chunk at a level of detail - does not touch OpenGL, so it can run on any thread
+     * the mesh carries skirts on every side, so it can sit next to chunks of any neighbouring level without cracks
+     * @param key - the integer coordinates of the chunk
+     * @param lod - the level of detail
+     * @return - the new chunk, not yet uploaded
+     */
+    public Chunk generate(Key3 key, int lod) {
+        IsosurfaceExtractor mesher = method.create(sample(key, lod), ISO_LEVEL);
+        Mesh mesh = mesher instanceof MCMesh
+                ? ((MCMesh) mesher).createMesh(color, SKIRT_CELLS * Chunk.cellSize(lod))
+                : mesher.createMesh(color);
+        return new Chunk(key, lod, mesher, mesh);
+    }
+
+    /**
+     * getter method
+     * @return - the function sampled into every chunk
+     */
+    public DensityFunction getDensity() {
+        return this.density;
+    }
+
+    /**
+     * getter method
+     * @return - the density cache, or null if there is none
+     */
+    public DensityCache getCache() {
+        return this.cache;
+    }
+
+    /**
+     * getter method
+     * @return - the store for saved chunks, or null if there is none
+     */
+    public ChunkStore getStore() {
+        return this.store;
+    }
+
+    /**
+     * getter method
+     * @return - the method used to extract the surface of each chunk
+     */
+    public Isosurface getMethod() {
+        return this.method;
+    }
+
+    /**
+     * getter method
+     * @return - the color of the terrain
+     */
+    public Vector4f getColor() {
+        return this.color;
+    }
+}
@@ -0,0 +1,43 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import com.bramerlabs.engine.math.Key3;
+
+/**
+ * keeps the densities of chunks between runs, so terrain that was generated or edited once is loaded instead of
+ * sampled again - implementations must be safe to call from several generating threads at once
+ */
+public interface ChunkStore {
+
+    /**
+     * copies the stored densities of a chunk into an array
+     * @param key - the integer coordinates of the chunk
+     * @param lod - the level of detail of the array
+     * @param values - the array to fill
+     * @return - true if the chunk was stored with the same amount of samples, false if the array was left untouched
+     */
+    boolean load(Key3 key, int lod, float[] values);
+
+    /**
+     * stores the densities of a chunk, replacing any stored before
+     * @param key - the integer coordinates of the chunk
+     * @param lod - the level of detail of the array
+     * @param values - the densities to store
+     */
+    void store(Key3 key, int lod, float[] values);
+
+    /**
+     * ends a frame - stores that batch their writes write the batch out here, as a single transaction
+     * called once per frame, after the chunks of the frame were saved
+     */
+    void commit();
+
+    /**
+     * commits, and makes sure everything stored so far has reached the disk
+     */
+    void flush();
+
+    /**
+     * flushes and releases the files behind the store - it cannot be used afterwards
+     */
+    void close();
+}
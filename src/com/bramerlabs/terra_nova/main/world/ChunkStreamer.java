@@ -0,0 +1,317 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import com.bramerlabs.engine.graphics.Camera;
+import com.bramerlabs.engine.math.Key3;
+import com.bramerlabs.engine.math.Vector3f;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class ChunkStreamer {
+
+    // the world the chunks are loaded into
+    private final World world;
+
+    // how many chunks to keep loaded around the camera, horizontally and vertically
+    private final int radius, verticalRadius;
+
+    // the most chunks waiting to be handed to the worker threads
+    private final int maxQueued;
+
+    // the most chunks being generated at once
+    private final int maxInFlight;
+
+    // the time the render thread may spend uploading meshes each frame
+    private long uploadBudgetNanos;
+
+    // chunks closer than this are generated at full detail, and every doubling of the distance drops one level
+    private final float lodDistance;
+
+    // the default distance of the first level of detail change, two chunks
+    private static final float DEFAULT_LOD_DISTANCE = 2 * Chunk.WORLD_SIZE;
+
+    // the last camera position, used to pick the level of detail of queued chunks
+    private Vector3f lastPosition = new Vector3f(0);
+
+    // chunks waiting to be generated, closest and most in view first
+    private final ArrayDeque<Key3> queue = new ArrayDeque<>();
+
+    // the camera chunk and direction when the queue was last rebuilt
+    private Key3 lastCenter = null;
+    private Vector3f lastForward = new Vector3f(0);
+
+    // if the last rebuild left out chunks because the queue was full
+    private boolean truncated = true;
+
+    // the view direction has to turn this far (as a cosine) before the queue is reordered
+    private static final float REORDER_THRESHOLD = (float) Math.cos(Math.toRadians(30));
+
+    // counters for tuning
+    private int uploadedLastFrame = 0;
+    private int evictedThisSecond = 0, evictedPerSecond = 0;
+    private long secondStart = System.nanoTime();
+
+    /**
+     * default constructor
+     * @param world - the world the chunks are loaded into
+     * @param radius - how many chunks to keep loaded around the camera horizontally
+     * @param verticalRadius - how many chunks to keep loaded around the camera vertically
+     * @param maxQueued - the most chunks waiting to be handed to the worker threads
+     * @param uploadBudgetMillis - the time the render thread may spend uploading meshes each frame
+     */
+    public ChunkStreamer(World world, int radius, int verticalRadius, int maxQueued, float uploadBudgetMillis) {
+        this(world, radius, verticalRadius, maxQueued, uploadBudgetMillis, DEFAULT_LOD_DISTANCE);
+    }
+
+    /**
+     * constructor for a specified level of detail distance
+     * the distance must be at least the diagonal of a chunk, so that neighbouring chunks never differ by more than
+     * one level and their skirts stay long enough to cover the cracks between them
+     * @param world - the world the chunks are loaded into
+     * @param radius - how many chunks to keep loaded around the camera horizontally
+     * @param verticalRadius - how many chunks to keep loaded around the camera vertically
+     * @param maxQueued - the most chunks waiting to be handed to the worker threads
+     * @param uploadBudgetMillis - the time the render thread may spend uploading meshes each frame
+     * @param lodDistance - the distance at which chunks drop from full detail, each doubling drops another level
+     */
+    public ChunkStreamer(World world, int radius, int verticalRadius, int maxQueued, float uploadBudgetMillis, float lodDistance) {
+        if (lodDistance < Chunk.WORLD_SIZE * Math.sqrt(3)) {
+            throw new IllegalArgumentException("Level of detail distance " + lodDistance + " is shorter than the diagonal of a chunk.");
+        }
+        this.world = world;
+        this.radius = radius;
+        this.verticalRadius = verticalRadius;
+        this.maxQueued = maxQueued;
+        this.maxInFlight = 2 * world.getParallelism();
+        this.lodDistance = lodDistance;
+        setUploadBudget(uploadBudgetMillis);
+    }
+
+    /**
+     * updates the loaded chunks from the camera - must be called once per frame from the render thread
+     * @param camera - the camera the world is viewed from
+     */
+    public void update(Camera camera) {
+        update(camera.getPosition(), camera.getForward());
+    }
+
+    /**
+     * updates the loaded chunks - must be called once per frame from the render thread
+     * chunks are regenerated when the camera moves far enough to change their level of detail
+     * @param position - the position of the viewer
+     * @param forward - the direction the viewer is looking in
+     */
+    public void update(Vector3f position, Vector3f forward) {
+        Key3 center = toChunk(position);
+        lastPosition = position;
+        Vector3f direction = forward.length() > 0 ? Vector3f.normalize(forward) : new Vector3f(0);
+
+        // release chunks that have fallen out of range, with one chunk of slack so that chunks at the edge don't flicker
+        List<Key3> outOfRange = new ArrayList<>();
+        for (Chunk chunk : world.getChunks()) {
+            if (!inRange(chunk.getKey(), center, 1)) {
+                outOfRange.add(chunk.getKey());
+            }
+        }
+        for (Key3 key : outOfRange) {
+            if (world.unload(key)) {
+                evictedThisSecond++;
+            }
+        }
+        world.commit();
+
+        // reorder the queue if the camera moved to a new chunk, turned far enough, or the queue ran dry with chunks left out
+        boolean turned = direction.length() > 0 && Vector3f.dot(direction, lastForward) < REORDER_THRESHOLD;
+        if (!center.equals(lastCenter) || turned || (queue.isEmpty() && truncated)) {
+            rebuildQueue(center, direction);
+        }
+
+        // hand chunks to the worker threads while they have room
+        while (world.getInFlightCount() < maxInFlight && !queue.isEmpty()) {
+            Key3 key = queue.poll();
+            if (inRange(key, center, 0)) {
+                world.request(key, lodFor(key, position));
+            }
+        }
+
+        // upload as many finished chunks as fit in the budget
+        uploadedLastFrame = world.uploadPending(uploadBudgetNanos);
+
+        // roll the per second counters over
+        long now = System.nanoTime();
+        if (now - secondStart >= 1_000_000_000L) {
+            evictedPerSecond = evictedThisSecond;
+            evictedThisSecond = 0;
+            secondStart = now;
+        }
+    }
+
+    /**
+     * lists the missing chunks around the camera and keeps the most important ones
+     * @param center - the chunk the camera is in
+     * @param forward - the unit direction the camera is looking in
+     */
+    private void rebuildQueue(Key3 center, Vector3f forward) {
+        lastCenter = center;
+        lastForward = forward;
+
+        List<Key3> missing = new ArrayList<>();
+        for (int x = -radius; x <= radius; x++) {
+            for (int y = -verticalRadius; y <= verticalRadius; y++) {
+                for (int z = -radius; z <= radius; z++) {
+                    Key3 key = new Key3(center.getX() + x, center.getY() + y, center.getZ() + z);
+                    if (!world.isLoaded(key, lodFor(key, lastPosition)) && !world.isInFlight(key)) {
+                        missing.add(key);
+                    }
+                }
+            }
+        }
+
+        missing.sort(Comparator.comparingDouble(key -> priority(key, center, forward)));
+
+        queue.clear();
+        for (int i = 0; i < missing.size() && i < maxQueued; i++) {
+            queue.add(missing.get(i));
+        }
+        truncated = missing.size() > maxQueued;
+    }
+
+    /**
+     * scores a chunk - lower scores are generated first
+     * chunks straight behind the camera count as twice as far away as chunks straight ahead
+     * @param key - the chunk to score
+     * @param center - the chunk the camera is in
+     * @param forward - the unit direction the camera is looking in
+     * @return - the score
+     */
+    private static double priority(Key3 key, Key3 center, Vector3f forward) {
+        float dx = key.getX() - center.getX();
+        float dy = key.getY() - center.getY();
+        float dz = key.getZ() - center.getZ();
+        float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (distance == 0) {
+            return 0;
+        }
+        float facing = (dx * forward.x + dy * forward.y + dz * forward.z) / distance;
+        return distance * (1.5f - 0.5f * facing);
+    }
+
+    /**
+     * picks the level of detail of a chunk from the distance between its center and the camera
+     * @param key - the chunk
+     * @param position - the position of the camera
+     * @return - 0 closer than the level of detail distance, one more for every doubling after that, up to MAX_LOD
+     */
+    public int lodFor(Key3 key, Vector3f position) {
+        float dx = (key.getX() + 0.5f) * Chunk.WORLD_SIZE - position.x;
+        float dy = (key.getY() + 0.5f) * Chunk.WORLD_SIZE - position.y;
+        float dz = (key.getZ() + 0.5f) * Chunk.WORLD_SIZE - position.z;
+        float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (distance < lodDistance) {
+            return 0;
+        }
+        int lod = 1 + (int) Math.floor(Math.log(distance / lodDistance) / Math.log(2));
+        return Math.min(lod, Chunk.MAX_LOD);
+    }
+
+    /**
+     * determines if a chunk is within the loading range of the camera
+     * @param key - the chunk
+     * @param center - the chunk the camera is in
+     * @param slack - extra chunks allowed on every side
+     * @return - true if the chunk is in range
+     */
+    private boolean inRange(Key3 key, Key3 center, int slack) {
+        return Math.abs(key.getX() - center.getX()) <= radius + slack
+                && Math.abs(key.getY() - center.getY()) <= verticalRadius + slack
+                && Math.abs(key.getZ() - center.getZ()) <= radius + slack;
+    }
+
+    /**
+     * finds the chunk containing a position
+     * @param position - a world space position
+     * @return - the coordinates of the chunk
+     */
+    public static Key3 toChunk(Vector3f position) {
+        return new Key3(
+                (int) Math.floor(position.x / Chunk.WORLD_SIZE),
+                (int) Math.floor(position.y / Chunk.WORLD_SIZE),
+                (int) Math.floor(position.z / Chunk.WORLD_SIZE));
+    }
+
+    /**
+     * sets the time the render thread may spend uploading meshes each frame
+     * @param uploadBudgetMillis - the new budget in milliseconds
+     */
+    public void setUploadBudget(float uploadBudgetMillis) {
+        this.uploadBudgetNanos = (long) (uploadBudgetMillis * 1_000_000L);
+    }
+
+    /**
+     * getter method
+     * @return - the time the render thread may spend uploading meshes each frame, in milliseconds
+     */
+    public float getUploadBudget() {
+        return uploadBudgetNanos / 1_000_000f;
+    }
+
+    /**
+     * getter method
+     * @return - the distance at which chunks drop from full detail
+     */
+    public float getLodDistance() {
+        return this.lodDistance;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of chunks waiting to be handed to the worker threads
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * getter method
+     * @return - the amount of chunks being generated
+     */
+    public int getInFlightCount() {
+        return world.getInFlightCount();
+    }
+
+    /**
+     * getter method
+     * @return - the amount of generated chunks held in memory
+     */
+    public int getResidentCount() {
+        return world.getResidentCount();
+    }
+
+    /**
+     * getter method
+     * @return - the amount of chunks released during the last full second
+     */
+    public int getEvictedPerSecond() {
+        return evictedPerSecond;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of chunks uploaded during the last update
+     */
+    public int getUploadedLastFrame() {
+        return uploadedLastFrame;
+    }
+
+    /**
+     * converts the counters to a string
+     * @return - the string representation
+     */
+    @Override
+    public String toString() {
+        return "queued: " + getQueuedCount() + ", in flight: " + getInFlightCount() + ", resident: " + getResidentCount()
+                + ", evicted/s: " + getEvictedPerSecond() + ", uploaded: " + getUploadedLastFrame();
+    }
+}
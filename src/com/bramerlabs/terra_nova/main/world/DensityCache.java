@@ -0,0 +1,312 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import com.bramerlabs.engine.math.Key3;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class DensityCache {
+
+    // the size of a float in bytes
+    private static final int FLOAT_BYTES = 4;
+
+    // the most bytes the cached densities may take up, including buffers kept for reuse
+    private final long budgetBytes;
+
+    // the cached densities, least recently used first
+    private final LinkedHashMap<Entry, FloatBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // evicted buffers kept for reuse, keyed by their length in floats
+    private final HashMap<Integer, ArrayDeque<FloatBuffer>> spare = new HashMap<>();
+
+    // the bytes held by cached entries and by spare buffers
+    private long residentBytes = 0, spareBytes = 0;
+
+    // counters for tuning
+    private long hits = 0, misses = 0, evictions = 0;
+
+    /**
+     * default constructor
+     * @param budgetBytes - the most bytes the cached densities may take up
+     */
+    public DensityCache(long budgetBytes) {
+        if (budgetBytes <= 0) {
+            throw new IllegalArgumentException("Cache budget must be positive, was " + budgetBytes + ".");
+        }
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * copies the cached densities of a chunk into an array
+     * if the chunk is only cached at a finer level of detail, the coarser samples are picked out of it
+     * @param key - the integer coordinates of the chunk
+     * @param lod - the level of detail of the array
+     * @param values - the array to fill, (SIZE >> lod) + 1 samples along each axis, or more for fields that overlap
+     * @return - true if the densities were cached, false if the array was left untouched
+     */
+    public synchronized boolean load(Key3 key, int lod, float[] values) {
+        FloatBuffer exact = entries.get(new Entry(key, lod));
+        if (exact != null && exact.capacity() == values.length) {
+            exact.position(0);
+            exact.get(values, 0, values.length);
+            hits++;
+            return true;
+        }
+
+        // every sample of a coarse level is also a sample of each finer level, as long as both cover the same overlap
+        int samples = (int) Math.round(Math.cbrt(values.length)), overlap = samples - (Chunk.SIZE >> lod);
+        for (int finer = lod - 1; finer >= 0 && overlap == 1; finer--) {
+            FloatBuffer source = entries.get(new Entry(key, finer));
+            int sourceSamples = (Chunk.SIZE >> finer) + 1;
+            if (source != null && source.capacity() == sourceSamples * sourceSamples * sourceSamples) {
+                int stride = 1 << (lod - finer);
+                int i = 0;
+                for (int z = 0; z < samples; z++) {
+                    for (int y = 0; y < samples; y++) {
+                        int row = sourceSamples * (y * stride + sourceSamples * z * stride);
+                        for (int x = 0; x < samples; x++) {
+                            values[i++] = source.get(row + x * stride);
+                        }
+                    }
+                }
+                hits++;
+                return true;
+            }
+        }
+
+        misses++;
+        return false;
+    }
+
+    /**
+     * stores the densities of a chunk, evicting the least recently used chunks to stay within the budget
+     * @param key - the integer coordinates of the chunk
+     * @param lod - the level of detail of the array
+     * @param values - the densities to store
+     */
+    public synchronized void store(Key3 key, int lod, float[] values) {
+        long bytes = (long) values.length * FLOAT_BYTES;
+        if (bytes > budgetBytes) {
+            return;
+        }
+        Entry entry = new Entry(key, lod);
+        FloatBuffer buffer = entries.remove(entry);
+        if (buffer != null) {
+            residentBytes -= (long) buffer.capacity() * FLOAT_BYTES;
+            if (buffer.capacity() != values.length) {
+                recycle(buffer);
+                buffer = null;
+            }
+        }
+        if (buffer == null) {
+            buffer = allocate(values.length);
+        }
+
+        buffer.position(0);
+        buffer.put(values, 0, values.length);
+        entries.put(entry, buffer);
+        residentBytes += bytes;
+    }
+
+    /**
+     * removes every cached level of a chunk, used when its densities change
+     * @param key - the integer coordinates of the chunk
+     */
+    public synchronized void invalidate(Key3 key) {
+        for (int lod = 0; lod <= Chunk.MAX_LOD; lod++) {
+            FloatBuffer buffer = entries.remove(new Entry(key, lod));
+            if (buffer != null) {
+                residentBytes -= (long) buffer.capacity() * FLOAT_BYTES;
+                recycle(buffer);
+            }
+        }
+    }
+
+    /**
+     * gets a buffer of a length, reusing a spare one if possible and evicting entries until it fits the budget
+     * @param length - the length of the buffer in floats
+     * @return - a direct buffer of that length
+     */
+    private FloatBuffer allocate(int length) {
+        long bytes = (long) length * FLOAT_BYTES;
+        ArrayDeque<FloatBuffer> reusable = spare.get(length);
+        if (reusable != null && !reusable.isEmpty()) {
+            spareBytes -= bytes;
+            return reusable.poll();
+        }
+
+        // spare buffers of the wrong length go first, then the least recently used entries
+        while (residentBytes + spareBytes + bytes > budgetBytes && spareBytes > 0) {
+            dropSpare();
+        }
+        Iterator<Map.Entry<Entry, FloatBuffer>> oldest = entries.entrySet().iterator();
+        while (residentBytes + bytes > budgetBytes && oldest.hasNext()) {
+            FloatBuffer evicted = oldest.next().getValue();
+            oldest.remove();
+            residentBytes -= (long) evicted.capacity() * FLOAT_BYTES;
+            evictions++;
+            if (evicted.capacity() == length) {
+                return evicted;
+            }
+        }
+
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    /**
+     * keeps a buffer for reuse while the budget allows it
+     * @param buffer - the buffer that is no longer used
+     */
+    private void recycle(FloatBuffer buffer) {
+        long bytes = (long) buffer.capacity() * FLOAT_BYTES;
+        if (residentBytes + spareBytes + bytes <= budgetBytes) {
+            spare.computeIfAbsent(buffer.capacity(), length -> new ArrayDeque<>()).add(buffer);
+            spareBytes += bytes;
+        }
+    }
+
+    /**
+     * lets go of one spare buffer so the garbage collector can release its memory
+     */
+    private void dropSpare() {
+        Iterator<ArrayDeque<FloatBuffer>> lists = spare.values().iterator();
+        while (lists.hasNext()) {
+            ArrayDeque<FloatBuffer> list = lists.next();
+            FloatBuffer buffer = list.poll();
+            if (list.isEmpty()) {
+                lists.remove();
+            }
+            if (buffer != null) {
+                spareBytes -= (long) buffer.capacity() * FLOAT_BYTES;
+                return;
+            }
+        }
+    }
+
+    /**
+     * removes every cached chunk
+     */
+    public synchronized void clear() {
+        entries.clear();
+        spare.clear();
+        residentBytes = 0;
+        spareBytes = 0;
+    }
+
+    /**
+     * getter method
+     * @return - the fraction of loads that found cached densities, 0 if nothing was loaded yet
+     */
+    public synchronized double getHitRate() {
+        long loads = hits + misses;
+        return loads == 0 ? 0 : (double) hits / loads;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of loads that found cached densities
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of loads that had to sample the densities
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of entries dropped to stay within the budget
+     */
+    public synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * getter method
+     * @return - the bytes held by cached densities, not counting spare buffers
+     */
+    public synchronized long getResidentBytes() {
+        return this.residentBytes;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of cached chunk levels
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * getter method
+     * @return - the most bytes the cached densities may take up
+     */
+    public long getBudgetBytes() {
+        return this.budgetBytes;
+    }
+
+    /**
+     * converts the counters to a string
+     * @return - the string representation
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("hit rate: %.1f%%, entries: %d, resident: %.1f / %.1f MB, evictions: %d",
+                100 * getHitRate(), entries.size(), residentBytes / 1048576.0, budgetBytes / 1048576.0, evictions);
+    }
+
+    /**
+     * the key of a cached field - a chunk at one level of detail
+     */
+    private static final class Entry {
+
+        // the integer coordinates of the chunk
+        private final Key3 key;
+
+        // the level of detail of the field
+        private final int lod;
+
+        /**
+         * default constructor
+         * @param key - the integer coordinates of the chunk
+         * @param lod - the level of detail of the field
+         */
+        Entry(Key3 key, int lod) {
+            this.key = key;
+            this.lod = lod;
+        }
+
+        /**
+         * determines if two entries are for the same chunk and level
+         * @param o - the other object
+         * @return - true if the entries are equal
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Entry)) return false;
+            Entry entry = (Entry) o;
+            return lod == entry.lod && key.equals(entry.key);
+        }
+
+        /**
+         * generates a hash code for this entry
+         * @return - the hash code
+         */
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + lod;
+        }
+    }
+}
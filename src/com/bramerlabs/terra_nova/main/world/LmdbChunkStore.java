@@ -0,0 +1,331 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import com.bramerlabs.engine.math.Key3;
+import org.lwjgl.PointerBuffer;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.util.lmdb.MDBVal;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.lwjgl.system.MemoryUtil.NULL;
+import static org.lwjgl.util.lmdb.LMDB.*;
+
+/**
+ * stores chunks in an LMDB environment from lwjgl-lmdb, one table keyed by the packed coordinates and level of detail
+ * of each chunk
+ *
+ * stores are encoded straight away on the calling thread, and held until commit writes all of them in a single write
+ * transaction, so a frame that unloads many chunks pays for one transaction and one sync instead of one per chunk. loads
+ * decode straight out of the memory map of the environment, without copying the entry out first
+ *
+ * the map of the environment doubles when it runs full. loads hold the read lock of the store, and growing holds the
+ * write lock, since LMDB only lets the map change while no transaction is open
+ */
+public class LmdbChunkStore implements ChunkStore {
+
+    // the size the map of the environment starts at, grown by doubling when it runs full
+    public static final long DEFAULT_MAP_SIZE = 1L << 30;
+
+    // the bits of each coordinate in a packed key, and the offset that makes them positive
+    private static final int COORDINATE_BITS = 20, COORDINATE_OFFSET = 1 << (COORDINATE_BITS - 1);
+
+    // the bits of the level of detail in a packed key
+    private static final int LOD_BITS = 2;
+
+    // the directory the environment is kept in
+    private final File directory;
+
+    // the compression of chunks written from now on - chunks are read with whatever they were written with
+    private final ChunkCompression compression;
+
+    // the environment, and its only table
+    private final long env;
+    private final int dbi;
+
+    // the current size of the map
+    private long mapSize;
+
+    // the encoded chunks stored since the last commit, by packed key
+    private final ConcurrentHashMap<Long, ByteBuffer> pending = new ConcurrentHashMap<>();
+
+    // read by loads, written while the map grows or the environment closes
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // the amount of transactions committed and of chunks written by them
+    private long commits, written;
+
+    /**
+     * default constructor
+     * @param directory - the directory the environment is kept in, created if it does not exist
+     * @param compression - the compression of chunks written from now on
+     */
+    public LmdbChunkStore(File directory, ChunkCompression compression) {
+        this(directory, compression, DEFAULT_MAP_SIZE);
+    }
+
+    /**
+     * constructor with a specified map size
+     * @param directory - the directory the environment is kept in, created if it does not exist
+     * @param compression - the compression of chunks written from now on
+     * @param mapSize - the size the map starts at, in bytes
+     */
+    public LmdbChunkStore(File directory, ChunkCompression compression, long mapSize) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Could not create the LMDB directory " + directory + ".");
+        }
+        this.directory = directory;
+        this.compression = compression;
+        this.mapSize = mapSize;
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            PointerBuffer pointer = stack.mallocPointer(1);
+            check(mdb_env_create(pointer), "create the environment");
+            env = pointer.get(0);
+            check(mdb_env_set_mapsize(env, mapSize), "set the map size");
+            // loads open their read transactions on whichever thread of the chunk pool they run on
+            check(mdb_env_open(env, directory.getPath(), MDB_NOTLS, 0664), "open " + directory);
+
+            check(mdb_txn_begin(env, NULL, 0, pointer), "begin a transaction");
+            long txn = pointer.get(0);
+            IntBuffer handle = stack.mallocInt(1);
+            int result = mdb_dbi_open(txn, (CharSequence) null, MDB_INTEGERKEY | MDB_CREATE, handle);
+            if (result != MDB_SUCCESS) {
+                mdb_txn_abort(txn);
+                check(result, "open the table");
+            }
+            check(mdb_txn_commit(txn), "commit the table");
+            dbi = handle.get(0);
+        }
+    }
+
+    /**
+     * copies the stored densities of a chunk into an array, decoding them straight out of the map
+     * @param key - the integer coordinates of the chunk
+     * @param lod - the level of detail of the array
+     * @param values - the array to fill
+     * @return - true if the chunk was stored with the same amount of samples, false if the array was left untouched
+     */
+    @Override
+    public boolean load(Key3 key, int lod, float[] values) {
+        long packed = pack(key, lod);
+        ByteBuffer uncommitted = pending.get(packed);
+        if (uncommitted != null) {
+            return ChunkEncoding.decode(uncommitted, values);
+        }
+
+        lock.readLock().lock();
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            PointerBuffer pointer = stack.mallocPointer(1);
+            check(mdb_txn_begin(env, NULL, MDB_RDONLY, pointer), "begin a read transaction");
+            long txn = pointer.get(0);
+            try {
+                MDBVal k = MDBVal.mallocStack(stack).mv_data(key(stack, packed));
+                MDBVal data = MDBVal.mallocStack(stack);
+                int result = mdb_get(txn, dbi, k, data);
+                if (result == MDB_NOTFOUND) {
+                    return false;
+                }
+                check(result, "read a chunk");
+                // the view into the map is only valid until the transaction ends
+                return ChunkEncoding.decode(data.mv_data(), values);
+            } finally {
+                mdb_txn_abort(txn);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * encodes the densities of a chunk and holds them until the next commit, replacing any stored before
+     * @param key - the integer coordinates of the chunk
+     * @param lod - the level of detail of the array
+     * @param values - the densities to store
+     */
+    @Override
+    public void store(Key3 key, int lod, float[] values) {
+        ByteBuffer scratch = ChunkEncoding.scratch(1, ChunkEncoding.bound(compression, values.length));
+        ChunkEncoding.encode(values, compression, scratch);
+        scratch.flip();
+        ByteBuffer entry = ByteBuffer.allocateDirect(scratch.remaining()).order(ByteOrder.LITTLE_ENDIAN);
+        entry.put(scratch).flip();
+        pending.put(pack(key, lod), entry);
+    }
+
+    /**
+     * writes every chunk stored since the last commit in one write transaction, growing the map if it runs full
+     */
+    @Override
+    public synchronized void commit() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // a snapshot, so chunks stored while committing wait for the next commit
+        Map<Long, ByteBuffer> batch = new HashMap<>(pending);
+        while (true) {
+            int result = write(batch);
+            if (result == MDB_SUCCESS) {
+                break;
+            }
+            if (result != MDB_MAP_FULL) {
+                check(result, "commit " + batch.size() + " chunks");
+            }
+            grow();
+        }
+        for (Map.Entry<Long, ByteBuffer> entry : batch.entrySet()) {
+            // a chunk stored again since the snapshot stays pending
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+        commits++;
+        written += batch.size();
+    }
+
+    /**
+     * commits, and makes sure everything committed so far has reached the disk
+     */
+    @Override
+    public void flush() {
+        commit();
+        check(mdb_env_sync(env, true), "sync the environment");
+    }
+
+    /**
+     * flushes and closes the environment - the store cannot be used afterwards
+     */
+    @Override
+    public void close() {
+        flush();
+        lock.writeLock().lock();
+        try {
+            mdb_env_close(env);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * writes a batch of chunks in one write transaction
+     * @param batch - the encoded chunks, by packed key
+     * @return - MDB_SUCCESS if the transaction was committed, or the error that aborted it
+     */
+    private int write(Map<Long, ByteBuffer> batch) {
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            PointerBuffer pointer = stack.mallocPointer(1);
+            check(mdb_txn_begin(env, NULL, 0, pointer), "begin a write transaction");
+            long txn = pointer.get(0);
+            ByteBuffer keyData = stack.malloc(Long.BYTES).order(ByteOrder.nativeOrder());
+            MDBVal k = MDBVal.mallocStack(stack), data = MDBVal.mallocStack(stack);
+            for (Map.Entry<Long, ByteBuffer> entry : batch.entrySet()) {
+                keyData.putLong(0, entry.getKey());
+                int result = mdb_put(txn, dbi, k.mv_data(keyData), data.mv_data(entry.getValue()), 0);
+                if (result != MDB_SUCCESS) {
+                    mdb_txn_abort(txn);
+                    return result;
+                }
+            }
+            return mdb_txn_commit(txn);
+        }
+    }
+
+    /**
+     * doubles the map, once every load has left it
+     */
+    private void grow() {
+        lock.writeLock().lock();
+        try {
+            mapSize *= 2;
+            check(mdb_env_set_mapsize(env, mapSize), "grow the map to " + mapSize + " bytes");
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * packs the coordinates and level of detail of a chunk into a key, ordered by x, then y, then z
+     * @param key - the integer coordinates of the chunk
+     * @param lod - the level of detail
+     * @return - the packed key
+     */
+    private static long pack(Key3 key, int lod) {
+        if (lod < 0 || lod > Chunk.MAX_LOD) {
+            throw new IllegalArgumentException("Level of detail " + lod + " is outside 0 to " + Chunk.MAX_LOD + ".");
+        }
+        long x = coordinate(key.getX()), y = coordinate(key.getY()), z = coordinate(key.getZ());
+        return x << (2 * COORDINATE_BITS + LOD_BITS) | y << (COORDINATE_BITS + LOD_BITS) | z << LOD_BITS | lod;
+    }
+
+    /**
+     * offsets a chunk coordinate into the bits it has in a packed key
+     * @param coordinate - the coordinate
+     * @return - the coordinate, made positive
+     */
+    private static long coordinate(int coordinate) {
+        if (coordinate < -COORDINATE_OFFSET || coordinate >= COORDINATE_OFFSET) {
+            throw new IllegalArgumentException("Chunk coordinate " + coordinate + " is outside " + -COORDINATE_OFFSET
+                    + " to " + (COORDINATE_OFFSET - 1) + ".");
+        }
+        return coordinate + COORDINATE_OFFSET;
+    }
+
+    /**
+     * writes a packed key the way MDB_INTEGERKEY compares it
+     * @param stack - the stack to allocate on
+     * @param packed - the packed key
+     * @return - the key, in native order
+     */
+    private static ByteBuffer key(MemoryStack stack, long packed) {
+        ByteBuffer key = stack.malloc(Long.BYTES).order(ByteOrder.nativeOrder());
+        key.putLong(0, packed);
+        return key;
+    }
+
+    /**
+     * turns an LMDB error into an exception
+     * @param result - the result of an LMDB call
+     * @param what - what the call was doing
+     */
+    private static void check(int result, String what) {
+        if (result != MDB_SUCCESS) {
+            throw new IllegalStateException("LMDB could not " + what + ": " + mdb_strerror(result) + ".");
+        }
+    }
+
+    /**
+     * getter method
+     * @return - the amount of write transactions committed so far
+     */
+    public synchronized long getCommits() {
+        return this.commits;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of chunks written by those transactions
+     */
+    public synchronized long getWritten() {
+        return this.written;
+    }
+
+    /**
+     * getter method
+     * @return - the compression of chunks written from now on
+     */
+    public ChunkCompression getCompression() {
+        return this.compression;
+    }
+
+    /**
+     * getter method
+     * @return - the directory the environment is kept in
+     */
+    public File getDirectory() {
+        return this.directory;
+    }
+}
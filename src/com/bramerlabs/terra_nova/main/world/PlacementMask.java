@@ -0,0 +1,15 @@
+package com.bramerlabs.terra_nova.main.world;
+
+/**
+ * decides where scattered objects may stand - on dry land, on gentle slopes, and so on
+ */
+public interface PlacementMask {
+
+    /**
+     * decides whether an object may stand at a point
+     * @param x - the x position of the point
+     * @param z - the z position of the point
+     * @return - true if an object may stand there
+     */
+    boolean accept(float x, float z);
+}
@@ -0,0 +1,263 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import com.bramerlabs.engine.math.Hash;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * scatters points over the world in a blue noise pattern - no two points closer than a radius, and no large gaps -
+ * one chunk at a time (Bridson's algorithm)
+ *
+ * a uniform grid of cells too small to hold two points answers the neighbour test of every candidate by looking at the
+ * cells around it, so a chunk is filled in time proportional to its points
+ *
+ * every chunk is sampled from its own random generator, seeded by the world seed and the chunk coordinates only. where
+ * the points of two chunks crowd each other across their border, the chunk later in z then x order drops its point, so
+ * the result never depends on which chunks were sampled first, or on which thread
+ */
+public class PoissonDiskSampler {
+
+    // the amount of candidates tried around a point before it is retired
+    public static final int CANDIDATES = 30;
+
+    // the chunks before this one in z then x order that can touch it - (x, z) offsets
+    private static final int[][] EARLIER_NEIGHBOURS = {{-1, -1}, {0, -1}, {1, -1}, {-1, 0}};
+
+    // the seed of the world
+    private final long seed;
+
+    // the smallest distance between two points
+    private final float radius;
+
+    // the length of each side of a chunk
+    private final float chunkSize;
+
+    // the grid cells of a chunk - their size, and the amount along each side
+    private final float cellSize;
+    private final int cells;
+
+    // the amount of candidates tried so far, for tuning
+    private final LongAdder candidates = new LongAdder();
+
+    /**
+     * default constructor
+     * @param seed - the seed of the world
+     * @param radius - the smallest distance between two points
+     * @param chunkSize - the length of each side of a chunk
+     */
+    public PoissonDiskSampler(long seed, float radius, float chunkSize) {
+        if (radius <= 0 || radius >= chunkSize) {
+            throw new IllegalArgumentException("The radius has to be positive and smaller than a chunk, was " + radius + ".");
+        }
+        this.seed = seed;
+        this.radius = radius;
+        this.chunkSize = chunkSize;
+
+        // a cell's diagonal is the radius, so a cell never holds more than one point
+        this.cellSize = radius / (float) Math.sqrt(2);
+        this.cells = (int) Math.ceil(chunkSize / cellSize);
+    }
+
+    /**
+     * scatters points over a chunk
+     * @param chunkX - the x coordinate of the chunk
+     * @param chunkZ - the z coordinate of the chunk
+     * @return - the points, an x and a z position each
+     */
+    public float[] sample(int chunkX, int chunkZ) {
+        return sample(chunkX, chunkZ, null);
+    }
+
+    /**
+     * scatters points over a chunk, keeping only those the mask accepts
+     * the mask is applied after the points are spaced out, so it removes points without moving the others
+     * @param chunkX - the x coordinate of the chunk
+     * @param chunkZ - the z coordinate of the chunk
+     * @param mask - decides where points may stand, or null to keep every point
+     * @return - the points, an x and a z position each
+     */
+    public float[] sample(int chunkX, int chunkZ, PlacementMask mask) {
+        float[] points = fill(chunkX, chunkZ);
+
+        // the points of the earlier neighbours close enough to this chunk to crowd its points
+        float[] border = new float[64];
+        int borderCount = 0;
+        float minX = chunkX * chunkSize - radius, maxX = (chunkX + 1) * chunkSize + radius;
+        float minZ = chunkZ * chunkSize - radius, maxZ = (chunkZ + 1) * chunkSize + radius;
+        for (int[] offset : EARLIER_NEIGHBOURS) {
+            float[] neighbour = fill(chunkX + offset[0], chunkZ + offset[1]);
+            for (int i = 0; i < neighbour.length; i += 2) {
+                float x = neighbour[i], z = neighbour[i + 1];
+                if (x > minX && x < maxX && z > minZ && z < maxZ) {
+                    if (borderCount + 2 > border.length) {
+                        border = Arrays.copyOf(border, border.length * 2);
+                    }
+                    border[borderCount++] = x;
+                    border[borderCount++] = z;
+                }
+            }
+        }
+
+        float[] kept = new float[points.length];
+        int count = 0;
+        float r2 = radius * radius;
+        for (int i = 0; i < points.length; i += 2) {
+            float x = points[i], z = points[i + 1];
+            boolean crowded = false;
+            for (int j = 0; j < borderCount && !crowded; j += 2) {
+                float dx = border[j] - x, dz = border[j + 1] - z;
+                crowded = dx * dx + dz * dz < r2;
+            }
+            if (!crowded && (mask == null || mask.accept(x, z))) {
+                kept[count++] = x;
+                kept[count++] = z;
+            }
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    /**
+     * fills a chunk with points, ignoring its neighbours
+     * @param chunkX - the x coordinate of the chunk
+     * @param chunkZ - the z coordinate of the chunk
+     * @return - the points, an x and a z position each, in the order they were placed
+     */
+    float[] fill(int chunkX, int chunkZ) {
+        SplittableRandom random = new SplittableRandom(chunkSeed(chunkX, chunkZ));
+        float x0 = chunkX * chunkSize, z0 = chunkZ * chunkSize;
+
+        // the point in every grid cell, plus one, 0 for an empty cell
+        int[] grid = new int[cells * cells];
+        float[] points = new float[64];
+        int[] active = new int[32];
+        int count = 0, activeCount = 0;
+
+        points[0] = x0 + (float) random.nextDouble() * chunkSize;
+        points[1] = z0 + (float) random.nextDouble() * chunkSize;
+        grid[cell(points[0] - x0) + cells * cell(points[1] - z0)] = 1;
+        active[activeCount++] = count++;
+
+        float r2 = radius * radius, outer2 = 4 * r2;
+        long tried = 0;
+        while (activeCount > 0) {
+            int a = random.nextInt(activeCount);
+            float px = points[2 * active[a]], pz = points[2 * active[a] + 1];
+            boolean placed = false;
+            for (int k = 0; k < CANDIDATES; k++) {
+                tried++;
+
+                // a uniform point of the ring between radius and twice the radius, picked from its bounding square
+                float dx, dz, d2;
+                do {
+                    dx = (float) (random.nextDouble() * 4 - 2) * radius;
+                    dz = (float) (random.nextDouble() * 4 - 2) * radius;
+                    d2 = dx * dx + dz * dz;
+                } while (d2 < r2 || d2 > outer2);
+
+                float cx = px + dx, cz = pz + dz;
+                float lx = cx - x0, lz = cz - z0;
+                if (lx < 0 || lz < 0 || lx >= chunkSize || lz >= chunkSize) {
+                    continue;
+                }
+                int gx = cell(lx), gz = cell(lz);
+                if (grid[gx + cells * gz] != 0 || crowded(grid, points, cx, cz, gx, gz, r2)) {
+                    continue;
+                }
+
+                if (2 * count + 2 > points.length) {
+                    points = Arrays.copyOf(points, points.length * 2);
+                }
+                points[2 * count] = cx;
+                points[2 * count + 1] = cz;
+                grid[gx + cells * gz] = count + 1;
+                if (activeCount == active.length) {
+                    active = Arrays.copyOf(active, active.length * 2);
+                }
+                active[activeCount++] = count++;
+                placed = true;
+                break;
+            }
+
+            // a point with no room left around it is retired, swapping the last active point into its place
+            if (!placed) {
+                active[a] = active[--activeCount];
+            }
+        }
+        candidates.add(tried);
+        return Arrays.copyOf(points, 2 * count);
+    }
+
+    /**
+     * checks the cells around a candidate for points closer than the radius
+     * @param grid - the point in every grid cell, plus one
+     * @param points - the placed points
+     * @param x - the x position of the candidate
+     * @param z - the z position of the candidate
+     * @param gx - the x index of the candidate's cell
+     * @param gz - the z index of the candidate's cell
+     * @param r2 - the radius squared
+     * @return - true if a point is too close
+     */
+    private boolean crowded(int[] grid, float[] points, float x, float z, int gx, int gz, float r2) {
+        // two cells each way, since a cell is only radius / sqrt(2) wide
+        int minX = Math.max(gx - 2, 0), maxX = Math.min(gx + 2, cells - 1);
+        int minZ = Math.max(gz - 2, 0), maxZ = Math.min(gz + 2, cells - 1);
+        for (int z1 = minZ; z1 <= maxZ; z1++) {
+            for (int x1 = minX; x1 <= maxX; x1++) {
+                int p = grid[x1 + cells * z1] - 1;
+                if (p >= 0) {
+                    float dx = points[2 * p] - x, dz = points[2 * p + 1] - z;
+                    if (dx * dx + dz * dz < r2) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * finds the grid cell of a position within the chunk
+     * @param local - the position, relative to the lowest corner of the chunk
+     * @return - the index of the cell along that axis
+     */
+    private int cell(float local) {
+        return Math.min((int) (local / cellSize), cells - 1);
+    }
+
+    /**
+     * mixes the world seed and the chunk coordinates into the seed of the chunk's random generator
+     * @param chunkX - the x coordinate of the chunk
+     * @param chunkZ - the z coordinate of the chunk
+     * @return - the seed of the chunk
+     */
+    private long chunkSeed(int chunkX, int chunkZ) {
+        return Hash.hash(seed, chunkX, chunkZ);
+    }
+
+    /**
+     * getter method
+     * @return - the smallest distance between two points
+     */
+    public float getRadius() {
+        return this.radius;
+    }
+
+    /**
+     * getter method
+     * @return - the length of each side of a chunk
+     */
+    public float getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of candidates tried so far, over every thread
+     */
+    public long getCandidateCount() {
+        return candidates.sum();
+    }
+}
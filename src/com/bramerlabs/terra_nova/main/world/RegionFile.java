@@ -0,0 +1,221 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * a file holding many chunks, each at every level of detail, memory mapped as a whole
+ *
+ * the file is split into sectors. the first sectors hold a table with the first sector and the length in bytes of
+ * every entry, and the entries fill whole sectors after it. a rewritten entry goes to the first gap large enough for it
+ * outside its old sectors, which are freed once the table points to the new copy, so the file only grows when there
+ * is no room left. the mapping grows by doubling, so the file is usually a little larger than the sectors in use
+ *
+ * every method holds the lock of the file, and reads copy the entry out, so a read never sees half of a write
+ */
+public class RegionFile {
+
+    // the bytes of a sector, the unit entries are stored in
+    public static final int SECTOR_BYTES = 4096;
+
+    // the first bytes of every region file, "TNRG", and the version of the layout after them
+    private static final int MAGIC = 0x47524E54, VERSION = 1;
+
+    // the bytes before the table - magic, version and the amount of entries
+    private static final int PREAMBLE_BYTES = 12;
+
+    // the bytes of a table entry - first sector and length
+    private static final int ENTRY_BYTES = 8;
+
+    // the amount of entries in the file
+    private final int entries;
+
+    // the sectors taken by the preamble and the table
+    private final int headerSectors;
+
+    // the open file, and the whole of it mapped
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+
+    // the sectors in use, by the header or by an entry
+    private final BitSet used = new BitSet();
+
+    /**
+     * opens a region file, creating it if it does not exist
+     * @param file - the file
+     * @param entries - the amount of entries the file holds
+     * @throws IOException - if the file cannot be opened, or is not a region file of the same amount of entries
+     */
+    public RegionFile(File file, int entries) throws IOException {
+        this.entries = entries;
+        this.headerSectors = (PREAMBLE_BYTES + entries * ENTRY_BYTES + SECTOR_BYTES - 1) / SECTOR_BYTES;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+
+        if (channel.size() == 0) {
+            map(headerSectors);
+            map.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, entries);
+        } else {
+            if (channel.size() % SECTOR_BYTES != 0 || channel.size() < (long) headerSectors * SECTOR_BYTES) {
+                channel.close();
+                throw new IOException(file + " is not a region file, its size is " + channel.size() + " bytes.");
+            }
+            map((int) (channel.size() / SECTOR_BYTES));
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION || map.getInt(8) != entries) {
+                channel.close();
+                throw new IOException(file + " is not a region file of " + entries + " entries.");
+            }
+        }
+
+        used.set(0, headerSectors);
+        for (int i = 0; i < entries; i++) {
+            int first = map.getInt(tableOffset(i)), length = map.getInt(tableOffset(i) + 4);
+            if (length > 0) {
+                used.set(first, first + sectors(length));
+            }
+        }
+    }
+
+    /**
+     * copies an entry out of the file
+     * @param index - the index of the entry
+     * @param out - receives the entry at its position, which is moved past it
+     * @return - the length of the entry in bytes, 0 if it was never written, or -1 if it does not fit in the buffer
+     */
+    public synchronized int read(int index, ByteBuffer out) {
+        checkIndex(index);
+        int first = map.getInt(tableOffset(index)), length = map.getInt(tableOffset(index) + 4);
+        if (length == 0) {
+            return 0;
+        }
+        if (length > out.remaining()) {
+            return -1;
+        }
+        ByteBuffer entry = map.duplicate();
+        entry.position(first * SECTOR_BYTES).limit(first * SECTOR_BYTES + length);
+        out.put(entry);
+        return length;
+    }
+
+    /**
+     * finds the length of an entry
+     * @param index - the index of the entry
+     * @return - the length of the entry in bytes, 0 if it was never written
+     */
+    public synchronized int length(int index) {
+        checkIndex(index);
+        return map.getInt(tableOffset(index) + 4);
+    }
+
+    /**
+     * writes an entry, replacing what it held before
+     * the entry is written before the table points to it, so a run stopped half way leaves the old entry readable
+     * @param index - the index of the entry
+     * @param data - the entry, from its position to its limit, which is left where it was
+     */
+    public synchronized void write(int index, ByteBuffer data) {
+        checkIndex(index);
+        int length = data.remaining();
+        int oldFirst = map.getInt(tableOffset(index)), oldLength = map.getInt(tableOffset(index) + 4);
+
+        // the old sectors stay in use while looking for room, so the live copy is never written over
+        int count = sectors(length), first = headerSectors;
+        while (true) {
+            first = used.nextClearBit(first);
+            int next = used.nextSetBit(first);
+            if (next < 0 || next - first >= count) {
+                break;
+            }
+            first = next;
+        }
+        used.set(first, first + count);
+
+        if (first + count > map.capacity() / SECTOR_BYTES) {
+            try {
+                map(Math.max(first + count, 2 * (map.capacity() / SECTOR_BYTES)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        ByteBuffer target = map.duplicate();
+        target.position(first * SECTOR_BYTES);
+        target.put(data.duplicate());
+
+        map.putInt(tableOffset(index), first).putInt(tableOffset(index) + 4, length);
+        if (oldLength > 0) {
+            used.clear(oldFirst, oldFirst + sectors(oldLength));
+        }
+    }
+
+    /**
+     * makes sure everything written so far has reached the disk
+     */
+    public synchronized void flush() {
+        map.force();
+    }
+
+    /**
+     * flushes and closes the file - it cannot be used afterwards
+     * @throws IOException - if the file cannot be closed
+     */
+    public synchronized void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+
+    /**
+     * getter method
+     * @return - the amount of sectors in use, the header included
+     */
+    public synchronized int getUsedSectors() {
+        return used.cardinality();
+    }
+
+    /**
+     * maps the file again, growing it if needed
+     * @param sectors - the amount of sectors to map
+     * @throws IOException - if the file cannot be mapped
+     */
+    private void map(int sectors) throws IOException {
+        if ((long) sectors * SECTOR_BYTES > Integer.MAX_VALUE) {
+            throw new IOException("A region file cannot grow past " + Integer.MAX_VALUE + " bytes.");
+        }
+        // mapping past the end of the file grows it
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) sectors * SECTOR_BYTES);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * finds where an entry of the table is
+     * @param index - the index of the entry
+     * @return - the offset of the entry's first sector, followed by its length
+     */
+    private static int tableOffset(int index) {
+        return PREAMBLE_BYTES + index * ENTRY_BYTES;
+    }
+
+    /**
+     * finds how many sectors an entry takes
+     * @param length - the length of the entry in bytes
+     * @return - the amount of sectors
+     */
+    private static int sectors(int length) {
+        return (length + SECTOR_BYTES - 1) / SECTOR_BYTES;
+    }
+
+    /**
+     * makes sure an entry exists
+     * @param index - the index of the entry
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= entries) {
+            throw new IllegalArgumentException("Entry " + index + " is outside 0 to " + (entries - 1) + ".");
+        }
+    }
+}
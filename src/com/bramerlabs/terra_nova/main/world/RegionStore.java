@@ -0,0 +1,191 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import com.bramerlabs.engine.math.Key3;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * stores chunks in region files, REGION_SIZE chunks along each axis per file, each chunk compressed on its own
+ *
+ * compression happens outside the lock of the region file, so several threads can store chunks of the same region at
+ * once
+ */
+public class RegionStore implements ChunkStore {
+
+    // the amount of chunks along each axis of a region
+    public static final int REGION_SIZE = 8;
+
+    // the entries of a region - every chunk at every level of detail
+    private static final int ENTRIES = REGION_SIZE * REGION_SIZE * REGION_SIZE * (Chunk.MAX_LOD + 1);
+
+    // the directory the region files are kept in
+    private final File directory;
+
+    // the compression of chunks written from now on - chunks are read with whatever they were written with
+    private final ChunkCompression compression;
+
+    // the region files opened so far, by region coordinates
+    private final ConcurrentHashMap<Key3, RegionFile> regions = new ConcurrentHashMap<>();
+
+    /**
+     * default constructor
+     * @param directory - the directory the region files are kept in, created if it does not exist
+     * @param compression - the compression of chunks written from now on
+     */
+    public RegionStore(File directory, ChunkCompression compression) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Could not create the region directory " + directory + ".");
+        }
+        this.directory = directory;
+        this.compression = compression;
+    }
+
+    /**
+     * copies the stored densities of a chunk into an array
+     * @param key - the integer coordinates of the chunk
+     * @param lod - the level of detail of the array
+     * @param values - the array to fill
+     * @return - true if the chunk was stored with the same amount of samples, false if the array was left untouched
+     */
+    @Override
+    public boolean load(Key3 key, int lod, float[] values) {
+        RegionFile region = region(key, false);
+        if (region == null) {
+            return false;
+        }
+        int index = index(key, lod);
+        int length = region.length(index);
+        if (length == 0) {
+            return false;
+        }
+
+        ByteBuffer entry = ChunkEncoding.scratch(1, length);
+        length = region.read(index, entry);
+        if (length <= 0) {
+            // rewritten in between by another thread, and grown past the buffer
+            return load(key, lod, values);
+        }
+        entry.flip();
+        return ChunkEncoding.decode(entry, values);
+    }
+
+    /**
+     * stores the densities of a chunk, replacing any stored before
+     * @param key - the integer coordinates of the chunk
+     * @param lod - the level of detail of the array
+     * @param values - the densities to store
+     */
+    @Override
+    public void store(Key3 key, int lod, float[] values) {
+        ByteBuffer entry = ChunkEncoding.scratch(1, ChunkEncoding.bound(compression, values.length));
+        ChunkEncoding.encode(values, compression, entry);
+        entry.flip();
+        region(key, true).write(index(key, lod), entry);
+    }
+
+    /**
+     * does nothing - every store goes straight into the mapped region file
+     */
+    @Override
+    public void commit() {
+    }
+
+    /**
+     * makes sure everything stored so far has reached the disk
+     */
+    @Override
+    public void flush() {
+        for (RegionFile region : regions.values()) {
+            region.flush();
+        }
+    }
+
+    /**
+     * flushes and closes every region file - the store cannot be used afterwards
+     */
+    @Override
+    public void close() {
+        for (RegionFile region : regions.values()) {
+            try {
+                region.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.err.println("Could not close a region file in " + directory);
+            }
+        }
+        regions.clear();
+    }
+
+    /**
+     * finds the region file holding a chunk, opening it the first time
+     * @param key - the integer coordinates of the chunk
+     * @param create - if the file should be created when it does not exist
+     * @return - the region file, or null if it does not exist and create is false
+     */
+    private RegionFile region(Key3 key, boolean create) {
+        Key3 region = new Key3(Math.floorDiv(key.getX(), REGION_SIZE), Math.floorDiv(key.getY(), REGION_SIZE),
+                Math.floorDiv(key.getZ(), REGION_SIZE));
+        RegionFile file = regions.get(region);
+        if (file != null) {
+            return file;
+        }
+        File path = new File(directory, "r." + region.getX() + "." + region.getY() + "." + region.getZ() + ".region");
+        if (!create && !path.isFile()) {
+            return null;
+        }
+        return regions.computeIfAbsent(region, r -> {
+            try {
+                return new RegionFile(path, ENTRIES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * finds the entry of a chunk within its region
+     * @param key - the integer coordinates of the chunk
+     * @param lod - the level of detail
+     * @return - the index of the entry
+     */
+    private static int index(Key3 key, int lod) {
+        if (lod < 0 || lod > Chunk.MAX_LOD) {
+            throw new IllegalArgumentException("Level of detail " + lod + " is outside 0 to " + Chunk.MAX_LOD + ".");
+        }
+        int x = Math.floorMod(key.getX(), REGION_SIZE), y = Math.floorMod(key.getY(), REGION_SIZE);
+        int z = Math.floorMod(key.getZ(), REGION_SIZE);
+        return (x + REGION_SIZE * (y + REGION_SIZE * z)) * (Chunk.MAX_LOD + 1) + lod;
+    }
+
+    /**
+     * getter method
+     * @return - the bytes of the sectors in use over every open region file, headers included
+     */
+    public long getUsedBytes() {
+        long sectors = 0;
+        for (RegionFile region : regions.values()) {
+            sectors += region.getUsedSectors();
+        }
+        return sectors * RegionFile.SECTOR_BYTES;
+    }
+
+    /**
+     * getter method
+     * @return - the compression of chunks written from now on
+     */
+    public ChunkCompression getCompression() {
+        return this.compression;
+    }
+
+    /**
+     * getter method
+     * @return - the directory the region files are kept in
+     */
+    public File getDirectory() {
+        return this.directory;
+    }
+}
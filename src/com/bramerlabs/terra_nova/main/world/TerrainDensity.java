@@ -0,0 +1,80 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import com.bramerlabs.engine.math.noise.SimplexNoise;
+import com.bramerlabs.terra_nova.main.marching_cubes.DensityFunction;
+
+public class TerrainDensity implements DensityFunction {
+
+    // the size of the largest terrain features, in world units
+    private static final float LARGEST_FEATURE = 128;
+
+    // how much each smaller octave contributes
+    private static final float PERSISTENCE = 0.5f;
+
+    // the height at which the ground is neither solid nor empty without noise
+    private final float baseHeight;
+
+    // the height over which the density falls off by 1
+    private final float heightScale;
+
+    // the fractal noise shaping the terrain - read only after construction, so it is safe to share between threads
+    private final SimplexNoise noise;
+
+    /**
+     * default constructor
+     * @param seed - the world seed
+     */
+    public TerrainDensity(int seed) {
+        this(seed, 0, 32);
+    }
+
+    /**
+     * constructor for specified values
+     * @param seed - the world seed
+     * @param baseHeight - the height of the ground without noise
+     * @param heightScale - the height over which the density falls off by 1
+     */
+    public TerrainDensity(int seed, float baseHeight, float heightScale) {
+        this.baseHeight = baseHeight;
+        this.heightScale = heightScale;
+        this.noise = new SimplexNoise(LARGEST_FEATURE, PERSISTENCE, seed);
+    }
+
+    /**
+     * samples the terrain - solid below the noisy ground, empty above it
+     * @param x - the x position
+     * @param y - the y position
+     * @param z - the z position
+     * @return - the density at (x, y, z)
+     */
+    @Override
+    public float density(float x, float y, float z) {
+        return (baseHeight - y) / heightScale + (float) noise.getNoise3D(x, y, z);
+    }
+
+    /**
+     * samples the terrain on a regular grid, evaluating the noise a whole grid at a time
+     * @param values - the array to fill
+     * @param originX - the x position of the first sample
+     * @param originY - the y position of the first sample
+     * @param originZ - the z position of the first sample
+     * @param step - the distance between two adjacent samples
+     * @param sizeX - the amount of samples along the x axis
+     * @param sizeY - the amount of samples along the y axis
+     * @param sizeZ - the amount of samples along the z axis
+     */
+    @Override
+    public void density(float[] values, float originX, float originY, float originZ, float step,
+                        int sizeX, int sizeY, int sizeZ) {
+        noise.getNoise3D(originX, originY, originZ, step, sizeX, sizeY, sizeZ, values, 0);
+        int i = 0;
+        for (int z = 0; z < sizeZ; z++) {
+            for (int y = 0; y < sizeY; y++) {
+                float height = (baseHeight - (originY + y * step)) / heightScale;
+                for (int x = 0; x < sizeX; x++, i++) {
+                    values[i] = height + values[i];
+                }
+            }
+        }
+    }
+}
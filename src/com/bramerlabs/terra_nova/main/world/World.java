@@ -0,0 +1,466 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import com.bramerlabs.engine.math.Key3;
+import com.bramerlabs.engine.math.Vector3f;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+public class World {
+
+    // samples and meshes chunks on the worker threads
+    private final ChunkGenerator generator;
+
+    // the distance between samples along a raycast
+    private static final float RAYCAST_STEP = 0.25f * Chunk.CELL_SIZE;
+
+    // the work stealing pool that chunks are generated on
+    private final ForkJoinPool pool;
+
+    // every generated chunk, keyed by its integer coordinates
+    private final ConcurrentHashMap<Key3, Chunk> chunks = new ConcurrentHashMap<>();
+
+    // generated chunks waiting for the render thread to upload them, with the ticket of the request that made them
+    private final Queue<Generated> uploadQueue = new ConcurrentLinkedQueue<>();
+
+    // the coordinates of chunks that have been requested but not uploaded yet, with the ticket of the current request
+    // every request gets a ticket of its own, so a chunk from a dropped request never matches
+    private final ConcurrentHashMap<Key3, Ticket> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * default constructor - generates on one worker thread per core
+     * @param generator - the chunk generator
+     */
+    public World(ChunkGenerator generator) {
+        this(generator, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * constructor for a specified amount of worker threads
+     * @param generator - the chunk generator
+     * @param threads - the amount of worker threads
+     */
+    public World(ChunkGenerator generator, int threads) {
+        this.generator = generator;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * lists the chunk coordinates in a box
+     * @param min - the lowest chunk coordinates, inclusive
+     * @param max - the highest chunk coordinates, inclusive
+     * @return - every chunk coordinate in the box
+     */
+    public static List<Key3> region(Key3 min, Key3 max) {
+        List<Key3> keys = new ArrayList<>();
+        for (int x = min.getX(); x <= max.getX(); x++) {
+            for (int y = min.getY(); y <= max.getY(); y++) {
+                for (int z = min.getZ(); z <= max.getZ(); z++) {
+                    keys.add(new Key3(x, y, z));
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * generates chunks in parallel and waits until all of them are done
+     * the chunks join the world once uploadPending, or loadPending when headless, takes them off the queue
+     * @param keys - the coordinates of the chunks to generate
+     */
+    public void generate(List<Key3> keys) {
+        pool.invoke(new GenerateTask(keys, 0, keys.size()));
+    }
+
+    /**
+     * starts generating chunks in parallel without waiting
+     * the chunks join the world once uploadPending, or loadPending when headless, takes them off the queue
+     * @param keys - the coordinates of the chunks to generate
+     * @return - the running task
+     */
+    public ForkJoinTask<Void> generateAsync(List<Key3> keys) {
+        return pool.submit(new GenerateTask(keys, 0, keys.size()));
+    }
+
+    /**
+     * starts generating a single chunk at full detail unless it is already generated or on its way
+     * @param key - the coordinates of the chunk
+     * @return - true if a new generation task was started
+     */
+    public boolean request(Key3 key) {
+        return request(key, 0);
+    }
+
+    /**
+     * starts generating a single chunk at a level of detail
+     * a chunk that is already loaded at another level stays in place until the new one is uploaded, so no hole opens
+     * up while it is regenerated. only one request per chunk runs at a time.
+     * @param key - the coordinates of the chunk
+     * @param lod - the level of detail
+     * @return - true if a new generation task was started
+     */
+    public boolean request(Key3 key, int lod) {
+        Chunk loaded = chunks.get(key);
+        Ticket ticket = new Ticket(lod);
+        if ((loaded != null && loaded.getLod() == lod) || inFlight.putIfAbsent(key, ticket) != null) {
+            return false;
+        }
+        pool.execute(() -> {
+            try {
+                uploadQueue.add(new Generated(generator.generate(key, lod), ticket));
+            } catch (RuntimeException e) {
+                inFlight.remove(key, ticket);
+                throw e;
+            }
+        });
+        return true;
+    }
+
+    /**
+     * uploads every generated chunk to the GPU - must be called from the render thread
+     * @return - the amount of chunks uploaded
+     */
+    public int uploadPending() {
+        return uploadPending(Long.MAX_VALUE);
+    }
+
+    /**
+     * uploads generated chunks to the GPU until a time budget runs out - must be called from the render thread
+     * at least one chunk is uploaded per call, so a budget smaller than a single upload still makes progress
+     * @param budgetNanos - the time budget in nanoseconds
+     * @return - the amount of chunks uploaded
+     */
+    public int uploadPending(long budgetNanos) {
+        long start = System.nanoTime();
+        int uploaded = 0;
+        Generated generated;
+        while ((generated = uploadQueue.poll()) != null) {
+            if (!accept(generated, true)) {
+                continue;
+            }
+            uploaded++;
+            if (System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+        }
+        return uploaded;
+    }
+
+    /**
+     * moves every generated chunk into the world without uploading it, for headless use such as benchmarks
+     * a world that renders must use uploadPending instead, or the chunks are never drawn
+     * @return - the amount of chunks loaded
+     */
+    public int loadPending() {
+        int loaded = 0;
+        Generated generated;
+        while ((generated = uploadQueue.poll()) != null) {
+            if (accept(generated, false)) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * puts a generated chunk in the world, destroying the chunk it replaces
+     * a requested chunk is thrown away if its request was dropped while it was generated - the chunk was unloaded, or
+     * edited and requested again, and this one may predate the edit. chunks generated without a request always go in
+     * @param generated - the chunk and its ticket
+     * @param upload - true to upload the chunk first
+     * @return - true if the chunk was put in the world
+     */
+    private boolean accept(Generated generated, boolean upload) {
+        Chunk chunk = generated.chunk;
+        Key3 key = chunk.getKey();
+        if (generated.ticket != null && !inFlight.remove(key, generated.ticket)) {
+            chunk.destroy();
+            return false;
+        }
+        if (upload) {
+            chunk.upload();
+        }
+        Chunk replaced = chunks.put(key, chunk);
+        if (replaced != null) {
+            replaced.destroy();
+        }
+        return true;
+    }
+
+    /**
+     * removes a chunk and releases its mesh, cancelling any request for it - must be called from the render thread
+     * the chunk is saved first if the generator has a store
+     * @param key - the coordinates of the chunk
+     * @return - true if the chunk was loaded
+     */
+    public boolean unload(Key3 key) {
+        inFlight.remove(key);
+        Chunk chunk = chunks.remove(key);
+        if (chunk == null) {
+            return false;
+        }
+        generator.save(chunk);
+        chunk.destroy();
+        return true;
+    }
+
+    /**
+     * ends a frame of the store, if the generator has one, writing out the chunks saved as they were unloaded
+     */
+    public void commit() {
+        if (generator.getStore() != null) {
+            generator.getStore().commit();
+        }
+    }
+
+    /**
+     * saves every loaded chunk and flushes the store, if the generator has one
+     */
+    public void save() {
+        if (generator.getStore() == null) {
+            return;
+        }
+        for (Chunk chunk : chunks.values()) {
+            generator.save(chunk);
+        }
+        generator.getStore().flush();
+    }
+
+    /**
+     * edits the terrain with a brush - must be called from the render thread
+     * loaded chunks are remeshed around the brush and patched in place. chunks still being generated may have
+     * sampled the terrain before the edit, so their requests are dropped and made again at the same level of detail.
+     * a dropped request keeps running, but its ticket no longer matches, so its chunk is thrown away rather than
+     * uploaded.
+     * @param brush - the brush to apply
+     * @return - the amount of chunks that were remeshed
+     */
+    public int edit(Brush brush) {
+        generator.addEdit(brush);
+        int edited = 0;
+        for (Key3 key : brush.getChunks()) {
+            Ticket dropped = inFlight.remove(key);
+            if (dropped != null) {
+                request(key, dropped.lod);
+            }
+            Chunk chunk = chunks.get(key);
+            if (chunk != null && chunk.edit(brush)) {
+                edited++;
+            }
+        }
+        return edited;
+    }
+
+    /**
+     * finds where a ray first enters the solid terrain of the loaded chunks
+     * @param origin - the start of the ray
+     * @param direction - the direction of the ray
+     * @param maxDistance - how far to look
+     * @return - the first solid point along the ray, or null if there is none within the distance
+     */
+    public Vector3f raycast(Vector3f origin, Vector3f direction, float maxDistance) {
+        Vector3f step = Vector3f.normalize(direction, RAYCAST_STEP);
+        Vector3f point = new Vector3f(origin.x, origin.y, origin.z);
+        for (float distance = 0; distance <= maxDistance; distance += RAYCAST_STEP) {
+            Chunk chunk = chunks.get(ChunkStreamer.toChunk(point));
+            if (chunk != null && chunk.getField().interpolate(point.x, point.y, point.z) >= 0) {
+                return point;
+            }
+            point = Vector3f.add(point, step);
+        }
+        return null;
+    }
+
+    /**
+     * determines if a chunk has been generated
+     * @param key - the coordinates of the chunk
+     * @return - true if the chunk is loaded
+     */
+    public boolean isLoaded(Key3 key) {
+        return chunks.containsKey(key);
+    }
+
+    /**
+     * determines if a chunk is being generated
+     * @param key - the coordinates of the chunk
+     * @return - true if the chunk has been requested but not uploaded yet
+     */
+    public boolean isInFlight(Key3 key) {
+        return inFlight.containsKey(key);
+    }
+
+    /**
+     * determines if a chunk is loaded at a level of detail
+     * @param key - the coordinates of the chunk
+     * @param lod - the level of detail
+     * @return - true if the chunk is loaded at that level
+     */
+    public boolean isLoaded(Key3 key, int lod) {
+        Chunk chunk = chunks.get(key);
+        return chunk != null && chunk.getLod() == lod;
+    }
+
+    /**
+     * getter method
+     * @return - the amount of chunks that have been requested but not uploaded yet
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * getter method
+     * @return - the amount of generated chunks held in memory
+     */
+    public int getResidentCount() {
+        return chunks.size();
+    }
+
+    /**
+     * getter method
+     * @return - the amount of generated chunks waiting to be uploaded
+     */
+    public int getUploadQueueSize() {
+        return uploadQueue.size();
+    }
+
+    /**
+     * getter method
+     * @return - the amount of worker threads
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * getter method
+     * @param key - the integer coordinates of a chunk
+     * @return - the chunk, or null if it has not been generated
+     */
+    public Chunk getChunk(Key3 key) {
+        return chunks.get(key);
+    }
+
+    /**
+     * getter method
+     * @return - every generated chunk
+     */
+    public Collection<Chunk> getChunks() {
+        return chunks.values();
+    }
+
+    /**
+     * getter method
+     * @return - the chunk generator
+     */
+    public ChunkGenerator getGenerator() {
+        return this.generator;
+    }
+
+    /**
+     * stops the worker threads without touching OpenGL
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * stops the worker threads, saves and releases every chunk - must be called from the render thread
+     * the store itself is left open, for whoever made it to close
+     */
+    public void destroy() {
+        shutdown();
+        save();
+        for (Chunk chunk : chunks.values()) {
+            chunk.destroy();
+        }
+        chunks.clear();
+        uploadQueue.clear();
+        inFlight.clear();
+    }
+
+    /**
+     * generates a range of chunks, splitting the range in half until each task holds a single chunk
+     * idle workers steal the unstarted halves, so uneven chunks still spread evenly over the pool
+     */
+    @SuppressWarnings("serial")
+    private class GenerateTask extends RecursiveAction {
+
+        // the coordinates of the chunks to generate
+        private final List<Key3> keys;
+
+        // the range of keys this task covers
+        private final int start, end;
+
+        /**
+         * default constructor
+         * @param keys - the coordinates of the chunks to generate
+         * @param start - the first key of this task, inclusive
+         * @param end - the last key of this task, exclusive
+         */
+        GenerateTask(List<Key3> keys, int start, int end) {
+            this.keys = keys;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * generates the chunks in this range
+         */
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                uploadQueue.add(new Generated(generator.generate(keys.get(start)), null));
+            } else if (end > start) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new GenerateTask(keys, start, middle), new GenerateTask(keys, middle, end));
+            }
+        }
+    }
+
+    /**
+     * a generated chunk on its way to the render thread
+     */
+    private static class Generated {
+
+        // the chunk
+        private final Chunk chunk;
+
+        // the ticket of the request that made the chunk, null for chunks generated without a request
+        private final Ticket ticket;
+
+        /**
+         * default constructor
+         * @param chunk - the chunk
+         * @param ticket - the ticket of the request that made the chunk
+         */
+        Generated(Chunk chunk, Ticket ticket) {
+            this.chunk = chunk;
+            this.ticket = ticket;
+        }
+    }
+
+    /**
+     * a request for a chunk, matched by identity - every request gets a new one
+     */
+    private static class Ticket {
+
+        // the level of detail the chunk was requested at, so a dropped request can be made again
+        private final int lod;
+
+        /**
+         * default constructor
+         * @param lod - the level of detail the chunk was requested at
+         */
+        Ticket(int lod) {
+            this.lod = lod;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.bramerlabs.terra_nova.main.world;
+
+import com.bramerlabs.engine.math.Hash;
+import com.bramerlabs.engine.math.Key3;
+
+import java.util.SplittableRandom;
+
+/**
+ * the seed of a world, and every seed generation derives from it
+ *
+ * nothing in generation draws from a shared random generator. each system gets its own stream, seeded by a hash of the
+ * world seed and the number of the stream, and each chunk of a stream gets a hash of that seed and the chunk
+ * coordinates. what a chunk holds then depends only on the world seed and where the chunk is - never on which chunks
+ * were generated before it, or on how many threads generated them
+ */
+public class WorldSeed {
+
+    /**
+     * the independent streams of randomness - new streams go at the end, so existing worlds keep their seeds
+     */
+    public enum Stream {
+
+        // the noise shaping the terrain
+        TERRAIN,
+
+        // the regions and climate of the biome map
+        BIOMES,
+
+        // the points scattered over each chunk
+        SCATTER,
+
+        // the shape of each tree
+        TREES,
+
+        // the droplets eroding heightfields
+        EROSION
+    }
+
+    // the seed of the world
+    private final long seed;
+
+    /**
+     * default constructor
+     * @param seed - the seed of the world
+     */
+    public WorldSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * finds the seed of a stream
+     * @param stream - the stream
+     * @return - the seed
+     */
+    public long getSeed(Stream stream) {
+        return Hash.hash(seed, stream.ordinal() + 1);
+    }
+
+    /**
+     * finds the seed of a stream, for the systems seeded by an int
+     * @param stream - the stream
+     * @return - the seed, the top half of the long one
+     */
+    public int getIntSeed(Stream stream) {
+        return (int) (getSeed(stream) >>> 32);
+    }
+
+    /**
+     * finds the seed of a chunk in a stream
+     * @param stream - the stream
+     * @param key - the integer coordinates of the chunk
+     * @return - the seed
+     */
+    public long getChunkSeed(Stream stream, Key3 key) {
+        return Hash.hash(getSeed(stream), key.getX(), key.getY(), key.getZ());
+    }
+
+    /**
+     * finds the seed of a position in a stream, for things placed at exact positions like scattered points
+     * @param stream - the stream
+     * @param x - the x position
+     * @param z - the z position
+     * @return - the seed
+     */
+    public long getPointSeed(Stream stream, float x, float z) {
+        return Hash.hash(getSeed(stream), Float.floatToIntBits(x), Float.floatToIntBits(z));
+    }
+
+    /**
+     * makes a random generator for a chunk in a stream - the same chunk always gets the same sequence
+     * @param stream - the stream
+     * @param key - the integer coordinates of the chunk
+     * @return - a new random generator, for the calling thread only
+     */
+    public SplittableRandom getRandom(Stream stream, Key3 key) {
+        return new SplittableRandom(getChunkSeed(stream, key));
+    }
+
+    /**
+     * getter method
+     * @return - the seed of the world
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+}